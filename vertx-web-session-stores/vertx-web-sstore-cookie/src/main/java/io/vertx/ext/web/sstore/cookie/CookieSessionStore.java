@@ -23,7 +23,8 @@ import io.vertx.ext.web.sstore.cookie.impl.CookieSessionStoreImpl;
 
 /**
  * A SessionStore that uses a Cookie to store the session data. All data is stored in
- * encrypted form using {@code AES-256 with AES/CBC/PKCS5Padding}.
+ * encrypted form using {@code AES-256 with AES/GCM/NoPadding} and a random nonce per cookie. Large payloads can be
+ * compressed before encryption.
  *
  * @author <a href="mailto:plopes@redhat.com">Paulo Lopes</a>
  */
@@ -45,4 +46,20 @@ public interface CookieSessionStore extends SessionStore {
   static CookieSessionStore create(Vertx vertx, String secret, Buffer salt) {
     return new CookieSessionStoreImpl(vertx, secret, salt);
   }
+
+  /**
+   * Creates a CookieSessionStore, optionally compressing the large payloads before encryption.
+   *
+   * Only enable compression when the session never holds both secrets (e.g.: a CSRF token) and values an attacker can
+   * influence, as the length of the cookie then tells how much they have in common.
+   *
+   * @param vertx a vert.x instance
+   * @param secret a secret to derive a secure private key
+   * @param salt a binary salt used in the key derivation
+   * @param compress compress the large payloads
+   * @return the store
+   */
+  static CookieSessionStore create(Vertx vertx, String secret, Buffer salt, boolean compress) {
+    return new CookieSessionStoreImpl(vertx, secret, salt, compress);
+  }
 }
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2018 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.sstore.cookie.impl;
+
+import io.vertx.ext.auth.prng.VertxContextPRNG;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encrypts and decrypts cookie payloads with {@code AES/GCM/NoPadding}.
+ * <p>
+ * Each cookie is encrypted with a random 96 bit nonce and has the layout {@code [format][nonce][ciphertext + tag]}.
+ * The format byte tells if the payload was compressed before encryption and is authenticated with the ciphertext.
+ * <p>
+ * Compression is off by default: when attacker influenced values share a session with secrets, the length of a
+ * compressed payload leaks how much they have in common with the secrets (CRIME like attacks). Compressed cookies are
+ * always accepted.
+ * <p>
+ * {@link Cipher}, {@link Deflater} and {@link Inflater} instances are not thread safe, each thread (usually an event
+ * loop) gets its own instances, so sessions can be encoded from any context without locking.
+ *
+ * @author <a href="mailto:plopes@redhat.com">Paulo Lopes</a>
+ */
+public final class CookieCodec {
+
+  private static final byte FORMAT_GCM = 1;
+  private static final byte FORMAT_GCM_DEFLATED = 2;
+
+  private static final int NONCE_LENGTH = 12;
+  private static final int TAG_LENGTH = 128;
+  // payloads smaller than this hardly compress
+  private static final int DEFLATE_THRESHOLD = 256;
+  // a cookie is at most a few KB, refuse to inflate anything unreasonable
+  private static final int MAX_INFLATED_LENGTH = 256 * 1024;
+
+  private final SecretKeySpec key;
+  private final IvParameterSpec legacyIv;
+  private final VertxContextPRNG random;
+  private final boolean compress;
+
+  private final ThreadLocal<Cipher> gcm = ThreadLocal.withInitial(() -> cipher("AES/GCM/NoPadding"));
+  private final ThreadLocal<Cipher> legacy = ThreadLocal.withInitial(() -> cipher("AES/CBC/PKCS5Padding"));
+  private final ThreadLocal<Deflater> deflater = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED, true));
+  private final ThreadLocal<Inflater> inflater = ThreadLocal.withInitial(() -> new Inflater(true));
+
+  /**
+   * @param key      the AES key
+   * @param legacyIv when not {@code null}, cookies encrypted with {@code AES/CBC/PKCS5Padding} and this IV by
+   *                 previous versions can still be decrypted
+   * @param random   the source of nonces
+   * @param compress  compress the large payloads before encryption
+   */
+  public CookieCodec(SecretKeySpec key, IvParameterSpec legacyIv, VertxContextPRNG random, boolean compress) {
+    this.key = key;
+    this.legacyIv = legacyIv;
+    this.random = random;
+    this.compress = compress;
+    // fail fast if the algorithm is not available
+    gcm.get();
+  }
+
+  public byte[] encrypt(byte[] plain) {
+    byte format = FORMAT_GCM;
+    if (compress && plain.length >= DEFLATE_THRESHOLD) {
+      final byte[] deflated = deflate(plain);
+      if (deflated.length < plain.length) {
+        plain = deflated;
+        format = FORMAT_GCM_DEFLATED;
+      }
+    }
+
+    final byte[] nonce = new byte[NONCE_LENGTH];
+    random.nextBytes(nonce);
+
+    try {
+      final Cipher cipher = gcm.get();
+      cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH, nonce));
+      cipher.updateAAD(new byte[]{format});
+      final byte[] out = new byte[1 + NONCE_LENGTH + cipher.getOutputSize(plain.length)];
+      out[0] = format;
+      System.arraycopy(nonce, 0, out, 1, NONCE_LENGTH);
+      final int len = cipher.doFinal(plain, 0, plain.length, out, 1 + NONCE_LENGTH);
+      return len == out.length - 1 - NONCE_LENGTH ? out : Arrays.copyOf(out, 1 + NONCE_LENGTH + len);
+    } catch (GeneralSecurityException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * @return the plain payload or {@code null} if the cookie cannot be decrypted, e.g.: it was tampered
+   */
+  public byte[] decrypt(byte[] encrypted) {
+    if (encrypted.length > 1 + NONCE_LENGTH && (encrypted[0] == FORMAT_GCM || encrypted[0] == FORMAT_GCM_DEFLATED)) {
+      try {
+        final Cipher cipher = gcm.get();
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH, encrypted, 1, NONCE_LENGTH));
+        cipher.updateAAD(encrypted, 0, 1);
+        final byte[] plain = cipher.doFinal(encrypted, 1 + NONCE_LENGTH, encrypted.length - 1 - NONCE_LENGTH);
+        return encrypted[0] == FORMAT_GCM_DEFLATED ? inflate(plain) : plain;
+      } catch (GeneralSecurityException | DataFormatException e) {
+        // maybe a legacy cookie that happens to start with a format byte
+      }
+    }
+
+    if (legacyIv != null) {
+      try {
+        final Cipher cipher = legacy.get();
+        cipher.init(Cipher.DECRYPT_MODE, key, legacyIv);
+        return cipher.doFinal(encrypted);
+      } catch (GeneralSecurityException e) {
+        // not a legacy cookie either
+      }
+    }
+
+    return null;
+  }
+
+  private byte[] deflate(byte[] plain) {
+    final Deflater deflater = this.deflater.get();
+    deflater.reset();
+    deflater.setInput(plain);
+    deflater.finish();
+    final ByteArrayOutputStream out = new ByteArrayOutputStream(plain.length);
+    final byte[] chunk = new byte[1024];
+    while (!deflater.finished()) {
+      int len = deflater.deflate(chunk);
+      out.write(chunk, 0, len);
+      if (out.size() >= plain.length) {
+        // not worth it
+        break;
+      }
+    }
+    return out.toByteArray();
+  }
+
+  private byte[] inflate(byte[] deflated) throws DataFormatException {
+    final Inflater inflater = this.inflater.get();
+    inflater.reset();
+    inflater.setInput(deflated);
+    final ByteArrayOutputStream out = new ByteArrayOutputStream(deflated.length * 4);
+    final byte[] chunk = new byte[1024];
+    while (!inflater.finished()) {
+      int len = inflater.inflate(chunk);
+      if (len == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+        throw new DataFormatException("Truncated payload");
+      }
+      out.write(chunk, 0, len);
+      if (out.size() > MAX_INFLATED_LENGTH) {
+        throw new DataFormatException("Payload too large");
+      }
+    }
+    return out.toByteArray();
+  }
+
+  private static Cipher cipher(String transformation) {
+    try {
+      return Cipher.getInstance(transformation);
+    } catch (GeneralSecurityException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -19,9 +19,6 @@ import io.vertx.core.buffer.Buffer;
 import io.vertx.ext.auth.prng.VertxContextPRNG;
 import io.vertx.ext.web.sstore.AbstractSession;
 
-import javax.crypto.BadPaddingException;
-import javax.crypto.Cipher;
-import javax.crypto.IllegalBlockSizeException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
@@ -44,27 +41,35 @@ public class CookieSession extends AbstractSession {
 
   private static final Charset UTF8 = StandardCharsets.UTF_8;
 
-  private final Cipher encrypt;
-  private final Cipher decrypt;
+  private final CookieCodec codec;
+  // the last encoded value and the state it was computed from, the encryption nonce is random so the value must be
+  // reused as long as the session does not change
+  private String value;
+  private String valueId;
+  private int valueCrc;
+  private int valueVersion;
+  private long valueLastAccessed;
   // track the original version
   private int oldVersion = 0;
   // track the original crc
   private int oldCrc = 0;
 
-  public CookieSession(Cipher encrypt, Cipher decrypt, VertxContextPRNG prng, long timeout, int length) {
+  public CookieSession(CookieCodec codec, VertxContextPRNG prng, long timeout, int length) {
     super(prng, timeout, length);
-    this.encrypt = encrypt;
-    this.decrypt = decrypt;
+    this.codec = codec;
   }
 
-  public CookieSession(Cipher encrypt, Cipher decrypt, VertxContextPRNG prng) {
+  public CookieSession(CookieCodec codec, VertxContextPRNG prng) {
     super(prng);
-    this.encrypt = encrypt;
-    this.decrypt = decrypt;
+    this.codec = codec;
   }
 
   @Override
   public String value() {
+    final int crc = checksum();
+    if (value != null && id().equals(valueId) && crc == valueCrc && version() == valueVersion && lastAccessed() == valueLastAccessed) {
+      return value;
+    }
 
     Buffer buff = Buffer.buffer();
 
@@ -75,11 +80,17 @@ public class CookieSession extends AbstractSession {
     buff.appendInt(version());
     writeDataToBuffer(buff);
 
-    try {
-      return base64UrlEncode(encrypt.doFinal(buff.getBytes()));
-    } catch (IllegalBlockSizeException | BadPaddingException e) {
-      throw new RuntimeException(e);
-    }
+    final String encoded = base64UrlEncode(codec.encrypt(buff.getBytes()));
+    remember(encoded, crc);
+    return encoded;
+  }
+
+  private void remember(String value, int crc) {
+    this.value = value;
+    this.valueId = id();
+    this.valueCrc = crc;
+    this.valueVersion = version();
+    this.valueLastAccessed = lastAccessed();
   }
 
   @Override
@@ -112,32 +123,34 @@ public class CookieSession extends AbstractSession {
 //      throw new RuntimeException("Session data was Tampered!");
 //    }
 
-    try {
-      final Buffer buffer = Buffer.buffer(decrypt.doFinal(base64UrlDecode(payload)));
-
-      // reconstruct the session
-      int pos = 0;
-      int len = buffer.getInt(0);
-      pos += 4;
-      byte[] bytes = buffer.getBytes(pos, pos + len);
-      pos += len;
-      setId(new String(bytes, UTF8));
-      setTimeout(buffer.getLong(pos));
-      pos += 8;
-      setLastAccessed(buffer.getLong(pos));
-      pos += 8;
-      setVersion(buffer.getInt(pos));
-      pos += 4;
-      readDataFromBuffer(pos, buffer);
-
-      // defaults
-      oldVersion = version();
-      oldCrc = crc();
-    } catch (IllegalBlockSizeException | BadPaddingException e) {
+    final byte[] plain = codec.decrypt(base64UrlDecode(payload));
+    if (plain == null) {
       // this is a bad session, force a regeneration
       return null;
     }
 
+    final Buffer buffer = Buffer.buffer(plain);
+
+    // reconstruct the session
+    int pos = 0;
+    int len = buffer.getInt(0);
+    pos += 4;
+    byte[] bytes = buffer.getBytes(pos, pos + len);
+    pos += len;
+    setId(new String(bytes, UTF8));
+    setTimeout(buffer.getLong(pos));
+    pos += 8;
+    setLastAccessed(buffer.getLong(pos));
+    pos += 8;
+    setVersion(buffer.getInt(pos));
+    pos += 4;
+    readDataFromBuffer(pos, buffer);
+
+    // defaults
+    oldVersion = version();
+    oldCrc = crc();
+    remember(payload, oldCrc);
+
     return this;
   }
 
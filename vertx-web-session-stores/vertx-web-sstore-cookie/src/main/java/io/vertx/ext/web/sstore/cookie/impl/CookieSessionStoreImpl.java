@@ -26,15 +26,11 @@ import io.vertx.ext.web.Session;
 import io.vertx.ext.web.sstore.SessionStore;
 import io.vertx.ext.web.sstore.cookie.CookieSessionStore;
 
-import javax.crypto.Cipher;
-import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.PBEKeySpec;
 import javax.crypto.spec.SecretKeySpec;
-import java.security.InvalidAlgorithmParameterException;
-import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.KeySpec;
@@ -50,13 +46,17 @@ public class CookieSessionStoreImpl implements CookieSessionStore {
   }
 
   public CookieSessionStoreImpl(Vertx vertx, String secret, Buffer salt) {
+    this(vertx, secret, salt, false);
+  }
+
+  public CookieSessionStoreImpl(Vertx vertx, String secret, Buffer salt, boolean compress) {
     init(vertx, new JsonObject()
       .put("secret", secret)
-      .put("salt", salt));
+      .put("salt", salt)
+      .put("compress", compress));
   }
 
-  private Cipher encrypt;
-  private Cipher decrypt;
+  private CookieCodec codec;
   private VertxContextPRNG random;
   private ContextInternal ctx;
 
@@ -70,16 +70,17 @@ public class CookieSessionStoreImpl implements CookieSessionStore {
     Objects.requireNonNull(options.getValue("salt"), "salt must be set");
 
     try {
-      byte[] iv = {0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+      // cookies are encrypted with AES/GCM and a random nonce each, the IV is only needed to decrypt the AES/CBC
+      // cookies issued by previous versions
+      IvParameterSpec legacyIv = null;
       if (options.containsKey("iv")) {
+        byte[] iv = {0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0};
         byte[] tmp = options.getBinary("iv");
         for (int i = 0; i < tmp.length && i < iv.length; i++) {
           iv[i] = tmp[i];
         }
-      } else {
-        random.nextBytes(iv);
+        legacyIv = new IvParameterSpec(iv);
       }
-      IvParameterSpec ivspec = new IvParameterSpec(iv);
 
       SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
       KeySpec spec = new PBEKeySpec(
@@ -91,14 +92,9 @@ public class CookieSessionStoreImpl implements CookieSessionStore {
       SecretKey tmp = factory.generateSecret(spec);
       SecretKeySpec secretKey = new SecretKeySpec(tmp.getEncoded(), "AES");
 
-      encrypt = Cipher.getInstance("AES/CBC/PKCS5Padding");
-      encrypt.init(Cipher.ENCRYPT_MODE, secretKey, ivspec);
-
-      decrypt = Cipher.getInstance("AES/CBC/PKCS5Padding");
-      decrypt.init(Cipher.DECRYPT_MODE, secretKey, ivspec);
+      codec = new CookieCodec(secretKey, legacyIv, random, options.getBoolean("compress", false));
 
-    } catch (NoSuchAlgorithmException | InvalidKeyException | InvalidKeySpecException |
-             InvalidAlgorithmParameterException | NoSuchPaddingException e) {
+    } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
       throw new RuntimeException(e);
     }
 
@@ -112,18 +108,18 @@ public class CookieSessionStoreImpl implements CookieSessionStore {
 
   @Override
   public Session createSession(long timeout) {
-    return new CookieSession(encrypt, decrypt, random, timeout, DEFAULT_SESSIONID_LENGTH);
+    return new CookieSession(codec, random, timeout, DEFAULT_SESSIONID_LENGTH);
   }
 
   @Override
   public Session createSession(long timeout, int length) {
-    return new CookieSession(encrypt, decrypt, random, timeout, length);
+    return new CookieSession(codec, random, timeout, length);
   }
 
   @Override
   public Future<@Nullable Session> get(String cookieValue) {
     try {
-      Session session = new CookieSession(encrypt, decrypt, random).setValue(cookieValue);
+      Session session = new CookieSession(codec, random).setValue(cookieValue);
 
       if (session == null) {
         return ctx.succeededFuture();
@@ -163,6 +159,12 @@ public class CookieSessionStoreImpl implements CookieSessionStore {
     return ctx.succeededFuture();
   }
 
+  @Override
+  public Future<Void> touch(String id, long timeout) {
+    // the session lives in the cookie, which is issued by the session handler
+    return ctx.succeededFuture();
+  }
+
   @Override
   public Future<Void> clear() {
     return ctx.succeededFuture();
@@ -22,9 +22,17 @@ import io.vertx.ext.web.Session;
 import io.vertx.ext.web.handler.SessionHandler;
 import io.vertx.ext.web.sstore.cookie.CookieSessionStore;
 import io.vertx.ext.web.tests.handler.SessionHandlerTestBase;
+import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -67,6 +75,92 @@ public class CookieSessionHandlerTest extends SessionHandlerTestBase {
     await();
   }
 
+  @Test
+  public void testTampered() {
+    Session session = store.createSession(30_000);
+    session.put("role", "user");
+    byte[] bytes = Base64.getUrlDecoder().decode(session.value());
+    bytes[bytes.length / 2] ^= 1;
+    String tampered = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+    store.get(tampered).onComplete(onSuccess(s -> {
+      assertNull(s);
+      testComplete();
+    }));
+
+    await();
+  }
+
+  @Test
+  public void testLargeSessionIsCompressed() {
+    Session session = store.createSession(30_000);
+    String large = "0123456789".repeat(1000);
+    session.put("large", large);
+    String cookieValue = session.value();
+    // fits in the cookie budget
+    assertTrue(cookieValue.length() < 4096);
+
+    store.get(cookieValue).onComplete(onSuccess(s -> {
+      assertEquals(large, s.get("large"));
+      testComplete();
+    }));
+
+    await();
+  }
+
+  @Test
+  public void testCompressionIsOptIn() {
+    CookieSessionStore compressing = CookieSessionStore.create(vertx, "KeyboardCat!", Buffer.buffer("salt"), true);
+    Session plain = store.createSession(30_000);
+    Session compressed = compressing.createSession(30_000);
+    // many small values, each too small to be compressed by the session encoding
+    for (int i = 0; i < 100; i++) {
+      plain.put("key" + i, "0123456789");
+      compressed.put("key" + i, "0123456789");
+    }
+    assertTrue(compressed.value().length() < plain.value().length());
+
+    // compressed cookies are always accepted
+    store.get(compressed.value()).onComplete(onSuccess(s -> {
+      assertEquals("0123456789", s.get("key99"));
+      testComplete();
+    }));
+
+    await();
+  }
+
+  @Test
+  public void testConcurrentEncodeDecode() throws Exception {
+    int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+    int iterations = 2_000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Void>> results = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        final int thread = t;
+        results.add(executor.submit(() -> {
+          for (int i = 0; i < iterations; i++) {
+            Session session = store.createSession(30_000);
+            session.put("thread", thread);
+            session.put("iteration", i);
+            Session decoded = store.get(session.value()).result();
+            // plain junit asserts, the test base ones are meant for the test thread
+            Assert.assertNotNull(decoded);
+            Assert.assertEquals(session.id(), decoded.id());
+            Assert.assertEquals(thread, (int) decoded.get("thread"));
+            Assert.assertEquals(i, (int) decoded.get("iteration"));
+          }
+          return null;
+        }));
+      }
+      for (Future<Void> result : results) {
+        result.get(1, TimeUnit.MINUTES);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   /**
    * This test overrides the original as at the end there is no way to guarantee that the session cannot be
    * reused as Cookies do not preserve state across clients
@@ -115,4 +209,15 @@ public class CookieSessionHandlerTest extends SessionHandlerTestBase {
     super.testSessionExpires();
   }
 
+  /**
+   * We explicitly ignore this test as the session lives in the cookie, touching the store has no effect.
+   *
+   * @throws Exception
+   */
+  @Test
+  @Ignore
+  @Override
+  public void testTouch() throws Exception {
+    super.testTouch();
+  }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.sstore.file;
+
+import io.vertx.codegen.annotations.VertxGen;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.sstore.file.impl.FileSessionStoreImpl;
+
+/**
+ * A SessionStore that keeps the sessions in memory mapped files, so they survive a restart without an external
+ * service. Sessions are appended to a log, reads are served from the mapped memory, and the log is compacted in the
+ * background once most of it is made of stale records. After a crash, the sessions are recovered up to the last
+ * record fully written.
+ *
+ * The files can only be used by one process at a time. Within a Vert.x instance, the stores using the same
+ * {@code path} share the files.
+ *
+ * @author <a href="mailto:plopes@redhat.com">Paulo Lopes</a>
+ */
+@VertxGen
+public interface FileSessionStore extends SessionStore {
+
+  /**
+   * Default of how often, in ms, to check for expired sessions, sync the files and compact the log
+   */
+  long DEFAULT_REAPER_INTERVAL = 1000;
+
+  /**
+   * Default of whether each write is synced to disk before completing. When disabled, writes are synced on each
+   * reaper interval, so a power loss may lose the last interval of writes but not corrupt the log.
+   */
+  boolean DEFAULT_SYNC_ON_WRITE = false;
+
+  /**
+   * Creates a FileSessionStore.
+   *
+   * @param vertx a Vert.x instance
+   * @param path  the directory holding the session files
+   * @return the store
+   */
+  static FileSessionStore create(Vertx vertx, String path) {
+    return create(vertx, new JsonObject().put("path", path));
+  }
+
+  /**
+   * Creates a FileSessionStore. Besides the mandatory {@code path}, the options {@code reaperInterval} and
+   * {@code syncOnWrite} are supported.
+   *
+   * @param vertx   a Vert.x instance
+   * @param options the store options
+   * @return the store
+   */
+  static FileSessionStore create(Vertx vertx, JsonObject options) {
+    FileSessionStoreImpl store = new FileSessionStoreImpl();
+    store.init(vertx, options);
+    return store;
+  }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.sstore.file.impl;
+
+import io.vertx.codegen.annotations.Nullable;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.internal.ContextInternal;
+import io.vertx.core.internal.VertxInternal;
+import io.vertx.core.internal.logging.Logger;
+import io.vertx.core.internal.logging.LoggerFactory;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.ext.auth.prng.VertxContextPRNG;
+import io.vertx.ext.web.Session;
+import io.vertx.ext.web.sstore.SessionStore;
+import io.vertx.ext.web.sstore.file.FileSessionStore;
+import io.vertx.ext.web.sstore.impl.SharedDataSessionImpl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Objects;
+
+/**
+ * @author <a href="mailto:plopes@redhat.com">Paulo Lopes</a>
+ */
+public class FileSessionStoreImpl implements FileSessionStore, Handler<Long> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(FileSessionStoreImpl.class);
+
+  /**
+   * Name of the local map holding the open logs, so the stores of all the verticles share them
+   */
+  private static final String LOGS_MAP_NAME = "vertx-web.sessions.files";
+
+  private VertxInternal vertx;
+  private VertxContextPRNG random;
+  private String key;
+  private SessionLog log;
+  private long reaperInterval;
+  private boolean syncOnWrite;
+
+  private long timerID = -1;
+  private boolean closed;
+
+  public FileSessionStoreImpl() {
+    // required for the service loader
+  }
+
+  @Override
+  public SessionStore init(Vertx vertx, JsonObject options) {
+    Objects.requireNonNull(options.getString("path"), "path must be set");
+
+    // initialize a secure random
+    this.random = VertxContextPRNG.current(vertx);
+    this.vertx = (VertxInternal) vertx;
+    this.reaperInterval = options.getLong("reaperInterval", DEFAULT_REAPER_INTERVAL);
+    this.syncOnWrite = options.getBoolean("syncOnWrite", DEFAULT_SYNC_ON_WRITE);
+
+    final Path dir = Paths.get(options.getString("path")).toAbsolutePath().normalize();
+    this.key = dir.toString();
+    // the log is shared by all the stores using the same directory
+    final LocalMap<String, SessionLog> logs = vertx.sharedData().getLocalMap(LOGS_MAP_NAME);
+    synchronized (FileSessionStoreImpl.class) {
+      SessionLog log = logs.get(key);
+      if (log == null) {
+        try {
+          log = SessionLog.open(dir, Math.max(1L, reaperInterval));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        logs.put(key, log);
+      }
+      log.acquire();
+      this.log = log;
+    }
+
+    setTimer();
+    return this;
+  }
+
+  @Override
+  public long retryTimeout() {
+    return 0;
+  }
+
+  @Override
+  public Session createSession(long timeout) {
+    return new SharedDataSessionImpl(random, timeout, DEFAULT_SESSIONID_LENGTH);
+  }
+
+  @Override
+  public Session createSession(long timeout, int length) {
+    return new SharedDataSessionImpl(random, timeout, length);
+  }
+
+  @Override
+  public Future<@Nullable Session> get(String id) {
+    final ContextInternal ctx = vertx.getOrCreateContext();
+    final byte[] payload = log.get(id);
+    if (payload == null) {
+      return ctx.succeededFuture();
+    }
+    final SharedDataSessionImpl session = new SharedDataSessionImpl(random);
+    try {
+      session.readFromBuffer(0, Buffer.buffer(payload));
+    } catch (RuntimeException e) {
+      return ctx.failedFuture(e);
+    }
+    return ctx.succeededFuture(session);
+  }
+
+  @Override
+  public Future<Void> delete(String id) {
+    final ContextInternal ctx = vertx.getOrCreateContext();
+    try {
+      log.delete(id);
+    } catch (IOException | RuntimeException e) {
+      return ctx.failedFuture(e);
+    }
+    return sync(ctx);
+  }
+
+  @Override
+  public Future<Void> put(Session session) {
+    final ContextInternal ctx = vertx.getOrCreateContext();
+    final SharedDataSessionImpl newSession = (SharedDataSessionImpl) session;
+
+    final int expectedVersion = newSession.version();
+    newSession.incrementVersion();
+    final Buffer buffer = Buffer.buffer();
+    newSession.writeToBuffer(buffer);
+
+    try {
+      if (!log.put(session.id(), expectedVersion, newSession.version(), session.lastAccessed() + session.timeout(), buffer.getBytes())) {
+        return ctx.failedFuture("Session version mismatch");
+      }
+    } catch (IOException | RuntimeException e) {
+      return ctx.failedFuture(e);
+    }
+    return sync(ctx);
+  }
+
+  @Override
+  public Future<Void> touch(String id, long timeout) {
+    final ContextInternal ctx = vertx.getOrCreateContext();
+    try {
+      // the last accessed time follows the id in the serialized session
+      log.touch(id, System.currentTimeMillis(), timeout, 4 + id.getBytes(StandardCharsets.UTF_8).length + 8);
+    } catch (IOException | RuntimeException e) {
+      return ctx.failedFuture(e);
+    }
+    return sync(ctx);
+  }
+
+  @Override
+  public Future<Void> clear() {
+    final ContextInternal ctx = vertx.getOrCreateContext();
+    try {
+      log.clear();
+    } catch (IOException | RuntimeException e) {
+      return ctx.failedFuture(e);
+    }
+    return sync(ctx);
+  }
+
+  @Override
+  public Future<Integer> size() {
+    final ContextInternal ctx = vertx.getOrCreateContext();
+    return ctx.succeededFuture(log.size());
+  }
+
+  @Override
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (timerID != -1) {
+      vertx.cancelTimer(timerID);
+    }
+    synchronized (FileSessionStoreImpl.class) {
+      if (log.release()) {
+        vertx.sharedData().getLocalMap(LOGS_MAP_NAME).remove(key);
+      }
+    }
+  }
+
+  @Override
+  public synchronized void handle(Long tid) {
+    if (closed) {
+      return;
+    }
+    log.expire(System.currentTimeMillis());
+    // syncing and compacting block, they run on a worker
+    vertx.executeBlocking(() -> {
+      log.force();
+      if (log.needsCompaction()) {
+        log.compact();
+      }
+      return null;
+    }, false).onFailure(err -> LOG.warn("Failed to sync the session log", err));
+    setTimer();
+  }
+
+  private Future<Void> sync(ContextInternal ctx) {
+    if (log.startGrowth()) {
+      // remapping the file blocks, do it before an append has to
+      vertx.executeBlocking(() -> {
+        log.grow();
+        return null;
+      }, false).onFailure(err -> LOG.warn("Failed to grow the session log", err));
+    }
+    if (!syncOnWrite) {
+      return ctx.succeededFuture();
+    }
+    return ctx.executeBlocking(() -> {
+      log.force();
+      return null;
+    });
+  }
+
+  private void setTimer() {
+    if (reaperInterval != 0) {
+      timerID = vertx.setTimer(reaperInterval, this);
+    }
+  }
+}
@@ -0,0 +1,661 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.sstore.file.impl;
+
+import io.vertx.core.internal.logging.Logger;
+import io.vertx.core.internal.logging.LoggerFactory;
+import io.vertx.core.shareddata.Shareable;
+import io.vertx.ext.web.sstore.impl.SessionExpiryIndex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * An append only log of serialized sessions in a memory mapped file, with an in memory index of the live records.
+ * <p>
+ * The file starts with a {@code [magic][format]} header followed by records:
+ * {@code [int length][int crc32][byte op][long deadline][int version][short idLength][id][payload]}, where the crc
+ * covers everything after it. A put appends a record and the previous one becomes garbage. On open the log is
+ * scanned to rebuild the index, the scan stops at the first truncated or corrupted record, which is what a crash
+ * while writing leaves behind.
+ * <p>
+ * When garbage dominates, live records are copied to the next generation of the log. The copy runs without holding
+ * the lock, the records appended meanwhile are replayed at the end. The header of the new generation is written and
+ * synced last, so a crash during compaction leaves an incomplete generation which is ignored on open. Closing the
+ * log stops a running compaction and waits for it to remove its files.
+ * <p>
+ * Growing the file remaps it, which blocks. The callers grow it on a worker once it is three quarters full, so the
+ * appends do not have to.
+ *
+ * @author <a href="mailto:plopes@redhat.com">Paulo Lopes</a>
+ */
+final class SessionLog implements Shareable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SessionLog.class);
+
+  private static final int MAGIC = 0x56585353;
+  private static final int FORMAT = 1;
+  private static final int HEADER = 8;
+  // length and crc
+  private static final int RECORD_HEADER = 8;
+  // op, deadline, version and id length
+  private static final int RECORD_FIXED = 1 + 8 + 4 + 2;
+
+  private static final byte OP_PUT = 1;
+  private static final byte OP_DELETE = 2;
+  private static final byte OP_CLEAR = 3;
+
+  private static final int INITIAL_CAPACITY = 1024 * 1024;
+  // below this size compaction is not worth it
+  private static final int MIN_COMPACTION_SIZE = 4 * 1024 * 1024;
+
+  private final Path dir;
+  private final FileChannel lockChannel;
+  private final FileLock lock;
+  private final SessionExpiryIndex expiry;
+
+  private long generation;
+  private FileChannel channel;
+  private MappedByteBuffer buffer;
+  private int writePos;
+  private Map<String, Entry> index = new HashMap<>();
+  // bytes of the records that are no longer live
+  private long garbage;
+  // sequence of the last append and of the last append known to be on disk
+  private long written;
+  private long synced;
+  // held while syncing, so a sync does not return while another one is still writing its records
+  private final Object forceLock = new Object();
+  private boolean compacting;
+  private boolean growing;
+  private int refs;
+  private volatile boolean closed;
+
+  private SessionLog(Path dir, FileChannel lockChannel, FileLock lock, long resolution) {
+    this.dir = dir;
+    this.lockChannel = lockChannel;
+    this.lock = lock;
+    this.expiry = new SessionExpiryIndex(resolution);
+  }
+
+  /**
+   * Open the log in the given directory, recovering the live sessions.
+   *
+   * @param dir        the directory holding the log files
+   * @param resolution the resolution of the expiration index
+   */
+  static SessionLog open(Path dir, long resolution) throws IOException {
+    Files.createDirectories(dir);
+    // the files must not be shared with another process
+    final FileChannel lockChannel = FileChannel.open(dir.resolve("lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    final FileLock lock;
+    try {
+      lock = lockChannel.tryLock();
+    } catch (IOException | RuntimeException e) {
+      lockChannel.close();
+      throw e;
+    }
+    if (lock == null) {
+      lockChannel.close();
+      throw new IllegalStateException("Session files in [" + dir + "] are used by another process");
+    }
+
+    final SessionLog log = new SessionLog(dir, lockChannel, lock, resolution);
+    try {
+      log.recover();
+    } catch (IOException | RuntimeException e) {
+      log.closeFiles();
+      throw e;
+    }
+    return log;
+  }
+
+  synchronized void acquire() {
+    refs++;
+  }
+
+  /**
+   * @return {@code true} when the last user released the log and it was closed
+   */
+  synchronized boolean release() {
+    if (--refs > 0) {
+      return false;
+    }
+    // a running compaction stops at the next record, its files must be closed before ours
+    closed = true;
+    while (compacting) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    if (synced < written) {
+      buffer.force();
+    }
+    closeFiles();
+    return true;
+  }
+
+  private void recover() throws IOException {
+    // pick the latest complete generation, the others are leftovers of a compaction
+    final List<Long> generations = new ArrayList<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "sessions.*.log")) {
+      for (Path file : files) {
+        final String name = file.getFileName().toString();
+        try {
+          generations.add(Long.parseLong(name.substring(9, name.length() - 4)));
+        } catch (NumberFormatException e) {
+          // not ours
+        }
+      }
+    }
+    generations.sort(null);
+
+    for (int i = generations.size() - 1; i >= 0; i--) {
+      final Path file = file(generations.get(i));
+      if (channel == null && hasHeader(file)) {
+        generation = generations.get(i);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_CAPACITY, channel.size()));
+      } else {
+        deleteFile(file);
+      }
+    }
+
+    if (channel == null) {
+      generation = 0;
+      channel = FileChannel.open(file(generation), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, INITIAL_CAPACITY);
+      buffer.putInt(0, MAGIC);
+      buffer.putInt(4, FORMAT);
+      buffer.force();
+      writePos = HEADER;
+      return;
+    }
+
+    final long now = System.currentTimeMillis();
+    writePos = scan(buffer, HEADER, buffer.capacity(), index, now, null);
+    if (writePos < buffer.capacity()) {
+      // clear whatever a torn write left after the last valid record, so it cannot be mistaken for a record once
+      // new records are appended
+      for (int pos = writePos; pos < buffer.capacity(); pos++) {
+        if (buffer.get(pos) != 0) {
+          buffer.put(pos, (byte) 0);
+          written = 1;
+        }
+      }
+    }
+    long live = 0;
+    for (Map.Entry<String, Entry> kv : index.entrySet()) {
+      live += kv.getValue().length;
+      expiry.schedule(kv.getKey(), kv.getValue().deadline);
+    }
+    garbage = writePos - HEADER - live;
+
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Recovered " + index.size() + " sessions from [" + file(generation) + "], " + writePos + " bytes");
+    }
+  }
+
+  /**
+   * Apply the records in {@code [from, to)} to the given index.
+   *
+   * @param target when not {@code null}, the records are also copied to this buffer at its current position
+   * @return the position after the last valid record
+   */
+  private static int scan(ByteBuffer source, int from, int to, Map<String, Entry> index, long now, ByteBuffer target) {
+    final CRC32 crc = new CRC32();
+    int pos = from;
+    while (pos + RECORD_HEADER + RECORD_FIXED <= to) {
+      final int length = source.getInt(pos);
+      if (length < RECORD_FIXED || pos + RECORD_HEADER + length > to) {
+        break;
+      }
+      crc.reset();
+      crc.update(source.duplicate().position(pos + RECORD_HEADER).limit(pos + RECORD_HEADER + length));
+      if ((int) crc.getValue() != source.getInt(pos + 4)) {
+        break;
+      }
+
+      final int offset;
+      if (target != null) {
+        offset = target.position();
+        target.put(source.duplicate().position(pos).limit(pos + RECORD_HEADER + length));
+      } else {
+        offset = pos;
+      }
+
+      final int body = pos + RECORD_HEADER;
+      final byte op = source.get(body);
+      switch (op) {
+        case OP_PUT:
+          final long deadline = source.getLong(body + 1);
+          if (deadline < now) {
+            // expired while the process was down
+            index.remove(readId(source, body));
+          } else {
+            index.put(readId(source, body), new Entry(offset, RECORD_HEADER + length, deadline, source.getInt(body + 9)));
+          }
+          break;
+        case OP_DELETE:
+          index.remove(readId(source, body));
+          break;
+        case OP_CLEAR:
+          index.clear();
+          break;
+        default:
+          // written by a newer version, stop here rather than guessing
+          return pos;
+      }
+      pos += RECORD_HEADER + length;
+    }
+    return pos;
+  }
+
+  private static String readId(ByteBuffer source, int body) {
+    final int idLength = source.getShort(body + 13) & 0xFFFF;
+    final byte[] id = new byte[idLength];
+    source.duplicate().position(body + RECORD_FIXED).get(id);
+    return new String(id, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @return the serialized session or {@code null} if not present or expired
+   */
+  synchronized byte[] get(String id) {
+    final Entry entry = index.get(id);
+    if (entry == null || entry.deadline < System.currentTimeMillis()) {
+      return null;
+    }
+    return payload(entry);
+  }
+
+  /**
+   * Append a session, unless the stored version does not match the expected one.
+   *
+   * @return {@code false} on version mismatch
+   */
+  synchronized boolean put(String id, int expectedVersion, int version, long deadline, byte[] payload) throws IOException {
+    final Entry previous = index.get(id);
+    if (previous != null && previous.version != expectedVersion) {
+      return false;
+    }
+    append(OP_PUT, id, deadline, version, payload);
+    return true;
+  }
+
+  /**
+   * Extend the expiration of a session, the data is copied as is.
+   *
+   * @param lastAccessedOffset the offset of the last accessed time in the serialized session
+   */
+  synchronized void touch(String id, long lastAccessed, long timeout, int lastAccessedOffset) throws IOException {
+    final Entry entry = index.get(id);
+    if (entry == null || entry.deadline < System.currentTimeMillis()) {
+      return;
+    }
+    final byte[] payload = payload(entry);
+    ByteBuffer.wrap(payload).putLong(lastAccessedOffset, lastAccessed);
+    append(OP_PUT, id, lastAccessed + timeout, entry.version, payload);
+  }
+
+  synchronized void delete(String id) throws IOException {
+    if (index.containsKey(id)) {
+      append(OP_DELETE, id, 0L, 0, null);
+    }
+  }
+
+  synchronized void clear() throws IOException {
+    append(OP_CLEAR, "", 0L, 0, null);
+    expiry.clear();
+  }
+
+  synchronized int size() {
+    return index.size();
+  }
+
+  /**
+   * Forget the sessions that expired until now.
+   */
+  synchronized void expire(long now) {
+    for (String id : expiry.collect(now)) {
+      final Entry entry = index.get(id);
+      if (entry == null) {
+        continue;
+      }
+      if (entry.deadline < now) {
+        // no need to log it, expired records are dropped on recovery
+        index.remove(id);
+        garbage += entry.length;
+      } else {
+        expiry.schedule(id, entry.deadline);
+      }
+    }
+  }
+
+  /**
+   * Sync the written records to disk, this blocks. The records appended before the call are on disk when it returns.
+   */
+  void force() {
+    synchronized (forceLock) {
+      final MappedByteBuffer buffer;
+      final long target;
+      synchronized (this) {
+        if (closed || synced >= written) {
+          return;
+        }
+        target = written;
+        buffer = this.buffer;
+      }
+      buffer.force();
+      synchronized (this) {
+        synced = Math.max(synced, target);
+      }
+    }
+  }
+
+  synchronized boolean needsCompaction() {
+    return refs > 0 && !compacting && writePos > MIN_COMPACTION_SIZE && garbage > writePos / 2;
+  }
+
+  /**
+   * @return {@code true} when the file is three quarters full and no growth is running, the caller must then call
+   * {@link #grow()}
+   */
+  synchronized boolean startGrowth() {
+    if (closed || growing || buffer.capacity() == Integer.MAX_VALUE || writePos < buffer.capacity() - (buffer.capacity() >> 2)) {
+      return false;
+    }
+    growing = true;
+    return true;
+  }
+
+  /**
+   * Double the size of the file ahead of the appends, this blocks.
+   */
+  void grow() throws IOException {
+    try {
+      final FileChannel channel;
+      final int capacity;
+      synchronized (this) {
+        channel = this.channel;
+        capacity = capacityFor(buffer.capacity() + 1L);
+      }
+      final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+      synchronized (this) {
+        // a compaction may have moved to a new file meanwhile
+        if (!closed && channel == this.channel && capacity > buffer.capacity()) {
+          buffer = mapped;
+        }
+      }
+    } finally {
+      synchronized (this) {
+        growing = false;
+      }
+    }
+  }
+
+  /**
+   * Copy the live records to a new generation of the log, this blocks.
+   */
+  void compact() throws IOException {
+    final Map<String, Entry> snapshot;
+    final ByteBuffer source;
+    final int tailStart;
+    final long next;
+    synchronized (this) {
+      if (compacting || closed) {
+        return;
+      }
+      compacting = true;
+      snapshot = new HashMap<>(index);
+      source = buffer.duplicate();
+      tailStart = writePos;
+      next = generation + 1;
+    }
+
+    final Path file = file(next);
+    FileChannel target = null;
+    try {
+      long live = HEADER;
+      for (Entry entry : snapshot.values()) {
+        live += entry.length;
+      }
+      target = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      MappedByteBuffer mapped = target.map(FileChannel.MapMode.READ_WRITE, 0, capacityFor(live));
+
+      // the records before the tail are never modified, they can be copied without holding the lock
+      final Map<String, Entry> copied = new HashMap<>();
+      mapped.position(HEADER);
+      for (Map.Entry<String, Entry> kv : snapshot.entrySet()) {
+        if (closed) {
+          return;
+        }
+        final Entry entry = kv.getValue();
+        final int offset = mapped.position();
+        mapped.put(source.duplicate().position(entry.offset).limit(entry.offset + entry.length));
+        copied.put(kv.getKey(), new Entry(offset, entry.length, entry.deadline, entry.version));
+      }
+      mapped.force();
+
+      synchronized (this) {
+        if (closed) {
+          return;
+        }
+        // replay what was appended meanwhile, deletes included so they are not lost on recovery
+        final int tailLength = writePos - tailStart;
+        if (mapped.remaining() < tailLength) {
+          final int position = mapped.position();
+          mapped = target.map(FileChannel.MapMode.READ_WRITE, 0, capacityFor((long) position + tailLength));
+          mapped.position(position);
+        }
+        scan(buffer, tailStart, writePos, copied, Long.MIN_VALUE, mapped);
+        // sessions may have expired during the copy
+        final long now = System.currentTimeMillis();
+        copied.values().removeIf(entry -> entry.deadline < now);
+        mapped.putInt(0, MAGIC);
+        mapped.putInt(4, FORMAT);
+        mapped.force();
+
+        final Path previous = file(generation);
+        channel.close();
+        channel = target;
+        target = null;
+        buffer = mapped;
+        generation = next;
+        long liveBytes = 0;
+        for (Entry entry : copied.values()) {
+          liveBytes += entry.length;
+        }
+        writePos = mapped.position();
+        garbage = writePos - HEADER - liveBytes;
+        index = copied;
+        synced = written;
+        // may fail on platforms that do not allow deleting mapped files, then it is deleted on the next open
+        deleteFile(previous);
+
+        if (LOG.isDebugEnabled()) {
+          LOG.debug("Compacted the session log to [" + file + "], " + writePos + " bytes");
+        }
+      }
+    } finally {
+      if (target != null) {
+        // failed or stopped by close
+        try {
+          target.close();
+        } catch (IOException e) {
+          LOG.debug("Failed to close [" + file + "]", e);
+        }
+        deleteFile(file);
+      }
+      synchronized (this) {
+        compacting = false;
+        notifyAll();
+      }
+    }
+  }
+
+  private void append(byte op, String id, long deadline, int version, byte[] payload) throws IOException {
+    final byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+    if (idBytes.length > 0xFFFF) {
+      throw new IllegalArgumentException("Session id too long");
+    }
+    final int length = RECORD_FIXED + idBytes.length + (payload == null ? 0 : payload.length);
+    ensureCapacity(RECORD_HEADER + length);
+
+    final int pos = writePos;
+    final int body = pos + RECORD_HEADER;
+    buffer.put(body, op);
+    buffer.putLong(body + 1, deadline);
+    buffer.putInt(body + 9, version);
+    buffer.putShort(body + 13, (short) idBytes.length);
+    final ByteBuffer out = buffer.duplicate().position(body + RECORD_FIXED);
+    out.put(idBytes);
+    if (payload != null) {
+      out.put(payload);
+    }
+    final CRC32 crc = new CRC32();
+    crc.update(buffer.duplicate().position(body).limit(body + length));
+    buffer.putInt(pos + 4, (int) crc.getValue());
+    buffer.putInt(pos, length);
+    writePos = body + length;
+    written++;
+
+    final Entry previous;
+    switch (op) {
+      case OP_PUT:
+        previous = index.put(id, new Entry(pos, RECORD_HEADER + length, deadline, version));
+        expiry.schedule(id, deadline);
+        break;
+      case OP_DELETE:
+        previous = index.remove(id);
+        expiry.remove(id);
+        garbage += RECORD_HEADER + length;
+        break;
+      default:
+        previous = null;
+        for (Entry entry : index.values()) {
+          garbage += entry.length;
+        }
+        index.clear();
+        garbage += RECORD_HEADER + length;
+    }
+    if (previous != null) {
+      garbage += previous.length;
+    }
+  }
+
+  private void ensureCapacity(int length) throws IOException {
+    if (writePos + length <= buffer.capacity()) {
+      return;
+    }
+    // the file is grown ahead on a worker, this is only reached by a record larger than the free space left then
+    // the old mapping stays valid for the compaction that may still be reading it
+    buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacityFor((long) writePos + length));
+  }
+
+  private byte[] payload(Entry entry) {
+    final int body = entry.offset + RECORD_HEADER;
+    final int idLength = buffer.getShort(body + 13) & 0xFFFF;
+    final int start = body + RECORD_FIXED + idLength;
+    final byte[] payload = new byte[entry.offset + entry.length - start];
+    buffer.duplicate().position(start).get(payload);
+    return payload;
+  }
+
+  private Path file(long generation) {
+    return dir.resolve("sessions." + generation + ".log");
+  }
+
+  private static int capacityFor(long size) {
+    long capacity = INITIAL_CAPACITY;
+    while (capacity < size) {
+      capacity <<= 1;
+    }
+    if (capacity > Integer.MAX_VALUE) {
+      if (size > Integer.MAX_VALUE) {
+        throw new IllegalStateException("Session log is full");
+      }
+      capacity = Integer.MAX_VALUE;
+    }
+    return (int) capacity;
+  }
+
+  private static boolean hasHeader(Path file) throws IOException {
+    try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+      final ByteBuffer header = ByteBuffer.allocate(HEADER);
+      while (header.hasRemaining() && ch.read(header) != -1) {
+        // keep reading
+      }
+      return !header.hasRemaining() && header.getInt(0) == MAGIC && header.getInt(4) == FORMAT;
+    }
+  }
+
+  private static void deleteFile(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      LOG.debug("Failed to delete [" + file + "]", e);
+    }
+  }
+
+  private void closeFiles() {
+    try {
+      if (channel != null) {
+        channel.close();
+      }
+    } catch (IOException e) {
+      LOG.warn("Failed to close the session log", e);
+    }
+    try {
+      lock.release();
+      lockChannel.close();
+    } catch (IOException e) {
+      LOG.warn("Failed to release the session log lock", e);
+    }
+  }
+
+  private static final class Entry {
+
+    private final int offset;
+    // including the record header
+    private final int length;
+    private final long deadline;
+    private final int version;
+
+    private Entry(int offset, int length, long deadline, int version) {
+      this.offset = offset;
+      this.length = length;
+      this.deadline = deadline;
+      this.version = version;
+    }
+  }
+}
@@ -0,0 +1,4 @@
+@ModuleGen(name = "vertx-web-sstore-file", groupPackage = "io.vertx")
+package io.vertx.ext.web.sstore.file;
+
+import io.vertx.codegen.annotations.ModuleGen;
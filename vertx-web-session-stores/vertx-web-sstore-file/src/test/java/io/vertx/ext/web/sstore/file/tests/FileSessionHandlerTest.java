@@ -0,0 +1,221 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.sstore.file.tests;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Session;
+import io.vertx.ext.web.sstore.SessionStore;
+import io.vertx.ext.web.sstore.file.FileSessionStore;
+import io.vertx.ext.web.tests.handler.SessionHandlerTestBase;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * @author <a href="mailto:plopes@redhat.com">Paulo Lopes</a>
+ */
+public class FileSessionHandlerTest extends SessionHandlerTestBase {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private String path;
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    path = folder.newFolder().getAbsolutePath();
+    store = FileSessionStore.create(vertx, path);
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    store.close();
+    super.tearDown();
+  }
+
+  @Test
+  public void testRecoverAfterRestart() throws Exception {
+    Session session = store.createSession(30_000);
+    session.put("foo", "bar");
+    awaitFuture(store.put(session));
+    Session deleted = store.createSession(30_000);
+    awaitFuture(store.put(deleted));
+    awaitFuture(store.delete(deleted.id()));
+
+    store.close();
+    store = FileSessionStore.create(vertx, path);
+
+    Session recovered = awaitFuture(store.get(session.id()));
+    assertNotNull(recovered);
+    assertEquals("bar", recovered.get("foo"));
+    assertNull(awaitFuture(store.get(deleted.id())));
+    assertEquals(1, (int) awaitFuture(store.size()));
+  }
+
+  @Test
+  public void testRecoverTornWrite() throws Exception {
+    Session session = store.createSession(30_000);
+    session.put("foo", "bar");
+    awaitFuture(store.put(session));
+    store.close();
+
+    // simulate a record partially written when the process died
+    File log = logFile();
+    byte[] content = Files.readAllBytes(log.toPath());
+    int end = content.length - 1;
+    while (end > 0 && content[end] == 0) {
+      end--;
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(log, "rw")) {
+      raf.seek(end + 1);
+      raf.writeInt(64);
+      raf.writeInt(0xBAD);
+      for (int i = 0; i < 32; i++) {
+        raf.write(0x7F);
+      }
+    }
+
+    store = FileSessionStore.create(vertx, path);
+    assertEquals("bar", awaitFuture(store.get(session.id())).get("foo"));
+    Session other = store.createSession(30_000);
+    other.put("baz", 1);
+    awaitFuture(store.put(other));
+    store.close();
+
+    // records appended after the recovery are not lost
+    store = FileSessionStore.create(vertx, path);
+    assertEquals("bar", awaitFuture(store.get(session.id())).get("foo"));
+    assertEquals(1, (int) awaitFuture(store.get(other.id())).get("baz"));
+  }
+
+  @Test
+  public void testExpiredSessionsAreNotRecovered() throws Exception {
+    Session session = store.createSession(100);
+    awaitFuture(store.put(session));
+    store.close();
+
+    Thread.sleep(200);
+    store = FileSessionStore.create(vertx, path);
+    assertNull(awaitFuture(store.get(session.id())));
+    assertEquals(0, (int) awaitFuture(store.size()));
+  }
+
+  @Test
+  public void testCompaction() throws Exception {
+    store.close();
+    store = FileSessionStore.create(vertx, new JsonObject().put("path", path).put("reaperInterval", 50));
+
+    Session session = store.createSession(30_000);
+    Session kept = store.createSession(30_000);
+    kept.put("foo", "bar");
+    awaitFuture(store.put(kept));
+    // overwrite the same session until most of the log is garbage
+    for (int i = 0; i < 100; i++) {
+      session.put("data", "x".repeat(64 * 1024) + i);
+      awaitFuture(store.put(session));
+      session = awaitFuture(store.get(session.id()));
+    }
+
+    waitUntil(() -> generation(logFile()) > 0);
+    // the stale copies are gone
+    assertTrue(logFile().length() < 100 * 64 * 1024);
+
+    assertEquals("bar", awaitFuture(store.get(kept.id())).get("foo"));
+    assertEquals("x".repeat(64 * 1024) + 99, awaitFuture(store.get(session.id())).get("data"));
+
+    // the compacted log is recovered too
+    store.close();
+    store = FileSessionStore.create(vertx, path);
+    assertEquals("bar", awaitFuture(store.get(kept.id())).get("foo"));
+    assertEquals(2, (int) awaitFuture(store.size()));
+  }
+
+  @Test
+  public void testCloseDuringCompaction() throws Exception {
+    store.close();
+    store = FileSessionStore.create(vertx, new JsonObject().put("path", path).put("reaperInterval", 1));
+
+    Session session = store.createSession(30_000);
+    for (int i = 0; i < 100; i++) {
+      session.put("data", "x".repeat(64 * 1024) + i);
+      awaitFuture(store.put(session));
+      session = awaitFuture(store.get(session.id()));
+    }
+    // may stop a running compaction
+    store.close();
+
+    // whatever the compaction did, a single generation is left and nothing is lost
+    try (Stream<Path> files = Files.list(new File(path).toPath())) {
+      assertEquals(1, files.filter(p -> p.getFileName().toString().endsWith(".log")).count());
+    }
+    store = FileSessionStore.create(vertx, path);
+    assertEquals("x".repeat(64 * 1024) + 99, awaitFuture(store.get(session.id())).get("data"));
+  }
+
+  @Test
+  public void testGrowAhead() throws Exception {
+    long initial = logFile().length();
+    Session session = store.createSession(30_000);
+    // fill three quarters of the file
+    while (logFile().length() == initial && session.version() * 64L * 1024 < initial) {
+      session.put("data", "x".repeat(64 * 1024));
+      awaitFuture(store.put(session));
+      session = awaitFuture(store.get(session.id()));
+    }
+    // the file is grown before an append needs it
+    waitUntil(() -> logFile().length() > initial);
+    assertTrue(session.version() * 64L * 1024 < initial);
+  }
+
+  @Test
+  public void testSharedFiles() throws Exception {
+    // the same vert.x instance shares the files
+    SessionStore shared = FileSessionStore.create(vertx, path);
+    Session session = store.createSession(30_000);
+    awaitFuture(store.put(session));
+    assertNotNull(awaitFuture(shared.get(session.id())));
+    shared.close();
+    // still usable by the first store
+    assertNotNull(awaitFuture(store.get(session.id())));
+  }
+
+  private File logFile() {
+    try (Stream<Path> files = Files.list(new File(path).toPath())) {
+      return files
+        .filter(p -> p.getFileName().toString().endsWith(".log"))
+        .map(Path::toFile)
+        .reduce((a, b) -> generation(a) >= generation(b) ? a : b)
+        .orElseThrow();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static long generation(File file) {
+    // sessions.<generation>.log
+    String name = file.getName();
+    return Long.parseLong(name.substring(9, name.length() - 4));
+  }
+}
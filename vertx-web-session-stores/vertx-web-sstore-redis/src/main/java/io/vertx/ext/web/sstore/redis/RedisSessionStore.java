@@ -32,6 +32,18 @@ import io.vertx.redis.client.Redis;
 public interface RedisSessionStore extends SessionStore {
   long DEFAULT_RETRY_TIMEOUT_MS = 2 * 1000;
 
+  /**
+   * Default of whether sessions are stored as Redis hashes
+   */
+  boolean DEFAULT_HASH_LAYOUT = false;
+
+  /**
+   * Default of whether new sessions are announced on a Redis pub/sub channel, configured with the
+   * {@code notifyStored} option. When enabled, the store keeps a subscribed connection and requests for a session
+   * not stored yet are woken up once it is, instead of polling Redis until the retry timeout.
+   */
+  boolean DEFAULT_NOTIFY_STORED = false;
+
   /**
    * Creates a RedisSessionStore with the default retry TO.
    *
@@ -56,4 +68,24 @@ public interface RedisSessionStore extends SessionStore {
     store.init(vertx, retryTimeoutMs, redis);
     return store;
   }
+
+  /**
+   * Creates a RedisSessionStore with the given retry TO and storage layout.
+   * <p>
+   * With the hash layout each session is stored as a Redis hash with one field per data entry. Only the entries
+   * modified during a request are written back, which saves bandwidth when sessions hold large values that rarely
+   * change. Entries modified through {@link io.vertx.ext.web.Session#data()} directly cannot be tracked, in this case
+   * the whole session is written.
+   *
+   * @param vertx          a Vert.x instance
+   * @param retryTimeoutMs The time between two consecutive tries
+   * @param redis          A Redis client
+   * @param hashLayout     {@code true} to store sessions as Redis hashes
+   * @return the store
+   */
+  static RedisSessionStore create(Vertx vertx, long retryTimeoutMs, Redis redis, boolean hashLayout) {
+    RedisSessionStoreImpl store = new RedisSessionStoreImpl();
+    store.init(vertx, retryTimeoutMs, redis, hashLayout);
+    return store;
+  }
 }
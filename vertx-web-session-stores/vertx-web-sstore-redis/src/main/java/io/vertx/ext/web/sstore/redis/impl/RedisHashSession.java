@@ -0,0 +1,173 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.sstore.redis.impl;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.auth.prng.VertxContextPRNG;
+import io.vertx.ext.web.sstore.impl.SharedDataSessionImpl;
+import io.vertx.redis.client.Response;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A session stored as a Redis hash: one field per metadata attribute and one field per data entry, so updates can
+ * be written per key.
+ *
+ * @author <a href="mailto:plopes@redhat.com">Paulo Lopes</a>
+ */
+class RedisHashSession extends SharedDataSessionImpl {
+
+  static final String TIMEOUT = "m:timeout";
+  static final String LAST_ACCESSED = "m:lastAccessed";
+  static final String VERSION = "m:version";
+  static final String DATA_PREFIX = "d:";
+
+  // encoded value of each entry as last read from or written to redis, values can be modified in place (e.g.: a
+  // JsonObject or a byte[]) without going through the session API, so the encodings are compared
+  private final Map<String, Buffer> stored = new HashMap<>();
+  // encoded values of the write in progress, they become the stored state once written
+  private final Map<String, Buffer> writing = new HashMap<>();
+
+  RedisHashSession(VertxContextPRNG random) {
+    super(random);
+  }
+
+  RedisHashSession(VertxContextPRNG random, long timeout, int length) {
+    super(random, timeout, length);
+  }
+
+  /**
+   * Load the session from a flat {@code HGETALL} reply.
+   */
+  void readFromHash(String id, Response fields) {
+    final Map<String, Object> data = new ConcurrentHashMap<>();
+    stored.clear();
+    writing.clear();
+    setId(id);
+    for (int i = 0; i + 1 < fields.size(); i += 2) {
+      final String field = fields.get(i).toString();
+      final Response value = fields.get(i + 1);
+      switch (field) {
+        case TIMEOUT:
+          setTimeout(value.toLong());
+          break;
+        case LAST_ACCESSED:
+          setLastAccessed(value.toLong());
+          break;
+        case VERSION:
+          setVersion(value.toInteger());
+          break;
+        default:
+          if (field.startsWith(DATA_PREFIX)) {
+            final String key = field.substring(DATA_PREFIX.length());
+            final Buffer encoded = value.toBuffer();
+            data.put(key, readValueFromBuffer(encoded));
+            stored.put(key, encoded);
+          }
+      }
+    }
+    setData(data);
+  }
+
+  /**
+   * @return the keys that differ from the last state read from or written to redis
+   */
+  Set<String> dirtyKeys() {
+    final Set<String> changed = changedKeys();
+    if (changed == null) {
+      // the data map was handed out, any entry may have changed
+      final Set<String> dirty = new HashSet<>(stored.keySet());
+      if (!isEmpty()) {
+        for (Map.Entry<String, Object> entry : data().entrySet()) {
+          if (!isStored(entry.getKey(), entry.getValue())) {
+            dirty.add(entry.getKey());
+          } else {
+            dirty.remove(entry.getKey());
+          }
+        }
+      }
+      return dirty;
+    }
+    final Set<String> dirty = new HashSet<>(changed);
+    // the mutable values handed out may have been modified in place
+    for (String key : readKeys()) {
+      if (!dirty.contains(key) && !isStored(key, get(key))) {
+        dirty.add(key);
+      }
+    }
+    return dirty;
+  }
+
+  /**
+   * Record the values encoded by {@link #encode(String)} as the state stored in redis.
+   *
+   * @param written the keys written, or {@code null} if all the session data was written
+   */
+  void markStored(Set<String> written) {
+    if (written == null) {
+      stored.clear();
+      if (!isEmpty()) {
+        for (String key : data().keySet()) {
+          final Buffer encoded = writing.get(key);
+          if (encoded != null) {
+            stored.put(key, encoded);
+          }
+        }
+      }
+    } else {
+      for (String key : written) {
+        final Buffer encoded = writing.get(key);
+        if (encoded == null) {
+          stored.remove(key);
+        } else {
+          stored.put(key, encoded);
+        }
+      }
+    }
+    writing.clear();
+  }
+
+  private boolean isStored(String key, Object value) {
+    final Buffer encoded = stored.get(key);
+    if (value == null || encoded == null) {
+      return value == null && encoded == null;
+    }
+    return encoded.equals(encodeValue(value));
+  }
+
+  /**
+   * Encode the value of a data entry as a hash field value.
+   *
+   * @param key the data key
+   * @return the encoded value or {@code null} if the entry was removed
+   */
+  Buffer encode(String key) {
+    final Object value = get(key);
+    final Buffer encoded = value == null ? null : encodeValue(value);
+    writing.put(key, encoded);
+    return encoded;
+  }
+
+  private Buffer encodeValue(Object value) {
+    final Buffer buffer = Buffer.buffer();
+    writeValueToBuffer(buffer, value);
+    return buffer;
+  }
+}
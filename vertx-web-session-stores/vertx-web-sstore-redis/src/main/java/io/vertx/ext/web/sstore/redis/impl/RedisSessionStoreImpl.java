@@ -17,6 +17,7 @@ package io.vertx.ext.web.sstore.redis.impl;
 
 import io.vertx.codegen.annotations.Nullable;
 import io.vertx.core.Future;
+import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.internal.ContextInternal;
@@ -28,10 +29,22 @@ import io.vertx.ext.web.sstore.SessionStore;
 import io.vertx.ext.web.sstore.impl.SharedDataSessionImpl;
 import io.vertx.ext.web.sstore.redis.RedisSessionStore;
 import io.vertx.redis.client.Redis;
+import io.vertx.redis.client.RedisConnection;
 import io.vertx.redis.client.RedisOptions;
 import io.vertx.redis.client.Request;
+import io.vertx.redis.client.Response;
+import io.vertx.redis.client.ResponseType;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 import static io.vertx.redis.client.Command.*;
 import static io.vertx.redis.client.Request.cmd;
@@ -40,11 +53,127 @@ import static io.vertx.redis.client.Request.cmd;
  * @author <a href="https://github.com/llfbandit">Rémy Noël</a>
  */
 public class RedisSessionStoreImpl implements RedisSessionStore {
+
+  // Sessions are stored in the SharedDataSessionImpl format: [int idLength][id][long timeout][long lastAccessed]
+  // [int version][data], all numbers are big endian. The scripts below read the header fields server side so each
+  // operation is a single round trip.
+
+  /**
+   * Get the session and postpone its expiration by the session timeout.
+   */
+  private static final String GET_SCRIPT =
+    "local data = redis.call('GET', KEYS[1])\n" +
+    "if data then\n" +
+    "  local idlen = struct.unpack('>I4', data)\n" +
+    "  redis.call('PEXPIRE', KEYS[1], (struct.unpack('>i8', data, idlen + 5)))\n" +
+    "end\n" +
+    "return data\n";
+
+  /**
+   * Store the session only if the stored version (if any) matches the expected one. Returns 0 on mismatch.
+   */
+  private static final String PUT_SCRIPT =
+    "local header = redis.call('GETRANGE', KEYS[1], 0, 3)\n" +
+    "if #header == 4 then\n" +
+    "  local idlen = struct.unpack('>I4', header)\n" +
+    "  local version = struct.unpack('>i4', redis.call('GETRANGE', KEYS[1], idlen + 20, idlen + 23))\n" +
+    "  if version ~= tonumber(ARGV[1]) then\n" +
+    "    return 0\n" +
+    "  end\n" +
+    "end\n" +
+    "redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3])\n" +
+    "return 1\n";
+
+  /**
+   * Postpone the expiration of the session and update its last accessed time in place.
+   */
+  private static final String TOUCH_SCRIPT =
+    "if redis.call('PEXPIRE', KEYS[1], ARGV[1]) == 1 then\n" +
+    "  local idlen = struct.unpack('>I4', redis.call('GETRANGE', KEYS[1], 0, 3))\n" +
+    "  redis.call('SETRANGE', KEYS[1], idlen + 12, struct.pack('>i8', tonumber(ARGV[2])))\n" +
+    "end\n" +
+    "return 1\n";
+
+  // With the hash layout, a session is a Redis hash: "m:*" fields hold the metadata (as decimal strings) and "d:*"
+  // fields hold one data entry each.
+
+  /**
+   * Get all the session fields and postpone its expiration by the session timeout.
+   */
+  private static final String HASH_GET_SCRIPT =
+    "local fields = redis.call('HGETALL', KEYS[1])\n" +
+    "if #fields > 0 then\n" +
+    "  local timeout = redis.call('HGET', KEYS[1], 'm:timeout')\n" +
+    "  if timeout then\n" +
+    "    redis.call('PEXPIRE', KEYS[1], timeout)\n" +
+    "  end\n" +
+    "end\n" +
+    "return fields\n";
+
+  /**
+   * Write the session if the stored version (if any) matches the expected one. ARGV holds: expected version,
+   * new version, timeout, last accessed, mode ("full" or "delta"), the number N of fields to set, N field/value pairs
+   * and finally the fields to delete. Returns 0 on version mismatch and -1 when a delta targets a missing session.
+   */
+  private static final String HASH_PUT_SCRIPT =
+    "local version = redis.call('HGET', KEYS[1], 'm:version')\n" +
+    "if version then\n" +
+    "  if version ~= ARGV[1] then\n" +
+    "    return 0\n" +
+    "  end\n" +
+    "elseif ARGV[5] == 'delta' then\n" +
+    "  return -1\n" +
+    "end\n" +
+    "if ARGV[5] == 'full' then\n" +
+    "  redis.call('DEL', KEYS[1])\n" +
+    "end\n" +
+    "local n = tonumber(ARGV[6])\n" +
+    "local hset = {'m:version', ARGV[2], 'm:timeout', ARGV[3], 'm:lastAccessed', ARGV[4]}\n" +
+    "for i = 7, 6 + 2 * n do\n" +
+    "  hset[#hset + 1] = ARGV[i]\n" +
+    "end\n" +
+    "redis.call('HSET', KEYS[1], unpack(hset))\n" +
+    "if #ARGV > 6 + 2 * n then\n" +
+    "  local hdel = {}\n" +
+    "  for i = 7 + 2 * n, #ARGV do\n" +
+    "    hdel[#hdel + 1] = ARGV[i]\n" +
+    "  end\n" +
+    "  redis.call('HDEL', KEYS[1], unpack(hdel))\n" +
+    "end\n" +
+    "redis.call('PEXPIRE', KEYS[1], ARGV[3])\n" +
+    "return 1\n";
+
+  /**
+   * Postpone the expiration of the session hash and update its last accessed time.
+   */
+  private static final String HASH_TOUCH_SCRIPT =
+    "if redis.call('PEXPIRE', KEYS[1], ARGV[1]) == 1 then\n" +
+    "  redis.call('HSET', KEYS[1], 'm:lastAccessed', ARGV[2])\n" +
+    "end\n" +
+    "return 1\n";
+
+  private static final String GET_SCRIPT_SHA = sha1(GET_SCRIPT);
+  private static final String PUT_SCRIPT_SHA = sha1(PUT_SCRIPT);
+  private static final String HASH_GET_SCRIPT_SHA = sha1(HASH_GET_SCRIPT);
+  private static final String HASH_PUT_SCRIPT_SHA = sha1(HASH_PUT_SCRIPT);
+  private static final String TOUCH_SCRIPT_SHA = sha1(TOUCH_SCRIPT);
+  private static final String HASH_TOUCH_SCRIPT_SHA = sha1(HASH_TOUCH_SCRIPT);
+
+  /**
+   * The pub/sub channel where the ids of new sessions are published
+   */
+  private static final String STORED_CHANNEL = "vertx-web.sessions.stored";
+
   private Redis redis;
   private VertxContextPRNG random;
   private long retryTimeout;
+  private boolean hashLayout;
   private ContextInternal ctx;
 
+  // the subscribed connection, when new sessions are announced
+  private Future<RedisConnection> subscriber;
+  private final Map<String, List<Promise<Boolean>>> waiters = new HashMap<>();
+
   public RedisSessionStoreImpl() {
     // required for the service loader
   }
@@ -53,11 +182,21 @@ public class RedisSessionStoreImpl implements RedisSessionStore {
   public SessionStore init(Vertx vertx, JsonObject options) {
     Objects.requireNonNull(options, "options are required");
     long timeout = options.getLong("retryTimeout", RedisSessionStore.DEFAULT_RETRY_TIMEOUT_MS);
+    boolean hashLayout = options.getBoolean("hashLayout", RedisSessionStore.DEFAULT_HASH_LAYOUT);
     Redis redis = Redis.createClient(vertx, new RedisOptions(options));
-    return init(vertx, timeout, redis);
+    init(vertx, timeout, redis, hashLayout);
+    if (options.getBoolean("notifyStored", RedisSessionStore.DEFAULT_NOTIFY_STORED)) {
+      subscribe();
+    }
+    return this;
   }
 
   public SessionStore init(Vertx vertx, long retryTimeout, Redis redis) {
+    return init(vertx, retryTimeout, redis, RedisSessionStore.DEFAULT_HASH_LAYOUT);
+  }
+
+  public SessionStore init(Vertx vertx, long retryTimeout, Redis redis, boolean hashLayout) {
+    this.hashLayout = hashLayout;
     random = VertxContextPRNG.current(vertx);
     ctx = (ContextInternal) vertx.getOrCreateContext();
     this.retryTimeout = retryTimeout;
@@ -77,20 +216,32 @@ public class RedisSessionStoreImpl implements RedisSessionStore {
 
   @Override
   public Session createSession(long timeout, int length) {
+    if (hashLayout) {
+      return new RedisHashSession(random, timeout, length);
+    }
     return new SharedDataSessionImpl(random, timeout, length);
   }
 
   @Override
   public Future<@Nullable Session> get(String id) {
-    return redis.send(cmd(GET).arg(id))
+    if (hashLayout) {
+      return eval(HASH_GET_SCRIPT, HASH_GET_SCRIPT_SHA, id)
+        .compose(response -> {
+          if (response != null && response.size() > 0) {
+            RedisHashSession session = new RedisHashSession(random);
+            session.readFromHash(id, response);
+            return ctx.succeededFuture(session);
+          } else {
+            return ctx.succeededFuture();
+          }
+        });
+    }
+    return eval(GET_SCRIPT, GET_SCRIPT_SHA, id)
       .compose(response -> {
         if (response != null) {
           SharedDataSessionImpl session = new SharedDataSessionImpl(random);
           session.readFromBuffer(0, response.toBuffer());
-          // postpone expiration time, this cannot be done in a single frame with GET cmd
-          return redis
-            .send(cmd(PEXPIRE).arg(id).arg(session.timeout()))
-            .map(session);
+          return ctx.succeededFuture(session);
         } else {
           return ctx.succeededFuture();
         }
@@ -105,36 +256,198 @@ public class RedisSessionStoreImpl implements RedisSessionStore {
 
   @Override
   public Future<Void> put(Session session) {
-    return redis.send(cmd(GET).arg(session.id()))
-      .compose(response -> {
-      AbstractSession newSession = (AbstractSession) session;
-      if (response != null) {
-        // Old session exists, we need to validate versions
-        SharedDataSessionImpl oldSession = new SharedDataSessionImpl(random);
-        oldSession.readFromBuffer(0, response.toBuffer());
+    if (hashLayout) {
+      return putHash((RedisHashSession) session);
+    }
+    final AbstractSession newSession = (AbstractSession) session;
+    // the stored version (if any) must match the version the session was loaded with
+    final int expectedVersion = newSession.version();
+    newSession.incrementVersion();
 
-        if (oldSession.version() != newSession.version()) {
+    final Buffer buffer = Buffer.buffer();
+    ((SharedDataSessionImpl) session).writeToBuffer(buffer);
+
+    // submit with all session data & expiration TO in ms
+    return eval(PUT_SCRIPT, PUT_SCRIPT_SHA, session.id(), Buffer.buffer(Integer.toString(expectedVersion)), buffer, Buffer.buffer(Long.toString(session.timeout())))
+      .compose(response -> {
+        if (response == null || response.toInteger() != 1) {
           return Future.failedFuture("Session version mismatch");
         }
+        stored(session.id(), expectedVersion);
+        return ctx.succeededFuture();
+      });
+  }
+
+  @Override
+  public Future<Void> touch(String id, long timeout) {
+    final Buffer ttl = Buffer.buffer(Long.toString(timeout));
+    final Buffer now = Buffer.buffer(Long.toString(System.currentTimeMillis()));
+    if (hashLayout) {
+      return eval(HASH_TOUCH_SCRIPT, HASH_TOUCH_SCRIPT_SHA, id, ttl, now).mapEmpty();
+    }
+    return eval(TOUCH_SCRIPT, TOUCH_SCRIPT_SHA, id, ttl, now).mapEmpty();
+  }
+
+  @Override
+  public Future<Boolean> awaitStored(String id, long timeout) {
+    if (subscriber == null) {
+      return RedisSessionStore.super.awaitStored(id, timeout);
+    }
+
+    return subscriber.compose(conn -> {
+      final Promise<Boolean> promise = ctx.owner().getOrCreateContext().promise();
+      synchronized (waiters) {
+        waiters.computeIfAbsent(id, k -> new ArrayList<>()).add(promise);
       }
+      final long timerId = ctx.owner().setTimer(timeout, t -> promise.tryComplete(false));
+      // the session may have been stored before the waiter was registered
+      redis.send(cmd(EXISTS).arg(id))
+        .onSuccess(exists -> {
+          if (exists != null && exists.toInteger() == 1) {
+            promise.tryComplete(true);
+          }
+        });
 
-      newSession.incrementVersion();
-      return writeSession(newSession);
+      return promise.future()
+        .onComplete(ar -> {
+          ctx.owner().cancelTimer(timerId);
+          synchronized (waiters) {
+            final List<Promise<Boolean>> list = waiters.get(id);
+            if (list != null) {
+              list.remove(promise);
+              if (list.isEmpty()) {
+                waiters.remove(id);
+              }
+            }
+          }
+        });
     });
   }
 
-  private Future<Void> writeSession(Session session) {
-    Buffer buffer = Buffer.buffer();
-    SharedDataSessionImpl sessionImpl = (SharedDataSessionImpl) session;
-    sessionImpl.writeToBuffer(buffer);
+  private void subscribe() {
+    subscriber = redis.connect()
+      .compose(conn -> {
+        conn.handler(message -> {
+          // pub/sub messages are: ["message", channel, payload]
+          final ResponseType type = message.type();
+          if ((type == ResponseType.PUSH || type == ResponseType.MULTI) && message.size() == 3
+            && "message".equals(message.get(0).toString()) && STORED_CHANNEL.equals(message.get(1).toString())) {
+            wakeUp(message.get(2).toString());
+          }
+        });
+        return conn.send(cmd(SUBSCRIBE).arg(STORED_CHANNEL))
+          .map(conn);
+      });
+  }
 
-    // submit with all session data & expiration TO in ms
-    Request rq = cmd(SET)
-      .arg(session.id()).arg(buffer)
-      .arg("PX").arg(session.timeout());
+  private void stored(String id, int expectedVersion) {
+    // only new sessions are announced, sessions that are already stored can be found
+    if (subscriber != null && expectedVersion == 0) {
+      redis.send(cmd(PUBLISH).arg(STORED_CHANNEL).arg(id));
+    }
+  }
 
-    return redis.send(rq)
-      .mapEmpty();
+  private void wakeUp(String id) {
+    final List<Promise<Boolean>> list;
+    synchronized (waiters) {
+      list = waiters.remove(id);
+    }
+    if (list != null) {
+      for (Promise<Boolean> promise : list) {
+        promise.tryComplete(true);
+      }
+    }
+  }
+
+  private Future<Void> putHash(RedisHashSession session) {
+    final int expectedVersion = session.version();
+    // only sessions already stored can be written as a delta
+    final Set<String> changed = expectedVersion > 0 ? session.dirtyKeys() : null;
+    session.incrementVersion();
+
+    return writeHash(session, expectedVersion, changed)
+      .compose(result -> {
+        if (result == -1) {
+          // the session expired (or its id changed) since it was loaded, the delta is not enough
+          return writeHash(session, expectedVersion, null)
+            .compose(fullResult -> hashWritten(session, expectedVersion, fullResult, null));
+        }
+        return hashWritten(session, expectedVersion, result, changed);
+      });
+  }
+
+  private Future<Void> hashWritten(RedisHashSession session, int expectedVersion, int result, Set<String> written) {
+    if (result != 1) {
+      return Future.failedFuture("Session version mismatch");
+    }
+    session.markStored(written);
+    stored(session.id(), expectedVersion);
+    return ctx.succeededFuture();
+  }
+
+  /**
+   * Write the session hash, only the {@code changed} keys when not {@code null}, otherwise all the session data.
+   */
+  private Future<Integer> writeHash(RedisHashSession session, int expectedVersion, Set<String> changed) {
+    final Iterable<String> keys = changed != null ? changed : (session.isEmpty() ? Collections.emptySet() : session.data().keySet());
+    final List<Buffer> updates = new ArrayList<>();
+    final List<Buffer> deletes = new ArrayList<>();
+    for (String key : keys) {
+      final Buffer value = session.encode(key);
+      if (value == null) {
+        deletes.add(Buffer.buffer(RedisHashSession.DATA_PREFIX + key));
+      } else {
+        updates.add(Buffer.buffer(RedisHashSession.DATA_PREFIX + key));
+        updates.add(value);
+      }
+    }
+
+    final List<Buffer> args = new ArrayList<>(6 + updates.size() + deletes.size());
+    args.add(Buffer.buffer(Integer.toString(expectedVersion)));
+    args.add(Buffer.buffer(Integer.toString(session.version())));
+    args.add(Buffer.buffer(Long.toString(session.timeout())));
+    args.add(Buffer.buffer(Long.toString(session.lastAccessed())));
+    args.add(Buffer.buffer(changed != null ? "delta" : "full"));
+    args.add(Buffer.buffer(Integer.toString(updates.size() / 2)));
+    args.addAll(updates);
+    args.addAll(deletes);
+
+    return eval(HASH_PUT_SCRIPT, HASH_PUT_SCRIPT_SHA, session.id(), args.toArray(new Buffer[0]))
+      .map(response -> response == null ? 0 : response.toInteger());
+  }
+
+  /**
+   * Run a script by its digest, the script is only sent when it isn't cached on the server yet.
+   */
+  private Future<Response> eval(String script, String sha, String key, Buffer... args) {
+    return redis.send(script(cmd(EVALSHA).arg(sha), key, args))
+      .recover(err -> {
+        if (err.getMessage() != null && err.getMessage().startsWith("NOSCRIPT")) {
+          return redis.send(script(cmd(EVAL).arg(script), key, args));
+        }
+        return Future.failedFuture(err);
+      });
+  }
+
+  private static Request script(Request rq, String key, Buffer... args) {
+    rq.arg(1).arg(key);
+    for (Buffer arg : args) {
+      rq.arg(arg);
+    }
+    return rq;
+  }
+
+  private static String sha1(String script) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-1").digest(script.getBytes(StandardCharsets.UTF_8));
+      StringBuilder hex = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
   }
 
   @Override
@@ -159,6 +472,9 @@ public class RedisSessionStoreImpl implements RedisSessionStore {
 
   @Override
   public void close() {
+    if (subscriber != null) {
+      subscriber.onSuccess(RedisConnection::close);
+    }
     redis.close();
   }
 }
@@ -160,4 +160,97 @@ public class RedisSessionStoreTest {
       test.complete();
     });
   }
+
+  @Test(timeout = 10_000)
+  public void testConcurrentUpdateVersionMismatch(TestContext should) {
+    final Async test = should.async();
+
+    Session session = store.createSession(30_000);
+    String value = session.value();
+
+    store.put(session)
+      .compose(v -> Future.all(store.get(value), store.get(value)))
+      .compose(both -> {
+        Session first = both.resultAt(0);
+        Session second = both.resultAt(1);
+        first.put("key", "first");
+        second.put("key", "second");
+        return store.put(first)
+          .compose(v -> store.put(second))
+          .<Session>map(v -> {
+            should.fail("the second update must be rejected");
+            return null;
+          })
+          .recover(err -> {
+            should.assertEquals("Session version mismatch", err.getMessage());
+            return store.get(value);
+          });
+      })
+      .onComplete(should.asyncAssertSuccess(stored -> {
+        should.assertEquals("first", stored.get("key"));
+        test.complete();
+      }));
+  }
+
+  @Test(timeout = 10_000)
+  public void testHashLayoutDeltaUpdate(TestContext should) {
+    final Async test = should.async();
+
+    SessionStore hashStore = RedisSessionStore.create(
+      rule.vertx(),
+      RedisSessionStore.DEFAULT_RETRY_TIMEOUT_MS,
+      Redis.createClient(rule.vertx(), "redis://" + container.getHost() + ":" + container.getMappedPort(6379)),
+      true);
+
+    Session session = hashStore.createSession(30_000);
+    String value = session.value();
+    session.put("large", new byte[16 * 1024]);
+    session.put("counter", 0);
+    session.put("removed", "soon");
+
+    hashStore.put(session)
+      .compose(v -> hashStore.get(value))
+      .compose(stored -> {
+        should.assertEquals(0, stored.<Integer>get("counter"));
+        stored.put("counter", 1);
+        stored.remove("removed");
+        // only the changed keys are written
+        return hashStore.put(stored);
+      })
+      .compose(v -> hashStore.get(value))
+      .onComplete(should.asyncAssertSuccess(stored -> {
+        should.assertEquals(1, stored.<Integer>get("counter"));
+        should.assertNull(stored.get("removed"));
+        should.assertEquals(16 * 1024, stored.<byte[]>get("large").length);
+        test.complete();
+      }));
+  }
+
+  @Test(timeout = 10_000)
+  public void testHashLayoutValueModifiedInPlace(TestContext should) {
+    final Async test = should.async();
+
+    SessionStore hashStore = RedisSessionStore.create(
+      rule.vertx(),
+      RedisSessionStore.DEFAULT_RETRY_TIMEOUT_MS,
+      Redis.createClient(rule.vertx(), "redis://" + container.getHost() + ":" + container.getMappedPort(6379)),
+      true);
+
+    Session session = hashStore.createSession(30_000);
+    String value = session.value();
+    session.put("bytes", new byte[16]);
+
+    hashStore.put(session)
+      .compose(v -> hashStore.get(value))
+      .compose(stored -> {
+        // arrays have an identity hash code, only their encoding tells they changed
+        stored.<byte[]>get("bytes")[0] = 42;
+        return hashStore.put(stored);
+      })
+      .compose(v -> hashStore.get(value))
+      .onComplete(should.asyncAssertSuccess(stored -> {
+        should.assertEquals((byte) 42, stored.<byte[]>get("bytes")[0]);
+        test.complete();
+      }));
+  }
 }
@@ -288,6 +288,19 @@ public interface Route {
   @Fluent
   Route setRegexGroupsNames(List<String> groups);
 
+  /**
+   * Send a {@code 103 Early Hints} interim response with a {@code Link} preload header for each mapping, before the
+   * handlers of this route run. The headers are computed once, when this method is called.
+   * <p>
+   * The early hints are sent by a platform handler, so this method must be called before adding any other kind of
+   * handler to the route.
+   *
+   * @param mappings the resources to preload
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  Route preload(List<Http2PushMapping> mappings);
+
   /**
    * Giving a name to a route will provide this name as metadata to requests matching this route.
    * This metadata is used by metrics and is meant to group requests with different URI paths (due
@@ -664,6 +664,33 @@ public interface RoutingContext {
     return this;
   }
 
+  /**
+   * Write a {@code 103 Early Hints} interim response with the given headers, so clients can start fetching critical
+   * resources while the final response is still being computed. Nothing is written when the final response headers
+   * have already been sent or when the request uses HTTP/1.0, which has no interim responses.
+   *
+   * @param headers the hints, usually {@code Link} headers
+   * @return future
+   */
+  default Future<Void> earlyHints(MultiMap headers) {
+    final HttpServerResponse response = response();
+    if (response.headWritten() || request().version() == HttpVersion.HTTP_1_0) {
+      return Future.succeededFuture();
+    }
+    return response.writeEarlyHints(headers);
+  }
+
+  /**
+   * Write a {@code 103 Early Hints} interim response with a {@code Link} preload header for each mapping.
+   *
+   * @param mappings the resources to preload
+   * @return future
+   * @see #earlyHints(MultiMap)
+   */
+  default Future<Void> earlyHints(List<Http2PushMapping> mappings) {
+    return earlyHints(Utils.preloadLinks(mappings));
+  }
+
   /**
    * Shortcut to the response end.
    * @param chunk a chunk
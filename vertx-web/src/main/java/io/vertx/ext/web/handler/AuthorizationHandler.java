@@ -36,6 +36,11 @@ import java.util.function.BiConsumer;
 @VertxGen
 public interface AuthorizationHandler extends Handler<RoutingContext> {
 
+  /**
+   * Default time in ms a decision is cached, {@code 0} disables the cache
+   */
+  long DEFAULT_DECISION_CACHE_TTL = 0;
+
   /**
    * create the handler that will check the specified authorization
    * Note that to check several authorizations, you can specify a sub-interface such as {@link io.vertx.ext.auth.authorization.AndAuthorization} or {@link io.vertx.ext.auth.authorization.OrAuthorization}
@@ -95,4 +100,18 @@ public interface AuthorizationHandler extends Handler<RoutingContext> {
   @Fluent
   @GenIgnore
   AuthorizationHandler variableConsumer(BiConsumer<RoutingContext, AuthorizationContext> handler);
+
+  /**
+   * Set the time a decision is cached. When enabled, the decision for a user, an authorization and the variables of
+   * the authorization context is remembered, so a user repeating a request does not fetch the authorizations from the
+   * providers again. Decisions are kept in a bounded cache shared by the handlers of the Vert.x instance, and the
+   * decisions of a user are dropped when the user logs out or is refreshed through the {@link io.vertx.ext.web.UserContext}.
+   * A user is identified by its principal and attributes, not only its subject. On a cached decision the user gets the
+   * authorizations the providers had loaded for it. A denial is not cached when a provider failed.
+   *
+   * @param ttl the time in ms, {@code 0} to disable the cache.
+   * @return fluent self.
+   */
+  @Fluent
+  AuthorizationHandler setDecisionCacheTtl(long ttl);
 }
@@ -16,6 +16,7 @@
 
 package io.vertx.ext.web.handler;
 
+import io.vertx.codegen.annotations.Fluent;
 import io.vertx.codegen.annotations.VertxGen;
 import io.vertx.ext.auth.authentication.AuthenticationProvider;
 import io.vertx.ext.web.handler.impl.BasicAuthHandlerImpl;
@@ -33,6 +34,16 @@ public interface BasicAuthHandler extends AuthenticationHandler {
    */
   String DEFAULT_REALM = "vertx-web";
 
+  /**
+   * Default max number of verified credentials to cache, {@code 0} disables the cache
+   */
+  int DEFAULT_CREDENTIALS_CACHE_SIZE = 0;
+
+  /**
+   * Default time in ms verified credentials are cached
+   */
+  long DEFAULT_CREDENTIALS_CACHE_TTL = 60 * 1000;
+
   /**
    * Create a basic auth handler
    *
@@ -53,4 +64,44 @@ public interface BasicAuthHandler extends AuthenticationHandler {
   static BasicAuthHandler create(AuthenticationProvider authProvider, String realm) {
     return new BasicAuthHandlerImpl(authProvider, realm);
   }
+
+  /**
+   * Set the max number of verified credentials to cache. Password hashes such as bcrypt or PBKDF2 are slow by design,
+   * with the cache enabled clients sending the same credentials on each request only pay for the first check, and the
+   * concurrent requests with the same unknown credentials share a single check. The cache holds an HMAC of the
+   * credentials with a random secret, never the password. The users created from cached credentials are shared by
+   * the requests sending them.
+   *
+   * @param size the max number of credentials to cache, {@code 0} to disable the cache.
+   * @return fluent self.
+   */
+  @Fluent
+  BasicAuthHandler setCredentialsCacheSize(int size);
+
+  /**
+   * Set the time verified credentials are cached. A changed password is only noticed after this time, unless
+   * {@link #evictCredentials(String)} is called.
+   *
+   * @param ttl the time in ms.
+   * @return fluent self.
+   */
+  @Fluent
+  BasicAuthHandler setCredentialsCacheTtl(long ttl);
+
+  /**
+   * Drop the cached credentials of a user, for example after the password was changed or the user was removed.
+   *
+   * @param username the user.
+   * @return fluent self.
+   */
+  @Fluent
+  BasicAuthHandler evictCredentials(String username);
+
+  /**
+   * Drop all the cached credentials.
+   *
+   * @return fluent self.
+   */
+  @Fluent
+  BasicAuthHandler clearCredentialsCache();
 }
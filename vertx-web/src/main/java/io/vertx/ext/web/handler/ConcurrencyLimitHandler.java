@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.handler;
+
+import io.vertx.codegen.annotations.Fluent;
+import io.vertx.codegen.annotations.GenIgnore;
+import io.vertx.codegen.annotations.VertxGen;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.impl.ConcurrencyLimitHandlerImpl;
+
+import java.util.function.Function;
+
+/**
+ * Handler that protects the application from overload by limiting the number of requests in flight. Requests over the
+ * limit are rejected right away with an HTTP status code {@code 503} and a {@code Retry-After} header, so the latency
+ * of the admitted requests stays bounded when a downstream service slows down.
+ * <p>
+ * The limit adapts to the observed latency: it grows while the latency stays close to its long term average, and
+ * shrinks when the latency increases or requests time out ({@code 503} or {@code 504} responses, closed connections).
+ * <p>
+ * Requests are admitted according to their {@link RequestPriority}, so under load the lower priority requests are
+ * rejected first. The priority is taken from the classifier function, or else from the {@link #PRIORITY_METADATA}
+ * metadata of the route the handler is mounted on, and defaults to {@link RequestPriority#NORMAL}.
+ * <p>
+ * The limit is a soft limit: requests admitted at the same time on different event loops may exceed it slightly.
+ *
+ * @author <a href="mailto:pmlopes@gmail.com">Paulo Lopes</a>
+ */
+@VertxGen
+public interface ConcurrencyLimitHandler extends PlatformHandler {
+
+  /**
+   * The default initial limit
+   */
+  int DEFAULT_INITIAL_LIMIT = 20;
+
+  /**
+   * The default minimum limit
+   */
+  int DEFAULT_MIN_LIMIT = 4;
+
+  /**
+   * The default maximum limit
+   */
+  int DEFAULT_MAX_LIMIT = 1000;
+
+  /**
+   * The default {@code Retry-After} of rejected requests, in seconds
+   */
+  int DEFAULT_RETRY_AFTER = 1;
+
+  /**
+   * The route metadata key holding the {@link RequestPriority} (or its name) of the requests of the route
+   */
+  String PRIORITY_METADATA = "X-Request-Priority";
+
+  /**
+   * Create a handler with the default limits
+   *
+   * @return the handler
+   */
+  static ConcurrencyLimitHandler create() {
+    return new ConcurrencyLimitHandlerImpl(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT);
+  }
+
+  /**
+   * Create a handler
+   *
+   * @param initialLimit the limit until enough latency samples are collected
+   * @param minLimit     the limit never goes below this value
+   * @param maxLimit     the limit never goes above this value
+   * @return the handler
+   */
+  static ConcurrencyLimitHandler create(int initialLimit, int minLimit, int maxLimit) {
+    return new ConcurrencyLimitHandlerImpl(initialLimit, minLimit, maxLimit);
+  }
+
+  /**
+   * Set the {@code Retry-After} of the rejected requests.
+   *
+   * @param seconds the delay in seconds
+   * @return fluent self
+   */
+  @Fluent
+  ConcurrencyLimitHandler retryAfter(int seconds);
+
+  /**
+   * Set a function choosing the priority of a request, e.g.: from the path or a header. When the function returns
+   * {@code null}, the priority from the route metadata is used.
+   *
+   * @param classifier the function
+   * @return fluent self
+   */
+  @Fluent
+  @GenIgnore
+  ConcurrencyLimitHandler priority(Function<RoutingContext, RequestPriority> classifier);
+
+  /**
+   * @return the current limit
+   */
+  int limit();
+
+  /**
+   * @return the number of requests in flight
+   */
+  int inFlight();
+}
@@ -34,6 +34,11 @@ public interface DigestAuthHandler extends AuthenticationHandler {
    */
   long DEFAULT_NONCE_EXPIRE_TIMEOUT = 3600000;
 
+  /**
+   * The default max number of outstanding nonces. When reached, the oldest nonces are expired early.
+   */
+  int DEFAULT_MAX_NONCES = 100000;
+
   /**
    * Create a digest auth handler
    *
@@ -56,4 +61,17 @@ public interface DigestAuthHandler extends AuthenticationHandler {
   static DigestAuthHandler create(Vertx vertx, HtdigestAuth authProvider, long nonceExpireTimeout) {
     return new DigestAuthHandlerImpl(vertx, authProvider, nonceExpireTimeout);
   }
+
+  /**
+   * Create a digest auth handler, specifying the expire timeout and the max number of outstanding nonces.
+   *
+   * @param vertx              the vertx instance
+   * @param authProvider       the auth service to use
+   * @param nonceExpireTimeout the nonce expire timeout in milliseconds.
+   * @param maxNonces          the max number of outstanding nonces.
+   * @return the auth handler
+   */
+  static DigestAuthHandler create(Vertx vertx, HtdigestAuth authProvider, long nonceExpireTimeout, int maxNonces) {
+    return new DigestAuthHandlerImpl(vertx, authProvider, nonceExpireTimeout, maxNonces);
+  }
 }
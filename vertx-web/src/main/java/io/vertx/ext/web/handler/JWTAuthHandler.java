@@ -31,6 +31,16 @@ import java.util.List;
 @VertxGen
 public interface JWTAuthHandler extends AuthenticationHandler {
 
+  /**
+   * Default max number of verified tokens to cache, {@code 0} disables the cache
+   */
+  int DEFAULT_TOKEN_CACHE_SIZE = 0;
+
+  /**
+   * Default time in ms a verified token is cached, unless it expires before
+   */
+  long DEFAULT_TOKEN_CACHE_TTL = 5 * 60 * 1000;
+
   /**
    * Create a JWT auth handler. When no scopes are explicit declared, the default scopes will be looked up from the
    * route metadata.
@@ -53,6 +63,34 @@ public interface JWTAuthHandler extends AuthenticationHandler {
     return new JWTAuthHandlerImpl(authProvider, realm);
   }
 
+  /**
+   * Set the max number of verified tokens to cache. Clients usually send the same token on many requests, with the
+   * cache enabled a repeated token is looked up by its hash instead of verifying its signature again. Scopes are
+   * still checked on each request. The users created from a cached token are shared by the requests sending it.
+   *
+   * @param size the max number of tokens to cache, {@code 0} to disable the cache.
+   * @return fluent self.
+   */
+  @Fluent
+  JWTAuthHandler setTokenCacheSize(int size);
+
+  /**
+   * Set the time a verified token is cached. A token is never cached past its {@code exp} claim.
+   *
+   * @param ttl the time in ms.
+   * @return fluent self.
+   */
+  @Fluent
+  JWTAuthHandler setTokenCacheTtl(long ttl);
+
+  /**
+   * Drop all the cached tokens, for example after the signing keys were rotated or a token was revoked.
+   *
+   * @return fluent self.
+   */
+  @Fluent
+  JWTAuthHandler clearTokenCache();
+
   /**
    * Set the scope delimiter. By default this is a space character.
    *
@@ -70,4 +70,45 @@ public interface LoggerHandler extends PlatformHandler {
    */
   @Fluent
   LoggerHandler customFormatter(LoggerFormatter formatter);
+
+  /**
+   * Set the custom format to be used by the handler. The format is text with tokens, compiled once:
+   * {@code :remote-addr}, {@code :date}, {@code :method}, {@code :url}, {@code :http-version}, {@code :status},
+   * {@code :res-length}, {@code :referrer}, {@code :user-agent}, {@code :response-time} (in ms), {@code :req[header]}
+   * and {@code :res[header]}, e.g.: {@code ":method :url :status :response-time ms"}.
+   *
+   * @param format the format
+   * @return fluent self
+   * @throws IllegalStateException if current format is not {@link LoggerFormat#CUSTOM}
+   * @throws IllegalArgumentException if the format has unknown tokens
+   */
+  @Fluent
+  LoggerHandler customFormat(String format);
+
+  /**
+   * Log JSON lines instead of text: an object of the format tokens, or a {@code message} property with the custom
+   * formatter output.
+   *
+   * @param json {@code true} to log JSON lines
+   * @return fluent self
+   */
+  @Fluent
+  LoggerHandler json(boolean json);
+
+  /**
+   * Log from a background thread, so the event loop never waits for the log appenders. Lines are queued up to the
+   * given capacity, and dropped when the queue is full. The thread is started on demand and stops once idle, so
+   * nothing needs to be closed when the handler is no longer used.
+   *
+   * @param capacity the max number of queued lines
+   * @return fluent self
+   * @throws IllegalStateException if the handler already logs asynchronously
+   */
+  @Fluent
+  LoggerHandler async(int capacity);
+
+  /**
+   * @return the number of lines dropped because the asynchronous queue was full
+   */
+  long dropped();
 }
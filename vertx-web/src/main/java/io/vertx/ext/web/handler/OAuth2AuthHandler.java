@@ -34,6 +34,21 @@ import java.util.List;
 @VertxGen
 public interface OAuth2AuthHandler extends AuthenticationHandler {
 
+  /**
+   * Default max number of authenticated tokens to cache, {@code 0} disables the cache
+   */
+  int DEFAULT_TOKEN_CACHE_SIZE = 0;
+
+  /**
+   * Default time in ms an authenticated token is cached, unless it expires before
+   */
+  long DEFAULT_TOKEN_CACHE_TTL = 5 * 60 * 1000;
+
+  /**
+   * Default time in ms a rejected token is cached
+   */
+  long DEFAULT_NEGATIVE_TOKEN_CACHE_TTL = 1000;
+
   /**
    * Create a OAuth2 auth handler with host pinning. When no scopes are explicit declared, the default scopes will be
    * looked up from the route metadata under the key {@code scopes} which can either be a single {@link String} or a
@@ -134,6 +149,46 @@ public interface OAuth2AuthHandler extends AuthenticationHandler {
   @Fluent
   OAuth2AuthHandler pkceVerifierLength(int length);
 
+  /**
+   * Set the max number of authenticated tokens to cache. Opaque tokens are validated by a call to the introspection
+   * endpoint of the authorization server, with the cache enabled a repeated token is looked up by its hash instead,
+   * and the concurrent requests sending the same unknown token share a single introspection call. The users created
+   * from a cached token are shared by the requests sending it.
+   *
+   * @param size the max number of tokens to cache, {@code 0} to disable the cache.
+   * @return fluent self.
+   */
+  @Fluent
+  OAuth2AuthHandler setTokenCacheSize(int size);
+
+  /**
+   * Set the time an authenticated token is cached. A token is never cached past its {@code exp} claim, so a revoked
+   * token may still be accepted for up to this time.
+   *
+   * @param ttl the time in ms.
+   * @return fluent self.
+   */
+  @Fluent
+  OAuth2AuthHandler setTokenCacheTtl(long ttl);
+
+  /**
+   * Set the time a rejected token is cached, so a client retrying an invalid token does not hit the authorization
+   * server on each request.
+   *
+   * @param ttl the time in ms, {@code 0} to not cache rejected tokens.
+   * @return fluent self.
+   */
+  @Fluent
+  OAuth2AuthHandler setNegativeTokenCacheTtl(long ttl);
+
+  /**
+   * Drop all the cached tokens, for example after a token was revoked.
+   *
+   * @return fluent self.
+   */
+  @Fluent
+  OAuth2AuthHandler clearTokenCache();
+
   /**
    * add the callback handler to a given route.
    * @param route a given route e.g.: {@code /callback}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.handler;
+
+import io.vertx.codegen.annotations.Fluent;
+import io.vertx.codegen.annotations.GenIgnore;
+import io.vertx.codegen.annotations.VertxGen;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.impl.RateLimitHandlerImpl;
+
+import java.util.function.Function;
+
+/**
+ * Handler that limits the rate of requests per client with a token bucket: a client can send up to {@code limit}
+ * requests at once, and the bucket refills at {@code limit} requests per {@code period}. Requests over the limit fail
+ * with an HTTP status code {@code 429} and a {@code Retry-After} header. All the responses carry the
+ * {@code RateLimit-Limit}, {@code RateLimit-Remaining} and {@code RateLimit-Reset} headers.
+ * <p>
+ * By default clients are identified by their remote address, which honors the forwarded headers allowed with
+ * {@link io.vertx.ext.web.Router#allowForward(io.vertx.ext.web.AllowForwardHeaders)}. Requests without a key are not
+ * limited.
+ * <p>
+ * Each event loop keeps its own buckets, so the hot path does not contend with the other event loops. The event loops
+ * (and, when {@link #clustered(String) clustered}, the cluster nodes) exchange their consumption every
+ * {@link #syncInterval(long) sync interval}, so a client spreading its requests may briefly exceed the limit.
+ * <p>
+ * The synchronization timer runs on the context that created the handler, it is cancelled when the verticle that
+ * created the handler is undeployed, or when the handler is {@link #close() closed}.
+ *
+ * @author <a href="mailto:pmlopes@gmail.com">Paulo Lopes</a>
+ */
+@VertxGen
+public interface RateLimitHandler extends Handler<RoutingContext> {
+
+  /**
+   * The default interval between synchronizations of the buckets, in ms
+   */
+  long DEFAULT_SYNC_INTERVAL = 1000;
+
+  /**
+   * Create a handler
+   *
+   * @param vertx  the vertx instance
+   * @param limit  the number of requests allowed per period, and at once
+   * @param period the period in ms
+   * @return the handler
+   */
+  static RateLimitHandler create(Vertx vertx, int limit, long period) {
+    return new RateLimitHandlerImpl(vertx, limit, period);
+  }
+
+  /**
+   * Identify clients by their authenticated user, the handler must be mounted after the authentication handler.
+   *
+   * @return fluent self
+   */
+  @Fluent
+  RateLimitHandler keyByUser();
+
+  /**
+   * Identify clients by a request header, e.g.: the {@code X-API-KEY} header read by {@link APIKeyHandler}.
+   *
+   * @param headerName the header name
+   * @return fluent self
+   */
+  @Fluent
+  RateLimitHandler keyByHeader(String headerName);
+
+  /**
+   * Identify clients with a custom function. When the function returns {@code null}, the request is not limited.
+   *
+   * @param key the function
+   * @return fluent self
+   */
+  @Fluent
+  @GenIgnore
+  RateLimitHandler key(Function<RoutingContext, String> key);
+
+  /**
+   * Share the limit across the cluster, with the handlers of the other nodes created with the same name. The
+   * consumption is exchanged through {@link io.vertx.core.shareddata.SharedData} counters, one per client, and only
+   * for the clients that sent requests to the node since the previous sync. Counters cannot be removed, they live as
+   * long as the cluster, so only use with a bounded number of clients, e.g.: per user or per API key. Each node creates
+   * at most 10000 counters, the clients seen afterwards are only limited per node.
+   *
+   * @param name the name of the limit
+   * @return fluent self
+   */
+  @Fluent
+  RateLimitHandler clustered(String name);
+
+  /**
+   * Set the interval between synchronizations of the buckets.
+   *
+   * @param syncInterval the interval in ms
+   * @return fluent self
+   */
+  @Fluent
+  RateLimitHandler syncInterval(long syncInterval);
+
+  /**
+   * Stop the synchronization of the buckets and drop them, the handler must not be used afterwards.
+   */
+  void close();
+}
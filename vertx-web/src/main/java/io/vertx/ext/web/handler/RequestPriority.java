@@ -0,0 +1,43 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.handler;
+
+import io.vertx.codegen.annotations.VertxGen;
+
+/**
+ * The priority classes of the {@link ConcurrencyLimitHandler}. When the server is overloaded, the requests of the lower
+ * classes are rejected first.
+ *
+ * @author <a href="mailto:pmlopes@gmail.com">Paulo Lopes</a>
+ */
+@VertxGen
+public enum RequestPriority {
+
+  /**
+   * Can use the whole concurrency limit, e.g.: health checks or logins.
+   */
+  CRITICAL,
+
+  /**
+   * Can use up to 90% of the concurrency limit, the default.
+   */
+  NORMAL,
+
+  /**
+   * Can use up to 50% of the concurrency limit, e.g.: batch or prefetch requests.
+   */
+  BACKGROUND
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.handler;
+
+import io.vertx.codegen.annotations.Fluent;
+import io.vertx.codegen.annotations.VertxGen;
+import io.vertx.core.Handler;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.impl.ResponseCacheHandlerImpl;
+
+/**
+ * A handler caching the responses of {@code GET} requests on the server, so the following requests are answered
+ * without invoking the next handlers.
+ * <p>
+ * A response is cached when it is explicitly fresh: it has a {@code Cache-Control} header with a positive
+ * {@code s-maxage} or {@code max-age} directive, and no {@code no-store}, {@code no-cache} or {@code private}
+ * directive, it does not set cookies and its status code is cacheable by default. Responses with a {@code Vary}
+ * header are cached per value of the listed request headers. Cached responses are served with an {@code Age} header.
+ * Responses are cached per path and query, and per authority unless one is set with {@link #authority(String)}.
+ * <p>
+ * Concurrent requests missing the same entry are coalesced: only the first one invokes the next handlers, the others
+ * wait for its response and are served with it when cacheable. Once a response was not cacheable, the requests for
+ * the same entry are not coalesced for a while.
+ * <p>
+ * Only the bodies written as buffers or strings, up to {@link #maxBodySize(int)}, are cached.
+ *
+ * @author <a href="mailto:pmlopes@gmail.com">Paulo Lopes</a>
+ */
+@VertxGen
+public interface ResponseCacheHandler extends Handler<RoutingContext> {
+
+  /**
+   * The default max size of a cached body, in bytes
+   */
+  int DEFAULT_MAX_BODY_SIZE = 1024 * 1024;
+
+  /**
+   * Create a handler
+   *
+   * @param store  the store of the cached responses
+   * @return the handler
+   */
+  static ResponseCacheHandler create(ResponseCacheStore store) {
+    return new ResponseCacheHandlerImpl(store);
+  }
+
+  /**
+   * Set the max size of a cached body, larger responses are not cached.
+   *
+   * @param maxBodySize  the max size, in bytes
+   * @return reference to this for fluency
+   */
+  @Fluent
+  ResponseCacheHandler maxBodySize(int maxBodySize);
+
+  /**
+   * Set the authority of the cached responses. The responses are cached per path and query, and by default per
+   * authority of the request, as given by its {@code Host} header. Setting the authority of a server answering a single
+   * site stops clients from creating entries with other {@code Host} values.
+   *
+   * @param authority  the authority, or {@code null} to use the authority of the request
+   * @return reference to this for fluency
+   */
+  @Fluent
+  ResponseCacheHandler authority(String authority);
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.handler;
+
+import io.vertx.codegen.annotations.Nullable;
+import io.vertx.codegen.annotations.VertxGen;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.web.handler.impl.LocalResponseCacheStore;
+import io.vertx.ext.web.handler.impl.SharedDataResponseCacheStore;
+
+/**
+ * The storage of the responses cached by a {@link ResponseCacheHandler}. Responses are stored serialized, so a store
+ * only deals with buffers and can keep them anywhere, e.g.: on heap, off heap or in a cluster wide map.
+ *
+ * @author <a href="mailto:pmlopes@gmail.com">Paulo Lopes</a>
+ */
+@VertxGen
+public interface ResponseCacheStore {
+
+  /**
+   * Create an in memory store, holding up to {@code maxEntries} responses. The least recently used responses are
+   * evicted first.
+   *
+   * @param maxEntries the max number of entries
+   * @return the store
+   */
+  static ResponseCacheStore create(int maxEntries) {
+    return new LocalResponseCacheStore(maxEntries);
+  }
+
+  /**
+   * Create a store backed by a {@link io.vertx.core.shareddata.AsyncMap}, shared by the nodes of a cluster when Vert.x
+   * is clustered. The entries are only bounded by their time to live.
+   *
+   * @param vertx the vertx instance
+   * @param name  the name of the map
+   * @return the store
+   */
+  static ResponseCacheStore create(Vertx vertx, String name) {
+    return new SharedDataResponseCacheStore(vertx, name);
+  }
+
+  /**
+   * Get an entry.
+   *
+   * @param key the key
+   * @return a future completed with the entry, or {@code null} if absent or expired
+   */
+  Future<@Nullable Buffer> get(String key);
+
+  /**
+   * Put an entry.
+   *
+   * @param key   the key
+   * @param value the entry
+   * @param ttl   the time to live of the entry, in ms
+   * @return a future completed when stored
+   */
+  Future<Void> put(String key, Buffer value, long ttl);
+
+  /**
+   * Remove an entry.
+   *
+   * @param key the key
+   * @return a future completed when removed
+   */
+  Future<Void> remove(String key);
+
+  /**
+   * Remove all the entries.
+   *
+   * @return a future completed when cleared
+   */
+  Future<Void> clear();
+}
@@ -16,12 +16,20 @@
 
 package io.vertx.ext.web.handler;
 
+import io.vertx.codegen.annotations.Fluent;
 import io.vertx.codegen.annotations.VertxGen;
+import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.handler.impl.ResponseTimeHandlerImpl;
 
 /**
  * Handler which adds a header `x-response-time` in the response of matching requests containing the time taken
  * in ms to process the request.
+ * <p>
+ * The handler can also break the time down per handler of the routing chain: the wall time of a handler lasts until
+ * it calls {@code next()} (or the response is sent), the event loop time is the time spent running the handler
+ * itself. The breakdown can be sent in a {@code Server-Timing} header, and sampled into histograms. Handlers mounted
+ * before this handler are not timed, and no timing is recorded for requests that are neither sampled nor sent a
+ * {@code Server-Timing} header.
  *
  * @author <a href="http://tfox.org">Tim Fox</a>
  */
@@ -37,4 +45,32 @@ public interface ResponseTimeHandler extends PlatformHandler {
     return new ResponseTimeHandlerImpl();
   }
 
+  /**
+   * Send the time spent in each handler in a {@code Server-Timing} header, as {@code dur} (wall time) and {@code el}
+   * (event loop time) parameters in ms. Only enable for trusted clients, as it tells how the application is built.
+   *
+   * @param serverTiming {@code true} to send the header
+   * @return fluent self
+   */
+  @Fluent
+  ResponseTimeHandler serverTiming(boolean serverTiming);
+
+  /**
+   * Set the fraction of the requests whose handler timings are recorded in the {@link #histograms()}.
+   *
+   * @param sampleRate between {@code 0} (disabled, the default) and {@code 1} (all the requests)
+   * @return fluent self
+   */
+  @Fluent
+  ResponseTimeHandler sampleRate(double sampleRate);
+
+  /**
+   * Get the histograms of the sampled handler timings, by handler name. Each histogram has the number of samples
+   * ({@code count}), the total wall and event loop times in µs ({@code wallTime}, {@code eventLoopTime}), and the
+   * wall time distribution ({@code buckets}): the value at index {@code i > 0} is the number of samples from
+   * {@code 2^(i-1)} to {@code 2^i} µs.
+   *
+   * @return a snapshot of the histograms
+   */
+  JsonObject histograms();
 }
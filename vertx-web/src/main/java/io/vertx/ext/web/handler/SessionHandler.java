@@ -87,6 +87,16 @@ public interface SessionHandler extends PlatformHandler {
    */
 	boolean DEFAULT_LAZY_SESSION = false;
 
+  /**
+   * Default touch throttle, unmodified sessions are touched on every request.
+   */
+  double DEFAULT_TOUCH_THROTTLE = 0;
+
+  /**
+   * Default time, in ms, a session id not found in the store is remembered as missing.
+   */
+  long DEFAULT_NEGATIVE_LOOKUP_TTL = 5 * 1000;
+
 	/**
 	 * Create a session handler
 	 *
@@ -195,6 +205,32 @@ public interface SessionHandler extends PlatformHandler {
   @Fluent
   SessionHandler setCookieMaxAge(long cookieMaxAge);
 
+  /**
+   * When a session is not modified during a request, the handler only extends its expiration in the store (see
+   * {@link SessionStore#touch(String, long)}) instead of writing it again. The throttle limits how often this happens:
+   * an unmodified session is not touched again until the given fraction of its timeout has elapsed since it was last
+   * accessed. For example, {@code 0.1} touches a session with a 30 minutes timeout at most once every 3 minutes, at
+   * the cost of sessions possibly expiring up to 3 minutes earlier.
+   *
+   * @param touchThrottle a fraction of the session timeout between {@code 0} (always touch) and {@code 1}
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  SessionHandler setTouchThrottle(double touchThrottle);
+
+  /**
+   * When a session id is not found, stores with a retry timeout (see {@link SessionStore#retryTimeout()}) are
+   * queried again until the timeout elapses, as the session may have been created on another node. Ids that are
+   * still missing after that are remembered for the given time, so requests repeating a stale or forged session
+   * cookie get a new session right away instead of waiting for the store again. With stores able to signal when a
+   * session is stored (see {@link SessionStore#awaitStored(String, long)}), an id is forgotten as soon as it is stored.
+   *
+   * @param negativeLookupTtl the time in ms, {@code 0} to disable
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  SessionHandler setNegativeLookupTtl(long negativeLookupTtl);
+
   /**
    * Flush a context session earlier to the store, this will allow the end user to have full control on the event of
    * a failure at the store level. Once a session is flushed no automatic save will be performed at end of request.
@@ -117,6 +117,21 @@ public interface StaticHandler extends Handler<RoutingContext> {
    */
   boolean DEFAULT_SEND_VARY_HEADER = true;
 
+  /**
+   * Default of whether the classpath web-root is indexed at startup
+   */
+  boolean DEFAULT_CLASSPATH_INDEX = false;
+
+  /**
+   * Default max size, in bytes, of an indexed classpath resource to be loaded in memory eagerly
+   */
+  int DEFAULT_CLASSPATH_INDEX_PRELOAD_SIZE = 64 * 1024; // 64KB
+
+  /**
+   * Default of whether a content hash is computed for indexed classpath resources
+   */
+  boolean DEFAULT_CLASSPATH_INDEX_HASHING = false;
+
   /**
    * Create a handler using defaults
    *
@@ -221,9 +236,10 @@ public interface StaticHandler extends Handler<RoutingContext> {
   StaticHandler setMaxCacheSize(int maxCacheSize);
 
   /**
-   * Set the file mapping for http2push and link preload
+   * Set the file mapping for early hints and link preload. The mapped files are announced with a
+   * {@code 103 Early Hints} interim response and with {@code Link} headers on the final response.
    *
-   * @param http2PushMappings the mapping for http2 push
+   * @param http2PushMappings the mapping for the preloaded files
    * @return a reference to this, so the API can be used fluently
    */
   @Fluent
@@ -317,4 +333,46 @@ public interface StaticHandler extends Handler<RoutingContext> {
    */
   @Fluent
   StaticHandler setDefaultContentEncoding(String contentEncoding);
+
+  /**
+   * Set whether the web-root should be indexed from the classpath. When enabled, the resources found under the
+   * web-root in the classpath (including jar files) are indexed once and served from memory, without being extracted
+   * to the file cache first. If the web-root exists in the file system this option has no effect.
+   * <p>
+   * The index is built on a worker thread when the first request is handled, the requests are served as if the
+   * option was disabled until it is ready.
+   *
+   * @param classpathIndex true to index the classpath web-root
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  StaticHandler setClasspathIndex(boolean classpathIndex);
+
+  /**
+   * Set the max size, in bytes, of an indexed classpath resource to be loaded in memory when the index is built.
+   * Larger resources are loaded on first access.
+   *
+   * @param preloadSize the max size in bytes
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  StaticHandler setClasspathIndexPreloadSize(int preloadSize);
+
+  /**
+   * Set whether a content hash should be computed for each indexed classpath resource. The hash is sent as the
+   * {@code ETag} of the response.
+   *
+   * @param hashing true to compute content hashes
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  StaticHandler setClasspathIndexHashing(boolean hashing);
+
+  /**
+   * Get the size of the classpath index, as the amount of bytes it holds in memory. Resources loaded on first access
+   * are not accounted.
+   *
+   * @return the size in bytes, {@code 0} if the classpath is not indexed or the index is not built yet
+   */
+  long classpathIndexSize();
 }
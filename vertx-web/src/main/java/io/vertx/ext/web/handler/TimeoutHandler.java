@@ -22,6 +22,9 @@ import io.vertx.ext.web.handler.impl.TimeoutHandlerImpl;
 /**
  * Handler that will timeout requests if the response has not been written after a certain time.
  * Timeout requests will be ended with an HTTP status code `503`.
+ * <p>
+ * Timeouts are checked every tick of a coarse timer shared by the requests of the same context, so a request times
+ * out between the timeout and the timeout plus the resolution.
  *
  * @author <a href="http://tfox.org">Tim Fox</a>
  */
@@ -38,6 +41,11 @@ public interface TimeoutHandler extends PlatformHandler {
    */
   int DEFAULT_ERRORCODE = 503;
 
+  /**
+   * The default max resolution of the timeouts, in ms
+   */
+  long DEFAULT_RESOLUTION = 100;
+
   /**
    * Create a handler
    *
@@ -58,7 +66,7 @@ public interface TimeoutHandler extends PlatformHandler {
   }
 
   /**
-   * Create a handler
+   * Create a handler, the resolution is a tenth of the timeout, up to {@link #DEFAULT_RESOLUTION}.
    *
    * @param timeout  the timeout, in ms
    * @return the handler
@@ -66,4 +74,16 @@ public interface TimeoutHandler extends PlatformHandler {
   static TimeoutHandler create(long timeout, int errorCode) {
     return new TimeoutHandlerImpl(timeout, errorCode);
   }
+
+  /**
+   * Create a handler
+   *
+   * @param timeout  the timeout, in ms
+   * @param errorCode  the error code of the timed out requests
+   * @param resolution  the resolution of the timeout, in ms
+   * @return the handler
+   */
+  static TimeoutHandler create(long timeout, int errorCode, long resolution) {
+    return new TimeoutHandlerImpl(timeout, errorCode, resolution);
+  }
 }
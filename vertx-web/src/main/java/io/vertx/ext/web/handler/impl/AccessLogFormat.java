@@ -0,0 +1,345 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.handler.impl;
+
+import io.vertx.core.MultiMap;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.LoggerFormat;
+import io.vertx.ext.web.impl.Utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A log format compiled into a list of fields, each appending its value to the line being built. A format is a
+ * pattern of literal text and tokens:
+ *
+ * <ul>
+ *   <li>{@code :remote-addr} the client address</li>
+ *   <li>{@code :date} the request timestamp, RFC 1123 formatted</li>
+ *   <li>{@code :method} the request method</li>
+ *   <li>{@code :url} the request uri</li>
+ *   <li>{@code :http-version} the request HTTP version</li>
+ *   <li>{@code :status} the response status code</li>
+ *   <li>{@code :res-length} the bytes written, or the request content length for immediate logging</li>
+ *   <li>{@code :referrer} the request referrer</li>
+ *   <li>{@code :user-agent} the request user agent</li>
+ *   <li>{@code :response-time} the time to respond in ms</li>
+ *   <li>{@code :req[header]} a request header</li>
+ *   <li>{@code :res[header]} a response header</li>
+ * </ul>
+ *
+ * Absent values are logged as {@code -}.
+ *
+ * @author <a href="mailto:pmlopes@gmail.com">Paulo Lopes</a>
+ */
+final class AccessLogFormat {
+
+  private static final AccessLogFormat DEFAULT = parse(":remote-addr - - [:date] \":method :url :http-version\" :status :res-length \":referrer\" \":user-agent\"");
+  private static final AccessLogFormat SHORT = parse(":remote-addr - :method :url :http-version :status :res-length - :response-time ms");
+  private static final AccessLogFormat TINY = parse(":method :url :status :res-length - :response-time ms");
+
+  // formatting the date is costly, all the requests of the same second share it
+  private static final ThreadLocal<CachedDate> DATE = ThreadLocal.withInitial(CachedDate::new);
+  private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+  /**
+   * The data of a request to log
+   */
+  static final class Entry {
+
+    final RoutingContext ctx;
+    final long timestamp;
+    final String remoteClient;
+    final HttpVersion version;
+    final HttpMethod method;
+    final String uri;
+    long contentLength;
+    long duration;
+
+    Entry(RoutingContext ctx, long timestamp, String remoteClient, HttpVersion version, HttpMethod method, String uri) {
+      this.ctx = ctx;
+      this.timestamp = timestamp;
+      this.remoteClient = remoteClient;
+      this.version = version;
+      this.method = method;
+      this.uri = uri;
+    }
+  }
+
+  @FunctionalInterface
+  private interface Writer {
+    void append(StringBuilder sb, Entry entry);
+  }
+
+  private static final class Field {
+
+    // null for literal text
+    private final String name;
+    private final boolean numeric;
+    private final Writer writer;
+
+    private Field(String name, boolean numeric, Writer writer) {
+      this.name = name;
+      this.numeric = numeric;
+      this.writer = writer;
+    }
+  }
+
+  private final Field[] fields;
+
+  private AccessLogFormat(Field[] fields) {
+    this.fields = fields;
+  }
+
+  static AccessLogFormat of(LoggerFormat format) {
+    switch (format) {
+      case DEFAULT:
+        return DEFAULT;
+      case SHORT:
+        return SHORT;
+      case TINY:
+        return TINY;
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Compile a pattern.
+   *
+   * @throws IllegalArgumentException on unknown tokens
+   */
+  static AccessLogFormat parse(String pattern) {
+    final List<Field> fields = new ArrayList<>();
+    final StringBuilder literal = new StringBuilder();
+    int i = 0;
+    while (i < pattern.length()) {
+      final char c = pattern.charAt(i);
+      int end = i + 1;
+      if (c == ':') {
+        while (end < pattern.length() && isTokenChar(pattern.charAt(end))) {
+          end++;
+        }
+      }
+      if (end == i + 1) {
+        // not a token
+        literal.append(c);
+        i++;
+        continue;
+      }
+      final String name = pattern.substring(i + 1, end);
+      String arg = null;
+      if (end < pattern.length() && pattern.charAt(end) == '[') {
+        final int close = pattern.indexOf(']', end);
+        if (close == -1) {
+          throw new IllegalArgumentException("Unterminated token argument at: " + i);
+        }
+        arg = pattern.substring(end + 1, close);
+        end = close + 1;
+      }
+      if (literal.length() > 0) {
+        fields.add(literal(literal.toString()));
+        literal.setLength(0);
+      }
+      fields.add(token(name, arg));
+      i = end;
+    }
+    if (literal.length() > 0) {
+      fields.add(literal(literal.toString()));
+    }
+    return new AccessLogFormat(fields.toArray(new Field[0]));
+  }
+
+  private static boolean isTokenChar(char c) {
+    return (c >= 'a' && c <= 'z') || c == '-';
+  }
+
+  private static Field literal(String text) {
+    return new Field(null, false, (sb, entry) -> sb.append(text));
+  }
+
+  private static Field token(String name, String arg) {
+    if (arg != null) {
+      final String key = name + "[" + arg + "]";
+      switch (name) {
+        case "req":
+          return new Field(key, false, (sb, entry) -> value(sb, entry.ctx.request().headers().get(arg)));
+        case "res":
+          return new Field(key, false, (sb, entry) -> value(sb, entry.ctx.response().headers().get(arg)));
+        default:
+          throw new IllegalArgumentException("Unknown token: " + key);
+      }
+    }
+    switch (name) {
+      case "remote-addr":
+        return new Field(name, false, (sb, entry) -> value(sb, entry.remoteClient));
+      case "date":
+        return new Field(name, false, (sb, entry) -> sb.append(DATE.get().format(entry.timestamp)));
+      case "method":
+        return new Field(name, false, (sb, entry) -> value(sb, entry.method == null ? null : entry.method.name()));
+      case "url":
+        return new Field(name, false, (sb, entry) -> value(sb, entry.uri));
+      case "http-version":
+        return new Field(name, false, (sb, entry) -> sb.append(version(entry.version)));
+      case "status":
+        return new Field(name, true, (sb, entry) -> sb.append(entry.ctx.response().getStatusCode()));
+      case "res-length":
+        return new Field(name, true, (sb, entry) -> sb.append(entry.contentLength));
+      case "referrer":
+        // as per RFC1945 the header is referer but it is not mandatory some implementations use referrer
+        return new Field(name, false, (sb, entry) -> {
+          final MultiMap headers = entry.ctx.request().headers();
+          value(sb, headers.contains("referrer") ? headers.get("referrer") : headers.get("referer"));
+        });
+      case "user-agent":
+        return new Field(name, false, (sb, entry) -> value(sb, entry.ctx.request().headers().get("user-agent")));
+      case "response-time":
+        return new Field(name, true, (sb, entry) -> sb.append(entry.duration));
+      default:
+        throw new IllegalArgumentException("Unknown token: " + name);
+    }
+  }
+
+  private static void value(StringBuilder sb, String value) {
+    sb.append(value == null ? "-" : value);
+  }
+
+  private static String version(HttpVersion version) {
+    if (version == null) {
+      return "-";
+    }
+    switch (version) {
+      case HTTP_1_0:
+        return "HTTP/1.0";
+      case HTTP_1_1:
+        return "HTTP/1.1";
+      case HTTP_2:
+        return "HTTP/2.0";
+      default:
+        return "-";
+    }
+  }
+
+  /**
+   * @return the log line
+   */
+  String format(Entry entry) {
+    final StringBuilder sb = buffer();
+    for (Field field : fields) {
+      field.writer.append(sb, entry);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * @return the log line as a JSON object of the tokens, literal text is left out
+   */
+  String formatJson(Entry entry) {
+    final StringBuilder sb = buffer();
+    final StringBuilder value = new StringBuilder();
+    sb.append('{');
+    boolean first = true;
+    for (Field field : fields) {
+      if (field.name == null) {
+        continue;
+      }
+      if (!first) {
+        sb.append(',');
+      }
+      first = false;
+      quote(sb, field.name);
+      sb.append(':');
+      if (field.numeric) {
+        field.writer.append(sb, entry);
+      } else {
+        value.setLength(0);
+        field.writer.append(value, entry);
+        quote(sb, value);
+      }
+    }
+    return sb.append('}').toString();
+  }
+
+  /**
+   * @return a custom formatter message as a JSON object
+   */
+  static String formatJson(String message) {
+    final StringBuilder sb = buffer();
+    sb.append("{\"message\":");
+    if (message == null) {
+      sb.append("null");
+    } else {
+      quote(sb, message);
+    }
+    return sb.append('}').toString();
+  }
+
+  private static StringBuilder buffer() {
+    final StringBuilder sb = BUFFER.get();
+    sb.setLength(0);
+    return sb;
+  }
+
+  private static void quote(StringBuilder sb, CharSequence value) {
+    sb.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          sb.append("\\\"");
+          break;
+        case '\\':
+          sb.append("\\\\");
+          break;
+        case '\n':
+          sb.append("\\n");
+          break;
+        case '\r':
+          sb.append("\\r");
+          break;
+        case '\t':
+          sb.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            sb.append(String.format("\\u%04x", (int) c));
+          } else {
+            sb.append(c);
+          }
+      }
+    }
+    sb.append('"');
+  }
+
+  private static final class CachedDate {
+
+    private long second = Long.MIN_VALUE;
+    private String formatted;
+
+    private String format(long timestamp) {
+      final long second = timestamp / 1000;
+      if (second != this.second) {
+        this.formatted = Utils.formatRFC1123DateTime(timestamp);
+        this.second = second;
+      }
+      return formatted;
+    }
+  }
+}
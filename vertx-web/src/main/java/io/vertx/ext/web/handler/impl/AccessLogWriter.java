@@ -0,0 +1,152 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.handler.impl;
+
+import io.vertx.core.internal.logging.Logger;
+import io.vertx.core.internal.logging.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands the log lines to a writer thread, so the event loops never wait for the log appenders. The lines go through
+ * a bounded lock free ring buffer, many producers and a single consumer: when the buffer is full, lines are dropped
+ * and counted rather than blocking the event loop.
+ * <p>
+ * The writer thread is started on demand and exits once it has been idle for a while, so a handler that is no longer
+ * used (e.g. the verticle that routed to it was undeployed) does not keep a thread nor its buffer alive.
+ *
+ * @author <a href="mailto:pmlopes@gmail.com">Paulo Lopes</a>
+ */
+final class AccessLogWriter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AccessLogWriter.class);
+
+  private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private static final long IDLE_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+  @FunctionalInterface
+  interface Sink {
+    void write(int status, String message);
+  }
+
+  private static final class Line {
+
+    private final int status;
+    private final String message;
+
+    private Line(int status, String message) {
+      this.status = status;
+      this.message = message;
+    }
+  }
+
+  private final Sink sink;
+  private final AtomicReferenceArray<Line> ring;
+  private final int mask;
+  // next slot to claim by the producers
+  private final AtomicLong tail = new AtomicLong();
+  // next slot to read by the writer thread
+  private volatile long head;
+  private volatile boolean parked;
+  private final AtomicLong dropped = new AtomicLong();
+  // there is at most one writer thread at any time
+  private final AtomicBoolean running = new AtomicBoolean();
+  private volatile Thread thread;
+
+  AccessLogWriter(int capacity, Sink sink) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be > 0");
+    }
+    // round up to a power of 2
+    final int size = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+    this.sink = sink;
+    this.ring = new AtomicReferenceArray<>(size);
+    this.mask = size - 1;
+  }
+
+  /**
+   * Queue a line, never blocks.
+   *
+   * @return {@code false} if the line was dropped
+   */
+  boolean offer(int status, String message) {
+    final Line line = new Line(status, message);
+    for (;;) {
+      final long t = tail.get();
+      if (t - head >= ring.length()) {
+        dropped.incrementAndGet();
+        return false;
+      }
+      if (tail.compareAndSet(t, t + 1)) {
+        ring.set((int) (t & mask), line);
+        wakeUp();
+        return true;
+      }
+    }
+  }
+
+  long dropped() {
+    return dropped.get();
+  }
+
+  private void wakeUp() {
+    if (running.compareAndSet(false, true)) {
+      final Thread thread = new Thread(this::drain, "vertx-web-access-log");
+      thread.setDaemon(true);
+      this.thread = thread;
+      thread.start();
+    } else if (parked) {
+      LockSupport.unpark(thread);
+    }
+  }
+
+  private void drain() {
+    long idleSince = System.nanoTime();
+    for (;;) {
+      final int slot = (int) (head & mask);
+      final Line line = ring.get(slot);
+      if (line == null) {
+        if (head == tail.get() && System.nanoTime() - idleSince >= IDLE_NANOS) {
+          running.set(false);
+          // a producer may have queued a line before the flag was cleared, without starting a new thread
+          if (head == tail.get() || !running.compareAndSet(false, true)) {
+            return;
+          }
+        }
+        // empty, or the producer claimed the slot but did not publish the line yet
+        parked = true;
+        if (ring.get(slot) == null) {
+          LockSupport.parkNanos(this, PARK_NANOS);
+        }
+        parked = false;
+        continue;
+      }
+      idleSince = System.nanoTime();
+      ring.set(slot, null);
+      head = head + 1;
+      try {
+        sink.write(line.status, line.message);
+      } catch (RuntimeException e) {
+        LOG.error("Failed to write access log line", e);
+      }
+    }
+  }
+}
@@ -12,7 +12,6 @@
  * ******************************************************************************/
 package io.vertx.ext.web.handler.impl;
 
-import io.vertx.core.Future;
 import io.vertx.core.internal.logging.Logger;
 import io.vertx.core.internal.logging.LoggerFactory;
 import io.vertx.ext.auth.User;
@@ -26,9 +25,14 @@ import io.vertx.ext.web.Route;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.AuthorizationHandler;
 import io.vertx.ext.web.handler.HttpException;
+import io.vertx.ext.web.impl.DecisionCache;
 import io.vertx.ext.web.impl.RoutingContextInternal;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 
 /**
@@ -43,9 +47,15 @@ public class AuthorizationHandlerImpl implements AuthorizationHandler {
   private final static int FORBIDDEN_CODE = 403;
   private final static HttpException FORBIDDEN_EXCEPTION = new HttpException(FORBIDDEN_CODE);
 
+  // identifies the handler in the shared decision cache, as each handler has its own providers
+  private final static AtomicLong IDS = new AtomicLong();
+
+  private final long id = IDS.incrementAndGet();
   private final Authorization authorization;
   private final Collection<AuthorizationProvider> authorizationProviders;
   private BiConsumer<RoutingContext, AuthorizationContext> variableHandler;
+  private long decisionCacheTtl = DEFAULT_DECISION_CACHE_TTL;
+  private volatile DecisionCache decisions;
 
   public AuthorizationHandlerImpl(Authorization authorization) {
     this.authorization = Objects.requireNonNull(authorization);
@@ -114,8 +124,27 @@ public class AuthorizationHandlerImpl implements AuthorizationHandler {
           variableHandler.accept(ctx, authorizationContext);
         }
 
+        final Authorization authorization = computeAuthorizationIfNeeded(ctx);
+        final DecisionKey key = decisionKey(user, authorization, authorizationContext);
+        if (key != null) {
+          final DecisionCache.Decision decision = decisions(ctx).get(user.subject(), key, System.currentTimeMillis());
+          if (decision != null) {
+            // the providers are skipped, the user gets the authorizations they loaded for the decision
+            for (Map.Entry<String, Set<Authorization>> loaded : decision.authorizations().entrySet()) {
+              if (!user.authorizations().contains(loaded.getKey())) {
+                user.authorizations().put(loaded.getKey(), new HashSet<>(loaded.getValue()));
+              }
+            }
+            final SecurityAudit audit = ((RoutingContextInternal) ctx).securityAudit();
+            audit.authorization(authorization);
+            audit.user(user);
+            decide(ctx, audit, decision.granted());
+            return;
+          }
+        }
+
         // check or fetch authorizations
-        checkOrFetchAuthorizations(ctx, computeAuthorizationIfNeeded(ctx), authorizationContext, authorizationProviders.iterator());
+        checkOrFetchAuthorizations(ctx, authorization, authorizationContext, authorizationProviders.iterator(), key, false);
       } catch (RuntimeException e) {
         // resume as the error handler may allow this request to become valid again
         if (!ctx.request().isEnded()) {
@@ -132,6 +161,88 @@ public class AuthorizationHandlerImpl implements AuthorizationHandler {
     return this;
   }
 
+  @Override
+  public AuthorizationHandler setDecisionCacheTtl(long ttl) {
+    if (ttl < 0) {
+      throw new IllegalArgumentException("ttl must be >= 0");
+    }
+    this.decisionCacheTtl = ttl;
+    return this;
+  }
+
+  /**
+   * @return the key of the decision in the cache, or {@code null} when the decision cannot be cached
+   */
+  private DecisionKey decisionKey(User user, Authorization authorization, AuthorizationContext authorizationContext) {
+    if (decisionCacheTtl == 0 || user.subject() == null) {
+      return null;
+    }
+    // length prefixed, so no key or value can be crafted to look like other variables
+    final StringBuilder variables = new StringBuilder();
+    for (Map.Entry<String, String> variable : authorizationContext.variables()) {
+      variables
+        .append(variable.getKey().length())
+        .append(':')
+        .append(variable.getKey())
+        .append(variable.getValue().length())
+        .append(':')
+        .append(variable.getValue());
+    }
+    return new DecisionKey(id, identity(user), authorization, variables.toString());
+  }
+
+  /**
+   * The subject alone is not an identity, any authentication handler may produce a user with the same subject. The
+   * decisions are keyed by a digest of everything the authentication verified.
+   */
+  private static String identity(User user) {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("Cannot get instance of SHA-256 MessageDigest", e);
+    }
+    digest.update(user.principal().encode().getBytes(StandardCharsets.UTF_8));
+    // cannot appear in encoded JSON
+    digest.update((byte) 0);
+    digest.update(user.attributes().encode().getBytes(StandardCharsets.UTF_8));
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+  }
+
+  private DecisionCache decisions(RoutingContext ctx) {
+    DecisionCache decisions = this.decisions;
+    if (decisions == null) {
+      decisions = DecisionCache.get(ctx.vertx());
+      this.decisions = decisions;
+    }
+    return decisions;
+  }
+
+  private void decide(RoutingContext ctx, SecurityAudit audit, boolean granted) {
+    if (!ctx.request().isEnded()) {
+      ctx.request().resume();
+    }
+    audit.audit(Marker.AUTHORIZATION, granted);
+    if (granted) {
+      ctx.next();
+    } else {
+      ctx.fail(FORBIDDEN_CODE, FORBIDDEN_EXCEPTION);
+    }
+  }
+
+  private void cache(RoutingContext ctx, DecisionKey key, boolean granted) {
+    if (key != null) {
+      final User user = ctx.user();
+      final Map<String, Set<Authorization>> loaded = new HashMap<>();
+      for (AuthorizationProvider provider : authorizationProviders) {
+        if (user.authorizations().contains(provider.getId())) {
+          loaded.put(provider.getId(), new HashSet<>(user.authorizations().get(provider.getId())));
+        }
+      }
+      decisions(ctx).put(user.subject(), key, granted, loaded, System.currentTimeMillis() + decisionCacheTtl);
+    }
+  }
+
   /**
    * this method checks that the specified authorization match the current content.
    * It doesn't fetch all providers at once in order to do early-out, but rather tries to be smart and fetch authorizations one provider at a time
@@ -139,28 +250,26 @@ public class AuthorizationHandlerImpl implements AuthorizationHandler {
    * @param ctx                  the current routing context
    * @param authorizationContext the current authorization context
    * @param providers            the providers iterator
+   * @param key                  the key to cache the decision, {@code null} to not cache it
+   * @param failed               whether a provider failed, a denial is then not cached as it may be transient
    */
-  private void checkOrFetchAuthorizations(RoutingContext ctx, Authorization authorization, AuthorizationContext authorizationContext, Iterator<AuthorizationProvider> providers) {
+  private void checkOrFetchAuthorizations(RoutingContext ctx, Authorization authorization, AuthorizationContext authorizationContext, Iterator<AuthorizationProvider> providers, DecisionKey key, boolean failed) {
     final User user = ctx.user();
     final SecurityAudit audit = ((RoutingContextInternal) ctx).securityAudit();
     audit.authorization(authorization);
     audit.user(user);
 
     if (authorization.match(authorizationContext)) {
-      audit.audit(Marker.AUTHORIZATION, true);
-      if (!ctx.request().isEnded()) {
-        ctx.request().resume();
-      }
-      ctx.next();
+      cache(ctx, key, true);
+      decide(ctx, audit, true);
       return;
     }
 
     if (user == null || !providers.hasNext()) {
-      if (!ctx.request().isEnded()) {
-        ctx.request().resume();
+      if (!failed) {
+        cache(ctx, key, false);
       }
-      audit.audit(Marker.AUTHORIZATION, false);
-      ctx.fail(FORBIDDEN_CODE, FORBIDDEN_EXCEPTION);
+      decide(ctx, audit, false);
       return;
     }
 
@@ -177,20 +286,16 @@ public class AuthorizationHandlerImpl implements AuthorizationHandler {
             // note that we don't 'record' the fact that we tried to fetch the authorization provider.
             // therefore, it will be re-fetched later-on
           })
-          .eventually(() -> {
-            checkOrFetchAuthorizations(ctx, authorization, authorizationContext, providers);
-            return Future.succeededFuture();
-          });
+          .onComplete(ar -> checkOrFetchAuthorizations(ctx, authorization, authorizationContext, providers, key, failed || ar.failed()));
         // get out right now as the callback will decide what to do next
         return;
       }
     } while (providers.hasNext());
     // reached the end of the iterator
-    if (!ctx.request().isEnded()) {
-      ctx.request().resume();
+    if (!failed) {
+      cache(ctx, key, false);
     }
-    audit.audit(Marker.AUTHORIZATION, false);
-    ctx.fail(FORBIDDEN_CODE, FORBIDDEN_EXCEPTION);
+    decide(ctx, audit, false);
   }
 
   @Override
@@ -199,4 +304,36 @@ public class AuthorizationHandlerImpl implements AuthorizationHandler {
     this.authorizationProviders.add(authorizationProvider);
     return this;
   }
+
+  private static final class DecisionKey {
+
+    private final long handler;
+    private final String identity;
+    private final Authorization authorization;
+    private final String variables;
+
+    private DecisionKey(long handler, String identity, Authorization authorization, String variables) {
+      this.handler = handler;
+      this.identity = identity;
+      this.authorization = authorization;
+      this.variables = variables;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof DecisionKey)) {
+        return false;
+      }
+      final DecisionKey other = (DecisionKey) o;
+      return handler == other.handler && identity.equals(other.identity) && authorization.equals(other.authorization) && variables.equals(other.variables);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(handler, identity, authorization, variables);
+    }
+  }
 }
@@ -17,6 +17,7 @@
 package io.vertx.ext.web.handler.impl;
 
 import io.vertx.core.Future;
+import io.vertx.core.internal.ContextInternal;
 import io.vertx.ext.auth.User;
 import io.vertx.ext.auth.audit.Marker;
 import io.vertx.ext.auth.audit.SecurityAudit;
@@ -36,6 +37,8 @@ import java.nio.charset.StandardCharsets;
  */
 public class BasicAuthHandlerImpl extends HTTPAuthorizationHandler<AuthenticationProvider> implements BasicAuthHandler {
 
+  private final UserCache credentialsCache = new UserCache(DEFAULT_CREDENTIALS_CACHE_SIZE, DEFAULT_CREDENTIALS_CACHE_TTL);
+
   public BasicAuthHandlerImpl(AuthenticationProvider authProvider, String realm) {
     super(authProvider, Type.BASIC, realm);
   }
@@ -69,9 +72,49 @@ public class BasicAuthHandlerImpl extends HTTPAuthorizationHandler<Authenticatio
         final UsernamePasswordCredentials credentials = new UsernamePasswordCredentials(suser, spass);
         audit.credentials(credentials);
 
-        return authProvider.authenticate(new UsernamePasswordCredentials(suser, spass))
+        final Future<User> authentication;
+        if (credentialsCache.enabled()) {
+          // the key is prefixed by the user, so all its entries can be evicted
+          final String key = userPrefix(suser) + credentialsCache.key(spass == null ? suser : suser + ':' + spass);
+          authentication = credentialsCache.authenticate(
+            (ContextInternal) context.vertx().getOrCreateContext(),
+            key,
+            () -> authProvider.authenticate(credentials));
+        } else {
+          authentication = authProvider.authenticate(credentials);
+        }
+
+        return authentication
           .andThen(result -> audit.audit(Marker.AUTHENTICATION, result.succeeded()))
           .recover(err -> Future.failedFuture(new HttpException(401, err)));
       });
   }
+
+  @Override
+  public BasicAuthHandler setCredentialsCacheSize(int size) {
+    credentialsCache.configure(size, credentialsCache.ttl());
+    return this;
+  }
+
+  @Override
+  public BasicAuthHandler setCredentialsCacheTtl(long ttl) {
+    credentialsCache.configure(credentialsCache.maxSize(), ttl);
+    return this;
+  }
+
+  @Override
+  public BasicAuthHandler evictCredentials(String username) {
+    credentialsCache.removeByPrefix(userPrefix(username));
+    return this;
+  }
+
+  @Override
+  public BasicAuthHandler clearCredentialsCache() {
+    credentialsCache.clear();
+    return this;
+  }
+
+  private String userPrefix(String username) {
+    return credentialsCache.key(username) + ':';
+  }
 }
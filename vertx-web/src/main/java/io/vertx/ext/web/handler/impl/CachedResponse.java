@@ -0,0 +1,195 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.handler.impl;
+
+import io.vertx.core.MultiMap;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A response cached by the {@link ResponseCacheHandlerImpl}, and its serialized form. The responses varying on request
+ * headers are stored under a key made of the request key and the values of these headers, and a vary record listing
+ * the headers is stored under the request key.
+ *
+ * @author <a href="mailto:pmlopes@gmail.com">Paulo Lopes</a>
+ */
+final class CachedResponse {
+
+  private static final byte RESPONSE = 0;
+  private static final byte VARY = 1;
+
+  final long storedAt;
+  final int status;
+  final String statusMessage;
+  // the request headers the response varies on, lower case and sorted
+  final String[] vary;
+  // the values of these headers for the request that produced the response
+  final String varyKey;
+  // alternating names and values
+  final String[] headers;
+  final Buffer body;
+
+  CachedResponse(long storedAt, int status, String statusMessage, String[] vary, String varyKey, String[] headers, Buffer body) {
+    this.storedAt = storedAt;
+    this.status = status;
+    this.statusMessage = statusMessage;
+    this.vary = vary;
+    this.varyKey = varyKey;
+    this.headers = headers;
+    this.body = body;
+  }
+
+  /**
+   * @return the sorted lower case names of a {@code Vary} response header
+   */
+  static String[] vary(List<String> values) {
+    final Set<String> names = new TreeSet<>();
+    for (String value : values) {
+      for (String name : value.split(",")) {
+        name = name.trim().toLowerCase(Locale.ROOT);
+        if (!name.isEmpty()) {
+          names.add(name);
+        }
+      }
+    }
+    return names.toArray(new String[0]);
+  }
+
+  /**
+   * @return the values of the vary headers of a request
+   */
+  static String varyKey(String[] vary, HttpServerRequest request) {
+    final StringBuilder sb = new StringBuilder();
+    for (String name : vary) {
+      sb.append(name).append(':').append(String.join(",", request.headers().getAll(name))).append('\n');
+    }
+    return sb.toString();
+  }
+
+  /**
+   * @return {@code true} if this response can be served to the request
+   */
+  boolean matches(HttpServerRequest request) {
+    return vary.length == 0 || varyKey.equals(varyKey(vary, request));
+  }
+
+  static String[] headers(MultiMap headers, Set<String> excluded) {
+    final List<String> list = new ArrayList<>();
+    for (Map.Entry<String, String> header : headers) {
+      if (!excluded.contains(header.getKey().toLowerCase(Locale.ROOT))) {
+        list.add(header.getKey());
+        list.add(header.getValue());
+      }
+    }
+    return list.toArray(new String[0]);
+  }
+
+  Buffer toBuffer() {
+    final Buffer buffer = Buffer.buffer(body.length() + 256)
+      .appendByte(RESPONSE)
+      .appendLong(storedAt)
+      .appendInt(status);
+    appendString(buffer, statusMessage);
+    appendStrings(buffer, vary);
+    appendString(buffer, varyKey);
+    appendStrings(buffer, headers);
+    return buffer
+      .appendInt(body.length())
+      .appendBuffer(body);
+  }
+
+  /**
+   * @return the record listing the headers a response varies on
+   */
+  static Buffer varyRecord(String[] vary) {
+    final Buffer buffer = Buffer.buffer().appendByte(VARY);
+    appendStrings(buffer, vary);
+    return buffer;
+  }
+
+  /**
+   * @return the headers listed by a vary record, or {@code null} if the buffer is a response
+   */
+  static String[] varyOf(Buffer buffer) {
+    if (buffer.getByte(0) != VARY) {
+      return null;
+    }
+    final int[] pos = { 1 };
+    return readStrings(buffer, pos);
+  }
+
+  /**
+   * @return the response, or {@code null} if the buffer is a vary record
+   */
+  static CachedResponse fromBuffer(Buffer buffer) {
+    if (buffer.getByte(0) != RESPONSE) {
+      return null;
+    }
+    final long storedAt = buffer.getLong(1);
+    final int status = buffer.getInt(9);
+    final int[] pos = { 13 };
+    final String statusMessage = readString(buffer, pos);
+    final String[] vary = readStrings(buffer, pos);
+    final String varyKey = readString(buffer, pos);
+    final String[] headers = readStrings(buffer, pos);
+    final int length = buffer.getInt(pos[0]);
+    final Buffer body = buffer.getBuffer(pos[0] + 4, pos[0] + 4 + length);
+    return new CachedResponse(storedAt, status, statusMessage, vary, varyKey, headers, body);
+  }
+
+  private static void appendString(Buffer buffer, String value) {
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    buffer.appendInt(bytes.length).appendBytes(bytes);
+  }
+
+  private static void appendStrings(Buffer buffer, String[] values) {
+    buffer.appendInt(values.length);
+    for (String value : values) {
+      appendString(buffer, value);
+    }
+  }
+
+  private static String readString(Buffer buffer, int[] pos) {
+    final int length = buffer.getInt(pos[0]);
+    final String value = buffer.getString(pos[0] + 4, pos[0] + 4 + length);
+    pos[0] += 4 + length;
+    return value;
+  }
+
+  private static String[] readStrings(Buffer buffer, int[] pos) {
+    final String[] values = new String[buffer.getInt(pos[0])];
+    pos[0] += 4;
+    for (int i = 0; i < values.length; i++) {
+      values[i] = readString(buffer, pos);
+    }
+    return values;
+  }
+
+  @Override
+  public String toString() {
+    return status + " " + Arrays.toString(headers);
+  }
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.handler.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.FileProps;
+import io.vertx.core.http.MimeMapping;
+import io.vertx.core.internal.logging.Logger;
+import io.vertx.core.internal.logging.LoggerFactory;
+import io.vertx.ext.web.impl.Utils;
+
+/**
+ * A read only index of the resources found under a web root in the classpath. The index is computed once, so
+ * resources packaged in jars can be served without being extracted to the file cache first.
+ * <p>
+ * Resources up to {@code preloadSize} bytes are loaded in memory when the index is built, larger resources are
+ * loaded on first access and kept for the lifetime of the index.
+ *
+ * @author <a href="http://pmlopes@gmail.com">Paulo Lopes</a>
+ */
+final class ClasspathResourceIndex {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ClasspathResourceIndex.class);
+
+  private final Map<String, Entry> entries;
+  private final long preloadedBytes;
+
+  private ClasspathResourceIndex(Map<String, Entry> entries) {
+    this.entries = entries;
+    long bytes = 0;
+    for (Entry entry : entries.values()) {
+      if (entry.content != null) {
+        bytes += entry.size;
+      }
+    }
+    this.preloadedBytes = bytes;
+  }
+
+  /**
+   * Scan the classpath for the resources under the given web root.
+   *
+   * @param webRoot     the web root, relative to the classpath root
+   * @param preloadSize resources up to this size are loaded in memory eagerly
+   * @param hash        whether a content hash should be computed for each resource
+   * @return the index or {@code null} when the web root is not in the classpath
+   */
+  static ClasspathResourceIndex build(String webRoot, int preloadSize, boolean hash) {
+    // the file system takes precedence over the classpath in the file resolver, if the web root exists on
+    // disk, indexing the classpath would serve different content than the file resolver would
+    if (new File(webRoot).exists()) {
+      LOG.debug("Web root [" + webRoot + "] exists in the file system, classpath index disabled");
+      return null;
+    }
+
+    final String prefix = webRoot.endsWith("/") ? webRoot.substring(0, webRoot.length() - 1) : webRoot;
+    final Map<String, Entry> entries = new HashMap<>();
+
+    try {
+      Enumeration<URL> roots = Utils.getClassLoader().getResources(prefix);
+      while (roots.hasMoreElements()) {
+        URL root = roots.nextElement();
+        switch (root.getProtocol()) {
+          case "file":
+            indexDirectory(Paths.get(root.toURI()), prefix, preloadSize, hash, entries);
+            break;
+          case "jar":
+            indexJar(root, prefix, preloadSize, hash, entries);
+            break;
+          default:
+            LOG.debug("Unsupported classpath resource protocol: " + root);
+        }
+      }
+    } catch (IOException | URISyntaxException e) {
+      LOG.warn("Failed to index the classpath web root [" + webRoot + "]", e);
+      return null;
+    }
+
+    if (entries.isEmpty()) {
+      return null;
+    }
+
+    final ClasspathResourceIndex index = new ClasspathResourceIndex(entries);
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Indexed " + index.size() + " classpath resources under [" + webRoot + "], " + index.preloadedBytes() + " bytes preloaded");
+    }
+    return index;
+  }
+
+  private static void indexDirectory(Path dir, String prefix, int preloadSize, boolean hash, Map<String, Entry> entries) throws IOException {
+    try (Stream<Path> files = Files.walk(dir)) {
+      files
+        .filter(Files::isRegularFile)
+        .forEach(file -> {
+          final String name = prefix + "/" + dir.relativize(file).toString().replace(File.separatorChar, '/');
+          // the first classpath element wins, just like the class loader
+          if (entries.containsKey(name)) {
+            return;
+          }
+          try {
+            final long size = Files.size(file);
+            if (size > Integer.MAX_VALUE) {
+              return;
+            }
+            final URL url = file.toUri().toURL();
+            entries.put(name, new Entry(url, (int) size, Files.getLastModifiedTime(file).toMillis(), mimeType(name), preloadSize, hash));
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private static void indexJar(URL root, String prefix, int preloadSize, boolean hash, Map<String, Entry> entries) throws IOException {
+    final URLConnection conn = root.openConnection();
+    if (!(conn instanceof JarURLConnection)) {
+      return;
+    }
+    final JarFile jar = ((JarURLConnection) conn).getJarFile();
+    final String jarUrl = root.toString().substring(0, root.toString().length() - prefix.length());
+    final Enumeration<JarEntry> jarEntries = jar.entries();
+    while (jarEntries.hasMoreElements()) {
+      JarEntry jarEntry = jarEntries.nextElement();
+      String name = jarEntry.getName();
+      if (jarEntry.isDirectory() || !name.startsWith(prefix + "/") || entries.containsKey(name)) {
+        continue;
+      }
+      if (jarEntry.getSize() < 0 || jarEntry.getSize() > Integer.MAX_VALUE) {
+        continue;
+      }
+      entries.put(name, new Entry(new URL(jarUrl + name), (int) jarEntry.getSize(), jarEntry.getTime(), mimeType(name), preloadSize, hash));
+    }
+  }
+
+  private static String mimeType(String name) {
+    int li = name.lastIndexOf('.');
+    if (li != -1 && li != name.length() - 1) {
+      return MimeMapping.mimeTypeForExtension(name.substring(li + 1));
+    }
+    return null;
+  }
+
+  /**
+   * @param file the file as resolved by the static handler, e.g.: {@code webroot/index.html}
+   * @return the entry or {@code null} if not present in the index
+   */
+  Entry get(String file) {
+    return entries.get(file);
+  }
+
+  /**
+   * @return the number of indexed resources
+   */
+  int size() {
+    return entries.size();
+  }
+
+  /**
+   * @return the amount of bytes held in memory by the index, excluding resources loaded lazily
+   */
+  long preloadedBytes() {
+    return preloadedBytes;
+  }
+
+  static final class Entry implements FileProps {
+
+    private final URL url;
+    private final int size;
+    private final long lastModified;
+    private final String mimeType;
+    private final String etag;
+
+    private volatile Buffer content;
+
+    private Entry(URL url, int size, long lastModified, String mimeType, int preloadSize, boolean hash) throws IOException {
+      this.url = url;
+      this.size = size;
+      this.lastModified = lastModified;
+      this.mimeType = mimeType;
+
+      if (size <= preloadSize || hash) {
+        Buffer data = read(url);
+        this.etag = hash ? etag(data) : null;
+        this.content = size <= preloadSize ? data : null;
+      } else {
+        this.etag = null;
+      }
+    }
+
+    /**
+     * @return the precomputed mime type, or {@code null} if unknown
+     */
+    String mimeType() {
+      return mimeType;
+    }
+
+    /**
+     * @return the content hash as an entity tag, or {@code null} when hashing is disabled
+     */
+    String etag() {
+      return etag;
+    }
+
+    /**
+     * Get the resource content, loading it if it was not preloaded.
+     */
+    Future<Buffer> content(Vertx vertx) {
+      final Buffer data = content;
+      if (data != null) {
+        return Future.succeededFuture(data);
+      }
+      return vertx.executeBlocking(() -> {
+        Buffer loaded = read(url);
+        content = loaded;
+        return loaded;
+      });
+    }
+
+    private static Buffer read(URL url) throws IOException {
+      URLConnection conn = url.openConnection();
+      // avoid keeping the jar file open through the url connection cache
+      conn.setUseCaches(false);
+      try (InputStream in = conn.getInputStream()) {
+        return Buffer.buffer(in.readAllBytes());
+      }
+    }
+
+    private static String etag(Buffer data) {
+      try {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(data.getBytes());
+        return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"";
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    @Override
+    public long creationTime() {
+      return lastModified;
+    }
+
+    @Override
+    public long lastAccessTime() {
+      return lastModified;
+    }
+
+    @Override
+    public long lastModifiedTime() {
+      return lastModified;
+    }
+
+    @Override
+    public boolean isDirectory() {
+      return false;
+    }
+
+    @Override
+    public boolean isOther() {
+      return false;
+    }
+
+    @Override
+    public boolean isRegularFile() {
+      return true;
+    }
+
+    @Override
+    public boolean isSymbolicLink() {
+      return false;
+    }
+
+    @Override
+    public long size() {
+      return size;
+    }
+  }
+}
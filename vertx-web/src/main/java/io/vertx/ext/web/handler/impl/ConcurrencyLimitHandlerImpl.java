@@ -0,0 +1,211 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.handler.impl;
+
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.ext.web.Route;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.ConcurrencyLimitHandler;
+import io.vertx.ext.web.handler.RequestPriority;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * The limit follows a gradient of the latency: each sample moves it towards {@code limit * gradient + sqrt(limit)},
+ * where the gradient is the ratio between the long term and the short term average latency (capped to [0.5, 1]
+ * once the short term latency is more than twice the long term one). Timeouts cut the limit by 10%.
+ *
+ * @author <a href="mailto:pmlopes@gmail.com">Paulo Lopes</a>
+ */
+public class ConcurrencyLimitHandlerImpl implements ConcurrencyLimitHandler {
+
+  private static final CharSequence RETRY_AFTER = HttpHeaders.createOptimized("Retry-After");
+
+  // latency increase tolerated before the limit is reduced
+  private static final double TOLERANCE = 2.0;
+  // how fast the limit moves towards its new estimate
+  private static final double SMOOTHING = 0.2;
+  // samples of the short and long term latency averages
+  private static final double SHORT_WINDOW = 10;
+  private static final double LONG_WINDOW = 600;
+  // limit reduction on timeouts
+  private static final double BACKOFF = 0.9;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final AtomicReference<Estimate> estimate;
+
+  // each thread counts its own requests, so admission does not contend on a single counter
+  private final List<AtomicInteger> counters = new CopyOnWriteArrayList<>();
+  private final ThreadLocal<AtomicInteger> counter = ThreadLocal.withInitial(() -> {
+    final AtomicInteger counter = new AtomicInteger();
+    counters.add(counter);
+    return counter;
+  });
+
+  private volatile Function<RoutingContext, RequestPriority> classifier;
+  private volatile CharSequence retryAfter = HttpHeaders.createOptimized(String.valueOf(DEFAULT_RETRY_AFTER));
+
+  public ConcurrencyLimitHandlerImpl(int initialLimit, int minLimit, int maxLimit) {
+    if (minLimit < 1) {
+      throw new IllegalArgumentException("minLimit must be >= 1");
+    }
+    if (maxLimit < minLimit) {
+      throw new IllegalArgumentException("maxLimit must be >= minLimit");
+    }
+    if (initialLimit < minLimit || initialLimit > maxLimit) {
+      throw new IllegalArgumentException("initialLimit must be between minLimit and maxLimit");
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.estimate = new AtomicReference<>(new Estimate(initialLimit, 0, 0));
+  }
+
+  @Override
+  public ConcurrencyLimitHandler retryAfter(int seconds) {
+    if (seconds < 0) {
+      throw new IllegalArgumentException("seconds must be >= 0");
+    }
+    this.retryAfter = HttpHeaders.createOptimized(String.valueOf(seconds));
+    return this;
+  }
+
+  @Override
+  public ConcurrencyLimitHandler priority(Function<RoutingContext, RequestPriority> classifier) {
+    this.classifier = classifier;
+    return this;
+  }
+
+  @Override
+  public int limit() {
+    return (int) estimate.get().limit;
+  }
+
+  @Override
+  public int inFlight() {
+    int inFlight = 0;
+    for (AtomicInteger counter : counters) {
+      inFlight += counter.get();
+    }
+    return inFlight;
+  }
+
+  @Override
+  public void handle(RoutingContext ctx) {
+    final int inFlight = inFlight();
+    if (inFlight >= allowed(limit(), priority(ctx))) {
+      ctx.response().putHeader(RETRY_AFTER, retryAfter);
+      ctx.fail(503);
+      return;
+    }
+
+    // the request may complete on another thread, it is released from the counter it was taken from
+    final AtomicInteger counter = this.counter.get();
+    counter.incrementAndGet();
+    final long start = System.nanoTime();
+    ctx.addEndHandler(ar -> {
+      counter.decrementAndGet();
+      final int status = ctx.response().getStatusCode();
+      sample(System.nanoTime() - start, inFlight + 1, ar.failed() || status == 503 || status == 504);
+    });
+
+    ctx.next();
+  }
+
+  private RequestPriority priority(RoutingContext ctx) {
+    final Function<RoutingContext, RequestPriority> classifier = this.classifier;
+    if (classifier != null) {
+      final RequestPriority priority = classifier.apply(ctx);
+      if (priority != null) {
+        return priority;
+      }
+    }
+    final Route route = ctx.currentRoute();
+    if (route != null) {
+      final Object priority = route.getMetadata(PRIORITY_METADATA);
+      if (priority instanceof RequestPriority) {
+        return (RequestPriority) priority;
+      }
+      if (priority instanceof String) {
+        return RequestPriority.valueOf((String) priority);
+      }
+    }
+    return RequestPriority.NORMAL;
+  }
+
+  private static int allowed(int limit, RequestPriority priority) {
+    switch (priority) {
+      case CRITICAL:
+        return limit;
+      case BACKGROUND:
+        return Math.max(1, limit / 2);
+      default:
+        return Math.max(1, limit * 9 / 10);
+    }
+  }
+
+  private void sample(long rtt, int inFlight, boolean dropped) {
+    for (;;) {
+      final Estimate current = estimate.get();
+      final Estimate next = current.next(rtt, inFlight, dropped, minLimit, maxLimit);
+      if (current == next || estimate.compareAndSet(current, next)) {
+        return;
+      }
+    }
+  }
+
+  private static final class Estimate {
+
+    private final double limit;
+    // average latencies in ns, 0 until the first sample
+    private final double shortRtt;
+    private final double longRtt;
+
+    private Estimate(double limit, double shortRtt, double longRtt) {
+      this.limit = limit;
+      this.shortRtt = shortRtt;
+      this.longRtt = longRtt;
+    }
+
+    private Estimate next(long rtt, int inFlight, boolean dropped, int minLimit, int maxLimit) {
+      final double shortRtt = this.shortRtt == 0 ? rtt : this.shortRtt + (rtt - this.shortRtt) / SHORT_WINDOW;
+      double longRtt = this.longRtt == 0 ? rtt : this.longRtt + (rtt - this.longRtt) / LONG_WINDOW;
+      // the latency recovered, let the long term average catch up faster
+      if (longRtt / shortRtt > TOLERANCE) {
+        longRtt *= 0.95;
+      }
+
+      double limit;
+      if (dropped) {
+        limit = this.limit * BACKOFF;
+      } else if (inFlight < this.limit / 2) {
+        // the limit is not being used, its latency is unknown
+        limit = this.limit;
+      } else {
+        final double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        final double target = this.limit * gradient + Math.sqrt(this.limit);
+        limit = this.limit * (1 - SMOOTHING) + target * SMOOTHING;
+      }
+      limit = Math.max(minLimit, Math.min(maxLimit, limit));
+      return new Estimate(limit, shortRtt, longRtt);
+    }
+  }
+}
@@ -16,6 +16,7 @@
 
 package io.vertx.ext.web.handler.impl;
 
+import io.vertx.core.MultiMap;
 import io.vertx.core.VertxException;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.http.HttpServerRequest;
@@ -30,6 +31,8 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
 
 import static io.vertx.core.http.HttpHeaders.*;
@@ -41,6 +44,11 @@ import static io.vertx.core.http.HttpHeaders.*;
  */
 public class CorsHandlerImpl implements CorsHandler {
 
+  /**
+   * Max number of origins to keep prebuilt preflight headers for
+   */
+  private static final int MAX_PREFLIGHT_HEADERS = 1024;
+
   private Set<Pattern> relativeOrigins;
   private Set<Origin> staticOrigins;
 
@@ -54,6 +62,10 @@ public class CorsHandlerImpl implements CorsHandler {
   private final Set<String> allowedHeaders = new LinkedHashSet<>();
   private final Set<String> exposedHeaders = new LinkedHashSet<>();
 
+  // compiled on first use, reset when the configuration changes
+  private volatile CorsOrigins origins;
+  private volatile ConcurrentMap<String, MultiMap> preflightHeaders = new ConcurrentHashMap<>();
+
   public CorsHandlerImpl() {
     relativeOrigins = null;
     staticOrigins = null;
@@ -84,6 +96,7 @@ public class CorsHandlerImpl implements CorsHandler {
       }
     }
     staticOrigins.add(Origin.parse(origin));
+    configChanged();
     return this;
   }
 
@@ -114,6 +127,7 @@ public class CorsHandlerImpl implements CorsHandler {
       }
     }
     relativeOrigins.add(Pattern.compile(origin));
+    configChanged();
     return this;
   }
 
@@ -131,6 +145,7 @@ public class CorsHandlerImpl implements CorsHandler {
   public CorsHandler allowedMethod(HttpMethod method) {
     allowedMethods.add(method.name());
     allowedMethodsString = String.join(",", allowedMethods);
+    configChanged();
     return this;
   }
 
@@ -140,6 +155,7 @@ public class CorsHandlerImpl implements CorsHandler {
       allowedMethods.add(method.name());
     }
     allowedMethodsString = String.join(",", allowedMethods);
+    configChanged();
     return this;
   }
 
@@ -147,6 +163,7 @@ public class CorsHandlerImpl implements CorsHandler {
   public CorsHandler allowedHeader(String headerName) {
     allowedHeaders.add(headerName);
     allowedHeadersString = String.join(",", allowedHeaders);
+    configChanged();
     return this;
   }
 
@@ -154,6 +171,7 @@ public class CorsHandlerImpl implements CorsHandler {
   public CorsHandler allowedHeaders(Set<String> headerNames) {
     allowedHeaders.addAll(headerNames);
     allowedHeadersString = String.join(",", allowedHeaders);
+    configChanged();
     return this;
   }
 
@@ -174,12 +192,14 @@ public class CorsHandlerImpl implements CorsHandler {
   @Override
   public CorsHandler allowCredentials(boolean allow) {
     this.allowCredentials = allow;
+    configChanged();
     return this;
   }
 
   @Override
   public CorsHandler maxAgeSeconds(int maxAgeSeconds) {
     this.maxAgeSeconds = maxAgeSeconds == -1 ? null : String.valueOf(maxAgeSeconds);
+    configChanged();
     return this;
   }
 
@@ -207,13 +227,8 @@ public class CorsHandlerImpl implements CorsHandler {
       String accessControlRequestMethod = request.headers().get(ACCESS_CONTROL_REQUEST_METHOD);
       if (request.method() == HttpMethod.OPTIONS && accessControlRequestMethod != null) {
         // Pre-flight request
-        addCredentialsAndOriginHeader(response, origin);
-        if (allowedMethodsString != null) {
-          response.putHeader(ACCESS_CONTROL_ALLOW_METHODS, allowedMethodsString);
-        }
-        if (allowedHeadersString != null) {
-          response.putHeader(ACCESS_CONTROL_ALLOW_HEADERS, allowedHeadersString);
-        } else {
+        response.headers().setAll(preflightHeaders(origin));
+        if (allowedHeadersString == null) {
           if (request.headers().contains(ACCESS_CONTROL_REQUEST_HEADERS)) {
             // echo back the request headers
             response.putHeader(ACCESS_CONTROL_ALLOW_HEADERS, request.getHeader(ACCESS_CONTROL_REQUEST_HEADERS));
@@ -221,15 +236,10 @@ public class CorsHandlerImpl implements CorsHandler {
             Utils.appendToMapIfAbsent(response.headers(), VARY, ",", ACCESS_CONTROL_REQUEST_HEADERS);
           }
         }
-        if (maxAgeSeconds != null) {
-          response.putHeader(ACCESS_CONTROL_MAX_AGE, maxAgeSeconds);
-        }
         if (request.headers().contains(ACCESS_CONTROL_REQUEST_PRIVATE_NETWORK) && allowPrivateNetwork) {
           response.putHeader(ACCESS_CONTROL_ALLOW_PRIVATE_NETWORK, "true");
         }
         response
-          // for old Safari
-          .putHeader(CONTENT_LENGTH, "0")
           .setStatusCode(204)
           .end();
 
@@ -255,6 +265,43 @@ public class CorsHandlerImpl implements CorsHandler {
     }
   }
 
+  /**
+   * @return the preflight headers that only depend on the configuration and the origin, built once per origin
+   */
+  private MultiMap preflightHeaders(String origin) {
+    final ConcurrentMap<String, MultiMap> cache = preflightHeaders;
+    // without credentials, a star origin is answered with '*' whatever the origin
+    final String key = allowCredentials ? origin : getAllowedOrigin(origin);
+    MultiMap headers = cache.get(key);
+    if (headers == null) {
+      headers = MultiMap.caseInsensitiveMultiMap();
+      if (allowCredentials) {
+        headers.add(ACCESS_CONTROL_ALLOW_CREDENTIALS, "true");
+      }
+      headers.add(ACCESS_CONTROL_ALLOW_ORIGIN, key);
+      if (allowedMethodsString != null) {
+        headers.add(ACCESS_CONTROL_ALLOW_METHODS, allowedMethodsString);
+      }
+      if (allowedHeadersString != null) {
+        headers.add(ACCESS_CONTROL_ALLOW_HEADERS, allowedHeadersString);
+      }
+      if (maxAgeSeconds != null) {
+        headers.add(ACCESS_CONTROL_MAX_AGE, maxAgeSeconds);
+      }
+      // for old Safari
+      headers.add(CONTENT_LENGTH, "0");
+      if (cache.size() < MAX_PREFLIGHT_HEADERS) {
+        cache.put(key, headers);
+      }
+    }
+    return headers;
+  }
+
+  private void configChanged() {
+    origins = null;
+    preflightHeaders = new ConcurrentHashMap<>();
+  }
+
   private void addCredentialsAndOriginHeader(HttpServerResponse response, String origin) {
     if (allowCredentials) {
       response.putHeader(ACCESS_CONTROL_ALLOW_CREDENTIALS, "true");
@@ -273,25 +320,12 @@ public class CorsHandlerImpl implements CorsHandler {
       return Origin.isValid(origin);
     }
 
-    if(staticOrigins != null) {
-      // check whether origin is contained within allowed origin set
-      for (Origin allowedOrigin : staticOrigins) {
-        if (allowedOrigin.sameOrigin(origin)) {
-          return true;
-        }
-      }
+    CorsOrigins origins = this.origins;
+    if (origins == null) {
+      origins = new CorsOrigins(staticOrigins, relativeOrigins);
+      this.origins = origins;
     }
-
-    if(relativeOrigins != null) {
-      // check for allowed origin pattern match
-      for (Pattern allowedOrigin : relativeOrigins) {
-        if (allowedOrigin.matcher(origin).matches()) {
-          return true;
-        }
-      }
-    }
-
-    return false;
+    return origins.matches(origin);
   }
 
   private String getAllowedOrigin(String origin) {
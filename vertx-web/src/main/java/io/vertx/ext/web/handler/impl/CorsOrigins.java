@@ -0,0 +1,336 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.handler.impl;
+
+import io.vertx.ext.web.impl.Origin;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * The allowed origins of a {@link CorsHandlerImpl}, compiled for fast matching:
+ *
+ * <ul>
+ *   <li>static origins are looked up in a hash set, by their normalized form</li>
+ *   <li>relative origins of the form {@code https?://(.*\.)?example\.com(:port)?} are stored in a trie of reversed
+ *   host labels, so matching costs one lookup per label of the origin host</li>
+ *   <li>other relative origins are matched with their regular expression</li>
+ * </ul>
+ *
+ * Wildcards compiled into the trie only match well formed host labels, unlike the regular expression they come from,
+ * which for example would let {@code .*} match a {@code /} or a {@code :}.
+ *
+ * @author <a href="mailto:plopes@redhat.com">Paulo Lopes</a>
+ */
+final class CorsOrigins {
+
+  private final Set<String> exact = new HashSet<>();
+  private final Origin[] unparsable;
+  // root label node per scheme and port, e.g.: "https" or "http:8080"
+  private final Map<String, Node> trie = new HashMap<>();
+  private final Pattern[] patterns;
+
+  CorsOrigins(Set<Origin> staticOrigins, Set<Pattern> relativeOrigins) {
+    final List<Origin> unparsable = new ArrayList<>();
+    if (staticOrigins != null) {
+      for (Origin origin : staticOrigins) {
+        if (origin.host() == null) {
+          // the "null" origin
+          exact.add("null");
+        } else {
+          exact.add(origin.protocol().toLowerCase(Locale.ROOT) + "://" + origin.host().toLowerCase(Locale.ROOT) + ":" + origin.port());
+        }
+        // kept in case an origin header cannot be normalized
+        unparsable.add(origin);
+      }
+    }
+    this.unparsable = unparsable.toArray(new Origin[0]);
+
+    final List<Pattern> patterns = new ArrayList<>();
+    if (relativeOrigins != null) {
+      for (Pattern pattern : relativeOrigins) {
+        if (!compile(pattern.pattern())) {
+          patterns.add(pattern);
+        }
+      }
+    }
+    this.patterns = patterns.toArray(new Pattern[0]);
+  }
+
+  boolean matches(String origin) {
+    final String normalized = normalize(origin);
+    if (normalized == null) {
+      for (Origin allowedOrigin : unparsable) {
+        if (allowedOrigin.sameOrigin(origin)) {
+          return true;
+        }
+      }
+    } else if (exact.contains(normalized)) {
+      return true;
+    }
+
+    if (!trie.isEmpty() && matchesTrie(origin)) {
+      return true;
+    }
+
+    for (Pattern pattern : patterns) {
+      if (pattern.matcher(origin).matches()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Normalize an origin header as {@code scheme://host:port}, lower case and with the default port if absent, the
+   * same rules as {@link Origin#sameOrigin(String)}.
+   *
+   * @return the normalized origin or {@code null} if not a supported origin
+   */
+  static String normalize(String origin) {
+    if ("null".equals(origin)) {
+      return origin;
+    }
+    final int sep0 = origin.indexOf("://");
+    if (sep0 <= 0) {
+      return null;
+    }
+    final String protocol = origin.substring(0, sep0).toLowerCase(Locale.ROOT);
+    final String defaultPort;
+    switch (protocol) {
+      case "ftp":
+        defaultPort = "21";
+        break;
+      case "http":
+        defaultPort = "80";
+        break;
+      case "https":
+        defaultPort = "443";
+        break;
+      case "chrome-extension":
+        defaultPort = "-1";
+        break;
+      default:
+        return null;
+    }
+    final int start = sep0 + 3;
+    int end = origin.indexOf('/', start);
+    if (end == -1) {
+      end = origin.length();
+    }
+    int colon;
+    if (start < end && origin.charAt(start) == '[') {
+      final int close = origin.indexOf(']', start);
+      if (close == -1 || close >= end) {
+        return null;
+      }
+      colon = close + 1 < end && origin.charAt(close + 1) == ':' ? close + 1 : -1;
+      if (colon == -1 && close + 1 != end) {
+        return null;
+      }
+    } else {
+      colon = origin.indexOf(':', start);
+      if (colon >= end) {
+        colon = -1;
+      }
+    }
+    final String host = origin.substring(start, colon == -1 ? end : colon).toLowerCase(Locale.ROOT);
+    if (host.isEmpty()) {
+      return null;
+    }
+    String port = defaultPort;
+    if (colon != -1) {
+      port = origin.substring(colon + 1, end);
+      if (port.isEmpty() || port.length() > 5) {
+        return null;
+      }
+      for (int i = 0; i < port.length(); i++) {
+        if (!Character.isDigit(port.charAt(i))) {
+          return null;
+        }
+      }
+    }
+    return protocol + "://" + host + ":" + port;
+  }
+
+  private boolean matchesTrie(String origin) {
+    final int sep0 = origin.indexOf("://");
+    if (sep0 <= 0) {
+      return false;
+    }
+    final int start = sep0 + 3;
+    final int colon = origin.indexOf(':', start);
+    final int end = colon == -1 ? origin.length() : colon;
+    if (origin.indexOf('/', start) != -1) {
+      return false;
+    }
+    final Node root = trie.get(colon == -1 ? origin.substring(0, sep0) : origin.substring(0, sep0) + origin.substring(colon));
+    if (root == null) {
+      return false;
+    }
+
+    if (start == end) {
+      return false;
+    }
+    // walk the host labels from the right, the host left to match is [start, remaining)
+    Node node = root;
+    int remaining = end;
+    for (;;) {
+      if (node.anySubdomain && validLabels(origin, start, remaining)) {
+        return true;
+      }
+      final int dot = origin.lastIndexOf('.', remaining - 1);
+      final int labelStart = dot < start ? start : dot + 1;
+      final String label = origin.substring(labelStart, remaining);
+      if (node.oneSubdomain && labelStart == start && isLabel(label)) {
+        return true;
+      }
+      node = node.children.get(label);
+      if (node == null) {
+        return false;
+      }
+      if (labelStart == start) {
+        // the whole host matched
+        return node.terminal;
+      }
+      remaining = labelStart - 1;
+    }
+  }
+
+  private static boolean validLabels(String origin, int start, int end) {
+    int labelStart = start;
+    for (int i = start; i <= end; i++) {
+      if (i == end || origin.charAt(i) == '.') {
+        if (i == labelStart || !isLabel(origin.substring(labelStart, i))) {
+          return false;
+        }
+        labelStart = i + 1;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isLabel(String label) {
+    for (int i = 0; i < label.length(); i++) {
+      final char c = label.charAt(i);
+      if (!Character.isLetterOrDigit(c) && c != '-') {
+        return false;
+      }
+    }
+    return !label.isEmpty();
+  }
+
+  /**
+   * Try to compile a relative origin into the trie.
+   *
+   * @return {@code false} if the regular expression is not of a supported form
+   */
+  private boolean compile(String regex) {
+    String rest = regex.replace("\\/", "/");
+    if (rest.startsWith("^")) {
+      rest = rest.substring(1);
+    }
+    if (rest.endsWith("$") && !rest.endsWith("\\$")) {
+      rest = rest.substring(0, rest.length() - 1);
+    }
+
+    final String[] schemes;
+    if (rest.startsWith("https?://")) {
+      schemes = new String[] { "http", "https" };
+      rest = rest.substring(9);
+    } else if (rest.startsWith("http://")) {
+      schemes = new String[] { "http" };
+      rest = rest.substring(7);
+    } else if (rest.startsWith("https://")) {
+      schemes = new String[] { "https" };
+      rest = rest.substring(8);
+    } else {
+      return false;
+    }
+
+    boolean anySubdomain = false;
+    boolean oneSubdomain = false;
+    if (rest.startsWith(".*\\.") || rest.startsWith(".+\\.")) {
+      anySubdomain = true;
+      rest = rest.substring(4);
+    } else if (rest.startsWith("[^.]+\\.")) {
+      oneSubdomain = true;
+      rest = rest.substring(7);
+    }
+
+    String port = "";
+    final int colon = rest.indexOf(':');
+    if (colon != -1) {
+      port = rest.substring(colon);
+      rest = rest.substring(0, colon);
+      if (port.length() == 1) {
+        return false;
+      }
+      for (int i = 1; i < port.length(); i++) {
+        if (!Character.isDigit(port.charAt(i))) {
+          return false;
+        }
+      }
+    }
+
+    // the domain must be plain labels separated by escaped dots
+    final String[] labels = rest.split("\\\\\\.", -1);
+    for (String label : labels) {
+      if (label.isEmpty()) {
+        return false;
+      }
+      for (int i = 0; i < label.length(); i++) {
+        final char c = label.charAt(i);
+        if (!(c >= 'a' && c <= 'z') && !(c >= 'A' && c <= 'Z') && !(c >= '0' && c <= '9') && c != '-') {
+          return false;
+        }
+      }
+    }
+
+    for (String scheme : schemes) {
+      Node node = trie.computeIfAbsent(scheme + port, k -> new Node());
+      for (int i = labels.length - 1; i >= 0; i--) {
+        node = node.children.computeIfAbsent(labels[i], k -> new Node());
+      }
+      if (anySubdomain) {
+        node.anySubdomain = true;
+      } else if (oneSubdomain) {
+        node.oneSubdomain = true;
+      } else {
+        node.terminal = true;
+      }
+    }
+    return true;
+  }
+
+  private static final class Node {
+
+    private final Map<String, Node> children = new HashMap<>();
+    // the labels so far are the whole host
+    private boolean terminal;
+    // any number (at least one) of labels can precede
+    private boolean anySubdomain;
+    // exactly one label can precede
+    private boolean oneSubdomain;
+  }
+}
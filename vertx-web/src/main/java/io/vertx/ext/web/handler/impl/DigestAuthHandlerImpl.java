@@ -22,7 +22,6 @@ import io.vertx.core.Vertx;
 import io.vertx.core.internal.logging.Logger;
 import io.vertx.core.internal.logging.LoggerFactory;
 import io.vertx.core.shareddata.LocalMap;
-import io.vertx.core.shareddata.Shareable;
 import io.vertx.ext.auth.User;
 import io.vertx.ext.auth.prng.VertxContextPRNG;
 import io.vertx.ext.auth.audit.Marker;
@@ -37,8 +36,6 @@ import io.vertx.ext.web.impl.RoutingContextInternal;
 
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.HashSet;
-import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -54,23 +51,6 @@ public class DigestAuthHandlerImpl extends HTTPAuthorizationHandler<HtdigestAuth
    */
   private static final String DEFAULT_NONCE_MAP_NAME = "htdigest.nonces";
 
-  /**
-   * Shareable objects should be immutable.
-   */
-  private static class Nonce implements Shareable {
-    private final long createdAt;
-    private final int count;
-
-    Nonce(int count) {
-      this(System.currentTimeMillis(), count);
-    }
-
-    Nonce(long createdAt, int count) {
-      this.createdAt = createdAt;
-      this.count = count;
-    }
-  }
-
   private static final Pattern PARSER = Pattern.compile("(\\w+)=[\"]?([^\"]*)[\"]?$");
   private static final Pattern SPLITTER = Pattern.compile(",(?=(?:[^\"]|\"[^\"]*\")*$)");
 
@@ -85,37 +65,25 @@ public class DigestAuthHandlerImpl extends HTTPAuthorizationHandler<HtdigestAuth
   }
 
   private final VertxContextPRNG random;
-  private final LocalMap<String, Nonce> nonces;
-
-  private final long nonceExpireTimeout;
-
-  private long lastExpireRun;
+  private final NonceStore nonces;
 
   public DigestAuthHandlerImpl(Vertx vertx, HtdigestAuth authProvider, long nonceExpireTimeout) {
+    this(vertx, authProvider, nonceExpireTimeout, DEFAULT_MAX_NONCES);
+  }
+
+  public DigestAuthHandlerImpl(Vertx vertx, HtdigestAuth authProvider, long nonceExpireTimeout, int maxNonces) {
     super(authProvider, Type.DIGEST, authProvider.realm());
     random = VertxContextPRNG.current(vertx);
-    nonces = vertx.sharedData().getLocalMap(DEFAULT_NONCE_MAP_NAME);
-    this.nonceExpireTimeout = nonceExpireTimeout;
+    // the nonces are shared by the handlers with the same settings
+    final LocalMap<String, NonceStore> stores = vertx.sharedData().getLocalMap(DEFAULT_NONCE_MAP_NAME);
+    final String key = nonceExpireTimeout + ":" + maxNonces;
+    final NonceStore store = new NonceStore(nonceExpireTimeout, maxNonces);
+    final NonceStore existing = stores.putIfAbsent(key, store);
+    nonces = existing != null ? existing : store;
   }
 
   @Override
   public Future<User> authenticate(RoutingContext context) {
-    // clean up nonce
-    long now = System.currentTimeMillis();
-    if (now - lastExpireRun > nonceExpireTimeout / 2) {
-      Set<String> toRemove = new HashSet<>();
-      nonces.forEach((String key, Nonce n) -> {
-        if (n != null && n.createdAt + nonceExpireTimeout < now) {
-          toRemove.add(key);
-        }
-      });
-
-      for (String n : toRemove) {
-        nonces.remove(n);
-      }
-      lastExpireRun = now;
-    }
-
     return parseAuthorization(context)
       .compose(header -> {
         final HtdigestCredentials credentials = new HtdigestCredentials();
@@ -174,21 +142,19 @@ public class DigestAuthHandlerImpl extends HTTPAuthorizationHandler<HtdigestAuth
           }
 
           final String nonce = credentials.getNonce();
+          final long now = System.currentTimeMillis();
 
-          // check for expiration
-          if (!nonces.containsKey(nonce)) {
-            return Future.failedFuture(UNAUTHORIZED);
-          }
-
-          // check for nonce counter (prevent replay attack)
           if (credentials.getQop() != null) {
+            // check for expiration and nonce counter (prevent replay attack)
             int nc = Integer.parseInt(credentials.getNc(), 16);
-            final Nonce n = nonces.get(nonce);
-            if (nc <= n.count) {
+            if (!nonces.count(nonce, nc, now)) {
+              return Future.failedFuture(UNAUTHORIZED);
+            }
+          } else {
+            // check for expiration
+            if (!nonces.contains(nonce, now)) {
               return Future.failedFuture(UNAUTHORIZED);
             }
-            // update the nounce count
-            nonces.put(nonce, new Nonce(n.createdAt, nc));
           }
 
         } catch (RuntimeException e) {
@@ -224,7 +190,7 @@ public class DigestAuthHandlerImpl extends HTTPAuthorizationHandler<HtdigestAuth
     // generate nonce
     String nonce = md5(bytes);
     // save it
-    nonces.put(nonce, new Nonce(0));
+    nonces.add(nonce, System.currentTimeMillis());
 
     // generate opaque
     String opaque = null;
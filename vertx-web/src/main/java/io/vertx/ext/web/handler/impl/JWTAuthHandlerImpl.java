@@ -44,11 +44,14 @@ public class JWTAuthHandlerImpl extends HTTPAuthorizationHandler<JWTAuth> implem
 
   private final List<String> scopes;
   private String delimiter;
+  // shared with the handlers derived with other scopes
+  private final UserCache tokenCache;
 
   public JWTAuthHandlerImpl(JWTAuth authProvider, String realm) {
     super(authProvider, Type.BEARER, realm);
     scopes = Collections.emptyList();
     this.delimiter = " ";
+    this.tokenCache = new UserCache(DEFAULT_TOKEN_CACHE_SIZE, DEFAULT_TOKEN_CACHE_TTL);
   }
 
   private JWTAuthHandlerImpl(JWTAuthHandlerImpl base, List<String> scopes, String delimiter) {
@@ -57,6 +60,7 @@ public class JWTAuthHandlerImpl extends HTTPAuthorizationHandler<JWTAuth> implem
     this.scopes = scopes;
     Objects.requireNonNull(delimiter, "delimiter cannot be null");
     this.delimiter = delimiter;
+    this.tokenCache = base.tokenCache;
   }
 
   @Override
@@ -84,10 +88,28 @@ public class JWTAuthHandlerImpl extends HTTPAuthorizationHandler<JWTAuth> implem
         final SecurityAudit audit = ((RoutingContextInternal) context).securityAudit();
         audit.credentials(credentials);
 
+        final String key;
+        if (tokenCache.enabled()) {
+          key = tokenCache.key(token);
+          final User cached = tokenCache.get(key);
+          if (cached != null) {
+            // the signature of this token was already verified, scopes are still checked per request
+            audit.audit(Marker.AUTHENTICATION, true);
+            return Future.succeededFuture(cached);
+          }
+        } else {
+          key = null;
+        }
+
         return
           authProvider
-            .authenticate(new TokenCredentials(token))
-            .andThen(op -> audit.audit(Marker.AUTHENTICATION, op.succeeded()))
+            .authenticate(credentials)
+            .andThen(op -> {
+              audit.audit(Marker.AUTHENTICATION, op.succeeded());
+              if (key != null && op.succeeded()) {
+                tokenCache.put(key, op.result());
+              }
+            })
             .recover(err -> Future.failedFuture(new HttpException(401, err)));
       });
   }
@@ -106,6 +128,24 @@ public class JWTAuthHandlerImpl extends HTTPAuthorizationHandler<JWTAuth> implem
     return new JWTAuthHandlerImpl(this, scopes, delimiter);
   }
 
+  @Override
+  public JWTAuthHandler setTokenCacheSize(int size) {
+    tokenCache.configure(size, tokenCache.ttl());
+    return this;
+  }
+
+  @Override
+  public JWTAuthHandler setTokenCacheTtl(long ttl) {
+    tokenCache.configure(tokenCache.maxSize(), ttl);
+    return this;
+  }
+
+  @Override
+  public JWTAuthHandler clearTokenCache() {
+    tokenCache.clear();
+    return this;
+  }
+
   @Override
   public JWTAuthHandler scopeDelimiter(String delimiter) {
     Objects.requireNonNull(delimiter, "delimiter cannot be null");
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.handler.impl;
+
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.web.handler.ResponseCacheStore;
+import io.vertx.ext.web.impl.LRUCache;
+
+/**
+ * @author <a href="mailto:pmlopes@gmail.com">Paulo Lopes</a>
+ */
+public class LocalResponseCacheStore implements ResponseCacheStore {
+
+  private final LRUCache<String, Entry> entries;
+
+  public LocalResponseCacheStore(int maxEntries) {
+    this.entries = new LRUCache<>(16, 0.75f, true, maxEntries);
+  }
+
+  @Override
+  public Future<Buffer> get(String key) {
+    final Entry entry;
+    synchronized (entries) {
+      entry = entries.get(key);
+      if (entry != null && entry.expiresAt <= System.currentTimeMillis()) {
+        entries.remove(key);
+        return Future.succeededFuture();
+      }
+    }
+    return Future.succeededFuture(entry == null ? null : entry.value);
+  }
+
+  @Override
+  public Future<Void> put(String key, Buffer value, long ttl) {
+    synchronized (entries) {
+      entries.put(key, new Entry(value, System.currentTimeMillis() + ttl));
+    }
+    return Future.succeededFuture();
+  }
+
+  @Override
+  public Future<Void> remove(String key) {
+    synchronized (entries) {
+      entries.remove(key);
+    }
+    return Future.succeededFuture();
+  }
+
+  @Override
+  public Future<Void> clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+    return Future.succeededFuture();
+  }
+
+  private static final class Entry {
+
+    private final Buffer value;
+    private final long expiresAt;
+
+    private Entry(Buffer value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
@@ -16,7 +16,6 @@
 
 package io.vertx.ext.web.handler.impl;
 
-import io.vertx.core.MultiMap;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.HttpVersion;
@@ -27,9 +26,6 @@ import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.LoggerFormat;
 import io.vertx.ext.web.handler.LoggerFormatter;
 import io.vertx.ext.web.handler.LoggerHandler;
-import io.vertx.ext.web.impl.Utils;
-
-import java.util.function.Function;
 
 /** # Logger
  *
@@ -43,6 +39,9 @@ import java.util.function.Function;
  * equal to 500 the fatal severity is used, for status greater or equal to 400 the error severity is used, for status
  * greater or equal to 300 warn is used and for status above 100 info is used.
  *
+ * Formats are compiled once into a list of fields (see {@link AccessLogFormat}), so a line is built by appending the
+ * fields to a reused buffer, without parsing a format string per request.
+ *
  * @author <a href="http://pmlopes@gmail.com">Paulo Lopes</a>
  */
 public class LoggerHandlerImpl implements LoggerHandler {
@@ -59,9 +58,20 @@ public class LoggerHandlerImpl implements LoggerHandler {
 
   private LoggerFormatter logFormatter;
 
+  /** the format compiled into fields, null for a custom formatter
+   */
+  private volatile AccessLogFormat compiled;
+
+  private volatile boolean json;
+
+  /** the background writer, null to log on the calling thread
+   */
+  private volatile AccessLogWriter writer;
+
   public LoggerHandlerImpl(boolean immediate, LoggerFormat format) {
     this.immediate = immediate;
     this.format = format;
+    this.compiled = AccessLogFormat.of(format);
   }
 
   public LoggerHandlerImpl(LoggerFormat format) {
@@ -75,8 +85,8 @@ public class LoggerHandlerImpl implements LoggerHandler {
     return inetSocketAddress.host();
   }
 
-  private void log(RoutingContext context, long timestamp, String remoteClient, HttpVersion version, HttpMethod method, String uri) {
-    HttpServerRequest request = context.request();
+  private void log(AccessLogFormat.Entry entry) {
+    HttpServerRequest request = entry.ctx.request();
     long contentLength = 0;
     if (immediate) {
       Object obj = request.headers().get("content-length");
@@ -90,70 +100,34 @@ public class LoggerHandlerImpl implements LoggerHandler {
     } else {
       contentLength  = request.response().bytesWritten();
     }
-    String versionFormatted = "-";
-    switch (version){
-      case HTTP_1_0:
-        versionFormatted = "HTTP/1.0";
-        break;
-      case HTTP_1_1:
-        versionFormatted = "HTTP/1.1";
-        break;
-      case HTTP_2:
-        versionFormatted = "HTTP/2.0";
-        break;
-    }
+    entry.contentLength = contentLength;
+    entry.duration = System.currentTimeMillis() - entry.timestamp;
 
-    final MultiMap headers = request.headers();
     int status = request.response().getStatusCode();
-    String message = null;
-
-    switch (format) {
-      case DEFAULT:
-        // as per RFC1945 the header is referer but it is not mandatory some implementations use referrer
-        String referrer = headers.contains("referrer") ? headers.get("referrer") : headers.get("referer");
-        String userAgent = request.headers().get("user-agent");
-        referrer = referrer == null ? "-" : referrer;
-        userAgent = userAgent == null ? "-" : userAgent;
-
-        message = String.format("%s - - [%s] \"%s %s %s\" %d %d \"%s\" \"%s\"",
-          remoteClient,
-          Utils.formatRFC1123DateTime(timestamp),
-          method,
-          uri,
-          versionFormatted,
-          status,
-          contentLength,
-          referrer,
-          userAgent);
-        break;
-      case SHORT:
-        message = String.format("%s - %s %s %s %d %d - %d ms",
-          remoteClient,
-          method,
-          uri,
-          versionFormatted,
-          status,
-          contentLength,
-          (System.currentTimeMillis() - timestamp));
-        break;
-      case TINY:
-        message = String.format("%s %s %d %d - %d ms",
-          method,
-          uri,
-          status,
-          contentLength,
-          (System.currentTimeMillis() - timestamp));
-        break;
-      case CUSTOM:
-        try {
-          message = logFormatter.format(context, (System.currentTimeMillis() - timestamp));
-        } catch (RuntimeException e) {
-          // if an error happens at the user side
-          // log it instead
-          message = e.getMessage();
-        }
+    String message;
+
+    final AccessLogFormat compiled = this.compiled;
+    if (compiled != null) {
+      message = json ? compiled.formatJson(entry) : compiled.format(entry);
+    } else {
+      try {
+        message = logFormatter.format(entry.ctx, entry.duration);
+      } catch (RuntimeException e) {
+        // if an error happens at the user side
+        // log it instead
+        message = e.getMessage();
+      }
+      if (json) {
+        message = AccessLogFormat.formatJson(message);
+      }
+    }
+
+    final AccessLogWriter writer = this.writer;
+    if (writer != null) {
+      writer.offer(status, message);
+    } else {
+      doLog(status, message);
     }
-    doLog(status, message);
   }
 
   protected void doLog(int status, String message) {
@@ -175,10 +149,11 @@ public class LoggerHandlerImpl implements LoggerHandler {
     String uri = context.request().uri();
     HttpVersion version = context.request().version();
 
+    final AccessLogFormat.Entry entry = new AccessLogFormat.Entry(context, timestamp, remoteClient, version, method, uri);
     if (immediate) {
-      log(context, timestamp, remoteClient, version, method, uri);
+      log(entry);
     } else {
-      context.addEndHandler(v -> log(context, timestamp, remoteClient, version, method, uri));
+      context.addEndHandler(v -> log(entry));
     }
 
     context.next();
@@ -191,6 +166,38 @@ public class LoggerHandlerImpl implements LoggerHandler {
     }
 
     this.logFormatter = formatter;
+    this.compiled = null;
+    return this;
+  }
+
+  @Override
+  public LoggerHandler customFormat(String pattern) {
+    if (format != LoggerFormat.CUSTOM) {
+      throw new IllegalStateException("Setting a format requires the handler to be set to CUSTOM format");
+    }
+
+    this.compiled = AccessLogFormat.parse(pattern);
+    return this;
+  }
+
+  @Override
+  public LoggerHandler json(boolean json) {
+    this.json = json;
     return this;
   }
+
+  @Override
+  public synchronized LoggerHandler async(int capacity) {
+    if (writer != null) {
+      throw new IllegalStateException("The handler already logs asynchronously");
+    }
+    writer = new AccessLogWriter(capacity, this::doLog);
+    return this;
+  }
+
+  @Override
+  public long dropped() {
+    final AccessLogWriter writer = this.writer;
+    return writer == null ? 0 : writer.dropped();
+  }
 }
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.handler.impl;
+
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The outstanding digest nonces, grouped in buckets by creation window. The buckets form a ring, a bucket is reused
+ * once all its nonces expired, so expiring nonces drops a whole bucket at once instead of scanning them. A nonce lives
+ * at least the expire timeout, and at most one window longer.
+ * <p>
+ * When the max number of nonces is reached, the oldest bucket is dropped early, or if all the nonces are from the
+ * current window, an arbitrary nonce. Nonce counters are updated with a
+ * compare and set, there is no lock.
+ *
+ * @author <a href="mailto:plopes@redhat.com">Paulo Lopes</a>
+ */
+final class NonceStore implements Shareable {
+
+  /**
+   * Number of windows a nonce lives for, the larger the more precise the expiration
+   */
+  private static final int WINDOWS = 16;
+
+  private final long window;
+  private final long span;
+  private final int maxNonces;
+  private final AtomicReferenceArray<Bucket> ring;
+
+  NonceStore(long expireTimeout, int maxNonces) {
+    if (maxNonces <= 0) {
+      throw new IllegalArgumentException("maxNonces must be > 0");
+    }
+    // a nonce lives at least 1ms
+    expireTimeout = Math.max(1, expireTimeout);
+    this.window = Math.max(1, expireTimeout / WINDOWS);
+    // number of windows to cover the timeout, rounded up
+    this.span = (expireTimeout + window - 1) / window;
+    this.maxNonces = maxNonces;
+    // one more slot for the current window
+    this.ring = new AtomicReferenceArray<>((int) span + 1);
+  }
+
+  void add(String nonce, long now) {
+    final long w = now / window;
+    final int slot = slot(w);
+    Bucket bucket = ring.get(slot);
+    while (bucket == null || bucket.window != w) {
+      // the slot is free or holds expired nonces
+      final Bucket fresh = new Bucket(w);
+      if (ring.compareAndSet(slot, bucket, fresh)) {
+        bucket = fresh;
+      } else {
+        bucket = ring.get(slot);
+      }
+    }
+    if (size(now) >= maxNonces && !dropOldest(w)) {
+      // all the nonces are from the current window, make room for one
+      final Iterator<String> it = bucket.nonces.keySet().iterator();
+      if (it.hasNext()) {
+        it.next();
+        it.remove();
+      }
+    }
+    bucket.nonces.put(nonce, new AtomicInteger());
+  }
+
+  /**
+   * @return {@code true} if the nonce is outstanding
+   */
+  boolean contains(String nonce, long now) {
+    return counter(nonce, now) != null;
+  }
+
+  /**
+   * Update the nonce count, the count must increase on each use of the nonce to prevent replays.
+   *
+   * @return {@code false} if the nonce expired or the count did not increase
+   */
+  boolean count(String nonce, int nc, long now) {
+    final AtomicInteger counter = counter(nonce, now);
+    if (counter == null) {
+      return false;
+    }
+    for (;;) {
+      final int current = counter.get();
+      if (nc <= current) {
+        return false;
+      }
+      if (counter.compareAndSet(current, nc)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * @return the number of outstanding nonces
+   */
+  int size(long now) {
+    final long w = now / window;
+    int size = 0;
+    for (int i = 0; i < ring.length(); i++) {
+      final Bucket bucket = ring.get(i);
+      if (live(bucket, w)) {
+        size += bucket.nonces.size();
+      }
+    }
+    return size;
+  }
+
+  private AtomicInteger counter(String nonce, long now) {
+    if (nonce == null) {
+      return null;
+    }
+    final long w = now / window;
+    for (int i = 0; i < ring.length(); i++) {
+      final Bucket bucket = ring.get(i);
+      if (live(bucket, w)) {
+        final AtomicInteger counter = bucket.nonces.get(nonce);
+        if (counter != null) {
+          return counter;
+        }
+      }
+    }
+    return null;
+  }
+
+  private boolean dropOldest(long w) {
+    // the current window is not dropped, it holds the nonces just issued
+    for (long c = w - span; c < w; c++) {
+      final int slot = slot(c);
+      final Bucket bucket = ring.get(slot);
+      if (bucket != null && bucket.window == c && !bucket.nonces.isEmpty()) {
+        ring.compareAndSet(slot, bucket, null);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean live(Bucket bucket, long w) {
+    return bucket != null && w - bucket.window <= span;
+  }
+
+  private int slot(long w) {
+    return (int) (w % ring.length());
+  }
+
+  private static final class Bucket {
+
+    private final long window;
+    private final ConcurrentHashMap<String, AtomicInteger> nonces = new ConcurrentHashMap<>();
+
+    private Bucket(long window) {
+      this.window = window;
+    }
+  }
+}
@@ -21,6 +21,7 @@ import io.vertx.core.Vertx;
 import io.vertx.core.VertxException;
 import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpMethod;
+import io.vertx.core.internal.ContextInternal;
 import io.vertx.core.internal.logging.Logger;
 import io.vertx.core.internal.logging.LoggerFactory;
 import io.vertx.core.json.JsonObject;
@@ -57,6 +58,8 @@ public class OAuth2AuthHandlerImpl extends HTTPAuthorizationHandler<OAuth2Auth>
   private final VertxContextPRNG prng;
   private final Origin callbackURL;
   private final MessageDigest sha256;
+  // shared with the copies created by withScope(s)
+  private final UserCache tokenCache;
 
   private final List<String> scopes;
   private JsonObject extraParams;
@@ -90,6 +93,8 @@ public class OAuth2AuthHandlerImpl extends HTTPAuthorizationHandler<OAuth2Auth>
     }
     // scopes are empty by default
     this.scopes = Collections.emptyList();
+    this.tokenCache = new UserCache(DEFAULT_TOKEN_CACHE_SIZE, DEFAULT_TOKEN_CACHE_TTL);
+    this.tokenCache.negativeTtl(DEFAULT_NEGATIVE_TOKEN_CACHE_TTL);
   }
 
   private OAuth2AuthHandlerImpl(OAuth2AuthHandlerImpl base, List<String> scopes) {
@@ -99,6 +104,7 @@ public class OAuth2AuthHandlerImpl extends HTTPAuthorizationHandler<OAuth2Auth>
     this.prompt = base.prompt;
     this.pkce = base.pkce;
     this.bearerOnly = base.bearerOnly;
+    this.tokenCache = base.tokenCache;
 
     // get a new reference to the sha-256 digest
     try {
@@ -161,7 +167,19 @@ public class OAuth2AuthHandlerImpl extends HTTPAuthorizationHandler<OAuth2Auth>
         final SecurityAudit audit = ((RoutingContextInternal) context).securityAudit();
         audit.credentials(credentials);
 
-        return authProvider.authenticate(credentials)
+        final Future<User> authentication;
+        if (tokenCache.enabled()) {
+          // the scopes are validated by the provider, they are part of the key
+          final String key = tokenCache.key(scopes.isEmpty() ? token : token + ' ' + String.join(" ", scopes));
+          authentication = tokenCache.authenticate(
+            (ContextInternal) context.vertx().getOrCreateContext(),
+            key,
+            () -> authProvider.authenticate(credentials));
+        } else {
+          authentication = authProvider.authenticate(credentials);
+        }
+
+        return authentication
           .andThen(op -> audit.audit(Marker.AUTHENTICATION, op.succeeded()))
           .recover(err -> Future.failedFuture(new HttpException(401, err)));
       }
@@ -281,6 +299,30 @@ public class OAuth2AuthHandlerImpl extends HTTPAuthorizationHandler<OAuth2Auth>
     return this;
   }
 
+  @Override
+  public OAuth2AuthHandler setTokenCacheSize(int size) {
+    tokenCache.configure(size, tokenCache.ttl());
+    return this;
+  }
+
+  @Override
+  public OAuth2AuthHandler setTokenCacheTtl(long ttl) {
+    tokenCache.configure(tokenCache.maxSize(), ttl);
+    return this;
+  }
+
+  @Override
+  public OAuth2AuthHandler setNegativeTokenCacheTtl(long ttl) {
+    tokenCache.negativeTtl(ttl);
+    return this;
+  }
+
+  @Override
+  public OAuth2AuthHandler clearTokenCache() {
+    tokenCache.clear();
+    return this;
+  }
+
   @Override
   public OAuth2AuthHandler setupCallback(final Route route) {
 
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.handler.impl;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.ext.auth.User;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.RateLimitHandler;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Each thread has its own stripe of buckets, only the owning thread takes tokens from them. Every sync interval, the
+ * consumption of each stripe (and of the other nodes of the cluster) since the last sync is charged to the buckets of
+ * the other stripes, so every bucket converges to the state of a single global bucket.
+ *
+ * @author <a href="mailto:pmlopes@gmail.com">Paulo Lopes</a>
+ */
+public class RateLimitHandlerImpl implements RateLimitHandler {
+
+  private static final CharSequence RATELIMIT_LIMIT = HttpHeaders.createOptimized("RateLimit-Limit");
+  private static final CharSequence RATELIMIT_REMAINING = HttpHeaders.createOptimized("RateLimit-Remaining");
+  private static final CharSequence RATELIMIT_RESET = HttpHeaders.createOptimized("RateLimit-Reset");
+  private static final CharSequence RETRY_AFTER = HttpHeaders.createOptimized("Retry-After");
+
+  // max number of cluster counters created by a node
+  private static final int MAX_CLUSTER_KEYS = 10_000;
+
+  private static final Function<RoutingContext, String> REMOTE_ADDRESS = ctx -> {
+    final SocketAddress address = ctx.request().remoteAddress();
+    return address == null ? null : address.host();
+  };
+
+  private final Vertx vertx;
+  private final int limit;
+  private final CharSequence limitHeader;
+  // tokens per ns
+  private final double rate;
+  // a bucket unused for this long is full, it can be dropped
+  private final long idleTimeout;
+
+  private final List<Map<String, Bucket>> stripes = new CopyOnWriteArrayList<>();
+  private final ThreadLocal<Map<String, Bucket>> stripe = ThreadLocal.withInitial(() -> {
+    final Map<String, Bucket> stripe = new ConcurrentHashMap<>();
+    stripes.add(stripe);
+    return stripe;
+  });
+  // last known cluster wide consumption per key, only accessed by the sync timer
+  private final Map<String, Long> clusterTotals = new ConcurrentHashMap<>();
+  // keys this node created a cluster counter for
+  private final Set<String> clusterKeys = ConcurrentHashMap.newKeySet();
+
+  private volatile Function<RoutingContext, String> key = REMOTE_ADDRESS;
+  private volatile String clusterName;
+  private long timerId;
+
+  public RateLimitHandlerImpl(Vertx vertx, int limit, long period) {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("limit must be > 0");
+    }
+    if (period <= 0) {
+      throw new IllegalArgumentException("period must be > 0");
+    }
+    this.vertx = vertx;
+    this.limit = limit;
+    this.limitHeader = HttpHeaders.createOptimized(String.valueOf(limit));
+    this.rate = limit / (double) TimeUnit.MILLISECONDS.toNanos(period);
+    this.idleTimeout = TimeUnit.MILLISECONDS.toNanos(period) * 2;
+    this.timerId = vertx.setPeriodic(DEFAULT_SYNC_INTERVAL, id -> sync());
+  }
+
+  @Override
+  public RateLimitHandler keyByUser() {
+    this.key = ctx -> {
+      final User user = ctx.user();
+      return user == null ? null : user.subject();
+    };
+    return this;
+  }
+
+  @Override
+  public RateLimitHandler keyByHeader(String headerName) {
+    if (headerName == null) {
+      throw new IllegalArgumentException("'headerName' cannot be null");
+    }
+    this.key = ctx -> ctx.request().getHeader(headerName);
+    return this;
+  }
+
+  @Override
+  public RateLimitHandler key(Function<RoutingContext, String> key) {
+    if (key == null) {
+      throw new IllegalArgumentException("'key' cannot be null");
+    }
+    this.key = key;
+    return this;
+  }
+
+  @Override
+  public RateLimitHandler clustered(String name) {
+    this.clusterName = name;
+    return this;
+  }
+
+  @Override
+  public synchronized RateLimitHandler syncInterval(long syncInterval) {
+    if (syncInterval <= 0) {
+      throw new IllegalArgumentException("syncInterval must be > 0");
+    }
+    if (timerId == -1) {
+      throw new IllegalStateException("The handler is closed");
+    }
+    vertx.cancelTimer(timerId);
+    timerId = vertx.setPeriodic(syncInterval, id -> sync());
+    return this;
+  }
+
+  @Override
+  public synchronized void close() {
+    if (timerId != -1) {
+      vertx.cancelTimer(timerId);
+      timerId = -1;
+    }
+    for (Map<String, Bucket> stripe : stripes) {
+      stripe.clear();
+    }
+    clusterTotals.clear();
+  }
+
+  @Override
+  public void handle(RoutingContext ctx) {
+    final String key = this.key.apply(ctx);
+    if (key == null) {
+      ctx.next();
+      return;
+    }
+
+    final long now = System.nanoTime();
+    final Bucket bucket = stripe.get().computeIfAbsent(key, k -> new Bucket(limit, now));
+    final boolean allowed = bucket.take(now, limit, rate);
+
+    final HttpServerResponse response = ctx.response();
+    response
+      .putHeader(RATELIMIT_LIMIT, limitHeader)
+      .putHeader(RATELIMIT_REMAINING, String.valueOf((long) Math.max(0, bucket.tokens)))
+      .putHeader(RATELIMIT_RESET, String.valueOf(seconds(limit - bucket.tokens)));
+
+    if (allowed) {
+      ctx.next();
+    } else {
+      response.putHeader(RETRY_AFTER, String.valueOf(seconds(1 - bucket.tokens)));
+      ctx.fail(429);
+    }
+  }
+
+  /**
+   * @return the seconds needed to refill the given number of tokens, rounded up
+   */
+  private long seconds(double tokens) {
+    return (long) Math.ceil(tokens / rate / TimeUnit.SECONDS.toNanos(1));
+  }
+
+  private void sync() {
+    final long now = System.nanoTime();
+    final Map<String, Long> deltas = new HashMap<>();
+
+    for (Map<String, Bucket> stripe : stripes) {
+      for (Map.Entry<String, Bucket> kv : stripe.entrySet()) {
+        final Bucket bucket = kv.getValue();
+        final long consumed = bucket.consumed.get();
+        bucket.delta = consumed - bucket.synced;
+        bucket.synced = consumed;
+        deltas.merge(kv.getKey(), bucket.delta, Long::sum);
+        if (bucket.delta == 0 && now - bucket.lastUsed > idleTimeout) {
+          stripe.remove(kv.getKey(), bucket);
+        }
+      }
+    }
+
+    if (stripes.size() > 1) {
+      // charge each bucket with what the other stripes consumed
+      for (Map<String, Bucket> stripe : stripes) {
+        for (Map.Entry<String, Bucket> kv : stripe.entrySet()) {
+          final Bucket bucket = kv.getValue();
+          final long others = deltas.getOrDefault(kv.getKey(), 0L) - bucket.delta;
+          if (others > 0) {
+            bucket.debt.addAndGet(others);
+          }
+        }
+      }
+    }
+
+    final String clusterName = this.clusterName;
+    if (clusterName != null) {
+      clusterTotals.keySet().retainAll(deltas.keySet());
+      deltas.forEach((key, delta) -> {
+        // the consumption of the other nodes is charged on the next local consumption
+        if (delta == 0) {
+          return;
+        }
+        // counters cannot be removed, past the bound the new keys are only limited per node
+        if (!clusterKeys.contains(key)) {
+          if (clusterKeys.size() >= MAX_CLUSTER_KEYS) {
+            return;
+          }
+          clusterKeys.add(key);
+        }
+        vertx.sharedData()
+          .getCounter("vertx-web.ratelimit." + clusterName + "." + key)
+          .compose(counter -> counter.addAndGet(delta))
+          .onSuccess(total -> {
+            final Long last = clusterTotals.put(key, total);
+            // the first time a key is seen, there is no baseline to know the recent consumption of the other nodes
+            if (last != null && total - last - delta > 0) {
+              charge(key, total - last - delta);
+            }
+          });
+      });
+    }
+  }
+
+  private void charge(String key, long tokens) {
+    for (Map<String, Bucket> stripe : stripes) {
+      final Bucket bucket = stripe.get(key);
+      if (bucket != null) {
+        bucket.debt.addAndGet(tokens);
+      }
+    }
+  }
+
+  private static final class Bucket {
+
+    // owner thread only
+    private double tokens;
+    private long refilledAt;
+    private volatile long lastUsed;
+    // updated by the owner thread, read by the sync timer
+    private final AtomicLong consumed = new AtomicLong();
+    // tokens consumed elsewhere, added by the sync timer, drained by the owner thread
+    private final AtomicLong debt = new AtomicLong();
+    // sync timer only
+    private long synced;
+    private long delta;
+
+    private Bucket(int limit, long now) {
+      this.tokens = limit;
+      this.refilledAt = now;
+      this.lastUsed = now;
+    }
+
+    private boolean take(long now, int limit, double rate) {
+      tokens = Math.min(limit, tokens + (now - refilledAt) * rate);
+      refilledAt = now;
+      lastUsed = now;
+      final long debt = this.debt.getAndSet(0);
+      if (debt > 0) {
+        tokens = Math.max(0, tokens - debt);
+      }
+      if (tokens >= 1) {
+        tokens--;
+        consumed.incrementAndGet();
+        return true;
+      }
+      return false;
+    }
+  }
+}
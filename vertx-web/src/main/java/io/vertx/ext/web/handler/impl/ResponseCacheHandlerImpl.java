@@ -0,0 +1,380 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.handler.impl;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.internal.logging.Logger;
+import io.vertx.core.internal.logging.LoggerFactory;
+import io.vertx.core.net.HostAndPort;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.ResponseCacheHandler;
+import io.vertx.ext.web.handler.ResponseCacheStore;
+import io.vertx.ext.web.impl.ResponseCapture;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The first request missing an entry is the leader: it captures the response written by the next handlers and, once
+ * ended, stores it when cacheable. The requests missing the same entry meanwhile follow the leader: they wait for its
+ * response instead of invoking the next handlers.
+ * <p>
+ * When the response of the leader is not cacheable, the entry is remembered as hit-for-pass for a while: the requests
+ * missing it are not coalesced, as they would only wait for each other to invoke the next handlers anyway.
+ * <p>
+ * The responses varying on request headers are stored before the vary record listing these headers, so a record
+ * normally leads to a stored variant. A missing variant, evicted or expired, is a miss of that variant only: the
+ * requests for it are coalesced on their own, not with the ones for the other variants.
+ *
+ * @author <a href="mailto:pmlopes@gmail.com">Paulo Lopes</a>
+ */
+public class ResponseCacheHandlerImpl implements ResponseCacheHandler {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ResponseCacheHandlerImpl.class);
+
+  private static final CharSequence AGE = HttpHeaders.createOptimized("Age");
+
+  // RFC 9110 15.1, the status codes cacheable by default
+  private static final Set<Integer> CACHEABLE_STATUS = new HashSet<>(Arrays.asList(200, 203, 204, 300, 301, 308, 404, 405, 410, 414, 501));
+  // the hop by hop headers, and the ones set when serving the cached response
+  private static final Set<String> EXCLUDED_HEADERS = new HashSet<>(Arrays.asList(
+    "connection", "keep-alive", "proxy-connection", "te", "trailer", "transfer-encoding", "upgrade", "content-length", "age"));
+  // how long, in ms, an uncacheable entry is not coalesced
+  private static final long HIT_FOR_PASS_TTL = 30_000;
+  // max number of entries remembered as hit-for-pass
+  private static final int MAX_HIT_FOR_PASS = 10_000;
+
+  private final ResponseCacheStore store;
+  private final Map<String, Future<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+  // keys whose last response was not cacheable, with the time until they are not coalesced
+  private final Map<String, Long> hitForPass = new ConcurrentHashMap<>();
+
+  private volatile int maxBodySize = DEFAULT_MAX_BODY_SIZE;
+  private volatile String authority;
+
+  public ResponseCacheHandlerImpl(ResponseCacheStore store) {
+    this.store = store;
+  }
+
+  @Override
+  public ResponseCacheHandler maxBodySize(int maxBodySize) {
+    if (maxBodySize < 0) {
+      throw new IllegalArgumentException("maxBodySize must be >= 0");
+    }
+    this.maxBodySize = maxBodySize;
+    return this;
+  }
+
+  @Override
+  public ResponseCacheHandler authority(String authority) {
+    this.authority = authority == null ? null : authority.toLowerCase(Locale.ROOT);
+    return this;
+  }
+
+  @Override
+  public void handle(RoutingContext ctx) {
+    final HttpServerRequest request = ctx.request();
+    if (request.method() != HttpMethod.GET) {
+      ctx.next();
+      return;
+    }
+    final CacheControl cacheControl = CacheControl.parse(request.headers().getAll(HttpHeaders.CACHE_CONTROL));
+    if (cacheControl.noStore) {
+      ctx.next();
+      return;
+    }
+    final String key = key(request);
+    if (cacheControl.noCache || cacheControl.maxAge == 0 || "no-cache".equalsIgnoreCase(request.getHeader(HttpHeaders.PRAGMA))) {
+      // the client asks for a fresh response, it refreshes the entry
+      miss(ctx, key, key);
+      return;
+    }
+    final String[] variantKey = { key };
+    lookup(request, key, variantKey).onComplete(lookup -> {
+      if (lookup.failed()) {
+        LOG.debug("Failed to lookup the response cache", lookup.cause());
+      }
+      final CachedResponse response = lookup.succeeded() ? lookup.result() : null;
+      if (response != null && response.matches(request)) {
+        serve(ctx, response);
+      } else {
+        miss(ctx, key, variantKey[0]);
+      }
+    });
+  }
+
+  /**
+   * The key of a request is made of its scheme, path and query, and of the configured authority or else the normalized
+   * authority of the request.
+   */
+  private String key(HttpServerRequest request) {
+    final String scheme = request.scheme();
+    String authority = this.authority;
+    if (authority == null) {
+      final HostAndPort hostAndPort = request.authority();
+      if (hostAndPort == null) {
+        authority = "";
+      } else {
+        authority = hostAndPort.host().toLowerCase(Locale.ROOT);
+        final int port = hostAndPort.port();
+        if (port >= 0 && port != ("https".equals(scheme) ? 443 : 80)) {
+          authority += ":" + port;
+        }
+      }
+    }
+    final String query = request.query();
+    return scheme + "://" + authority + (query == null ? request.path() : request.path() + '?' + query);
+  }
+
+  /**
+   * @param variantKey set to the key of the variant when the responses vary, the requests missing it are coalesced on it
+   */
+  private Future<CachedResponse> lookup(HttpServerRequest request, String key, String[] variantKey) {
+    return store.get(key).compose(entry -> {
+      if (entry == null) {
+        return Future.succeededFuture();
+      }
+      final String[] vary = CachedResponse.varyOf(entry);
+      if (vary == null) {
+        return Future.succeededFuture(CachedResponse.fromBuffer(entry));
+      }
+      variantKey[0] = key + '\n' + CachedResponse.varyKey(vary, request);
+      return store.get(variantKey[0])
+        .map(variant -> variant == null ? null : CachedResponse.fromBuffer(variant));
+    });
+  }
+
+  /**
+   * @param key    the key of the request in the store
+   * @param flight the key the requests are coalesced on and passed by
+   */
+  private void miss(RoutingContext ctx, String key, String flight) {
+    // no leader to follow when passing, the response is still captured as it may have become cacheable
+    final Promise<CachedResponse> promise = isHitForPass(flight) ? null : Promise.promise();
+    if (promise != null) {
+      final Future<CachedResponse> leader = inFlight.putIfAbsent(flight, promise.future());
+      if (leader != null) {
+        follow(ctx, leader);
+        return;
+      }
+    }
+    final ResponseCapture capture = ResponseCapture.install(ctx, maxBodySize);
+    if (capture == null) {
+      if (promise != null) {
+        inFlight.remove(flight, promise.future());
+        promise.complete();
+      }
+      ctx.next();
+      return;
+    }
+    ctx.addEndHandler(end -> {
+      CachedResponse response = null;
+      long ttl = -1;
+      if (end.succeeded() && capture.complete()) {
+        ttl = ttl(ctx);
+        if (ttl > 0) {
+          response = cachedResponse(ctx, capture.body());
+        }
+      }
+      if (end.succeeded()) {
+        if (response == null) {
+          setHitForPass(flight);
+        } else {
+          hitForPass.remove(flight);
+        }
+      }
+      if (promise != null) {
+        inFlight.remove(flight, promise.future());
+        promise.complete(response);
+      }
+      if (response != null) {
+        store(key, response, ttl);
+      }
+    });
+    ctx.next();
+  }
+
+  private boolean isHitForPass(String key) {
+    final Long until = hitForPass.get(key);
+    if (until == null) {
+      return false;
+    }
+    if (until < System.currentTimeMillis()) {
+      hitForPass.remove(key, until);
+      return false;
+    }
+    return true;
+  }
+
+  private void setHitForPass(String key) {
+    final long now = System.currentTimeMillis();
+    if (hitForPass.size() >= MAX_HIT_FOR_PASS) {
+      hitForPass.values().removeIf(until -> until < now);
+      if (hitForPass.size() >= MAX_HIT_FOR_PASS) {
+        // the keys are only remembered to avoid useless coalescing, forgetting them is safe
+        hitForPass.clear();
+      }
+    }
+    hitForPass.put(key, now + HIT_FOR_PASS_TTL);
+  }
+
+  private void follow(RoutingContext ctx, Future<CachedResponse> leader) {
+    // the leader may run on another event loop
+    final Context context = ctx.vertx().getOrCreateContext();
+    leader.onComplete(ar -> context.runOnContext(v -> {
+      final CachedResponse response = ar.result();
+      if (response != null && response.matches(ctx.request())) {
+        serve(ctx, response);
+      } else {
+        ctx.next();
+      }
+    }));
+  }
+
+  private void store(String key, CachedResponse response, long ttl) {
+    final Future<Void> stored;
+    if (response.vary.length == 0) {
+      stored = store.put(key, response.toBuffer(), ttl);
+    } else {
+      // the variant first, the record must not lead to a variant not stored yet
+      stored = store.put(key + '\n' + response.varyKey, response.toBuffer(), ttl)
+        .compose(v -> store.put(key, CachedResponse.varyRecord(response.vary), ttl));
+    }
+    stored.onFailure(err -> LOG.debug("Failed to store the response in the cache", err));
+  }
+
+  private void serve(RoutingContext ctx, CachedResponse response) {
+    final HttpServerResponse res = ctx.response();
+    if (res.headWritten()) {
+      // a previous handler already answered
+      return;
+    }
+    res.setStatusCode(response.status);
+    if (!response.statusMessage.isEmpty()) {
+      res.setStatusMessage(response.statusMessage);
+    }
+    final String[] headers = response.headers;
+    for (int i = 0; i < headers.length; i += 2) {
+      res.headers().remove(headers[i]);
+    }
+    for (int i = 0; i < headers.length; i += 2) {
+      res.headers().add(headers[i], headers[i + 1]);
+    }
+    res
+      .putHeader(AGE, Long.toString(Math.max(0, (System.currentTimeMillis() - response.storedAt) / 1000)))
+      .end(response.body);
+  }
+
+  /**
+   * @return the time to live of the response, in ms, or {@code -1} if it is not cacheable
+   */
+  private static long ttl(RoutingContext ctx) {
+    final HttpServerResponse res = ctx.response();
+    if (!CACHEABLE_STATUS.contains(res.getStatusCode()) || res.headers().contains(HttpHeaders.SET_COOKIE)) {
+      return -1;
+    }
+    for (String name : CachedResponse.vary(res.headers().getAll(HttpHeaders.VARY))) {
+      if ("*".equals(name)) {
+        return -1;
+      }
+    }
+    final CacheControl cacheControl = CacheControl.parse(res.headers().getAll(HttpHeaders.CACHE_CONTROL));
+    if (cacheControl.noStore || cacheControl.noCache || cacheControl.isPrivate) {
+      return -1;
+    }
+    // RFC 9111 3.5, a shared cache must not reuse the responses to authorized requests unless explicitly allowed
+    if (ctx.request().headers().contains(HttpHeaders.AUTHORIZATION) && !cacheControl.isPublic && cacheControl.sMaxAge < 0) {
+      return -1;
+    }
+    final long maxAge = cacheControl.sMaxAge >= 0 ? cacheControl.sMaxAge : cacheControl.maxAge;
+    return maxAge > 0 ? maxAge * 1000 : -1;
+  }
+
+  private static CachedResponse cachedResponse(RoutingContext ctx, Buffer body) {
+    final HttpServerResponse res = ctx.response();
+    final String[] vary = CachedResponse.vary(res.headers().getAll(HttpHeaders.VARY));
+    final String statusMessage = res.getStatusMessage();
+    return new CachedResponse(
+      System.currentTimeMillis(),
+      res.getStatusCode(),
+      statusMessage == null ? "" : statusMessage,
+      vary,
+      CachedResponse.varyKey(vary, ctx.request()),
+      CachedResponse.headers(res.headers(), EXCLUDED_HEADERS),
+      body);
+  }
+
+  /**
+   * The directives of {@code Cache-Control} headers relevant to a shared cache.
+   */
+  private static final class CacheControl {
+
+    boolean noStore;
+    boolean noCache;
+    boolean isPrivate;
+    boolean isPublic;
+    long maxAge = -1;
+    long sMaxAge = -1;
+
+    static CacheControl parse(List<String> values) {
+      final CacheControl cacheControl = new CacheControl();
+      for (String value : values) {
+        for (String directive : value.split(",")) {
+          directive = directive.trim().toLowerCase(Locale.ROOT);
+          if (directive.equals("no-store")) {
+            cacheControl.noStore = true;
+          } else if (directive.startsWith("no-cache")) {
+            cacheControl.noCache = true;
+          } else if (directive.startsWith("private")) {
+            cacheControl.isPrivate = true;
+          } else if (directive.equals("public")) {
+            cacheControl.isPublic = true;
+          } else if (directive.startsWith("max-age=")) {
+            cacheControl.maxAge = seconds(directive.substring(8));
+          } else if (directive.startsWith("s-maxage=")) {
+            cacheControl.sMaxAge = seconds(directive.substring(9));
+          }
+        }
+      }
+      return cacheControl;
+    }
+
+    private static long seconds(String value) {
+      if (value.length() > 1 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"') {
+        value = value.substring(1, value.length() - 1);
+      }
+      try {
+        return Long.parseLong(value);
+      } catch (NumberFormatException e) {
+        // an invalid value is stale
+        return 0;
+      }
+    }
+  }
+}
@@ -17,8 +17,18 @@
 package io.vertx.ext.web.handler.impl;
 
 import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.ResponseTimeHandler;
+import io.vertx.ext.web.impl.HandlerTimings;
+import io.vertx.ext.web.impl.RoutingContextInternal;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 
 import static java.util.concurrent.TimeUnit.*;
 
@@ -28,14 +38,93 @@ import static java.util.concurrent.TimeUnit.*;
 public class ResponseTimeHandlerImpl implements ResponseTimeHandler {
 
   private static final CharSequence HEADER_NAME = HttpHeaders.createOptimized("x-response-time");
+  private static final CharSequence SERVER_TIMING = HttpHeaders.createOptimized("Server-Timing");
+
+  private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+  private final HandlerTimings.Listener recorder = (name, wallNanos, eventLoopNanos) ->
+    histograms.computeIfAbsent(name, k -> new Histogram()).record(wallNanos, eventLoopNanos);
+
+  private volatile boolean serverTiming;
+  private volatile double sampleRate;
+
+  @Override
+  public ResponseTimeHandler serverTiming(boolean serverTiming) {
+    this.serverTiming = serverTiming;
+    return this;
+  }
+
+  @Override
+  public ResponseTimeHandler sampleRate(double sampleRate) {
+    if (sampleRate < 0 || sampleRate > 1) {
+      throw new IllegalArgumentException("sampleRate must be between 0 and 1");
+    }
+    this.sampleRate = sampleRate;
+    return this;
+  }
+
+  @Override
+  public JsonObject histograms() {
+    final JsonObject json = new JsonObject();
+    histograms.forEach((name, histogram) -> json.put(name, histogram.toJson()));
+    return json;
+  }
 
   @Override
   public void handle(RoutingContext ctx) {
     long start = System.nanoTime();
+    final boolean serverTiming = this.serverTiming;
+    final double sampleRate = this.sampleRate;
+    final boolean sampled = sampleRate > 0 && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+
+    final HandlerTimings timings;
+    if (serverTiming || sampled) {
+      timings = new HandlerTimings(sampled ? recorder : null);
+      ((RoutingContextInternal) ctx).setHandlerTimings(timings);
+    } else {
+      timings = null;
+    }
+
     ctx.addHeadersEndHandler(v -> {
-      long duration = MILLISECONDS.convert(System.nanoTime() - start, NANOSECONDS);
+      long now = System.nanoTime();
+      long duration = MILLISECONDS.convert(now - start, NANOSECONDS);
       ctx.response().putHeader(HEADER_NAME, duration + "ms");
+      if (timings != null) {
+        timings.close(now);
+        if (serverTiming) {
+          ctx.response().putHeader(SERVER_TIMING, timings.serverTiming(now - start));
+        }
+      }
     });
     ctx.next();
   }
+
+  private static final class Histogram {
+
+    private static final int BUCKETS = 32;
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder wallTime = new LongAdder();
+    private final LongAdder eventLoopTime = new LongAdder();
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    private void record(long wallNanos, long eventLoopNanos) {
+      final long wallMicros = NANOSECONDS.toMicros(wallNanos);
+      count.increment();
+      wallTime.add(wallMicros);
+      eventLoopTime.add(NANOSECONDS.toMicros(eventLoopNanos));
+      buckets.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(wallMicros)));
+    }
+
+    private JsonObject toJson() {
+      final JsonArray buckets = new JsonArray();
+      for (int i = 0; i < BUCKETS; i++) {
+        buckets.add(this.buckets.get(i));
+      }
+      return new JsonObject()
+        .put("count", count.sum())
+        .put("wallTime", wallTime.sum())
+        .put("eventLoopTime", eventLoopTime.sum())
+        .put("buckets", buckets);
+    }
+  }
 }
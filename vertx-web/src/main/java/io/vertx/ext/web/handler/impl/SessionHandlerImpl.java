@@ -33,7 +33,9 @@ import io.vertx.ext.web.impl.UserContextInternal;
 import io.vertx.ext.web.sstore.SessionStore;
 import io.vertx.ext.web.sstore.impl.SessionInternal;
 
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author <a href="http://tfox.org">Tim Fox</a>
@@ -46,6 +48,12 @@ public class SessionHandlerImpl implements SessionHandler {
 
   private static final Logger LOG = LoggerFactory.getLogger(SessionHandlerImpl.class);
 
+  // bounds for polling stores that cannot notify when a session is stored
+  private static final long MIN_RETRY_DELAY = 5L;
+  private static final long MAX_RETRY_DELAY = 250L;
+  // max number of ids remembered as missing
+  private static final int MAX_NEGATIVE_LOOKUPS = 10_000;
+
   private final SessionStore sessionStore;
 
   private String sessionCookieName = DEFAULT_SESSION_COOKIE_NAME;
@@ -56,12 +64,17 @@ public class SessionHandlerImpl implements SessionHandler {
   private boolean sessionCookieHttpOnly = DEFAULT_COOKIE_HTTP_ONLY_FLAG;
   private int minLength = DEFAULT_SESSIONID_MIN_LENGTH;
   private boolean lazySession = DEFAULT_LAZY_SESSION;
+  private double touchThrottle = DEFAULT_TOUCH_THROTTLE;
+  private long negativeLookupTtl = DEFAULT_NEGATIVE_LOOKUP_TTL;
   private long cookieMaxAge = -1;
 
   private boolean cookieless;
   private CookieSameSite cookieSameSite;
   private Signature signature;
 
+  // session ids not found in the store, with the time until they are considered missing
+  private final Map<String, Long> missing = new ConcurrentHashMap<>();
+
   public SessionHandlerImpl(SessionStore sessionStore) {
     this.sessionStore = sessionStore;
   }
@@ -126,6 +139,24 @@ public class SessionHandlerImpl implements SessionHandler {
     return this;
   }
 
+  @Override
+  public SessionHandler setTouchThrottle(double touchThrottle) {
+    if (touchThrottle < 0 || touchThrottle > 1) {
+      throw new IllegalArgumentException("touchThrottle must be between 0 and 1");
+    }
+    this.touchThrottle = touchThrottle;
+    return this;
+  }
+
+  @Override
+  public SessionHandler setNegativeLookupTtl(long negativeLookupTtl) {
+    if (negativeLookupTtl < 0) {
+      throw new IllegalArgumentException("negativeLookupTtl must be >= 0");
+    }
+    this.negativeLookupTtl = negativeLookupTtl;
+    return this;
+  }
+
   @Override
   public SessionHandler setCookieless(boolean cookieless) {
     this.cookieless = cookieless;
@@ -227,6 +258,19 @@ public class SessionHandlerImpl implements SessionHandler {
             // if lazy mode activated, no need to store the session nor to create the session cookie if not used.
             sessionCookie(context, session);
           }
+          if (session instanceof SessionInternal && !((SessionInternal) session).isModified()) {
+            // the data is the same as in the store, only the expiration needs to be extended
+            if (System.currentTimeMillis() - session.lastAccessed() < touchThrottle * session.timeout()) {
+              context.put(SESSION_FLUSHED_KEY, true);
+              return ctx.succeededFuture();
+            }
+            session.setAccessed();
+            return sessionStore.touch(session.id(), session.timeout())
+              .onSuccess(touch -> {
+                context.put(SESSION_FLUSHED_KEY, true);
+                ((SessionInternal) session).flushed(skipCrc);
+              });
+          }
           session.setAccessed();
           return sessionStore.put(session)
             .onSuccess(put -> {
@@ -419,39 +463,86 @@ public class SessionHandlerImpl implements SessionHandler {
   }
 
   private Future<Session> getSession(ContextInternal context, String sessionID) {
-    return doGetSession(context, System.currentTimeMillis(), sessionID);
-  }
-
-  private Future<Session> doGetSession(ContextInternal context, long startTime, String sessionID) {
+    if (isMissing(sessionID)) {
+      return context.succeededFuture();
+    }
+    final long startTime = System.currentTimeMillis();
     return sessionStore.get(sessionID)
       .compose(session -> {
-        if (session == null) {
-          // no session was found (yet), we will retry as callback to avoid stackoverflow
-          final Promise<Session> retry = context.promise();
-          doGetSession(context.owner(), startTime, sessionID, retry);
-          return retry.future();
+        final long retryTimeout = sessionStore.retryTimeout();
+        if (session != null || retryTimeout <= 0) {
+          return context.succeededFuture(session);
         }
-        return context.succeededFuture(session);
+        // Can't find it so wait for it. This is necessary for clustered sessions as it can take sometime for the
+        // session to propagate across the cluster so if the next request for the session comes in quickly at a
+        // different node there is a possibility it isn't available yet.
+        return sessionStore.awaitStored(sessionID, retryTimeout)
+          .compose(stored -> stored ? sessionStore.get(sessionID) : context.<Session>succeededFuture())
+          .recover(err -> {
+            // the store cannot notify, poll it, as callback to avoid stackoverflow
+            final Promise<Session> retry = context.promise();
+            doGetSession(context.owner(), startTime, MIN_RETRY_DELAY, sessionID, retry);
+            return retry.future();
+          })
+          .onSuccess(found -> {
+            if (found == null) {
+              setMissing(sessionID);
+            }
+          });
       });
   }
-  private void doGetSession(Vertx vertx, long startTime, String sessionID, Completable<Session> resultHandler) {
-    sessionStore.get(sessionID)
+
+  private void doGetSession(Vertx vertx, long startTime, long delay, String sessionID, Completable<Session> resultHandler) {
+    vertx.setTimer(delay, t -> sessionStore.get(sessionID)
       .onComplete(res -> {
-      if (res.succeeded()) {
-        if (res.result() == null) {
-          // Can't find it so retry. This is necessary for clustered sessions as it can take sometime for the session
-          // to propagate across the cluster so if the next request for the session comes in quickly at a different
-          // node there is a possibility it isn't available yet.
+        if (res.succeeded() && res.result() == null) {
           if (System.currentTimeMillis() - startTime < sessionStore.retryTimeout()) {
-            vertx.setTimer(5L, v -> doGetSession(vertx, startTime, sessionID, resultHandler));
+            // back off, a session that is not there after a few tries is probably not coming
+            doGetSession(vertx, startTime, Math.min(delay * 2, MAX_RETRY_DELAY), sessionID, resultHandler);
             return;
           }
         }
-      }
-      resultHandler.complete(res.result(), res.cause());
-    });
+        resultHandler.complete(res.result(), res.cause());
+      }));
   }
 
+  private boolean isMissing(String sessionID) {
+    if (negativeLookupTtl == 0) {
+      return false;
+    }
+    final Long until = missing.get(sessionID);
+    if (until == null) {
+      return false;
+    }
+    if (until < System.currentTimeMillis()) {
+      missing.remove(sessionID, until);
+      return false;
+    }
+    return true;
+  }
+
+  private void setMissing(String sessionID) {
+    if (negativeLookupTtl == 0) {
+      return;
+    }
+    final long now = System.currentTimeMillis();
+    if (missing.size() >= MAX_NEGATIVE_LOOKUPS) {
+      missing.values().removeIf(until -> until < now);
+      if (missing.size() >= MAX_NEGATIVE_LOOKUPS) {
+        // the ids are only remembered to spare store lookups, forgetting them is safe
+        missing.clear();
+      }
+    }
+    final Long until = now + negativeLookupTtl;
+    missing.put(sessionID, until);
+    // the session may be stored by another node meanwhile, stores that cannot notify fail right away
+    sessionStore.awaitStored(sessionID, negativeLookupTtl)
+      .onSuccess(stored -> {
+        if (stored) {
+          missing.remove(sessionID, until);
+        }
+      });
+  }
 
   private void addStoreSessionHandler(RoutingContext context) {
     context.addHeadersEndHandler(v -> {
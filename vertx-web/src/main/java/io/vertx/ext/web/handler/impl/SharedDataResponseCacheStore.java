@@ -0,0 +1,68 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.handler.impl;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.shareddata.AsyncMap;
+import io.vertx.ext.web.handler.ResponseCacheStore;
+
+/**
+ * @author <a href="mailto:pmlopes@gmail.com">Paulo Lopes</a>
+ */
+public class SharedDataResponseCacheStore implements ResponseCacheStore {
+
+  private final Vertx vertx;
+  private final String name;
+  private volatile AsyncMap<String, Buffer> map;
+
+  public SharedDataResponseCacheStore(Vertx vertx, String name) {
+    this.vertx = vertx;
+    this.name = name;
+  }
+
+  private Future<AsyncMap<String, Buffer>> map() {
+    final AsyncMap<String, Buffer> map = this.map;
+    if (map != null) {
+      return Future.succeededFuture(map);
+    }
+    return vertx.sharedData()
+      .<String, Buffer>getAsyncMap(name)
+      .onSuccess(m -> this.map = m);
+  }
+
+  @Override
+  public Future<Buffer> get(String key) {
+    return map().compose(map -> map.get(key));
+  }
+
+  @Override
+  public Future<Void> put(String key, Buffer value, long ttl) {
+    return map().compose(map -> map.put(key, value, ttl));
+  }
+
+  @Override
+  public Future<Void> remove(String key) {
+    return map().compose(map -> map.remove(key)).mapEmpty();
+  }
+
+  @Override
+  public Future<Void> clear() {
+    return map().compose(AsyncMap::clear);
+  }
+}
@@ -24,7 +24,6 @@ import static io.netty.handler.codec.http.HttpResponseStatus.REQUESTED_RANGE_NOT
 import java.io.File;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -38,13 +37,13 @@ import java.util.regex.Pattern;
 
 import io.vertx.core.Future;
 import io.vertx.core.MultiMap;
+import io.vertx.core.Vertx;
 import io.vertx.core.file.FileProps;
 import io.vertx.core.file.FileSystem;
 import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.HttpServerResponse;
-import io.vertx.core.http.HttpVersion;
 import io.vertx.core.http.MimeMapping;
 import io.vertx.core.internal.logging.Logger;
 import io.vertx.core.internal.logging.LoggerFactory;
@@ -80,7 +79,7 @@ public class StaticHandlerImpl implements StaticHandler {
   private boolean includeHidden = DEFAULT_INCLUDE_HIDDEN;
   private boolean filesReadOnly = DEFAULT_FILES_READ_ONLY;
   private String indexPage = DEFAULT_INDEX_PAGE;
-  private List<Http2PushMapping> http2PushMappings;
+  private MultiMap preloadLinks;
   private boolean rangeSupport = DEFAULT_RANGE_SUPPORT;
   // TODO change to private final after setAllowRootAccess has been removed
   private boolean allowRootFileSystemAccess = DEFAULT_ROOT_FILESYSTEM_ACCESS;
@@ -93,6 +92,16 @@ public class StaticHandlerImpl implements StaticHandler {
   private final FSTune tune = new FSTune();
   private final FSPropsCache cache = new FSPropsCache();
 
+  private volatile boolean classpathIndexEnabled = DEFAULT_CLASSPATH_INDEX;
+  private int classpathIndexPreloadSize = DEFAULT_CLASSPATH_INDEX_PRELOAD_SIZE;
+  private boolean classpathIndexHashing = DEFAULT_CLASSPATH_INDEX_HASHING;
+  // built on a worker on first use, the requests use the file system meanwhile
+  private volatile ClasspathResourceIndex classpathIndex;
+  private volatile boolean classpathIndexReady;
+  private boolean classpathIndexBuilding;
+  // bumped by the setters, so a build with a previous configuration is discarded
+  private long classpathIndexVersion;
+
   /**
    * Constructor called by static factory method
    *
@@ -255,6 +264,23 @@ public class StaticHandlerImpl implements StaticHandler {
       }
     }
 
+    // indexed classpath resources are served from memory
+    final ClasspathResourceIndex cpIndex = classpathIndex(context.vertx());
+    if (cpIndex != null) {
+      final ClasspathResourceIndex.Entry indexed = cpIndex.get(localFile);
+      if (indexed != null) {
+        if (indexed.etag() != null) {
+          context.response().headers().set(HttpHeaders.ETAG, indexed.etag());
+        }
+        if (cache.enabled() && Utils.fresh(context, Utils.secondsFactor(indexed.lastModifiedTime()))) {
+          context.response().setStatusCode(NOT_MODIFIED.code()).end();
+          return;
+        }
+        sendFile(context, fileSystem, localFile, indexed);
+        return;
+      }
+    }
+
     // verify if the file exists
     fileSystem
       .exists(localFile)
@@ -445,7 +471,9 @@ public class StaticHandlerImpl implements StaticHandler {
         final long finalOffset = offset;
         final long finalLength = end + 1 - offset;
         // guess content type
-        String contentType = MimeMapping.mimeTypeForFilename(file);
+        String contentType = fileProps instanceof ClasspathResourceIndex.Entry ?
+          ((ClasspathResourceIndex.Entry) fileProps).mimeType() :
+          MimeMapping.mimeTypeForFilename(file);
         if (contentType != null) {
           if (contentType.startsWith("text")) {
             response.putHeader(HttpHeaders.CONTENT_TYPE, contentType + ";charset=" + defaultContentEncoding);
@@ -454,7 +482,7 @@ public class StaticHandlerImpl implements StaticHandler {
           }
         }
 
-        response.sendFile(file, finalOffset, finalLength)
+        sendFile(context, file, fileProps, finalOffset, finalLength)
           .onFailure(err -> {
             if (!context.request().isEnded()) {
               context.request().resume();
@@ -464,7 +492,9 @@ public class StaticHandlerImpl implements StaticHandler {
       } else {
         // guess content type
         String extension = getFileExtension(file);
-        String contentType = MimeMapping.mimeTypeForExtension(extension);
+        String contentType = fileProps instanceof ClasspathResourceIndex.Entry ?
+          ((ClasspathResourceIndex.Entry) fileProps).mimeType() :
+          MimeMapping.mimeTypeForExtension(extension);
         if (compressedMediaTypes.contains(contentType) || compressedFileSuffixes.contains(extension)) {
           response.putHeader(HttpHeaders.CONTENT_ENCODING, HttpHeaders.IDENTITY);
         }
@@ -476,51 +506,14 @@ public class StaticHandlerImpl implements StaticHandler {
           }
         }
 
-        // http2 pushing support
-        if (request.version() == HttpVersion.HTTP_2 && http2PushMappings != null) {
-          for (Http2PushMapping dependency : http2PushMappings) {
-            if (!dependency.isNoPush()) {
-              final String dep = webRoot + "/" + dependency.getFilePath();
-              // get the file props
-              getFileProps(fileSystem, dep)
-                .onSuccess(fprops -> {
-                  // push
-                  writeCacheHeaders(request, fprops);
-                  response
-                    .push(HttpMethod.GET, "/" + dependency.getFilePath())
-                    .onSuccess(res -> {
-                      final String depContentType = MimeMapping.mimeTypeForExtension(file);
-                      if (depContentType != null) {
-                        if (depContentType.startsWith("text")) {
-                          res.putHeader(HttpHeaders.CONTENT_TYPE, contentType + ";charset=" + defaultContentEncoding);
-                        } else {
-                          res.putHeader(HttpHeaders.CONTENT_TYPE, contentType);
-                        }
-                      }
-                      res.sendFile(webRoot + "/" + dependency.getFilePath());
-                    });
-                });
-            }
-          }
-
-        } else if (http2PushMappings != null) {
-          // Link preload when file push is not supported
-          List<String> links = new ArrayList<>();
-          for (Http2PushMapping dependency : http2PushMappings) {
-            final String dep = webRoot + "/" + dependency.getFilePath();
-            // get the file props
-            getFileProps(fileSystem, dep)
-              .onSuccess(fprops -> {
-                // push
-                writeCacheHeaders(request, fprops);
-                links
-                  .add("<" + dependency.getFilePath() + ">; rel=preload; as=" + dependency.getExtensionTarget() + (dependency.isNoPush() ? "; nopush" : ""));
-              });
-          }
-          response.putHeader("Link", links);
+        // hint the critical resources to the client, the same links are kept on the final response for
+        // clients that ignore interim responses
+        if (preloadLinks != null) {
+          context.earlyHints(preloadLinks);
+          response.headers().addAll(preloadLinks);
         }
 
-        response.sendFile(file)
+        sendFile(context, file, fileProps, 0, fileProps.size())
           .onFailure(err -> {
             if (!context.request().isEnded()) {
               context.request().resume();
@@ -531,6 +524,21 @@ public class StaticHandlerImpl implements StaticHandler {
     }
   }
 
+  private Future<Void> sendFile(RoutingContext context, String file, FileProps fileProps, long offset, long length) {
+    if (fileProps instanceof ClasspathResourceIndex.Entry) {
+      final HttpServerResponse response = context.response();
+      return ((ClasspathResourceIndex.Entry) fileProps)
+        .content(context.vertx())
+        .compose(content -> {
+          if (offset == 0 && length == content.length()) {
+            return response.end(content);
+          }
+          return response.end(content.slice((int) offset, (int) (offset + length)));
+        });
+    }
+    return context.response().sendFile(file, offset, length);
+  }
+
   @Override
   public StaticHandler setFilesReadOnly(boolean readOnly) {
     this.filesReadOnly = readOnly;
@@ -609,7 +617,7 @@ public class StaticHandlerImpl implements StaticHandler {
   @Override
   public StaticHandler setHttp2PushMapping(List<Http2PushMapping> http2PushMap) {
     if (http2PushMap != null) {
-      this.http2PushMappings = new ArrayList<>(http2PushMap);
+      this.preloadLinks = Utils.preloadLinks(http2PushMap);
     }
     return this;
   }
@@ -654,6 +662,84 @@ public class StaticHandlerImpl implements StaticHandler {
     return this;
   }
 
+  @Override
+  public synchronized StaticHandler setClasspathIndex(boolean classpathIndex) {
+    this.classpathIndexEnabled = classpathIndex;
+    resetClasspathIndex();
+    return this;
+  }
+
+  @Override
+  public synchronized StaticHandler setClasspathIndexPreloadSize(int preloadSize) {
+    if (preloadSize < 0) {
+      throw new IllegalArgumentException("preloadSize must be >= 0");
+    }
+    this.classpathIndexPreloadSize = preloadSize;
+    resetClasspathIndex();
+    return this;
+  }
+
+  @Override
+  public synchronized StaticHandler setClasspathIndexHashing(boolean hashing) {
+    this.classpathIndexHashing = hashing;
+    resetClasspathIndex();
+    return this;
+  }
+
+  @Override
+  public long classpathIndexSize() {
+    final ClasspathResourceIndex index = classpathIndex;
+    return index == null ? 0L : index.preloadedBytes();
+  }
+
+  private synchronized void resetClasspathIndex() {
+    classpathIndexVersion++;
+    classpathIndex = null;
+    classpathIndexReady = false;
+  }
+
+  /**
+   * @return the classpath index, or {@code null} if disabled or not built yet, the first call starts the build
+   */
+  private ClasspathResourceIndex classpathIndex(Vertx vertx) {
+    if (!classpathIndexEnabled) {
+      return null;
+    }
+    if (!classpathIndexReady) {
+      buildClasspathIndex(vertx);
+    }
+    return classpathIndex;
+  }
+
+  private synchronized void buildClasspathIndex(Vertx vertx) {
+    if (!classpathIndexEnabled || classpathIndexReady || classpathIndexBuilding) {
+      return;
+    }
+    classpathIndexBuilding = true;
+    final long version = classpathIndexVersion;
+    final String root = webRoot;
+    final int preloadSize = classpathIndexPreloadSize;
+    final boolean hashing = classpathIndexHashing;
+    // scanning the classpath is blocking
+    vertx.executeBlocking(() -> ClasspathResourceIndex.build(root, preloadSize, hashing), false)
+      .onComplete(ar -> {
+        synchronized (this) {
+          classpathIndexBuilding = false;
+          if (version != classpathIndexVersion) {
+            // the configuration changed meanwhile, the next request builds again
+            return;
+          }
+          if (ar.failed()) {
+            LOG.warn("Failed to index the classpath web root [" + root + "]", ar.cause());
+          } else {
+            classpathIndex = ar.result();
+          }
+          // a web root without classpath resources is not indexed again
+          classpathIndexReady = true;
+        }
+      });
+  }
+
   private String getFile(String path, RoutingContext context) {
     String file = webRoot + Utils.pathOffset(path, context);
     if (LOG.isTraceEnabled()) {
@@ -16,9 +16,10 @@
 
 package io.vertx.ext.web.handler.impl;
 
-import io.vertx.core.Timer;
+import io.vertx.core.Handler;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.TimeoutHandler;
+import io.vertx.ext.web.impl.TimingWheel;
 
 /**
  * @author <a href="http://pmlopes@gmail.com">Paulo Lopes</a>
@@ -29,17 +30,51 @@ public class TimeoutHandlerImpl implements TimeoutHandler {
 
   private final long timeout;
   private final int errorCode;
+  private final long resolution;
 
   public TimeoutHandlerImpl(long timeout, int errorCode) {
+    this(timeout, errorCode, Math.max(1, Math.min(DEFAULT_RESOLUTION, timeout / 10)));
+  }
+
+  public TimeoutHandlerImpl(long timeout, int errorCode, long resolution) {
+    if (resolution <= 0) {
+      throw new IllegalArgumentException("resolution must be > 0");
+    }
     this.timeout = timeout;
     this.errorCode = errorCode;
+    this.resolution = resolution;
   }
 
   @Override
   public void handle(RoutingContext ctx) {
-    Timer timer = ctx.vertx().timer(timeout);
-    int handlerId = ctx.addBodyEndHandler(v -> timer.cancel());
-    timer.onSuccess(v -> {
+    final Deadline deadline = new Deadline(ctx);
+    deadline.handlerId = ctx.addBodyEndHandler(deadline);
+    TimingWheel.get(ctx.vertx().getOrCreateContext(), resolution).schedule(deadline, timeout);
+
+    ctx.next();
+  }
+
+  /**
+   * The timeout of a request, also its body end handler to cancel the timeout.
+   */
+  private final class Deadline extends TimingWheel.Entry implements Handler<Void> {
+
+    private final RoutingContext ctx;
+    private int handlerId;
+
+    private Deadline(RoutingContext ctx) {
+      // expire on the request context
+      super(ctx.vertx().getOrCreateContext());
+      this.ctx = ctx;
+    }
+
+    @Override
+    public void handle(Void v) {
+      cancel();
+    }
+
+    @Override
+    protected void expire() {
       // If this router has been restarted, the timeout shouldn't fire
       if (ctx.removeBodyEndHandler(handlerId)) {
         if (!ctx.request().isEnded()) {
@@ -47,8 +82,6 @@ public class TimeoutHandlerImpl implements TimeoutHandler {
         }
         ctx.fail(errorCode);
       }
-    });
-
-    ctx.next();
+    }
   }
 }
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.handler.impl;
+
+import io.vertx.core.Future;
+import io.vertx.core.internal.ContextInternal;
+import io.vertx.core.internal.PromiseInternal;
+import io.vertx.ext.auth.User;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * A bounded cache of the users authenticated from a credential, e.g.: a bearer token. Entries are keyed by an HMAC of
+ * the credential with a random per instance secret, so neither the raw secrets nor a hash that could be brute forced
+ * offline are kept in memory. Entries expire after the configured TTL or when the credential expires ({@code exp}
+ * attribute or claim of the user), whichever comes first.
+ * <p>
+ * Lookups are lock free. When the cache is full, expired entries are purged first, then arbitrary entries.
+ * <p>
+ * {@link #authenticate(ContextInternal, String, Supplier)} also coalesces the concurrent authentications of the same
+ * credential into a single call to the authentication provider, and can remember failures for a short time.
+ *
+ * @author <a href="mailto:pmlopes@gmail.com">Paulo Lopes</a>
+ */
+final class UserCache {
+
+  private static final SecureRandom RANDOM = new SecureRandom();
+
+  private final ThreadLocal<Mac> mac;
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private final Map<String, Future<User>> inFlight = new ConcurrentHashMap<>();
+
+  private volatile int maxSize;
+  private volatile long ttl;
+  private volatile long negativeTtl;
+
+  UserCache(int maxSize, long ttl) {
+    final byte[] secret = new byte[32];
+    RANDOM.nextBytes(secret);
+    final SecretKeySpec key = new SecretKeySpec(secret, "HmacSHA256");
+    this.mac = ThreadLocal.withInitial(() -> {
+      try {
+        final Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(key);
+        return mac;
+      } catch (GeneralSecurityException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    configure(maxSize, ttl);
+  }
+
+  void configure(int maxSize, long ttl) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("maxSize must be >= 0");
+    }
+    if (ttl < 0) {
+      throw new IllegalArgumentException("ttl must be >= 0");
+    }
+    this.maxSize = maxSize;
+    this.ttl = ttl;
+    if (maxSize == 0 || ttl == 0) {
+      entries.clear();
+    }
+  }
+
+  int maxSize() {
+    return maxSize;
+  }
+
+  long ttl() {
+    return ttl;
+  }
+
+  void negativeTtl(long negativeTtl) {
+    if (negativeTtl < 0) {
+      throw new IllegalArgumentException("negativeTtl must be >= 0");
+    }
+    this.negativeTtl = negativeTtl;
+  }
+
+  long negativeTtl() {
+    return negativeTtl;
+  }
+
+  boolean enabled() {
+    return maxSize > 0 && ttl > 0;
+  }
+
+  /**
+   * @return the cache key for a credential
+   */
+  String key(String credential) {
+    final byte[] digest = mac.get().doFinal(credential.getBytes(StandardCharsets.UTF_8));
+    return Base64.getEncoder().withoutPadding().encodeToString(digest);
+  }
+
+  /**
+   * @return the cached user, or {@code null} if absent, expired or a failure was cached
+   */
+  User get(String key) {
+    final Entry entry = lookup(key);
+    return entry == null ? null : entry.user;
+  }
+
+  /**
+   * Authenticate a credential, from the cache when possible. Concurrent calls with the same key share the same
+   * authentication.
+   *
+   * @param ctx          the context the returned future completes on
+   * @param key          the cache key of the credential
+   * @param authenticate performs the authentication on a cache miss
+   */
+  Future<User> authenticate(ContextInternal ctx, String key, Supplier<Future<User>> authenticate) {
+    final Entry entry = lookup(key);
+    if (entry != null) {
+      return entry.user != null ? ctx.succeededFuture(entry.user) : ctx.failedFuture(entry.failure);
+    }
+
+    final PromiseInternal<User> leader = ctx.promise();
+    final Future<User> existing = inFlight.putIfAbsent(key, leader.future());
+    if (existing != null) {
+      // the promise completes on this context, whatever context completes the shared authentication
+      final PromiseInternal<User> follower = ctx.promise();
+      existing.onComplete(follower);
+      return follower.future();
+    }
+
+    final Future<User> result;
+    try {
+      result = authenticate.get();
+    } catch (RuntimeException e) {
+      inFlight.remove(key, leader.future());
+      // the followers that joined meanwhile wait for the leader
+      leader.fail(e);
+      return leader.future();
+    }
+    result.onComplete(ar -> {
+      if (ar.succeeded()) {
+        put(key, ar.result());
+      } else {
+        putFailure(key, ar.cause());
+      }
+      // the outcome is cached before the followers can miss it
+      inFlight.remove(key, leader.future());
+      leader.handle(ar);
+    });
+    return leader.future();
+  }
+
+  void put(String key, User user) {
+    if (!enabled()) {
+      return;
+    }
+    final long now = System.currentTimeMillis();
+    long expiresAt = now + ttl;
+    final Object exp = exp(user);
+    if (exp instanceof Number) {
+      expiresAt = Math.min(expiresAt, ((Number) exp).longValue() * 1000);
+    }
+    if (expiresAt <= now) {
+      return;
+    }
+    if (entries.size() >= maxSize) {
+      evict(now);
+    }
+    entries.put(key, new Entry(user, null, expiresAt));
+  }
+
+  private void putFailure(String key, Throwable failure) {
+    final long negativeTtl = this.negativeTtl;
+    if (!enabled() || negativeTtl == 0) {
+      return;
+    }
+    final long now = System.currentTimeMillis();
+    if (entries.size() >= maxSize) {
+      evict(now);
+    }
+    entries.put(key, new Entry(null, failure, now + negativeTtl));
+  }
+
+  private static Object exp(User user) {
+    // verified tokens have it in the attributes, introspected tokens may only have it in the principal
+    if (user.attributes() != null && user.attributes().containsKey("exp")) {
+      return user.attributes().getValue("exp");
+    }
+    return user.principal() == null ? null : user.principal().getValue("exp");
+  }
+
+  private Entry lookup(String key) {
+    final Entry entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (entry.expiresAt <= System.currentTimeMillis()) {
+      entries.remove(key, entry);
+      return null;
+    }
+    return entry;
+  }
+
+  void remove(String key) {
+    entries.remove(key);
+  }
+
+  /**
+   * Remove all the entries whose key starts with the given prefix, e.g.: all the credentials of a user.
+   */
+  void removeByPrefix(String prefix) {
+    entries.keySet().removeIf(key -> key.startsWith(prefix));
+  }
+
+  void clear() {
+    entries.clear();
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  private void evict(long now) {
+    entries.values().removeIf(entry -> entry.expiresAt <= now);
+    // still full, make room for about a tenth of the entries so eviction does not run on every put
+    final int target = maxSize - Math.max(1, maxSize / 10);
+    final Iterator<Entry> it = entries.values().iterator();
+    while (entries.size() > target && it.hasNext()) {
+      it.next();
+      it.remove();
+    }
+  }
+
+  private static final class Entry {
+
+    // either a user or the failure to authenticate
+    private final User user;
+    private final Throwable failure;
+    private final long expiresAt;
+
+    private Entry(User user, Throwable failure, long expiresAt) {
+      this.user = user;
+      this.failure = failure;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
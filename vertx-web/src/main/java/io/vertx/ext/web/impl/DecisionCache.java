@@ -0,0 +1,165 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.impl;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+import io.vertx.ext.auth.User;
+import io.vertx.ext.auth.authorization.Authorization;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The authorization decisions cached by the authorization handlers of a Vert.x instance, grouped by user, so the
+ * decisions of a user can be dropped when the user logs out or is refreshed. A decision holds the authorizations the
+ * user had loaded when it was made, so a hit can give them to a user who did not load them.
+ * <p>
+ * Both levels are bounded LRU caches: the least recently seen users are evicted first, and each user keeps a bounded
+ * number of decisions. The users are spread over stripes by subject, each with its own lock and share of the bound, so
+ * the event loops rarely contend and the eviction order is only approximately LRU.
+ *
+ * @author <a href="mailto:plopes@redhat.com">Paulo Lopes</a>
+ */
+public final class DecisionCache implements Shareable {
+
+  private static final String MAP_NAME = "vertx-web.authz.decisions";
+  private static final String KEY = "decisions";
+
+  private static final int MAX_USERS = 10000;
+  private static final int MAX_DECISIONS_PER_USER = 256;
+  // a power of 2
+  private static final int STRIPES = 32;
+
+  private final LRUCache<String, LRUCache<Object, Decision>>[] stripes;
+
+  @SuppressWarnings("unchecked")
+  private DecisionCache() {
+    stripes = new LRUCache[STRIPES];
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new LRUCache<>(16, 0.75f, true, MAX_USERS / STRIPES);
+    }
+  }
+
+  /**
+   * @return the cache of the Vert.x instance, created if needed
+   */
+  public static DecisionCache get(Vertx vertx) {
+    final LocalMap<String, DecisionCache> map = vertx.sharedData().getLocalMap(MAP_NAME);
+    DecisionCache existing = map.get(KEY);
+    if (existing != null) {
+      return existing;
+    }
+    final DecisionCache cache = new DecisionCache();
+    existing = map.putIfAbsent(KEY, cache);
+    return existing != null ? existing : cache;
+  }
+
+  /**
+   * Drop the decisions cached for a user, if any.
+   */
+  public static void invalidate(Vertx vertx, User user) {
+    if (user == null || user.subject() == null) {
+      return;
+    }
+    final LocalMap<String, DecisionCache> map = vertx.sharedData().getLocalMap(MAP_NAME);
+    final DecisionCache cache = map.get(KEY);
+    if (cache != null) {
+      cache.invalidate(user.subject());
+    }
+  }
+
+  /**
+   * @return the cached decision, or {@code null} if absent or expired
+   */
+  public Decision get(String subject, Object key, long now) {
+    final LRUCache<String, LRUCache<Object, Decision>> users = stripe(subject);
+    synchronized (users) {
+      final Map<Object, Decision> decisions = users.get(subject);
+      if (decisions == null) {
+        return null;
+      }
+      final Decision decision = decisions.get(key);
+      if (decision == null) {
+        return null;
+      }
+      if (decision.expiresAt <= now) {
+        decisions.remove(key);
+        return null;
+      }
+      return decision;
+    }
+  }
+
+  /**
+   * @param authorizations the authorizations loaded by the providers, by provider id, they must not be modified
+   *                       afterwards
+   */
+  public void put(String subject, Object key, boolean granted, Map<String, Set<Authorization>> authorizations, long expiresAt) {
+    final LRUCache<String, LRUCache<Object, Decision>> users = stripe(subject);
+    synchronized (users) {
+      users
+        .computeIfAbsent(subject, k -> new LRUCache<>(4, 0.75f, true, MAX_DECISIONS_PER_USER))
+        .put(key, new Decision(granted, authorizations, expiresAt));
+    }
+  }
+
+  public void invalidate(String subject) {
+    final LRUCache<String, LRUCache<Object, Decision>> users = stripe(subject);
+    synchronized (users) {
+      users.remove(subject);
+    }
+  }
+
+  public void clear() {
+    for (LRUCache<String, LRUCache<Object, Decision>> users : stripes) {
+      synchronized (users) {
+        users.clear();
+      }
+    }
+  }
+
+  private LRUCache<String, LRUCache<Object, Decision>> stripe(String subject) {
+    final int h = subject.hashCode();
+    return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+  }
+
+  public static final class Decision {
+
+    private final boolean granted;
+    private final Map<String, Set<Authorization>> authorizations;
+    private final long expiresAt;
+
+    private Decision(boolean granted, Map<String, Set<Authorization>> authorizations, long expiresAt) {
+      this.granted = granted;
+      this.authorizations = authorizations;
+      this.expiresAt = expiresAt;
+    }
+
+    public boolean granted() {
+      return granted;
+    }
+
+    /**
+     * @return the authorizations loaded by the providers when the decision was made, by provider id
+     */
+    public Map<String, Set<Authorization>> authorizations() {
+      return authorizations;
+    }
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.impl;
+
+import io.vertx.core.MultiMap;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.PlatformHandler;
+
+/**
+ * Sends precomputed {@code 103 Early Hints} before the remaining handlers of a route run.
+ *
+ * @author <a href="http://pmlopes@gmail.com">Paulo Lopes</a>
+ */
+public class EarlyHintsHandler implements PlatformHandler {
+
+  private final MultiMap hints;
+
+  public EarlyHintsHandler(MultiMap hints) {
+    this.hints = hints;
+  }
+
+  @Override
+  public void handle(RoutingContext ctx) {
+    // the interim response is written before the final one, there is no need to wait for it
+    ctx.earlyHints(hints);
+    ctx.next();
+  }
+}
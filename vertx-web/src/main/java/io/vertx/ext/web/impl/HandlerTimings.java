@@ -0,0 +1,167 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.impl;
+
+import io.vertx.core.Handler;
+
+/**
+ * The time spent in each handler of a request, recorded by the router when the context has timings.
+ * <p>
+ * The wall time of a handler is the time from its invocation until the next handler is invoked, or until the
+ * timings are closed (e.g.: when the response headers are sent), so it includes the asynchronous work the handler
+ * waited for. The event loop time is the time spent in the handler invocation itself, minus the time spent in the
+ * handlers it invoked synchronously by calling {@code next()}.
+ *
+ * @author <a href="mailto:pmlopes@gmail.com">Paulo Lopes</a>
+ */
+public final class HandlerTimings {
+
+  /**
+   * Receives the timings of each handler, once both are known
+   */
+  @FunctionalInterface
+  public interface Listener {
+    void record(String name, long wallNanos, long eventLoopNanos);
+  }
+
+  // reroutes could loop, the handlers over this are not recorded
+  private static final int MAX_HANDLERS = 64;
+
+  private final Listener listener;
+  private final Class<?>[] handlers = new Class<?>[MAX_HANDLERS];
+  private final long[] start = new long[MAX_HANDLERS];
+  private final long[] wall = new long[MAX_HANDLERS];
+  private final long[] eventLoop = new long[MAX_HANDLERS];
+  // the nested time of the invoking frame, restored on exit
+  private final long[] savedNested = new long[MAX_HANDLERS];
+  private int size;
+  // time spent in the handlers invoked synchronously by the current frame
+  private long nested;
+
+  /**
+   * @param listener receives the timings of each handler, can be {@code null}
+   */
+  public HandlerTimings(Listener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Record the invocation of a handler.
+   *
+   * @return the index to pass to {@link #exit(int)}
+   */
+  public int enter(Handler<?> handler) {
+    final long now = System.nanoTime();
+    closeLast(now);
+    if (size == MAX_HANDLERS) {
+      return -1;
+    }
+    final int i = size++;
+    handlers[i] = handler.getClass();
+    start[i] = now;
+    wall[i] = -1;
+    eventLoop[i] = -1;
+    savedNested[i] = nested;
+    nested = 0;
+    return i;
+  }
+
+  /**
+   * Record the return of a handler invocation.
+   */
+  public void exit(int i) {
+    if (i < 0) {
+      return;
+    }
+    final long total = System.nanoTime() - start[i];
+    eventLoop[i] = total - nested;
+    nested = savedNested[i] + total;
+    publish(i);
+  }
+
+  /**
+   * End the wall time of the last invoked handler.
+   */
+  public void close(long now) {
+    closeLast(now);
+  }
+
+  /**
+   * @return the timings as a {@code Server-Timing} header value, e.g.:
+   * {@code BodyHandler;dur=0.120;el=0.080, MyApi.lambda;dur=12.300;el=0.510, total;dur=12.500}
+   */
+  public String serverTiming(long totalNanos) {
+    final StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < size; i++) {
+      sb.append(name(handlers[i]));
+      if (wall[i] >= 0) {
+        sb.append(";dur=");
+        millis(sb, wall[i]);
+      }
+      if (eventLoop[i] >= 0) {
+        sb.append(";el=");
+        millis(sb, eventLoop[i]);
+      }
+      sb.append(", ");
+    }
+    sb.append("total;dur=");
+    millis(sb, totalNanos);
+    return sb.toString();
+  }
+
+  private void closeLast(long now) {
+    if (size > 0 && wall[size - 1] < 0) {
+      wall[size - 1] = now - start[size - 1];
+      publish(size - 1);
+    }
+  }
+
+  private void publish(int i) {
+    if (listener != null && wall[i] >= 0 && eventLoop[i] >= 0) {
+      listener.record(name(handlers[i]), wall[i], eventLoop[i]);
+    }
+  }
+
+  /**
+   * @return a {@code Server-Timing} metric name for a handler class
+   */
+  static String name(Class<?> handler) {
+    String name = handler.getName();
+    final int lambda = name.indexOf("$$Lambda");
+    if (lambda != -1) {
+      name = name.substring(0, lambda) + ".lambda";
+    }
+    name = name.substring(name.lastIndexOf('.', lambda == -1 ? name.length() : lambda) + 1);
+    if (name.endsWith("Impl")) {
+      name = name.substring(0, name.length() - 4);
+    }
+    return name;
+  }
+
+  private static void millis(StringBuilder sb, long nanos) {
+    final long micros = nanos / 1000;
+    final long fraction = micros % 1000;
+    sb.append(micros / 1000).append('.');
+    if (fraction < 100) {
+      sb.append('0');
+    }
+    if (fraction < 10) {
+      sb.append('0');
+    }
+    sb.append(fraction);
+  }
+}
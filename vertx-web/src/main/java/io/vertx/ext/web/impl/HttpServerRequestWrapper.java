@@ -6,6 +6,7 @@ import io.vertx.core.Future;
 import io.vertx.core.MultiMap;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
 import io.vertx.core.http.ServerWebSocket;
 import io.vertx.core.internal.http.HttpServerRequestInternal;
 import io.vertx.core.net.HostAndPort;
@@ -35,6 +36,8 @@ class HttpServerRequestWrapper extends io.vertx.core.internal.http.HttpServerReq
   private String uri;
   private String absoluteURI;
   private MultiMap params;
+  // replaces the response, e.g.: to capture it
+  private HttpServerResponse response;
 
   HttpServerRequestWrapper(HttpServerRequest request, AllowForwardHeaders allowForward, RoutingContext ctx) {
     super((HttpServerRequestInternal) request);
@@ -74,6 +77,18 @@ class HttpServerRequestWrapper extends io.vertx.core.internal.http.HttpServerReq
     }
   }
 
+  void response(HttpServerResponse response) {
+    this.response = response;
+  }
+
+  @Override
+  public HttpServerResponse response() {
+    if (response != null) {
+      return response;
+    }
+    return delegate.response();
+  }
+
   @Override
   public HttpMethod method() {
     if (!modified) {
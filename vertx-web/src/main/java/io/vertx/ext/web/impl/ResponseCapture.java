@@ -0,0 +1,134 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.impl;
+
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.ext.web.RoutingContext;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Captures the body written to the response of a routing context, e.g.: to cache it. Once installed, the handlers get
+ * this wrapper of the response, which copies the buffers and strings written or ended with, up to a max size.
+ * <p>
+ * Bodies sent from a file are not captured, the capture is then incomplete.
+ *
+ * @author <a href="mailto:pmlopes@gmail.com">Paulo Lopes</a>
+ */
+public final class ResponseCapture extends HttpServerResponseWrapper {
+
+  private final int maxSize;
+  private final Buffer body = Buffer.buffer();
+  private boolean complete = true;
+
+  private ResponseCapture(HttpServerResponse delegate, int maxSize) {
+    super(delegate);
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Capture the response of a context, the handlers invoked from now on write to the captured response.
+   *
+   * @return the capture, or {@code null} if the context response cannot be captured
+   */
+  public static ResponseCapture install(RoutingContext ctx, int maxSize) {
+    if (!(ctx.request() instanceof HttpServerRequestWrapper)) {
+      return null;
+    }
+    final HttpServerRequestWrapper request = (HttpServerRequestWrapper) ctx.request();
+    final ResponseCapture capture = new ResponseCapture(request.response(), maxSize);
+    request.response(capture);
+    return capture;
+  }
+
+  /**
+   * @return the captured body
+   */
+  public Buffer body() {
+    return body;
+  }
+
+  /**
+   * @return {@code false} if the body exceeded the max size or was not written as buffers or strings
+   */
+  public boolean complete() {
+    return complete;
+  }
+
+  @Override
+  public Future<Void> write(Buffer data) {
+    append(data);
+    return super.write(data);
+  }
+
+  @Override
+  public Future<Void> write(String chunk, String enc) {
+    append(chunk, enc);
+    return super.write(chunk, enc);
+  }
+
+  @Override
+  public Future<Void> write(String chunk) {
+    append(chunk, null);
+    return super.write(chunk);
+  }
+
+  @Override
+  public Future<Void> end(String chunk) {
+    append(chunk, null);
+    return super.end(chunk);
+  }
+
+  @Override
+  public Future<Void> end(String chunk, String enc) {
+    append(chunk, enc);
+    return super.end(chunk, enc);
+  }
+
+  @Override
+  public Future<Void> end(Buffer chunk) {
+    append(chunk);
+    return super.end(chunk);
+  }
+
+  @Override
+  public Future<Void> sendFile(String filename, long offset, long length) {
+    complete = false;
+    return super.sendFile(filename, offset, length);
+  }
+
+  private void append(String chunk, String enc) {
+    if (complete) {
+      final Charset charset = enc == null ? StandardCharsets.UTF_8 : Charset.forName(enc);
+      append(Buffer.buffer(chunk.getBytes(charset)));
+    }
+  }
+
+  private void append(Buffer data) {
+    if (!complete) {
+      return;
+    }
+    if (body.length() + data.length() > maxSize) {
+      complete = false;
+      return;
+    }
+    body.appendBuffer(data);
+  }
+}
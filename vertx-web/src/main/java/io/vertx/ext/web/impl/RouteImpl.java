@@ -18,6 +18,7 @@ package io.vertx.ext.web.impl;
 
 import io.vertx.core.Handler;
 import io.vertx.core.http.HttpMethod;
+import io.vertx.ext.web.Http2PushMapping;
 import io.vertx.ext.web.Route;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
@@ -153,6 +154,12 @@ public class RouteImpl implements Route {
     return this;
   }
 
+  @Override
+  public Route preload(List<Http2PushMapping> mappings) {
+    Objects.requireNonNull(mappings);
+    return handler(new EarlyHintsHandler(Utils.preloadLinks(mappings)));
+  }
+
   @Override
   public Route blockingHandler(Handler<RoutingContext> contextHandler) {
     return blockingHandler(contextHandler, true);
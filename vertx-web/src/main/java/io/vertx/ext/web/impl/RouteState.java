@@ -1338,15 +1338,25 @@ final class RouteState {
   }
 
   void handleContext(RoutingContextImplBase context) {
-    contextHandlers
-      .get(context.currentRouteNextHandlerIndex() - 1)
-      .handle(context);
+    handle(contextHandlers.get(context.currentRouteNextHandlerIndex() - 1), context);
   }
 
   void handleFailure(RoutingContextImplBase context) {
-    failureHandlers
-      .get(context.currentRouteNextFailureHandlerIndex() - 1)
-      .handle(context);
+    handle(failureHandlers.get(context.currentRouteNextFailureHandlerIndex() - 1), context);
+  }
+
+  private static void handle(Handler<RoutingContext> handler, RoutingContextImplBase context) {
+    final HandlerTimings timings = context.handlerTimings();
+    if (timings == null) {
+      handler.handle(context);
+      return;
+    }
+    final int index = timings.enter(handler);
+    try {
+      handler.handle(context);
+    } finally {
+      timings.exit(index);
+    }
   }
 
   public String getName() {
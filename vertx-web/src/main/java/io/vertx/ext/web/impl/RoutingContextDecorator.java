@@ -278,6 +278,16 @@ public class RoutingContextDecorator implements RoutingContextInternal {
     return decoratedContext.securityAudit();
   }
 
+  @Override
+  public HandlerTimings handlerTimings() {
+    return decoratedContext.handlerTimings();
+  }
+
+  @Override
+  public void setHandlerTimings(HandlerTimings handlerTimings) {
+    decoratedContext.setHandlerTimings(handlerTimings);
+  }
+
   @Override
   public int statusCode() {
     return decoratedContext.statusCode();
@@ -64,6 +64,8 @@ public abstract class RoutingContextImplBase implements RoutingContextInternal {
   private volatile long seen;
   // immutable security audit
   private SecurityAudit securityAudit;
+  // null unless the handler timings are recorded
+  private HandlerTimings handlerTimings;
 
   protected Set<HttpMethod> allowedMethods = new HashSet<>();
 
@@ -111,6 +113,16 @@ public abstract class RoutingContextImplBase implements RoutingContextInternal {
     return securityAudit;
   }
 
+  @Override
+  public HandlerTimings handlerTimings() {
+    return handlerTimings;
+  }
+
+  @Override
+  public void setHandlerTimings(HandlerTimings handlerTimings) {
+    this.handlerTimings = handlerTimings;
+  }
+
   @Override
   public synchronized RoutingContextInternal setMatchFailure(int matchFailure) {
     this.matchFailure = matchFailure;
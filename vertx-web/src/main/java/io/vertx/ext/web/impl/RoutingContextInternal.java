@@ -117,4 +117,17 @@ public interface RoutingContextInternal extends RoutingContext {
    * Get or Default the security audit object.
    */
   void setSecurityAudit(SecurityAudit securityAudit);
+
+  /**
+   * @return the timings of the handlers of this request, {@code null} when not recorded
+   */
+  @Nullable HandlerTimings handlerTimings();
+
+  /**
+   * Record the timings of the handlers of this request from now on. Used by the
+   * {@link io.vertx.ext.web.handler.ResponseTimeHandler}.
+   *
+   * @param handlerTimings the timings
+   */
+  void setHandlerTimings(HandlerTimings handlerTimings);
 }
@@ -43,6 +43,8 @@ public class RoutingContextWrapper extends RoutingContextImplBase {
   public RoutingContextWrapper(String mountPoint, Set<RouteImpl> iter, RoutingContextInternal inner, Router currentRouter) {
     super(mountPoint, iter, currentRouter);
     this.inner = inner;
+    // keep recording in the sub router
+    setHandlerTimings(inner.handlerTimings());
     String parentMountPoint = inner.mountPoint();
     if (parentMountPoint == null) {
       // just use the override
@@ -20,59 +20,65 @@ import io.vertx.core.internal.logging.Logger;
 import io.vertx.core.internal.logging.LoggerFactory;
 
 import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.Arrays;
+import java.util.Base64;
 
+/**
+ * HMAC-SHA256 signatures of ASCII data, in the form {@code data.signature}.
+ * <p>
+ * {@link Mac} is not thread safe, each thread (usually an event loop) gets its own instance and scratch buffers, so
+ * concurrent requests never contend on a shared monitor.
+ */
 public class Signature {
   private static final Logger LOG = LoggerFactory.getLogger(Signature.class);
   private static final String algorithm = "HmacSHA256";
+  private static final Base64.Encoder BASE64_URL_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+  // larger values are not kept in the per thread scratch buffer
+  private static final int MAX_SCRATCH_LENGTH = 4096;
 
-  private final Mac mac;
+  private final ThreadLocal<State> state;
 
   public Signature(final String secret) {
-    try {
-      if (secret.length() <= 8) {
-        LOG.warn("Signing secret is very short (<= 8 bytes)");
-      }
-      mac = Mac.getInstance(algorithm);
-      mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), algorithm));
-    } catch (NoSuchAlgorithmException | InvalidKeyException e) {
-      throw new RuntimeException(e);
+    if (secret.length() <= 8) {
+      LOG.warn("Signing secret is very short (<= 8 bytes)");
     }
+    final SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), algorithm);
+    // fail fast on an invalid key
+    final State initial = new State(key);
+    state = ThreadLocal.withInitial(() -> new State(key));
+    state.set(initial);
   }
 
   public String sign(String data) {
-    final String signature;
-    synchronized (mac) {
-      signature = Utils.base64UrlEncode(mac.doFinal(data.getBytes(StandardCharsets.US_ASCII)));
-    }
-    return data + "." + signature;
+    final State state = this.state.get();
+    final int len = state.mac(data, data.length());
+    return data + "." + new String(state.encoded, 0, len, StandardCharsets.US_ASCII);
   }
 
   public boolean verify(String signedData) {
-    String[] parts = signedData.split("\\.");
-    if (parts.length < 2) {
+    final int dot = signedData.lastIndexOf('.');
+    if (dot == -1) {
       // There is no signature on this data
       return false;
     }
 
-    final String signature = parts[parts.length - 1];
-    final String[] dataParts = Arrays.copyOfRange(parts,0, parts.length - 1);
-    final String data = String.join(".", dataParts);
-    final String calculatedSignature;
+    final State state = this.state.get();
+    final int len = state.mac(signedData, dot);
 
-    synchronized (mac) {
-      calculatedSignature = Utils.base64UrlEncode(mac.doFinal(data.getBytes(StandardCharsets.US_ASCII)));
+    // constant time comparison, like MessageDigest.isEqual
+    if (signedData.length() - dot - 1 != len) {
+      return false;
     }
-
-    return MessageDigest.isEqual(
-      calculatedSignature.getBytes(StandardCharsets.US_ASCII),
-      signature.getBytes(StandardCharsets.US_ASCII)
-    );
+    int result = 0;
+    for (int i = 0; i < len; i++) {
+      result |= state.encoded[i] ^ signedData.charAt(dot + 1 + i);
+    }
+    return result == 0;
   }
 
   public String parse(String signedData) {
@@ -80,8 +86,53 @@ public class Signature {
       return null;
     }
 
-    String[] parts = signedData.split("\\.");
-    final String[] dataParts = Arrays.copyOfRange(parts,0, parts.length - 1);
-    return String.join(".", dataParts);
+    return signedData.substring(0, signedData.lastIndexOf('.'));
+  }
+
+  private static final class State {
+
+    private final Mac mac;
+    private final byte[] digest;
+    // base64url of the digest, without padding
+    private final byte[] encoded;
+    private byte[] data = new byte[256];
+
+    private State(SecretKeySpec key) {
+      try {
+        mac = Mac.getInstance(algorithm);
+        mac.init(key);
+      } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+        throw new RuntimeException(e);
+      }
+      digest = new byte[mac.getMacLength()];
+      encoded = new byte[(digest.length * 4 + 2) / 3];
+    }
+
+    /**
+     * Compute the signature of the first {@code length} characters of {@code value} into {@link #encoded}.
+     *
+     * @return the length of the encoded signature
+     */
+    private int mac(String value, int length) {
+      byte[] data = this.data;
+      if (data.length < length) {
+        data = new byte[length];
+        if (length <= MAX_SCRATCH_LENGTH) {
+          this.data = data;
+        }
+      }
+      // same as getBytes(US_ASCII) without the allocation
+      for (int i = 0; i < length; i++) {
+        final char c = value.charAt(i);
+        data[i] = c < 0x80 ? (byte) c : (byte) '?';
+      }
+      try {
+        mac.update(data, 0, length);
+        mac.doFinal(digest, 0);
+      } catch (ShortBufferException e) {
+        throw new IllegalStateException(e);
+      }
+      return BASE64_URL_ENCODER.encode(digest, encoded);
+    }
   }
 }
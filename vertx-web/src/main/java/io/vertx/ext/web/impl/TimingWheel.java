@@ -0,0 +1,220 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.impl;
+
+import io.vertx.core.Context;
+import io.vertx.core.internal.ContextInternal;
+import io.vertx.core.internal.logging.Logger;
+import io.vertx.core.internal.logging.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A hashed timing wheel for per request deadlines, e.g.: request timeouts. Scheduling and cancelling are O(1), and
+ * the entries are intrusive list nodes, so there is no timer object per deadline. A single Vert.x timer advances the
+ * wheel, it only runs while there are scheduled entries.
+ * <p>
+ * There is one wheel per root context and tick resolution, see {@link #get(Context, long)}, so the requests of an event
+ * loop share it while each of them runs on its own duplicated context. A wheel is not thread safe: it must only be used
+ * from the thread of its context. The wheel timer runs on the root context, while each entry expires on the context it
+ * was created with. Entries expire between their delay and their delay plus two ticks.
+ *
+ * @author <a href="mailto:pmlopes@gmail.com">Paulo Lopes</a>
+ */
+public final class TimingWheel {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TimingWheel.class);
+
+  private static final int BUCKETS = 512;
+  private static final String KEY = "__vertx.web.timingWheel.";
+
+  /**
+   * A deadline in a wheel. The entry can be scheduled again once expired or cancelled.
+   */
+  public abstract static class Entry {
+
+    private final ContextInternal context;
+    private TimingWheel wheel;
+    private Entry prev;
+    private Entry next;
+    private long deadline;
+
+    /**
+     * @param context the context to expire on, e.g.: the request context
+     */
+    protected Entry(Context context) {
+      this.context = (ContextInternal) context;
+    }
+
+    /**
+     * Called on the entry context when the deadline is reached.
+     */
+    protected abstract void expire();
+
+    /**
+     * Cancel the deadline, does nothing if not scheduled.
+     *
+     * @return {@code true} if the deadline was scheduled
+     */
+    public final boolean cancel() {
+      if (wheel == null) {
+        return false;
+      }
+      wheel.remove(this);
+      return true;
+    }
+
+    /**
+     * @return {@code true} if the deadline is scheduled
+     */
+    public final boolean scheduled() {
+      return wheel != null;
+    }
+  }
+
+  /**
+   * @return the wheel of the root of the context for the given resolution, created if needed
+   */
+  public static TimingWheel get(Context context, long tick) {
+    if (tick <= 0) {
+      throw new IllegalArgumentException("tick must be > 0");
+    }
+    final ContextInternal root = ((ContextInternal) context).unwrap();
+    final String key = KEY + tick;
+    TimingWheel wheel = root.get(key);
+    if (wheel == null) {
+      wheel = new TimingWheel(root, tick);
+      root.put(key, wheel);
+    }
+    return wheel;
+  }
+
+  private final ContextInternal context;
+  private final long tick;
+  private final long tickNanos;
+  private final long origin = System.nanoTime();
+  // list heads, the entries of a bucket are due on ticks equal modulo the number of buckets
+  private final Entry[] buckets = new Entry[BUCKETS];
+  // last processed tick
+  private long processed;
+  private int size;
+  private long timerId = -1;
+
+  private TimingWheel(ContextInternal context, long tick) {
+    this.context = context;
+    this.tick = tick;
+    this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tick);
+  }
+
+  /**
+   * Schedule an entry, an already scheduled entry is rescheduled.
+   *
+   * @param entry the entry
+   * @param delay the delay in ms
+   */
+  public void schedule(Entry entry, long delay) {
+    if (entry.wheel != null) {
+      entry.wheel.remove(entry);
+    }
+    final long now = now();
+    if (timerId == -1) {
+      // the wheel was idle, nothing is due before now
+      processed = now;
+      // on the root context, not on the context of the request that happened to schedule first
+      timerId = context.setPeriodic(tick, id -> advance());
+    }
+    // the current tick is already partly elapsed, so round the delay up and add a tick: an entry never expires early
+    entry.deadline = now + Math.max(0, (delay + tick - 1) / tick) + 1;
+    final int bucket = (int) (entry.deadline & (BUCKETS - 1));
+    entry.wheel = this;
+    entry.prev = null;
+    entry.next = buckets[bucket];
+    if (entry.next != null) {
+      entry.next.prev = entry;
+    }
+    buckets[bucket] = entry;
+    size++;
+  }
+
+  /**
+   * @return the number of scheduled entries
+   */
+  public int size() {
+    return size;
+  }
+
+  private long now() {
+    return (System.nanoTime() - origin) / tickNanos;
+  }
+
+  private void remove(Entry entry) {
+    if (entry.prev != null) {
+      entry.prev.next = entry.next;
+    } else {
+      buckets[(int) (entry.deadline & (BUCKETS - 1))] = entry.next;
+    }
+    if (entry.next != null) {
+      entry.next.prev = entry.prev;
+    }
+    entry.wheel = null;
+    entry.prev = null;
+    entry.next = null;
+    size--;
+  }
+
+  private void advance() {
+    // catch up on the ticks missed when the event loop was busy
+    final long now = now();
+    while (processed < now && size > 0) {
+      processed++;
+      List<Entry> expired = null;
+      Entry entry = buckets[(int) (processed & (BUCKETS - 1))];
+      while (entry != null) {
+        final Entry next = entry.next;
+        // entries of later rounds stay in the bucket
+        if (entry.deadline <= processed) {
+          remove(entry);
+          if (expired == null) {
+            expired = new ArrayList<>();
+          }
+          expired.add(entry);
+        }
+        entry = next;
+      }
+      // expire once the bucket is walked, as expiring may schedule or cancel other entries
+      if (expired != null) {
+        for (Entry e : expired) {
+          e.context.emit(e, TimingWheel::doExpire);
+        }
+      }
+    }
+    if (size == 0) {
+      context.owner().cancelTimer(timerId);
+      timerId = -1;
+    }
+  }
+
+  private static void doExpire(Entry entry) {
+    try {
+      entry.expire();
+    } catch (RuntimeException e) {
+      LOG.error("Failed to expire a deadline", e);
+    }
+  }
+}
@@ -87,6 +87,8 @@ public class UserContextImpl implements UserContextInternal {
         .regenerateId();
     }
 
+    // drop the cached decisions, the user authorizations may have changed
+    DecisionCache.invalidate(ctx.vertx(), user);
     // remove user from the context
     this.user = null;
 
@@ -235,6 +237,7 @@ public class UserContextImpl implements UserContextInternal {
     }
 
     // clear the user
+    DecisionCache.invalidate(ctx.vertx(), user);
     user = null;
 
     // we should redirect the UA so this link becomes invalid
@@ -258,6 +261,7 @@ public class UserContextImpl implements UserContextInternal {
     }
 
     // clear the user
+    DecisionCache.invalidate(ctx.vertx(), user);
     user = null;
   }
 }
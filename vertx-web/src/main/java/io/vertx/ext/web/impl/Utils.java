@@ -21,6 +21,7 @@ import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.HttpServerResponse;
 import io.vertx.core.internal.net.RFC3986;
+import io.vertx.ext.web.Http2PushMapping;
 import io.vertx.ext.web.Route;
 import io.vertx.ext.web.RoutingContext;
 
@@ -31,6 +32,7 @@ import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.Base64;
+import java.util.List;
 import java.util.regex.Pattern;
 
 
@@ -65,6 +67,18 @@ public class Utils {
     return cl;
   }
 
+  /**
+   * Compute the {@code Link} preload headers for the given mappings, so they can be computed once and reused on
+   * every response.
+   */
+  public static MultiMap preloadLinks(List<Http2PushMapping> mappings) {
+    final MultiMap links = MultiMap.caseInsensitiveMultiMap();
+    for (Http2PushMapping mapping : mappings) {
+      links.add("Link", "<" + mapping.getFilePath() + ">; rel=preload; as=" + mapping.getExtensionTarget() + (mapping.isNoPush() ? "; nopush" : ""));
+    }
+    return links;
+  }
+
   private static final ZoneId ZONE_GMT = ZoneId.of("GMT");
 
   public static String formatRFC1123DateTime(final long time) {
@@ -32,6 +32,9 @@ import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 /**
  * The abstract session class provides a barebones implementation for session storage implementors.
@@ -61,6 +64,33 @@ public abstract class AbstractSession implements Session, SessionInternal {
   private static final byte TYPE_BUFFER = 10;
   private static final byte TYPE_BYTES = 11;
   private static final byte TYPE_CLUSTER_SERIALIZABLE = 13;
+  // flag set on the type of compressed string, buffer and byte array values in the compact format
+  private static final byte FLAG_DEFLATED = 0x40;
+
+  // The compact format starts with this marker where the legacy format has the (positive) number of entries. Numbers
+  // are varints, well known keys and classes are written as indexes in the tables below. The tables are part of the
+  // format: entries can be appended, never removed or reordered.
+  private static final int FORMAT_COMPACT = -1;
+  private static final String[] KEYS = {
+    "__vertx.userHolder",
+    "__vertx.user-switch-ref",
+    "X-XSRF-TOKEN"
+  };
+  private static final String[] CLASSES = {
+    "io.vertx.core.json.JsonObject",
+    "io.vertx.core.json.JsonArray",
+    "io.vertx.ext.web.handler.impl.UserHolder"
+  };
+  private static final Map<String, Integer> KEY_INDEX = index(KEYS);
+  private static final Map<String, Integer> CLASS_INDEX = index(CLASSES);
+
+  // string, buffer and byte array values larger than this are compressed
+  private static final int DEFLATE_THRESHOLD = 1024;
+  // a compressed value cannot expand past this size, a corrupt or forged length must not allocate more
+  private static final int MAX_INFLATED_LENGTH = 16 * 1024 * 1024;
+
+  // write the compact format, only once all the nodes of the cluster can read it
+  private static final boolean COMPACT_FORMAT = Boolean.getBoolean("io.vertx.web.session.compact-format");
 
   private static final char[] HEX = "0123456789abcdef".toCharArray();
 
@@ -83,7 +113,9 @@ public abstract class AbstractSession implements Session, SessionInternal {
   protected void setData(Map<String, Object> data) {
     if (data != null) {
       this.data = data;
+      this.hashesValid = false;
       this.crc = checksum();
+      resetChanges();
     }
   }
 
@@ -106,6 +138,17 @@ public abstract class AbstractSession implements Session, SessionInternal {
   private boolean renewed;
   private String oldId;
   private int crc;
+  // keys changed since the session was loaded or flushed, the tracking is lost once the data map is handed out
+  private final Set<String> changedKeys = ConcurrentHashMap.newKeySet();
+  private volatile boolean untracked;
+  // keys of mutable values handed out by get, they may be modified in place
+  private final Set<String> readKeys = ConcurrentHashMap.newKeySet();
+  // created by this node and never flushed to the store
+  private boolean fresh;
+  // the checksum is the sum of the mixed hash of each entry, so only the changed entries need to be hashed again
+  private final Map<String, Integer> entryHashes = new HashMap<>();
+  private int hashSum;
+  private boolean hashesValid;
 
   /**
    * This constructor is <b>mandatory</b> (even though not referenced anywhere) is required for
@@ -124,6 +167,7 @@ public abstract class AbstractSession implements Session, SessionInternal {
     this.id = generateId(prng, length);
     this.timeout = timeout;
     this.lastAccessed = System.currentTimeMillis();
+    this.fresh = true;
   }
 
   public void setPRNG(VertxContextPRNG prng) {
@@ -132,6 +176,8 @@ public abstract class AbstractSession implements Session, SessionInternal {
 
   @Override
   public void flushed(boolean skipCrc) {
+    resetChanges();
+    fresh = false;
     renewed = false;
     if (oldId != null) {
       if (!skipCrc) {
@@ -170,13 +216,17 @@ public abstract class AbstractSession implements Session, SessionInternal {
     if (isEmpty()) {
       return null;
     }
-    Object obj = data().get(key);
+    Object obj = map().get(key);
+    if (obj != null && !isImmutable(obj)) {
+      readKeys.add(key);
+    }
     return (T) obj;
   }
 
   @Override
   public Session put(String key, Object obj) {
-    final Map<String, Object> data = data();
+    final Map<String, Object> data = map();
+    changedKeys.add(key);
     // nulls are handled as remove actions
     if (obj == null) {
       data.remove(key);
@@ -188,15 +238,19 @@ public abstract class AbstractSession implements Session, SessionInternal {
 
   @Override
   public Session putIfAbsent(String key, Object obj) {
-    data()
-      .putIfAbsent(key, obj);
+    if (map().putIfAbsent(key, obj) == null) {
+      changedKeys.add(key);
+    }
     return this;
   }
 
   @Override
   public Session computeIfAbsent(String key, Function<String, Object> mappingFunction) {
-    data()
-      .computeIfAbsent(key, mappingFunction);
+    map()
+      .computeIfAbsent(key, k -> {
+        changedKeys.add(k);
+        return mappingFunction.apply(k);
+      });
     return this;
   }
 
@@ -206,12 +260,21 @@ public abstract class AbstractSession implements Session, SessionInternal {
     if (isEmpty()) {
       return null;
     }
-    Object obj = data().remove(key);
+    Object obj = map().remove(key);
+    if (obj != null) {
+      changedKeys.add(key);
+    }
     return (T) obj;
   }
 
   @Override
   public Map<String, Object> data() {
+    // the map can be modified by the caller, so changes can no longer be tracked per key
+    untracked = true;
+    return map();
+  }
+
+  private Map<String, Object> map() {
     if (data == null) {
       synchronized (this) {
         // double check since there could already been someone in the lock
@@ -249,6 +312,7 @@ public abstract class AbstractSession implements Session, SessionInternal {
     synchronized (this) {
       destroyed = true;
       data = null;
+      untracked = true;
     }
   }
 
@@ -271,6 +335,46 @@ public abstract class AbstractSession implements Session, SessionInternal {
     return version;
   }
 
+  /**
+   * Get the keys added, replaced or removed since the session was loaded or last flushed. Stores can use this to
+   * write only the modified entries.
+   *
+   * @return the changed keys, or {@code null} when the changes are unknown, e.g.: the data map was accessed directly.
+   */
+  public @Nullable Set<String> changedKeys() {
+    return untracked ? null : Collections.unmodifiableSet(changedKeys);
+  }
+
+  /**
+   * Get the keys of the mutable values returned by {@link #get(String)} since the session was loaded or last flushed,
+   * these values may have been modified in place.
+   *
+   * @return the read keys
+   */
+  protected Set<String> readKeys() {
+    return Collections.unmodifiableSet(readKeys);
+  }
+
+  private void resetChanges() {
+    synchronized (entryHashes) {
+      if (untracked) {
+        hashesValid = false;
+      } else if (hashesValid) {
+        // keep the entry hashes in sync before forgetting what changed
+        rehash(changedKeys);
+        rehash(readKeys);
+      }
+    }
+    changedKeys.clear();
+    readKeys.clear();
+    untracked = false;
+  }
+
+  @Override
+  public boolean isModified() {
+    return fresh || checksum() != crc;
+  }
+
   public void incrementVersion() {
     int old = this.crc;
     // update the checksum
@@ -300,167 +404,512 @@ public abstract class AbstractSession implements Session, SessionInternal {
   }
 
   protected int checksum() {
-    if (isEmpty()) {
+    final Map<String, Object> data = this.data;
+    if (data == null) {
       return 0x0000;
-    } else {
-      int result = 1;
-
-      for (Map.Entry<String, Object> kv : data.entrySet()) {
-        String key = kv.getKey();
-        result = 31 * result + key.hashCode();
-        Object value = kv.getValue();
-        if (value != null) {
-          result = 31 * result + value.hashCode();
+    }
+    synchronized (entryHashes) {
+      if (untracked || !hashesValid) {
+        // the data map was handed out, any entry may have changed
+        entryHashes.clear();
+        hashSum = 0;
+        for (Map.Entry<String, Object> kv : data.entrySet()) {
+          final int hash = entryHash(kv.getKey(), kv.getValue());
+          entryHashes.put(kv.getKey(), hash);
+          hashSum += hash;
         }
+        hashesValid = true;
+      } else {
+        rehash(changedKeys);
+        rehash(readKeys);
       }
+      return hashSum;
+    }
+  }
 
-      return result;
+  private void rehash(Set<String> keys) {
+    final Map<String, Object> data = this.data;
+    for (String key : keys) {
+      final Integer previous = entryHashes.remove(key);
+      if (previous != null) {
+        hashSum -= previous;
+      }
+      final Object value = data == null ? null : data.get(key);
+      if (value != null) {
+        final int hash = entryHash(key, value);
+        entryHashes.put(key, hash);
+        hashSum += hash;
+      }
     }
   }
 
+  private static int entryHash(String key, Object value) {
+    // mix the entry hash before summing, a plain sum of linear hashes misses swapped values or offsetting changes
+    int h = 31 * key.hashCode() + (value == null ? 0 : value.hashCode());
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+
+  private static boolean isImmutable(Object value) {
+    return value instanceof String || value instanceof Number || value instanceof Boolean || value instanceof Character;
+  }
+
   protected void writeDataToBuffer(Buffer buffer) {
     if (isEmpty()) {
       buffer.appendInt(0);
-    } else {
-      final Map<String, Object> data = data();
+    } else if (!COMPACT_FORMAT) {
+      final Map<String, Object> data = map();
       buffer.appendInt(data.size());
-      for (Map.Entry<String, Object> entry : data.entrySet()) {
+      for (Map.Entry<String, Object> entry : sorted(data)) {
         String key = entry.getKey();
         byte[] keyBytes = key.getBytes(UTF8);
         buffer.appendInt(keyBytes.length).appendBytes(keyBytes);
-        Object val = entry.getValue();
-        if (val instanceof Long) {
-          buffer.appendByte(TYPE_LONG).appendLong((long) val);
-        } else if (val instanceof Integer) {
-          buffer.appendByte(TYPE_INT).appendInt((int) val);
-        } else if (val instanceof Short) {
-          buffer.appendByte(TYPE_SHORT).appendShort((short) val);
-        } else if (val instanceof Byte) {
-          buffer.appendByte(TYPE_BYTE).appendByte((byte) val);
-        } else if (val instanceof Double) {
-          buffer.appendByte(TYPE_DOUBLE).appendDouble((double) val);
-        } else if (val instanceof Float) {
-          buffer.appendByte(TYPE_FLOAT).appendFloat((float) val);
-        } else if (val instanceof Character) {
-          buffer.appendByte(TYPE_CHAR).appendShort((short) ((Character) val).charValue());
-        } else if (val instanceof Boolean) {
-          buffer.appendByte(TYPE_BOOLEAN).appendByte((byte) ((boolean) val ? 1 : 0));
-        } else if (val instanceof String) {
-          byte[] bytes = ((String) val).getBytes(UTF8);
-          buffer.appendByte(TYPE_STRING).appendInt(bytes.length).appendBytes(bytes);
-        } else if (val instanceof Buffer) {
-          Buffer buff = (Buffer) val;
-          buffer.appendByte(TYPE_BUFFER).appendInt(buff.length()).appendBuffer(buff);
-        } else if (val instanceof byte[]) {
-          byte[] bytes = (byte[]) val;
-          buffer.appendByte(TYPE_BYTES).appendInt(bytes.length).appendBytes(bytes);
-        } else if (val instanceof ClusterSerializable) {
-          buffer.appendByte(TYPE_CLUSTER_SERIALIZABLE);
-          String className = val.getClass().getName();
-          byte[] classNameBytes = className.getBytes(UTF8);
-          buffer.appendInt(classNameBytes.length).appendBytes(classNameBytes);
-          ((ClusterSerializable) val).writeToBuffer(buffer);
+        writeValueToBuffer(buffer, entry.getValue());
+      }
+    } else {
+      final Map<String, Object> data = map();
+      buffer.appendInt(FORMAT_COMPACT);
+      appendVarint(buffer, data.size());
+      for (Map.Entry<String, Object> entry : sorted(data)) {
+        final String key = entry.getKey();
+        final Integer index = KEY_INDEX.get(key);
+        if (index != null) {
+          appendVarint(buffer, (index << 1) | 1);
         } else {
-          if (val != null) {
-            throw new IllegalStateException("Invalid type for data in session: " + val.getClass());
-          }
+          byte[] keyBytes = key.getBytes(UTF8);
+          appendVarint(buffer, keyBytes.length << 1);
+          buffer.appendBytes(keyBytes);
         }
+        writeCompactValue(buffer, entry.getValue());
+      }
+    }
+  }
+
+  /**
+   * The entries are written in key order, so a session decoded and encoded again gives the same bytes whatever the
+   * iteration order of its map: cluster managers compare the encoded sessions in compare and set operations.
+   */
+  private static List<Map.Entry<String, Object>> sorted(Map<String, Object> data) {
+    final List<Map.Entry<String, Object>> entries = new ArrayList<>(data.entrySet());
+    entries.sort(Map.Entry.comparingByKey());
+    return entries;
+  }
+
+  private static void writeCompactValue(Buffer buffer, Object val) {
+    if (val instanceof Long) {
+      buffer.appendByte(TYPE_LONG);
+      appendVarlong(buffer, zigzag((long) val));
+    } else if (val instanceof Integer) {
+      buffer.appendByte(TYPE_INT);
+      appendVarlong(buffer, zigzag((int) val));
+    } else if (val instanceof Short) {
+      buffer.appendByte(TYPE_SHORT);
+      appendVarlong(buffer, zigzag((short) val));
+    } else if (val instanceof Byte) {
+      buffer.appendByte(TYPE_BYTE).appendByte((byte) val);
+    } else if (val instanceof Double) {
+      buffer.appendByte(TYPE_DOUBLE).appendDouble((double) val);
+    } else if (val instanceof Float) {
+      buffer.appendByte(TYPE_FLOAT).appendFloat((float) val);
+    } else if (val instanceof Character) {
+      buffer.appendByte(TYPE_CHAR);
+      appendVarint(buffer, (Character) val);
+    } else if (val instanceof Boolean) {
+      buffer.appendByte(TYPE_BOOLEAN).appendByte((byte) ((boolean) val ? 1 : 0));
+    } else if (val instanceof String) {
+      writeCompactBytes(buffer, TYPE_STRING, ((String) val).getBytes(UTF8));
+    } else if (val instanceof Buffer) {
+      writeCompactBytes(buffer, TYPE_BUFFER, ((Buffer) val).getBytes());
+    } else if (val instanceof byte[]) {
+      writeCompactBytes(buffer, TYPE_BYTES, (byte[]) val);
+    } else if (val instanceof ClusterSerializable) {
+      buffer.appendByte(TYPE_CLUSTER_SERIALIZABLE);
+      final String className = val.getClass().getName();
+      final Integer index = CLASS_INDEX.get(className);
+      if (index != null) {
+        appendVarint(buffer, (index << 1) | 1);
+      } else {
+        byte[] classNameBytes = className.getBytes(UTF8);
+        appendVarint(buffer, classNameBytes.length << 1);
+        buffer.appendBytes(classNameBytes);
+      }
+      ((ClusterSerializable) val).writeToBuffer(buffer);
+    } else {
+      if (val != null) {
+        throw new IllegalStateException("Invalid type for data in session: " + val.getClass());
+      }
+    }
+  }
+
+  private static void writeCompactBytes(Buffer buffer, byte type, byte[] bytes) {
+    if (bytes.length > DEFLATE_THRESHOLD) {
+      final byte[] deflated = deflate(bytes);
+      if (deflated != null) {
+        buffer.appendByte((byte) (type | FLAG_DEFLATED));
+        appendVarint(buffer, bytes.length);
+        appendVarint(buffer, deflated.length);
+        buffer.appendBytes(deflated);
+        return;
+      }
+    }
+    buffer.appendByte(type);
+    appendVarint(buffer, bytes.length);
+    buffer.appendBytes(bytes);
+  }
+
+  /**
+   * @return the compressed bytes, or {@code null} if compression does not save space
+   */
+  private static byte[] deflate(byte[] bytes) {
+    final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+    try {
+      deflater.setInput(bytes);
+      deflater.finish();
+      // not worth it if it does not save at least 1/8
+      final byte[] out = new byte[bytes.length - (bytes.length >> 3)];
+      int len = 0;
+      while (!deflater.finished()) {
+        if (len == out.length) {
+          return null;
+        }
+        len += deflater.deflate(out, len, out.length - len);
+      }
+      return Arrays.copyOf(out, len);
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static byte[] inflate(Buffer buffer, int pos, int len, int rawLen) {
+    if (rawLen < 0 || rawLen > MAX_INFLATED_LENGTH) {
+      throw new IllegalStateException("Invalid compressed session value length: " + rawLen);
+    }
+    final Inflater inflater = new Inflater(true);
+    try {
+      inflater.setInput(buffer.getBytes(pos, pos + len));
+      final byte[] out = new byte[rawLen];
+      int read = 0;
+      while (read < rawLen) {
+        int n = inflater.inflate(out, read, rawLen - read);
+        if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+          throw new IllegalStateException("Truncated compressed session value");
+        }
+        read += n;
+      }
+      return out;
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("Invalid compressed session value", e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  /**
+   * Write a single session value, prefixed by its type.
+   *
+   * @param buffer the target buffer
+   * @param val    the value
+   */
+  protected void writeValueToBuffer(Buffer buffer, Object val) {
+    if (val instanceof Long) {
+      buffer.appendByte(TYPE_LONG).appendLong((long) val);
+    } else if (val instanceof Integer) {
+      buffer.appendByte(TYPE_INT).appendInt((int) val);
+    } else if (val instanceof Short) {
+      buffer.appendByte(TYPE_SHORT).appendShort((short) val);
+    } else if (val instanceof Byte) {
+      buffer.appendByte(TYPE_BYTE).appendByte((byte) val);
+    } else if (val instanceof Double) {
+      buffer.appendByte(TYPE_DOUBLE).appendDouble((double) val);
+    } else if (val instanceof Float) {
+      buffer.appendByte(TYPE_FLOAT).appendFloat((float) val);
+    } else if (val instanceof Character) {
+      buffer.appendByte(TYPE_CHAR).appendShort((short) ((Character) val).charValue());
+    } else if (val instanceof Boolean) {
+      buffer.appendByte(TYPE_BOOLEAN).appendByte((byte) ((boolean) val ? 1 : 0));
+    } else if (val instanceof String) {
+      byte[] bytes = ((String) val).getBytes(UTF8);
+      buffer.appendByte(TYPE_STRING).appendInt(bytes.length).appendBytes(bytes);
+    } else if (val instanceof Buffer) {
+      Buffer buff = (Buffer) val;
+      buffer.appendByte(TYPE_BUFFER).appendInt(buff.length()).appendBuffer(buff);
+    } else if (val instanceof byte[]) {
+      byte[] bytes = (byte[]) val;
+      buffer.appendByte(TYPE_BYTES).appendInt(bytes.length).appendBytes(bytes);
+    } else if (val instanceof ClusterSerializable) {
+      buffer.appendByte(TYPE_CLUSTER_SERIALIZABLE);
+      String className = val.getClass().getName();
+      byte[] classNameBytes = className.getBytes(UTF8);
+      buffer.appendInt(classNameBytes.length).appendBytes(classNameBytes);
+      ((ClusterSerializable) val).writeToBuffer(buffer);
+    } else {
+      if (val != null) {
+        throw new IllegalStateException("Invalid type for data in session: " + val.getClass());
       }
     }
   }
 
   protected int readDataFromBuffer(int pos, Buffer buffer) {
+    int entries = buffer.getInt(pos);
+    pos += 4;
+    if (entries == FORMAT_COMPACT) {
+      return readCompactDataFromBuffer(pos, buffer);
+    }
+    if (entries > 0) {
+      final Map<String, Object> data = new ConcurrentHashMap<>(entries);
+      // single element holder for the read position, shared with readValue
+      final int[] position = { pos };
+
+      for (int i = 0; i < entries; i++) {
+        int keylen = buffer.getInt(position[0]);
+        position[0] += 4;
+        byte[] keyBytes = buffer.getBytes(position[0], position[0] + keylen);
+        position[0] += keylen;
+        String key = new String(keyBytes, UTF8);
+        data.put(key, readValue(buffer, position));
+      }
+      setData(data);
+      pos = position[0];
+    }
+    return pos;
+  }
+
+  private int readCompactDataFromBuffer(int pos, Buffer buffer) {
+    // single element holder for the read position
+    final int[] position = { pos };
+    final int entries = readVarint(buffer, position);
+    if (entries > 0) {
+      final Map<String, Object> data = new ConcurrentHashMap<>(entries);
+      for (int i = 0; i < entries; i++) {
+        final int keyRef = readVarint(buffer, position);
+        final String key;
+        if ((keyRef & 1) == 1) {
+          key = KEYS[keyRef >>> 1];
+        } else {
+          key = readString(buffer, position, keyRef >>> 1);
+        }
+        data.put(key, readCompactValue(buffer, position));
+      }
+      setData(data);
+    }
+    return position[0];
+  }
+
+  private static Object readCompactValue(Buffer buffer, int[] position) {
     try {
-      int entries = buffer.getInt(pos);
-      pos += 4;
-      if (entries > 0) {
-        final Map<String, Object> data = new ConcurrentHashMap<>(entries);
+      final byte type = buffer.getByte(position[0]++);
+      switch (type & ~FLAG_DEFLATED) {
+        case TYPE_LONG:
+          return unzigzag(readVarlong(buffer, position));
+        case TYPE_INT:
+          return (int) unzigzag(readVarlong(buffer, position));
+        case TYPE_SHORT:
+          return (short) unzigzag(readVarlong(buffer, position));
+        case TYPE_BYTE:
+          return buffer.getByte(position[0]++);
+        case TYPE_FLOAT:
+          float f = buffer.getFloat(position[0]);
+          position[0] += 4;
+          return f;
+        case TYPE_DOUBLE:
+          double d = buffer.getDouble(position[0]);
+          position[0] += 8;
+          return d;
+        case TYPE_CHAR:
+          return (char) readVarint(buffer, position);
+        case TYPE_BOOLEAN:
+          return buffer.getByte(position[0]++) == 1;
+        case TYPE_STRING:
+          return new String(readCompactBytes(buffer, position, type), UTF8);
+        case TYPE_BUFFER:
+          return Buffer.buffer(readCompactBytes(buffer, position, type));
+        case TYPE_BYTES:
+          return readCompactBytes(buffer, position, type);
+        case TYPE_CLUSTER_SERIALIZABLE:
+          final int classRef = readVarint(buffer, position);
+          final String className;
+          if ((classRef & 1) == 1) {
+            className = CLASSES[classRef >>> 1];
+          } else {
+            className = readString(buffer, position, classRef >>> 1);
+          }
+          Class<?> clazz = Utils.getClassLoader().loadClass(className);
+          if (!ClusterSerializable.class.isAssignableFrom(clazz)) {
+            throw new ClassCastException(className + " is not assignable from ClusterSerializable");
+          }
+          ClusterSerializable obj = (ClusterSerializable) clazz.getDeclaredConstructor().newInstance();
+          position[0] = obj.readFromBuffer(position[0], buffer);
+          return obj;
+        default:
+          throw new IllegalStateException("Invalid serialized type: " + type);
+      }
+    } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException | InvocationTargetException | InstantiationException e) {
+      throw new VertxException(e);
+    }
+  }
+
+  private static byte[] readCompactBytes(Buffer buffer, int[] position, byte type) {
+    if ((type & FLAG_DEFLATED) != 0) {
+      final int rawLen = readVarint(buffer, position);
+      final int len = readVarint(buffer, position);
+      final byte[] bytes = inflate(buffer, position[0], len, rawLen);
+      position[0] += len;
+      return bytes;
+    }
+    final int len = readVarint(buffer, position);
+    final byte[] bytes = buffer.getBytes(position[0], position[0] + len);
+    position[0] += len;
+    return bytes;
+  }
+
+  private static String readString(Buffer buffer, int[] position, int len) {
+    final String s = buffer.getString(position[0], position[0] + len, "UTF-8");
+    position[0] += len;
+    return s;
+  }
+
+  private static void appendVarint(Buffer buffer, int value) {
+    appendVarlong(buffer, value & 0xFFFFFFFFL);
+  }
+
+  private static void appendVarlong(Buffer buffer, long value) {
+    while ((value & ~0x7FL) != 0) {
+      buffer.appendByte((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buffer.appendByte((byte) value);
+  }
+
+  private static int readVarint(Buffer buffer, int[] position) {
+    return (int) readVarlong(buffer, position);
+  }
+
+  private static long readVarlong(Buffer buffer, int[] position) {
+    long value = 0;
+    int shift = 0;
+    int pos = position[0];
+    byte b;
+    do {
+      if (shift > 63) {
+        throw new IllegalStateException("Malformed varint");
+      }
+      b = buffer.getByte(pos++);
+      value |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    position[0] = pos;
+    return value;
+  }
+
+  private static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static long unzigzag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
 
-        for (int i = 0; i < entries; i++) {
-          int keylen = buffer.getInt(pos);
+  private static Map<String, Integer> index(String[] table) {
+    final Map<String, Integer> index = new HashMap<>();
+    for (int i = 0; i < table.length; i++) {
+      index.put(table[i], i);
+    }
+    return index;
+  }
+
+  /**
+   * Read a single session value written by {@link #writeValueToBuffer(Buffer, Object)}.
+   *
+   * @param buffer a buffer holding just the value
+   * @return the value
+   */
+  protected Object readValueFromBuffer(Buffer buffer) {
+    return readValue(buffer, new int[] { 0 });
+  }
+
+  private Object readValue(Buffer buffer, int[] position) {
+    try {
+      int pos = position[0];
+      byte type = buffer.getByte(pos++);
+      Object val;
+      switch (type) {
+        case TYPE_LONG:
+          val = buffer.getLong(pos);
+          pos += 8;
+          break;
+        case TYPE_INT:
+          val = buffer.getInt(pos);
+          pos += 4;
+          break;
+        case TYPE_SHORT:
+          val = buffer.getShort(pos);
+          pos += 2;
+          break;
+        case TYPE_BYTE:
+          val = buffer.getByte(pos);
+          pos++;
+          break;
+        case TYPE_FLOAT:
+          val = buffer.getFloat(pos);
+          pos += 4;
+          break;
+        case TYPE_DOUBLE:
+          val = buffer.getDouble(pos);
+          pos += 8;
+          break;
+        case TYPE_CHAR:
+          short s = buffer.getShort(pos);
+          pos += 2;
+          val = (char) s;
+          break;
+        case TYPE_BOOLEAN:
+          byte b = buffer.getByte(pos);
+          pos++;
+          val = b == 1;
+          break;
+        case TYPE_STRING:
+          int len = buffer.getInt(pos);
+          pos += 4;
+          byte[] bytes = buffer.getBytes(pos, pos + len);
+          val = new String(bytes, UTF8);
+          pos += len;
+          break;
+        case TYPE_BUFFER:
+          len = buffer.getInt(pos);
           pos += 4;
-          byte[] keyBytes = buffer.getBytes(pos, pos + keylen);
-          pos += keylen;
-          String key = new String(keyBytes, UTF8);
-          byte type = buffer.getByte(pos++);
-          Object val;
-          switch (type) {
-            case TYPE_LONG:
-              val = buffer.getLong(pos);
-              pos += 8;
-              break;
-            case TYPE_INT:
-              val = buffer.getInt(pos);
-              pos += 4;
-              break;
-            case TYPE_SHORT:
-              val = buffer.getShort(pos);
-              pos += 2;
-              break;
-            case TYPE_BYTE:
-              val = buffer.getByte(pos);
-              pos++;
-              break;
-            case TYPE_FLOAT:
-              val = buffer.getFloat(pos);
-              pos += 4;
-              break;
-            case TYPE_DOUBLE:
-              val = buffer.getDouble(pos);
-              pos += 8;
-              break;
-            case TYPE_CHAR:
-              short s = buffer.getShort(pos);
-              pos += 2;
-              val = (char) s;
-              break;
-            case TYPE_BOOLEAN:
-              byte b = buffer.getByte(pos);
-              pos++;
-              val = b == 1;
-              break;
-            case TYPE_STRING:
-              int len = buffer.getInt(pos);
-              pos += 4;
-              byte[] bytes = buffer.getBytes(pos, pos + len);
-              val = new String(bytes, UTF8);
-              pos += len;
-              break;
-            case TYPE_BUFFER:
-              len = buffer.getInt(pos);
-              pos += 4;
-              bytes = buffer.getBytes(pos, pos + len);
-              val = Buffer.buffer(bytes);
-              pos += len;
-              break;
-            case TYPE_BYTES:
-              len = buffer.getInt(pos);
-              pos += 4;
-              val = buffer.getBytes(pos, pos + len);
-              pos += len;
-              break;
-            case TYPE_CLUSTER_SERIALIZABLE:
-              int classNameLen = buffer.getInt(pos);
-              pos += 4;
-              byte[] classNameBytes = buffer.getBytes(pos, pos + classNameLen);
-              pos += classNameLen;
-              String className = new String(classNameBytes, UTF8);
-              Class<?> clazz = Utils.getClassLoader().loadClass(className);
-              if (!ClusterSerializable.class.isAssignableFrom(clazz)) {
-                throw new ClassCastException(new String(classNameBytes, StandardCharsets.UTF_8) + " is not assignable from ClusterSerializable");
-              }
-              ClusterSerializable obj = (ClusterSerializable) clazz.getDeclaredConstructor().newInstance();
-              pos = obj.readFromBuffer(pos, buffer);
-              val = obj;
-              break;
-            default:
-              throw new IllegalStateException("Invalid serialized type: " + type);
+          bytes = buffer.getBytes(pos, pos + len);
+          val = Buffer.buffer(bytes);
+          pos += len;
+          break;
+        case TYPE_BYTES:
+          len = buffer.getInt(pos);
+          pos += 4;
+          val = buffer.getBytes(pos, pos + len);
+          pos += len;
+          break;
+        case TYPE_CLUSTER_SERIALIZABLE:
+          int classNameLen = buffer.getInt(pos);
+          pos += 4;
+          byte[] classNameBytes = buffer.getBytes(pos, pos + classNameLen);
+          pos += classNameLen;
+          String className = new String(classNameBytes, UTF8);
+          Class<?> clazz = Utils.getClassLoader().loadClass(className);
+          if (!ClusterSerializable.class.isAssignableFrom(clazz)) {
+            throw new ClassCastException(new String(classNameBytes, StandardCharsets.UTF_8) + " is not assignable from ClusterSerializable");
           }
-          data.put(key, val);
-        }
-        setData(data);
+          ClusterSerializable obj = (ClusterSerializable) clazz.getDeclaredConstructor().newInstance();
+          pos = obj.readFromBuffer(pos, buffer);
+          val = obj;
+          break;
+        default:
+          throw new IllegalStateException("Invalid serialized type: " + type);
       }
-      return pos;
+      position[0] = pos;
+      return val;
     } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException | InvocationTargetException | InstantiationException e) {
       throw new VertxException(e);
     }
@@ -40,6 +40,16 @@ public interface ClusteredSessionStore extends SessionStore {
    */
   long DEFAULT_RETRY_TIMEOUT = 5 * 1000; // 5 seconds
 
+  /**
+   * Default size of the node local session cache, disabled by default.
+   */
+  int DEFAULT_NEAR_CACHE_SIZE = 0;
+
+  /**
+   * Default of whether new sessions are announced on the event bus.
+   */
+  boolean DEFAULT_NOTIFY_STORED = false;
+
   /**
    * Create a session store
    *
@@ -105,4 +115,32 @@ public interface ClusteredSessionStore extends SessionStore {
       .put("mapName", DEFAULT_SESSION_MAP_NAME));
     return store;
   }
+
+  /**
+   * Create a session store from a JSON configuration. Besides {@code mapName} and {@code retryTimeout}, the store
+   * accepts:
+   *
+   * <ul>
+   *   <li>{@code nearCacheSize}: the number of recently used sessions each node keeps in memory</li>
+   *   <li>{@code notifyStored}: announce new sessions on the event bus, so a node that receives a request for a
+   *   session not visible yet is woken up once the session is stored instead of polling the cluster wide map</li>
+   * </ul>
+   *
+   * With the near cache, sessions are only read from the cluster wide map when the node does not hold them yet, which
+   * is the common case with sticky load balancing. Writes publish the new session version on the event bus so other
+   * nodes drop their stale copy. Writes are compare and set operations on the session read from the cluster wide map,
+   * a write based on a stale copy, or racing with a write from another node, fails as a version mismatch.
+   *
+   * @param vertx  the Vert.x instance
+   * @param options the store configuration
+   * @return the session store
+   */
+  static ClusteredSessionStore create(Vertx vertx, JsonObject options) {
+    ClusteredSessionStoreImpl store = new ClusteredSessionStoreImpl();
+    store.init(vertx, new JsonObject()
+      .put("retryTimeout", DEFAULT_RETRY_TIMEOUT)
+      .put("mapName", DEFAULT_SESSION_MAP_NAME)
+      .mergeIn(options));
+    return store;
+  }
 }
@@ -42,6 +42,16 @@ public interface LocalSessionStore extends SessionStore {
    */
   String DEFAULT_SESSION_MAP_NAME = "vertx-web.sessions";
 
+  /**
+   * Default max number of sessions, {@code 0} means unbounded
+   */
+  int DEFAULT_MAX_SESSIONS = 0;
+
+  /**
+   * Default max approximate size in bytes of all sessions, {@code 0} means unbounded
+   */
+  long DEFAULT_MAX_BYTES = 0;
+
   /**
    * Create a session store
    *
@@ -86,4 +96,41 @@ public interface LocalSessionStore extends SessionStore {
       .put("mapName", sessionMapName));
     return store;
   }
+
+  /**
+   * Create a session store from a JSON configuration. Besides {@code mapName} and {@code reaperInterval}, the store
+   * can be bounded with:
+   *
+   * <ul>
+   *   <li>{@code maxSessions}: the max number of sessions</li>
+   *   <li>{@code maxBytes}: the max approximate size of all sessions, as serialized by
+   *   {@link io.vertx.core.shareddata.ClusterSerializable#writeToBuffer}</li>
+   * </ul>
+   *
+   * When the store is full, least recently used anonymous sessions are evicted first. Authenticated sessions are only
+   * evicted in favor of other authenticated sessions, new anonymous sessions are rejected instead. The limits are
+   * shared by all the stores using the same map name, the first store created defines them.
+   *
+   * @param vertx  the Vert.x instance
+   * @param options the store configuration
+   * @return the session store
+   */
+  static LocalSessionStore create(Vertx vertx, JsonObject options) {
+    LocalSessionStoreImpl store = new LocalSessionStoreImpl();
+    store.init(vertx, new JsonObject()
+      .put("reaperInterval", DEFAULT_REAPER_INTERVAL)
+      .put("mapName", DEFAULT_SESSION_MAP_NAME)
+      .mergeIn(options));
+    return store;
+  }
+
+  /**
+   * @return the number of sessions evicted because the store reached its capacity
+   */
+  long evictions();
+
+  /**
+   * @return the number of sessions rejected because the store reached its capacity
+   */
+  long rejections();
 }
@@ -147,6 +147,42 @@ public interface SessionStore {
    */
   Future<Void> put(Session session);
 
+  /**
+   * Extend the expiration of a session whose data has not changed. Stores should override this with a cheaper
+   * operation than reading and writing the whole session again, which is what the default implementation does.
+   *
+   * @param id  the session id
+   * @param timeout  the session timeout, in ms
+   * @return future that will be called with a result, or a failure
+   */
+  default Future<Void> touch(String id, long timeout) {
+    return get(id)
+      .compose(session -> {
+        if (session == null) {
+          return Future.succeededFuture();
+        }
+        session.setAccessed();
+        return put(session);
+      });
+  }
+
+  /**
+   * Wait for a session to be stored. When a session is not found, the session handler waits up to the
+   * {@link #retryTimeout()} for it, since distributed stores may take some time to make a new session visible on all
+   * nodes.
+   * <p>
+   * Stores able to signal when a session is stored should override this, implementations must also complete when the
+   * session is already stored at the time of the call. The default implementation fails with an
+   * {@link UnsupportedOperationException}, in which case the session handler polls the store instead.
+   *
+   * @param id  the session id
+   * @param timeout  how long to wait, in ms
+   * @return future completed with {@code true} once the session is stored, {@code false} when the timeout elapses
+   */
+  default Future<Boolean> awaitStored(String id, long timeout) {
+    return Future.failedFuture(new UnsupportedOperationException());
+  }
+
   /**
    * Remove all sessions from the store.
    *
@@ -14,21 +14,32 @@
  *  You may elect to redistribute this code under either of these licenses.
  */
 
+
 package io.vertx.ext.web.sstore.impl;
 
 import io.vertx.codegen.annotations.Nullable;
 import io.vertx.core.Future;
+import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.MessageConsumer;
 import io.vertx.core.internal.ContextInternal;
 import io.vertx.core.internal.VertxInternal;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.shareddata.AsyncMap;
+import io.vertx.core.shareddata.ClusterSerializable;
+import io.vertx.core.shareddata.LocalMap;
 import io.vertx.ext.auth.prng.VertxContextPRNG;
 import io.vertx.ext.web.Session;
 import io.vertx.ext.web.sstore.AbstractSession;
 import io.vertx.ext.web.sstore.ClusteredSessionStore;
 import io.vertx.ext.web.sstore.SessionStore;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * @author <a href="http://tfox.org">Tim Fox</a>
  */
@@ -53,6 +64,16 @@ public class ClusteredSessionStoreImpl implements SessionStore, ClusteredSession
   // Clustered Map
   private volatile AsyncMap<String, Session> sessionMap;
 
+  // Node local copies of the recently used sessions
+  private SessionNearCache nearCache;
+  private String invalidationAddress;
+  private MessageConsumer<JsonObject> invalidations;
+
+  // Requests waiting for a session to be stored by any node
+  private String storedAddress;
+  private MessageConsumer<String> storedNotifications;
+  private final Map<String, List<Promise<Boolean>>> waiters = new HashMap<>();
+
   @Override
   public SessionStore init(Vertx vertx, JsonObject options) {
     this.vertx = (VertxInternal) vertx;
@@ -60,6 +81,22 @@ public class ClusteredSessionStoreImpl implements SessionStore, ClusteredSession
     this.retryTimeout = options.getLong("retryTimeout", DEFAULT_RETRY_TIMEOUT);
     this.random = VertxContextPRNG.current(vertx);
 
+    final int nearCacheSize = options.getInteger("nearCacheSize", DEFAULT_NEAR_CACHE_SIZE);
+    if (nearCacheSize > 0) {
+      // the cache is shared by all the stores of this node using the same map
+      final LocalMap<String, SessionNearCache> caches = vertx.sharedData().getLocalMap(sessionMapName + ".near");
+      final SessionNearCache cache = new SessionNearCache(nearCacheSize);
+      final SessionNearCache existing = caches.putIfAbsent(sessionMapName, cache);
+      nearCache = existing != null ? existing : cache;
+      invalidationAddress = sessionMapName + ".invalidations";
+      invalidations = vertx.eventBus().consumer(invalidationAddress, message -> nearCache.invalidate(message.body()));
+    }
+
+    if (options.getBoolean("notifyStored", DEFAULT_NOTIFY_STORED)) {
+      storedAddress = sessionMapName + ".stored";
+      storedNotifications = vertx.eventBus().consumer(storedAddress, message -> wakeUp(message.body()));
+    }
+
     return this;
   }
 
@@ -80,12 +117,27 @@ public class ClusteredSessionStoreImpl implements SessionStore, ClusteredSession
 
   @Override
   public Future<@Nullable Session> get(String id) {
+    if (nearCache != null) {
+      final SessionNearCache.Entry entry = nearCache.get(id);
+      if (entry != null) {
+        final SharedDataSessionImpl session = decode(entry.data());
+        if (System.currentTimeMillis() - session.lastAccessed() <= session.timeout()) {
+          return vertx.getOrCreateContext().succeededFuture(session);
+        }
+        // the session may still be alive if it was accessed on another node
+        nearCache.remove(id);
+      }
+    }
+
     return getMap()
       .compose(map ->
         map.get(id)
           .onSuccess(session -> {
             if (session != null) {
               ((AbstractSession) session).setPRNG(random);
+              if (nearCache != null) {
+                nearCache.put(id, ((AbstractSession) session).version(), encode(session));
+              }
             }
           }));
   }
@@ -94,39 +146,134 @@ public class ClusteredSessionStoreImpl implements SessionStore, ClusteredSession
   public Future<Void> delete(String id) {
     return getMap()
       .compose(map -> map.remove(id))
+      .onSuccess(old -> invalidate(id, SessionNearCache.ANY_VERSION))
       .mapEmpty();
   }
 
   @Override
   public Future<Void> put(Session session) {
     final ContextInternal ctx = vertx.getOrCreateContext();
+    final AbstractSession newSession = (AbstractSession) session;
+    final int expectedVersion = newSession.version();
+
     return getMap()
       .compose(map ->
-        // we need to take care of the transactionality of session data
         map.get(session.id())
           .compose(old -> {
-            final AbstractSession oldSession = (AbstractSession) old;
-            final AbstractSession newSession = (AbstractSession) session;
+            final Future<Boolean> stored;
 
-            if (oldSession != null) {
+            if (old == null) {
+              newSession.incrementVersion();
+              stored = map.putIfAbsent(session.id(), session, session.timeout())
+                .map(existing -> existing == null)
+                .onSuccess(created -> {
+                  if (created && storedAddress != null) {
+                    vertx.eventBus().publish(storedAddress, session.id());
+                  }
+                });
+            } else {
               // there was already some stored data in this case we need to validate versions
-              if (oldSession.version() != newSession.version()) {
-                return ctx.failedFuture("Session version mismatch");
+              if (((AbstractSession) old).version() != expectedVersion) {
+                return versionMismatch(ctx, session.id());
               }
+              newSession.incrementVersion();
+              // compare and set on the session as read, so a write by another node since then is not overwritten
+              stored = map.replaceIfPresent(session.id(), old, session, session.timeout())
+                .recover(err -> {
+                  if (err instanceof UnsupportedOperationException) {
+                    // the cluster manager cannot replace with a ttl, the entry keeps the ttl of the previous write
+                    return map.replaceIfPresent(session.id(), old, session);
+                  }
+                  return Future.failedFuture(err);
+                });
             }
 
-            // we can now safely store the new version
-            newSession.incrementVersion();
-
-            return map.put(session.id(), session, session.timeout());
+            return stored
+              .compose(ok -> {
+                if (!ok) {
+                  return versionMismatch(ctx, session.id());
+                }
+                if (nearCache != null) {
+                  nearCache.put(session.id(), newSession.version(), encode(session));
+                  invalidate(session.id(), newSession.version());
+                }
+                return ctx.succeededFuture();
+              });
           })
       );
   }
 
+  @Override
+  public Future<Void> touch(String id, long timeout) {
+    return getMap()
+      .compose(map ->
+        map.get(id)
+          .compose(old -> {
+            if (old == null) {
+              return Future.succeededFuture();
+            }
+            // the stored value must not be modified, local maps hold the object itself
+            final SharedDataSessionImpl touched = decode(encode(old));
+            touched.setAccessed();
+            // if the session was concurrently updated, that write already renewed the ttl
+            return map.replaceIfPresent(id, old, touched, timeout)
+              .onSuccess(replaced -> {
+                if (replaced && nearCache != null) {
+                  nearCache.put(id, touched.version(), encode(touched));
+                  invalidate(id, touched.version());
+                }
+              })
+              .<Void>mapEmpty();
+          })
+          .recover(err -> {
+            if (err instanceof UnsupportedOperationException) {
+              // the cluster manager cannot replace with a ttl, touch with a versioned put
+              return ClusteredSessionStore.super.touch(id, timeout);
+            }
+            return Future.failedFuture(err);
+          }));
+  }
+
+  @Override
+  public Future<Boolean> awaitStored(String id, long timeout) {
+    if (storedAddress == null) {
+      return ClusteredSessionStore.super.awaitStored(id, timeout);
+    }
+
+    final Promise<Boolean> promise = vertx.getOrCreateContext().promise();
+    synchronized (waiters) {
+      waiters.computeIfAbsent(id, k -> new ArrayList<>()).add(promise);
+    }
+    final long timerId = vertx.setTimer(timeout, t -> promise.tryComplete(false));
+    // the session may have been stored before the waiter was registered
+    getMap()
+      .compose(map -> map.get(id))
+      .onSuccess(session -> {
+        if (session != null) {
+          promise.tryComplete(true);
+        }
+      });
+
+    return promise.future()
+      .onComplete(ar -> {
+        vertx.cancelTimer(timerId);
+        synchronized (waiters) {
+          final List<Promise<Boolean>> list = waiters.get(id);
+          if (list != null) {
+            list.remove(promise);
+            if (list.isEmpty()) {
+              waiters.remove(id);
+            }
+          }
+        }
+      });
+  }
+
   @Override
   public Future<Void> clear() {
     return getMap()
-      .compose(AsyncMap::clear);
+      .compose(AsyncMap::clear)
+      .onSuccess(v -> invalidate(null, SessionNearCache.ANY_VERSION));
   }
 
   @Override
@@ -137,6 +284,55 @@ public class ClusteredSessionStoreImpl implements SessionStore, ClusteredSession
 
   @Override
   public void close() {
+    if (invalidations != null) {
+      invalidations.unregister();
+    }
+    if (storedNotifications != null) {
+      storedNotifications.unregister();
+    }
+  }
+
+  private void wakeUp(String id) {
+    final List<Promise<Boolean>> list;
+    synchronized (waiters) {
+      list = waiters.remove(id);
+    }
+    if (list != null) {
+      for (Promise<Boolean> promise : list) {
+        promise.tryComplete(true);
+      }
+    }
+  }
+
+  private Future<Void> versionMismatch(ContextInternal ctx, String id) {
+    if (nearCache != null) {
+      // the cached copy is stale
+      nearCache.remove(id);
+    }
+    return ctx.failedFuture("Session version mismatch");
+  }
+
+  private void invalidate(String id, int version) {
+    if (nearCache != null) {
+      if (id == null) {
+        nearCache.clear();
+      } else if (version == SessionNearCache.ANY_VERSION) {
+        nearCache.remove(id);
+      }
+      vertx.eventBus().publish(invalidationAddress, nearCache.invalidation(id, version));
+    }
+  }
+
+  private static Buffer encode(Session session) {
+    final Buffer buffer = Buffer.buffer();
+    ((ClusterSerializable) session).writeToBuffer(buffer);
+    return buffer;
+  }
+
+  private SharedDataSessionImpl decode(Buffer buffer) {
+    final SharedDataSessionImpl session = new SharedDataSessionImpl(random);
+    session.readFromBuffer(0, buffer);
+    return session;
   }
 
   private Future<AsyncMap<String, Session>> getMap() {
@@ -20,18 +20,20 @@ import io.vertx.codegen.annotations.Nullable;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.internal.ContextInternal;
 import io.vertx.core.internal.VertxInternal;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.ClusterSerializable;
 import io.vertx.core.shareddata.LocalMap;
 import io.vertx.ext.auth.prng.VertxContextPRNG;
 import io.vertx.ext.web.Session;
+import io.vertx.ext.web.handler.impl.SessionHandlerImpl;
 import io.vertx.ext.web.sstore.AbstractSession;
 import io.vertx.ext.web.sstore.LocalSessionStore;
 import io.vertx.ext.web.sstore.SessionStore;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.List;
 
 /**
  * @author <a href="http://tfox.org">Tim Fox</a>
@@ -50,6 +52,8 @@ public class LocalSessionStoreImpl implements SessionStore, LocalSessionStore, H
 
 
   private LocalMap<String, Session> localMap;
+  private SessionExpiryIndex expiryIndex;
+  private SessionEvictionPolicy evictionPolicy;
   private long reaperInterval;
   private VertxContextPRNG random;
 
@@ -74,7 +78,24 @@ public class LocalSessionStoreImpl implements SessionStore, LocalSessionStore, H
     this.random = VertxContextPRNG.current(vertx);
     this.vertx = (VertxInternal) vertx;
     this.reaperInterval = options.getLong("reaperInterval", DEFAULT_REAPER_INTERVAL);
-    localMap = vertx.sharedData().getLocalMap(options.getString("mapName", DEFAULT_SESSION_MAP_NAME));
+    final String mapName = options.getString("mapName", DEFAULT_SESSION_MAP_NAME);
+    localMap = vertx.sharedData().getLocalMap(mapName);
+    if (reaperInterval != 0) {
+      // the index is shared by all the stores using the same map, so any of them can reap the sessions
+      final LocalMap<String, SessionExpiryIndex> indexes = vertx.sharedData().getLocalMap(mapName + ".expiry");
+      final SessionExpiryIndex index = new SessionExpiryIndex(reaperInterval);
+      final SessionExpiryIndex existing = indexes.putIfAbsent(mapName, index);
+      expiryIndex = existing != null ? existing : index;
+    }
+    final int maxSessions = options.getInteger("maxSessions", DEFAULT_MAX_SESSIONS);
+    final long maxBytes = options.getLong("maxBytes", DEFAULT_MAX_BYTES);
+    if (maxSessions > 0 || maxBytes > 0) {
+      // like the expiry index, the capacity is shared by all the stores using the same map
+      final LocalMap<String, SessionEvictionPolicy> policies = vertx.sharedData().getLocalMap(mapName + ".eviction");
+      final SessionEvictionPolicy policy = new SessionEvictionPolicy(maxSessions, maxBytes);
+      final SessionEvictionPolicy existing = policies.putIfAbsent(mapName, policy);
+      evictionPolicy = existing != null ? existing : policy;
+    }
     setTimer();
 
     return this;
@@ -88,13 +109,23 @@ public class LocalSessionStoreImpl implements SessionStore, LocalSessionStore, H
   @Override
   public Future<@Nullable Session> get(String id) {
     final ContextInternal ctx = vertx.getOrCreateContext();
-    return ctx.succeededFuture(localMap.get(id));
+    final Session session = localMap.get(id);
+    if (session != null && evictionPolicy != null) {
+      evictionPolicy.touch(id);
+    }
+    return ctx.succeededFuture(session);
   }
 
   @Override
   public Future<Void> delete(String id) {
     final ContextInternal ctx = vertx.getOrCreateContext();
     localMap.remove(id);
+    if (expiryIndex != null) {
+      expiryIndex.remove(id);
+    }
+    if (evictionPolicy != null) {
+      evictionPolicy.remove(id);
+    }
     return ctx.succeededFuture();
   }
 
@@ -111,8 +142,41 @@ public class LocalSessionStoreImpl implements SessionStore, LocalSessionStore, H
       }
     }
 
+    if (evictionPolicy != null) {
+      final List<String> evicted = evictionPolicy.admit(session.id(), isAuthenticated(newSession), sizeOf(newSession));
+      if (evicted == null) {
+        return ctx.failedFuture("Session store is full");
+      }
+      for (String id : evicted) {
+        localMap.remove(id);
+        if (expiryIndex != null) {
+          expiryIndex.remove(id);
+        }
+      }
+    }
+
     newSession.incrementVersion();
     localMap.put(session.id(), session);
+    if (expiryIndex != null) {
+      expiryIndex.schedule(session.id(), session.lastAccessed() + session.timeout());
+    }
+    return ctx.succeededFuture();
+  }
+
+  @Override
+  public Future<Void> touch(String id, long timeout) {
+    final ContextInternal ctx = vertx.getOrCreateContext();
+    final Session session = localMap.get(id);
+    if (session != null) {
+      // the map holds the session object itself, there is nothing to write back
+      session.setAccessed();
+      if (expiryIndex != null) {
+        expiryIndex.schedule(id, session.lastAccessed() + timeout);
+      }
+      if (evictionPolicy != null) {
+        evictionPolicy.touch(id);
+      }
+    }
     return ctx.succeededFuture();
   }
 
@@ -120,6 +184,12 @@ public class LocalSessionStoreImpl implements SessionStore, LocalSessionStore, H
   public Future<Void> clear() {
     final ContextInternal ctx = vertx.getOrCreateContext();
     localMap.clear();
+    if (expiryIndex != null) {
+      expiryIndex.clear();
+    }
+    if (evictionPolicy != null) {
+      evictionPolicy.clear();
+    }
     return ctx.succeededFuture();
   }
 
@@ -142,22 +212,49 @@ public class LocalSessionStoreImpl implements SessionStore, LocalSessionStore, H
   public synchronized void handle(Long tid) {
     long now = System.currentTimeMillis();
 
-    Set<String> toRemove = new HashSet<>();
-
-    localMap.forEach((String id, Session session) -> {
+    // only the sessions scheduled to expire until now are visited
+    for (String id : expiryIndex.collect(now)) {
+      Session session = localMap.get(id);
+      if (session == null) {
+        continue;
+      }
       if (now - session.lastAccessed() > session.timeout()) {
-        toRemove.add(id);
+        if (localMap.removeIfPresent(id, session) && evictionPolicy != null) {
+          evictionPolicy.remove(id);
+        }
+      } else {
+        // the session was accessed after being scheduled
+        expiryIndex.schedule(id, session.lastAccessed() + session.timeout());
       }
-    });
-
-    for (String id: toRemove) {
-      localMap.remove(id);
     }
     if (!closed) {
       setTimer();
     }
   }
 
+  @Override
+  public long evictions() {
+    return evictionPolicy == null ? 0L : evictionPolicy.evictions();
+  }
+
+  @Override
+  public long rejections() {
+    return evictionPolicy == null ? 0L : evictionPolicy.rejections();
+  }
+
+  private static boolean isAuthenticated(AbstractSession session) {
+    return session.get(SessionHandlerImpl.SESSION_USER_HOLDER_KEY) != null;
+  }
+
+  private long sizeOf(AbstractSession session) {
+    if (!evictionPolicy.accountsBytes() || !(session instanceof ClusterSerializable)) {
+      return 0L;
+    }
+    final Buffer buffer = Buffer.buffer();
+    ((ClusterSerializable) session).writeToBuffer(buffer);
+    return buffer.length();
+  }
+
   private void setTimer() {
     if (reaperInterval != 0) {
       timerID = vertx.setTimer(reaperInterval, this);
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.sstore.impl;
+
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Capacity bookkeeping for a bounded local session store.
+ * <p>
+ * Sessions are kept in two LRU segments, anonymous and authenticated. When the store is full, the least recently used
+ * anonymous session is evicted first, authenticated sessions are only evicted to admit another authenticated session.
+ * An anonymous session that would require evicting an authenticated session is rejected instead, so clients that
+ * ignore cookies cannot push logged-in users out of the store.
+ *
+ * @author <a href="mailto:plopes@redhat.com">Paulo Lopes</a>
+ */
+public class SessionEvictionPolicy implements Shareable {
+
+  private final int maxSessions;
+  private final long maxBytes;
+
+  // access ordered, the eldest entry is the least recently used
+  private final LinkedHashMap<String, Long> anonymous = new LinkedHashMap<>(16, 0.75f, true);
+  private final LinkedHashMap<String, Long> authenticated = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long bytes;
+  private long evictions;
+  private long rejections;
+
+  /**
+   * @param maxSessions the max number of sessions, {@code 0} for unbounded
+   * @param maxBytes    the max approximate serialized size of all sessions, {@code 0} for unbounded
+   */
+  public SessionEvictionPolicy(int maxSessions, long maxBytes) {
+    if (maxSessions < 0) {
+      throw new IllegalArgumentException("maxSessions must be >= 0");
+    }
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("maxBytes must be >= 0");
+    }
+    this.maxSessions = maxSessions;
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * @return whether the serialized size of the sessions must be accounted
+   */
+  public boolean accountsBytes() {
+    return maxBytes > 0;
+  }
+
+  /**
+   * Admit a session, evicting others if needed.
+   *
+   * @param id            the session id
+   * @param authenticated whether the session holds a user
+   * @param size          the approximate serialized size of the session
+   * @return the ids of the evicted sessions, or {@code null} if the session was rejected
+   */
+  public synchronized List<String> admit(String id, boolean authenticated, long size) {
+    LinkedHashMap<String, Long> previousSegment = anonymous;
+    Long previous = anonymous.remove(id);
+    if (previous == null) {
+      previousSegment = this.authenticated;
+      previous = this.authenticated.remove(id);
+    }
+    if (previous != null) {
+      bytes -= previous;
+    }
+
+    if (maxBytes > 0 && size > maxBytes) {
+      // would never fit, don't evict anything for it
+      if (previous != null) {
+        previousSegment.put(id, previous);
+        bytes += previous;
+      }
+      rejections++;
+      return null;
+    }
+
+    List<String> victims = null;
+    while (exceeds(anonymous.size() + this.authenticated.size() + 1, bytes + size)) {
+      LinkedHashMap<String, Long> segment = !anonymous.isEmpty() ? anonymous : (authenticated ? this.authenticated : null);
+      if (segment == null || segment.isEmpty()) {
+        // nothing can be evicted in favor of this session, keep the previous state
+        if (previous != null) {
+          previousSegment.put(id, previous);
+          bytes += previous;
+        }
+        rejections++;
+        return null;
+      }
+      final Iterator<Map.Entry<String, Long>> eldest = segment.entrySet().iterator();
+      final Map.Entry<String, Long> victim = eldest.next();
+      eldest.remove();
+      bytes -= victim.getValue();
+      evictions++;
+      if (victims == null) {
+        victims = new ArrayList<>();
+      }
+      victims.add(victim.getKey());
+    }
+
+    (authenticated ? this.authenticated : anonymous).put(id, size);
+    bytes += size;
+    return victims == null ? List.of() : victims;
+  }
+
+  /**
+   * Mark a session as recently used.
+   */
+  public synchronized void touch(String id) {
+    if (anonymous.get(id) == null) {
+      authenticated.get(id);
+    }
+  }
+
+  public synchronized void remove(String id) {
+    Long size = anonymous.remove(id);
+    if (size == null) {
+      size = authenticated.remove(id);
+    }
+    if (size != null) {
+      bytes -= size;
+    }
+  }
+
+  public synchronized void clear() {
+    anonymous.clear();
+    authenticated.clear();
+    bytes = 0;
+  }
+
+  public synchronized long evictions() {
+    return evictions;
+  }
+
+  public synchronized long rejections() {
+    return rejections;
+  }
+
+  public synchronized long bytes() {
+    return bytes;
+  }
+
+  private boolean exceeds(int sessions, long bytes) {
+    return (maxSessions > 0 && sessions > maxSessions) || (maxBytes > 0 && bytes > maxBytes);
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.sstore.impl;
+
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Session ids ordered by expiration time. Ids are grouped in buckets of {@code resolution} ms, so collecting the
+ * expired ids only touches the buckets that are due instead of every stored session.
+ * <p>
+ * A bucket is only a hint: sessions can be accessed after being scheduled, so callers must verify that a collected
+ * session has really expired and schedule it again otherwise.
+ *
+ * @author <a href="mailto:plopes@redhat.com">Paulo Lopes</a>
+ */
+public class SessionExpiryIndex implements Shareable {
+
+  private final long resolution;
+  private final NavigableMap<Long, Set<String>> buckets = new TreeMap<>();
+  private final Map<String, Long> slots = new HashMap<>();
+
+  public SessionExpiryIndex(long resolution) {
+    if (resolution < 1) {
+      throw new IllegalArgumentException("resolution must be >= 1");
+    }
+    this.resolution = resolution;
+  }
+
+  /**
+   * Schedule (or re-schedule) a session id to expire at the given deadline.
+   *
+   * @param id       the session id
+   * @param deadline the time in ms after which the session is expired
+   */
+  public synchronized void schedule(String id, long deadline) {
+    // round up, a session must never be collected before its deadline
+    final long slot = Math.floorDiv(deadline, resolution) + 1;
+    final Long previous = slots.put(id, slot);
+    if (previous != null) {
+      if (previous == slot) {
+        return;
+      }
+      removeFromBucket(previous, id);
+    }
+    buckets.computeIfAbsent(slot, k -> new HashSet<>()).add(id);
+  }
+
+  /**
+   * Remove a session id from the index.
+   *
+   * @param id the session id
+   */
+  public synchronized void remove(String id) {
+    final Long slot = slots.remove(id);
+    if (slot != null) {
+      removeFromBucket(slot, id);
+    }
+  }
+
+  /**
+   * Remove and return all the session ids with a deadline before {@code now}.
+   *
+   * @param now the current time in ms
+   * @return the candidate ids
+   */
+  public synchronized List<String> collect(long now) {
+    final NavigableMap<Long, Set<String>> due = buckets.headMap(Math.floorDiv(now, resolution), true);
+    if (due.isEmpty()) {
+      return List.of();
+    }
+    final List<String> ids = new ArrayList<>();
+    for (Set<String> bucket : due.values()) {
+      for (String id : bucket) {
+        slots.remove(id);
+        ids.add(id);
+      }
+    }
+    due.clear();
+    return ids;
+  }
+
+  public synchronized void clear() {
+    buckets.clear();
+    slots.clear();
+  }
+
+  public synchronized int size() {
+    return slots.size();
+  }
+
+  private void removeFromBucket(long slot, String id) {
+    final Set<String> bucket = buckets.get(slot);
+    if (bucket != null) {
+      bucket.remove(id);
+      if (bucket.isEmpty()) {
+        buckets.remove(slot);
+      }
+    }
+  }
+}
@@ -28,4 +28,13 @@ public interface SessionInternal {
    *                which is unnecessary.
    */
   void flushed(boolean skipCrc);
+
+  /**
+   * Check if the session data differs from the data last loaded from or written to the store.
+   *
+   * @return {@code true} if the session must be written to the store.
+   */
+  default boolean isModified() {
+    return true;
+  }
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.sstore.impl;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A bounded, node local cache of the sessions recently read from or written to a cluster wide map.
+ * <p>
+ * Sessions are kept serialized so each lookup returns a private copy. Nodes publish an invalidation message for each
+ * session they write, the other nodes drop their copy unless they already hold a newer version.
+ *
+ * @author <a href="mailto:plopes@redhat.com">Paulo Lopes</a>
+ */
+public class SessionNearCache implements Shareable {
+
+  /**
+   * The version used to invalidate a session whatever its cached version
+   */
+  public static final int ANY_VERSION = Integer.MAX_VALUE;
+
+  private final String node = UUID.randomUUID().toString();
+  private final LinkedHashMap<String, Entry> entries;
+
+  public SessionNearCache(int maxSize) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("maxSize must be >= 1");
+    }
+    // access ordered, the eldest entry is the least recently used
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  /**
+   * @return the serialized session, or {@code null} if not cached
+   */
+  public synchronized Entry get(String id) {
+    return entries.get(id);
+  }
+
+  public synchronized void put(String id, int version, Buffer data) {
+    entries.put(id, new Entry(version, data));
+  }
+
+  public synchronized void remove(String id) {
+    entries.remove(id);
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  /**
+   * Create the message announcing that a session was written (or removed when {@code version} is
+   * {@link #ANY_VERSION}) by this node. A {@code null} id means the whole store was cleared.
+   */
+  public JsonObject invalidation(String id, int version) {
+    return new JsonObject()
+      .put("node", node)
+      .put("id", id)
+      .put("version", version);
+  }
+
+  /**
+   * Apply an invalidation message published by any node.
+   */
+  public synchronized void invalidate(JsonObject message) {
+    if (node.equals(message.getString("node"))) {
+      // this node already updated the cache
+      return;
+    }
+    final String id = message.getString("id");
+    if (id == null) {
+      entries.clear();
+      return;
+    }
+    final Entry entry = entries.get(id);
+    if (entry != null && entry.version <= message.getInteger("version", ANY_VERSION)) {
+      entries.remove(id);
+    }
+  }
+
+  public static final class Entry {
+
+    private final int version;
+    private final Buffer data;
+
+    private Entry(int version, Buffer data) {
+      this.version = version;
+      this.data = data;
+    }
+
+    public int version() {
+      return version;
+    }
+
+    public Buffer data() {
+      return data;
+    }
+  }
+}
@@ -74,5 +74,27 @@ public class SharedDataSessionImpl extends AbstractSession implements ClusterSer
     pos = readDataFromBuffer(pos, buffer);
     return pos;
   }
+
+  /**
+   * Two instances are equal when they hold the same version of the same session, so the compare and set operations
+   * of the cluster managers comparing values with equals (rather than their encoding) behave as an optimistic lock on
+   * the session version.
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    final SharedDataSessionImpl other = (SharedDataSessionImpl) o;
+    return version() == other.version() && id() != null && id().equals(other.id());
+  }
+
+  @Override
+  public int hashCode() {
+    return id() == null ? 0 : id().hashCode();
+  }
 }
 
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.it;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.auth.prng.VertxContextPRNG;
+import io.vertx.ext.web.sstore.impl.SharedDataSessionImpl;
+import io.vertx.test.core.TestUtils;
+import io.vertx.test.core.VertxTestBase;
+import org.junit.Test;
+
+/**
+ * Runs with {@code io.vertx.web.session.compact-format=true}.
+ *
+ * @author <a href="mailto:pmlopes@gmail.com">Paulo Lopes</a>
+ */
+public class SessionCompactFormatTest extends VertxTestBase {
+
+  @Test
+  public void testCompactFormat() {
+    VertxContextPRNG prng = VertxContextPRNG.current(vertx);
+    SharedDataSessionImpl session = new SharedDataSessionImpl(prng, 123, 32);
+    session.put("X-XSRF-TOKEN", "token");
+    session.put("num", -42);
+    Buffer buffer = Buffer.buffer();
+    session.writeToBuffer(buffer);
+    // the data section starts with the compact format marker
+    int pos = 4 + buffer.getInt(0) + 8 + 8 + 4;
+    assertEquals(-1, buffer.getInt(pos));
+    SharedDataSessionImpl session2 = new SharedDataSessionImpl(prng);
+    session2.readFromBuffer(0, buffer);
+    assertEquals("token", session2.get("X-XSRF-TOKEN"));
+    assertEquals(-42, (int) session2.get("num"));
+  }
+
+  @Test
+  public void testCompactFormatLargeValue() {
+    VertxContextPRNG prng = VertxContextPRNG.current(vertx);
+    SharedDataSessionImpl session = new SharedDataSessionImpl(prng, 123, 32);
+    String large = TestUtils.randomAlphaString(10).repeat(1000);
+    session.put("large", large);
+    Buffer buffer = Buffer.buffer();
+    session.writeToBuffer(buffer);
+    // repetitive values are compressed
+    assertTrue(buffer.length() < large.length());
+    SharedDataSessionImpl session2 = new SharedDataSessionImpl(prng);
+    session2.readFromBuffer(0, buffer);
+    assertEquals(large, session2.get("large"));
+  }
+}
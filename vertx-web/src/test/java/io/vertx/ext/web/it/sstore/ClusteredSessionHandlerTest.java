@@ -16,6 +16,7 @@
 
 package io.vertx.ext.web.it.sstore;
 
+import io.vertx.core.Future;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.*;
 import io.vertx.core.json.JsonObject;
@@ -27,12 +28,14 @@ import io.vertx.ext.web.handler.SessionHandler;
 import io.vertx.ext.web.sstore.ClusteredSessionStore;
 import io.vertx.ext.web.sstore.SessionStore;
 import io.vertx.ext.web.tests.handler.SessionHandlerTestBase;
+import io.vertx.ext.web.sstore.impl.ClusteredSessionStoreImpl;
 import io.vertx.ext.web.sstore.impl.SharedDataSessionImpl;
 import io.vertx.test.core.TestUtils;
 import io.vertx.test.fakecluster.FakeClusterManager;
 import org.junit.Test;
 
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -183,6 +186,213 @@ public class ClusteredSessionHandlerTest extends SessionHandlerTestBase {
     assertEquals(session.id(), session2.id());
   }
 
+  @Test
+  public void testSessionSerializationLegacyFormat() {
+    // [idLen][id][timeout][lastAccessed][version][entries] ([keyLen][key][type][value])*
+    Buffer buffer = Buffer.buffer()
+      .appendInt(3).appendString("abc")
+      .appendLong(123).appendLong(456).appendInt(7)
+      .appendInt(2)
+      .appendInt(3).appendString("foo").appendByte((byte) 9).appendInt(3).appendString("bar")
+      .appendInt(3).appendString("num").appendByte((byte) 2).appendInt(-42);
+    SharedDataSessionImpl session = (SharedDataSessionImpl) store.createSession(0);
+    session.readFromBuffer(0, buffer);
+    assertEquals("abc", session.id());
+    assertEquals(123, session.timeout());
+    assertEquals(456, session.lastAccessed());
+    assertEquals(7, session.version());
+    assertEquals("bar", session.get("foo"));
+    assertEquals(-42, (int) session.get("num"));
+  }
+
+  @Test
+  public void testSessionSerializationLargeValue() {
+    SharedDataSessionImpl session = (SharedDataSessionImpl) store.createSession(123);
+    String large = TestUtils.randomAlphaString(10).repeat(1000);
+    session.put("large", large);
+    session.put("long", Long.MIN_VALUE);
+    Buffer buffer = Buffer.buffer();
+    session.writeToBuffer(buffer);
+    SharedDataSessionImpl session2 = (SharedDataSessionImpl) store.createSession(0);
+    session2.readFromBuffer(0, buffer);
+    assertEquals(large, session2.get("large"));
+    assertEquals(Long.MIN_VALUE, (long) session2.get("long"));
+  }
+
+  @Test
+  public void testSessionModifiedInPlace() {
+    SharedDataSessionImpl session = (SharedDataSessionImpl) store.createSession(123);
+    session.put("obj", new JsonObject().put("a", 1));
+    session.put("str", "value");
+    // what a store does on put
+    session.incrementVersion();
+    session.flushed(false);
+    assertFalse(session.isModified());
+    session.get("str");
+    assertFalse(session.isModified());
+    JsonObject obj = session.get("obj");
+    assertFalse(session.isModified());
+    obj.put("b", 2);
+    assertTrue(session.isModified());
+  }
+
+  @Test
+  public void testSessionModifiedWithSameSum() {
+    SharedDataSessionImpl session = (SharedDataSessionImpl) store.createSession(123);
+    session.put("a", "x");
+    session.put("b", "y");
+    session.put("c", 10);
+    session.put("d", 5);
+    session.incrementVersion();
+    session.flushed(false);
+    // swapped values
+    session.put("a", "y");
+    session.put("b", "x");
+    assertTrue(session.isModified());
+    session.incrementVersion();
+    session.flushed(false);
+    // offsetting changes
+    session.put("c", 9);
+    session.put("d", 6);
+    assertTrue(session.isModified());
+  }
+
+  @Test
+  public void testConcurrentPutVersionMismatch() throws Exception {
+    Session session = store.createSession(30_000);
+    awaitFuture(store.put(session));
+
+    // two requests read the same version
+    Session first = copy(awaitFuture(store.get(session.id())));
+    Session second = copy(awaitFuture(store.get(session.id())));
+    first.put("foo", "first");
+    second.put("foo", "second");
+    Future<Void> firstPut = store.put(first);
+    Future<Void> secondPut = store.put(second);
+
+    String winner = null;
+    int failed = 0;
+    try {
+      awaitFuture(firstPut);
+      winner = "first";
+    } catch (Exception e) {
+      failed++;
+    }
+    try {
+      awaitFuture(secondPut);
+      winner = "second";
+    } catch (Exception e) {
+      failed++;
+    }
+    // the last write does not silently win
+    assertEquals(1, failed);
+    assertEquals(winner, awaitFuture(store.get(session.id())).get("foo"));
+  }
+
+  @Test
+  public void testNearCache() throws Exception {
+    JsonObject options = new JsonObject().put("nearCacheSize", 16);
+    SessionStore store1 = ClusteredSessionStore.create(vertices[0], options);
+    SessionStore store2 = ClusteredSessionStore.create(vertices[1], options);
+
+    Session session = store1.createSession(30_000);
+    session.put("foo", "bar");
+    awaitFuture(store1.put(session));
+
+    // both nodes now hold the session
+    Session stale = awaitFuture(store2.get(session.id()));
+    assertEquals("bar", stale.get("foo"));
+
+    Session current = awaitFuture(store1.get(session.id()));
+    current.put("foo", "baz");
+    awaitFuture(store1.put(current));
+
+    // the update is published to the other node
+    long start = System.currentTimeMillis();
+    while (!"baz".equals(awaitFuture(store2.get(session.id())).get("foo"))) {
+      assertTrue(System.currentTimeMillis() - start < 5000);
+      Thread.sleep(10);
+    }
+
+    // a write based on a stale copy is rejected
+    stale.put("foo", "qux");
+    try {
+      awaitFuture(store2.put(stale));
+      fail("the stale session must be rejected");
+    } catch (Exception e) {
+      // expected
+    }
+    store1.close();
+    store2.close();
+  }
+
+  @Test
+  public void testAwaitStored() throws Exception {
+    JsonObject options = new JsonObject().put("notifyStored", true);
+    SessionStore store1 = ClusteredSessionStore.create(vertices[0], options);
+    SessionStore store2 = ClusteredSessionStore.create(vertices[1], options);
+
+    Session session = store2.createSession(30_000);
+    Future<Boolean> stored = store1.awaitStored(session.id(), 5000);
+    awaitFuture(store2.put(session));
+    assertTrue(awaitFuture(stored));
+
+    assertFalse(awaitFuture(store1.awaitStored("missing", 50)));
+    store1.close();
+    store2.close();
+  }
+
+  @Test
+  public void testNegativeLookup() throws Exception {
+    JsonObject options = new JsonObject().put("retryTimeout", 200L).put("notifyStored", true);
+    AtomicInteger lookups = new AtomicInteger();
+    SessionStore store1 = new ClusteredSessionStoreImpl() {
+      @Override
+      public Future<Session> get(String id) {
+        lookups.incrementAndGet();
+        return super.get(id);
+      }
+    }.init(vertices[0], options);
+    SessionStore store2 = ClusteredSessionStore.create(vertices[1], options);
+    AtomicReference<String> seen = new AtomicReference<>();
+    router.route().handler(SessionHandler.create(store1));
+    router.route().handler(rc -> {
+      seen.set(rc.session().id());
+      rc.response().end();
+    });
+
+    // a session created on another node, not stored yet
+    Session session = store2.createSession(30_000);
+    String cookie = "vertx-web.session=" + session.value();
+    testRequest(HttpMethod.GET, "/", req -> req.putHeader("cookie", cookie), null, 200, "OK", null);
+    assertFalse(session.id().equals(seen.get()));
+    int missed = lookups.get();
+    assertTrue(missed > 0);
+
+    // the id is known to be missing, the store is not queried
+    testRequest(HttpMethod.GET, "/", req -> req.putHeader("cookie", cookie), null, 200, "OK", null);
+    assertEquals(missed, lookups.get());
+
+    // once stored, the notification makes the id known again
+    Future<Boolean> stored = store1.awaitStored(session.id(), 5000);
+    awaitFuture(store2.put(session));
+    assertTrue(awaitFuture(stored));
+    for (int i = 0; i < 50 && !session.id().equals(seen.get()); i++) {
+      testRequest(HttpMethod.GET, "/", req -> req.putHeader("cookie", cookie), null, 200, "OK", null);
+    }
+    assertEquals(session.id(), seen.get());
+    store1.close();
+    store2.close();
+  }
+
+  private Session copy(Session session) {
+    Buffer buffer = Buffer.buffer();
+    ((SharedDataSessionImpl) session).writeToBuffer(buffer);
+    SharedDataSessionImpl copy = (SharedDataSessionImpl) store.createSession(0);
+    copy.readFromBuffer(0, buffer);
+    return copy;
+  }
+
   private void stuffSession(Session session) {
     session.put("somelong", 123456L);
     session.put("someint", 1234);
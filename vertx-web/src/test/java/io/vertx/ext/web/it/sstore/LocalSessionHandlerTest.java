@@ -17,8 +17,12 @@
 package io.vertx.ext.web.it.sstore;
 
 import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Session;
 import io.vertx.ext.web.handler.SessionHandler;
+import io.vertx.ext.web.handler.impl.SessionHandlerImpl;
 import io.vertx.ext.web.sstore.LocalSessionStore;
+import io.vertx.ext.web.sstore.impl.LocalSessionStoreImpl;
 import io.vertx.ext.web.tests.handler.SessionHandlerTestBase;
 import org.junit.Test;
 
@@ -59,4 +63,85 @@ public class LocalSessionHandlerTest extends SessionHandlerTestBase {
 
     testRequest(HttpMethod.GET, "/", 500, "Internal Server Error");
   }
+
+  @Test
+  public void testAccessedSessionIsRescheduled() throws Exception {
+    LocalSessionStoreImpl local = (LocalSessionStoreImpl) LocalSessionStore.create(vertx, "rescheduled-sessions", 10);
+    Session session = local.createSession(100);
+    awaitFuture(local.put(session));
+    // the store holds a reference, accessing the session moves the deadline without a put
+    long deadline = System.currentTimeMillis() + 400;
+    while (System.currentTimeMillis() < deadline) {
+      session.setAccessed();
+      Thread.sleep(20);
+    }
+    assertNotNull(awaitFuture(local.get(session.id())));
+    Thread.sleep(300);
+    assertNull(awaitFuture(local.get(session.id())));
+    local.close();
+  }
+
+  @Test
+  public void testMaxSessionsEvictsAnonymousFirst() throws Exception {
+    LocalSessionStore local = LocalSessionStore.create(vertx, new JsonObject()
+      .put("mapName", "bounded-sessions")
+      .put("maxSessions", 2));
+
+    Session user = local.createSession(30_000);
+    user.put(SessionHandlerImpl.SESSION_USER_HOLDER_KEY, "user");
+    awaitFuture(local.put(user));
+    Session anonymous1 = local.createSession(30_000);
+    awaitFuture(local.put(anonymous1));
+    Session anonymous2 = local.createSession(30_000);
+    awaitFuture(local.put(anonymous2));
+
+    // the anonymous session was evicted, not the authenticated one
+    assertEquals(2, (int) awaitFuture(local.size()));
+    assertNotNull(awaitFuture(local.get(user.id())));
+    assertNull(awaitFuture(local.get(anonymous1.id())));
+    assertEquals(1, local.evictions());
+
+    // an authenticated session may evict the last anonymous session
+    Session user2 = local.createSession(30_000);
+    user2.put(SessionHandlerImpl.SESSION_USER_HOLDER_KEY, "user2");
+    awaitFuture(local.put(user2));
+    assertNull(awaitFuture(local.get(anonymous2.id())));
+
+    // but anonymous sessions cannot evict authenticated ones
+    try {
+      awaitFuture(local.put(local.createSession(30_000)));
+      fail();
+    } catch (Exception e) {
+      // expected
+    }
+    assertEquals(1, local.rejections());
+    local.close();
+  }
+
+  @Test
+  public void testMaxBytes() throws Exception {
+    LocalSessionStore local = LocalSessionStore.create(vertx, new JsonObject()
+      .put("mapName", "bounded-bytes-sessions")
+      .put("maxBytes", 2048));
+
+    Session small = local.createSession(30_000);
+    awaitFuture(local.put(small));
+    Session large = local.createSession(30_000);
+    large.put("blob", new byte[1900]);
+    awaitFuture(local.put(large));
+    assertNull(awaitFuture(local.get(small.id())));
+    assertEquals(1, local.evictions());
+
+    Session huge = local.createSession(30_000);
+    huge.put("blob", new byte[4096]);
+    try {
+      awaitFuture(local.put(huge));
+      fail();
+    } catch (Exception e) {
+      // expected
+    }
+    assertEquals(1, local.rejections());
+    assertNotNull(awaitFuture(local.get(large.id())));
+    local.close();
+  }
 }
@@ -26,6 +26,7 @@ import io.vertx.core.json.JsonObject;
 import io.vertx.core.net.HostAndPort;
 import io.vertx.core.net.NetClient;
 import io.vertx.core.net.SocketAddress;
+import io.vertx.ext.web.Http2PushMapping;
 import io.vertx.ext.web.Route;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
@@ -3705,4 +3706,28 @@ public class RouterTest extends WebTestBase {
     testRequest(HttpMethod.GET, "path-without-slash-prefix", HttpResponseStatus.NOT_FOUND);
     assertEquals(1, errorHandlerInvocations.get());
   }
+
+  @Test
+  public void testRoutePreloadEarlyHints() throws Exception {
+    router.get("/page")
+      .preload(Collections.singletonList(new Http2PushMapping("style.css", "style", false)))
+      .handler(rc -> vertx.setTimer(10, v -> rc.end("page")));
+
+    AtomicBoolean hinted = new AtomicBoolean();
+    testRequest(HttpMethod.GET, "/page", req -> req.earlyHintsHandler(hints -> {
+      assertEquals("<style.css>; rel=preload; as=style", hints.get("Link"));
+      hinted.set(true);
+    }), res -> assertTrue(hinted.get()), 200, "OK", "page");
+  }
+
+  @Test
+  public void testRoutePreloadAfterHandlerFails() {
+    Route route = router.get("/page").handler(RoutingContext::end);
+    try {
+      route.preload(Collections.singletonList(new Http2PushMapping("style.css", "style", false)));
+      fail();
+    } catch (IllegalStateException e) {
+      // expected, platform handlers go first
+    }
+  }
 }
@@ -3,6 +3,18 @@ package io.vertx.ext.web.tests;
 import io.vertx.ext.web.impl.Signature;
 import org.junit.Test;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.Assert.*;
 
 public class SignatureTest {
@@ -51,4 +63,54 @@ public class SignatureTest {
     token = token.replaceFirst("random-bit", "edited-bit");
     assertNull(signature.parse(token));
   }
+
+  @Test
+  public void matchesPlainHmac() throws Exception {
+    Signature signature = new Signature("any-string");
+    Mac mac = Mac.getInstance("HmacSHA256");
+    mac.init(new SecretKeySpec("any-string".getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+    String data = "x".repeat(5000) + ".some-other-data";
+    String expected = Base64.getUrlEncoder().withoutPadding().encodeToString(mac.doFinal(data.getBytes(StandardCharsets.US_ASCII)));
+    assertEquals(data + "." + expected, signature.sign(data));
+  }
+
+  @Test
+  public void rejectsTruncatedSignature() {
+    Signature signature = new Signature("any-string");
+    String token = signature.sign("my-random-bit-of-data");
+    assertFalse(signature.verify(token.substring(0, token.length() - 1)));
+    assertFalse(signature.verify(token + "."));
+    assertFalse(signature.verify("."));
+  }
+
+  @Test
+  public void concurrentSignAndVerify() throws Exception {
+    Signature signature = new Signature("any-string");
+    int threads = Math.max(16, Runtime.getRuntime().availableProcessors());
+    int iterations = 20_000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        final String data = "thread-" + t + ".token";
+        results.add(executor.submit(() -> {
+          start.await();
+          for (int i = 0; i < iterations; i++) {
+            String token = signature.sign(data + i);
+            if (!signature.verify(token) || !(data + i).equals(signature.parse(token))) {
+              return false;
+            }
+          }
+          return true;
+        }));
+      }
+      start.countDown();
+      for (Future<Boolean> result : results) {
+        assertTrue(result.get(1, TimeUnit.MINUTES));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 }
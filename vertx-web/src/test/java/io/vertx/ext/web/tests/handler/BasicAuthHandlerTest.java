@@ -157,6 +157,41 @@ public class BasicAuthHandlerTest extends AuthHandlerTestBase {
 
   }
 
+  @Test
+  public void testCredentialsCache() throws Exception {
+    AuthenticationProvider properties = PropertyFileAuthentication.create(vertx, "login/loginusers.properties");
+    AtomicInteger checks = new AtomicInteger();
+    AuthenticationProvider authProvider = credentials -> {
+      checks.incrementAndGet();
+      return properties.authenticate(credentials);
+    };
+
+    BasicAuthHandler authHandler = BasicAuthHandler.create(authProvider).setCredentialsCacheSize(16);
+    router.route("/protected/*").handler(authHandler);
+    router.route("/protected/somepage").handler(rc -> rc.response().end("Welcome to the protected resource!"));
+
+    // tim:delicious:sausages
+    String good = "Basic dGltOmRlbGljaW91czpzYXVzYWdlcw==";
+    testRequest(HttpMethod.GET, "/protected/somepage", req -> req.putHeader("Authorization", good), 200, "OK", "Welcome to the protected resource!");
+    testRequest(HttpMethod.GET, "/protected/somepage", req -> req.putHeader("Authorization", good), 200, "OK", "Welcome to the protected resource!");
+    assertEquals(1, checks.get());
+
+    // failures are not cached, a wrong password must always be checked
+    String bad = "Basic dGltOn5hdXdhZ2Vz";
+    testRequest(HttpMethod.GET, "/protected/somepage", req -> req.putHeader("Authorization", bad), 401, "Unauthorized", null);
+    testRequest(HttpMethod.GET, "/protected/somepage", req -> req.putHeader("Authorization", bad), 401, "Unauthorized", null);
+    assertEquals(3, checks.get());
+
+    // e.g.: the password was changed
+    authHandler.evictCredentials("tim");
+    testRequest(HttpMethod.GET, "/protected/somepage", req -> req.putHeader("Authorization", good), 200, "OK", "Welcome to the protected resource!");
+    assertEquals(4, checks.get());
+    // other users are not evicted
+    authHandler.evictCredentials("paulo");
+    testRequest(HttpMethod.GET, "/protected/somepage", req -> req.putHeader("Authorization", good), 200, "OK", "Welcome to the protected resource!");
+    assertEquals(4, checks.get());
+  }
+
   @Test
   public void testLoginFail() throws Exception {
 
@@ -131,6 +131,43 @@ public class CORSHandlerTest extends WebTestBase {
     testRequest(HttpMethod.GET, "/", req -> req.headers().add("origin", "http://barxvertxxio"), resp -> checkHeaders(resp, null, null, null, null), 403, "CORS Rejected - Invalid origin", null);
   }
 
+  @Test
+  public void testAcceptManySubdomainPatterns() throws Exception {
+    CorsHandler corsHandler = CorsHandler.create();
+    for (int i = 0; i < 300; i++) {
+      corsHandler.addRelativeOrigin("https://.*\\.tenant" + i + "\\.example\\.com");
+    }
+    corsHandler
+      .addRelativeOrigin("https?://[^.]+\\.single\\.example\\.com")
+      .addRelativeOrigin("^http://exact\\.example\\.com:8080$")
+      // not compiled into the trie, kept as a regular expression
+      .addRelativeOrigin("https://app[0-9]+\\.example\\.org");
+    router.route().handler(corsHandler);
+    router.route().handler(context -> context.response().end());
+
+    for (String origin : new String[] {
+      "https://foo.tenant0.example.com",
+      "https://foo.bar.tenant299.example.com",
+      "http://foo.single.example.com",
+      "https://foo.single.example.com",
+      "http://exact.example.com:8080",
+      "https://app42.example.org"}) {
+      testRequest(HttpMethod.GET, "/", req -> req.headers().add("origin", origin), resp -> checkHeaders(resp, origin, null, null, null), 200, "OK", null);
+    }
+
+    for (String origin : new String[] {
+      "https://tenant0.example.com",
+      "http://foo.tenant0.example.com",
+      "https://foo.tenant300.example.com",
+      "https://foo.tenant0.example.com:8443",
+      "https://evil.com/.tenant0.example.com",
+      "https://foo.bar.single.example.com",
+      "http://exact.example.com",
+      "https://app.example.org"}) {
+      testRequest(HttpMethod.GET, "/", req -> req.headers().add("origin", origin), resp -> checkHeaders(resp, null, null, null, null), 403, "CORS Rejected - Invalid origin", null);
+    }
+  }
+
   @Test
   public void testPreflightSimple() throws Exception {
     Set<HttpMethod> allowedMethods = new LinkedHashSet<>(Arrays.asList(HttpMethod.PUT, HttpMethod.DELETE));
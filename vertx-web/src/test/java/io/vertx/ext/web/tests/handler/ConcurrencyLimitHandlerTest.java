@@ -0,0 +1,149 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.tests.handler;
+
+import io.vertx.core.Future;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.PoolOptions;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.ConcurrencyLimitHandler;
+import io.vertx.ext.web.handler.RequestPriority;
+import io.vertx.ext.web.tests.WebTestBase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * @author <a href="mailto:pmlopes@gmail.com">Paulo Lopes</a>
+ */
+public class ConcurrencyLimitHandlerTest extends WebTestBase {
+
+  @Test
+  public void testLoadShedding() throws Exception {
+    // a fixed limit of 10
+    ConcurrencyLimitHandler limiter = ConcurrencyLimitHandler.create(10, 10, 10)
+      .priority(ctx -> ctx.request().getHeader("x-background") != null ? RequestPriority.BACKGROUND : null);
+
+    Queue<RoutingContext> pending = new ConcurrentLinkedQueue<>();
+    router.route("/slow").handler(limiter).handler(pending::add);
+    router.route("/fast").handler(limiter).handler(RoutingContext::end);
+    router.route("/health")
+      .putMetadata(ConcurrencyLimitHandler.PRIORITY_METADATA, RequestPriority.CRITICAL.name())
+      .handler(limiter)
+      .handler(RoutingContext::end);
+
+    // normal requests can use 9 of the 10 slots
+    HttpClient slowClient = vertx.createHttpClient(new PoolOptions().setHttp1MaxSize(20));
+    List<Future<HttpClientResponse>> slow = new ArrayList<>();
+    for (int i = 0; i < 9; i++) {
+      slow.add(slowClient
+        .request(new RequestOptions().setPort(8080).setURI("/slow"))
+        .compose(req -> req.send()));
+    }
+    waitUntil(() -> pending.size() == 9);
+    assertEquals(9, limiter.inFlight());
+
+    testRequest(HttpMethod.GET, "/fast", null, resp -> assertEquals("1", resp.getHeader("Retry-After")), 503, "Service Unavailable", null);
+    testRequest(HttpMethod.GET, "/fast", req -> req.putHeader("x-background", "true"), 503, "Service Unavailable", null);
+    // the last slot is reserved to critical requests
+    testRequest(HttpMethod.GET, "/health", 200, "OK");
+
+    RoutingContext ctx;
+    while ((ctx = pending.poll()) != null) {
+      ctx.end();
+    }
+    for (Future<HttpClientResponse> resp : slow) {
+      assertEquals(200, awaitFuture(resp).statusCode());
+    }
+    waitUntil(() -> limiter.inFlight() == 0);
+
+    testRequest(HttpMethod.GET, "/fast", 200, "OK");
+    testRequest(HttpMethod.GET, "/fast", req -> req.putHeader("x-background", "true"), 200, "OK", null);
+    slowClient.close();
+  }
+
+  @Test
+  public void testBackoffOnOverload() throws Exception {
+    ConcurrencyLimitHandler limiter = ConcurrencyLimitHandler.create(20, 4, 100);
+    router.route("/overloaded").handler(limiter).handler(ctx -> ctx.response().setStatusCode(504).end());
+
+    int limit = limiter.limit();
+    for (int i = 0; i < 5; i++) {
+      testRequest(HttpMethod.GET, "/overloaded", 504, "Gateway Timeout");
+      final int previous = limit;
+      // the limit is updated once the response ended
+      waitUntil(() -> limiter.limit() < previous);
+      limit = limiter.limit();
+    }
+    // each timeout cuts the limit by 10%
+    assertTrue(limit <= 12);
+  }
+
+  @Test
+  public void testLimitFollowsLatency() throws Exception {
+    ConcurrencyLimitHandler limiter = ConcurrencyLimitHandler.create(8, 2, 100);
+    Queue<RoutingContext> pending = new ConcurrentLinkedQueue<>();
+    router.route("/fast").handler(limiter).handler(RoutingContext::end);
+    router.route("/slow").handler(limiter).handler(pending::add);
+
+    // a few fast requests set the latency baseline, they don't use enough of the limit to change it
+    for (int i = 0; i < 20; i++) {
+      testRequest(HttpMethod.GET, "/fast", 200, "OK");
+    }
+    assertEquals(8, limiter.limit());
+
+    // then the latency rises while the limit is mostly used
+    HttpClient slowClient = vertx.createHttpClient(new PoolOptions().setHttp1MaxSize(20));
+    List<Future<HttpClientResponse>> slow = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      slow.add(slowClient
+        .request(new RequestOptions().setPort(8080).setURI("/slow"))
+        .compose(req -> req.send()));
+    }
+    waitUntil(() -> pending.size() == 6);
+    Thread.sleep(200);
+    RoutingContext ctx;
+    while ((ctx = pending.poll()) != null) {
+      ctx.end();
+    }
+    for (Future<HttpClientResponse> resp : slow) {
+      assertEquals(200, awaitFuture(resp).statusCode());
+    }
+    waitUntil(() -> limiter.limit() < 8);
+    slowClient.close();
+  }
+
+  @Test
+  public void testLimitBounds() {
+    ConcurrencyLimitHandler limiter = ConcurrencyLimitHandler.create();
+    assertEquals(ConcurrencyLimitHandler.DEFAULT_INITIAL_LIMIT, limiter.limit());
+    assertEquals(0, limiter.inFlight());
+
+    try {
+      ConcurrencyLimitHandler.create(1, 2, 3);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+}
@@ -36,7 +36,6 @@ import java.util.concurrent.atomic.AtomicReference;
 public class DigestAuthHandlerTest extends WebTestBase {
 
   private static final MessageDigest MD5;
-  private static final String DEFAULT_NONCE_MAP_NAME = "htdigest.nonces";
 
   static {
     try {
@@ -52,23 +51,45 @@ public class DigestAuthHandlerTest extends WebTestBase {
   }
 
   @Test
-  public void checkNoncesCleanup() throws Exception {
+  public void checkNoncesExpire() throws Exception {
     router.clear();
     HtdigestAuth authProvider = HtdigestAuth.create(vertx);
-    /* set nonceExpireTimeout to a negative value so the cached nonces must be deleted as soon as a new request
-     * is done
-     */
-    router.route("/dir/*").handler(DigestAuthHandler.create(vertx, authProvider, -100));
-    int initialNoncesSize = vertx.sharedData().getLocalMap(DEFAULT_NONCE_MAP_NAME).size();
-    /* Now make some new requests without authentication: for each new request a new nonce is generated
-     * and the old one is expired so the final nonces size must be equal to the initial one + 1
-     */
-    int numRequests = 5;
-    for (int i = 0; i < numRequests; ++i) {
-      testRequest(HttpMethod.GET, "/dir/index.html", null, null, 401, "Unauthorized", null);
-    }
-    int finalNoncesSize = vertx.sharedData().getLocalMap(DEFAULT_NONCE_MAP_NAME).size();
-    assertEquals(initialNoncesSize + 1, finalNoncesSize);
+    router.route("/dir/*").handler(DigestAuthHandler.create(vertx, authProvider, 100));
+    router.route("/dir/index.html").handler(rc -> rc.response().end("Welcome to the protected resource!"));
+
+    String[] challenge = challenge("testrealm@host.com");
+    Thread.sleep(250);
+    // the nonce expired
+    login(challenge, 401);
+    // a new one is valid
+    login(challenge("testrealm@host.com"), 200);
+  }
+
+  @Test
+  public void checkMaxNonces() throws Exception {
+    router.clear();
+    HtdigestAuth authProvider = HtdigestAuth.create(vertx);
+    router.route("/dir/*").handler(DigestAuthHandler.create(vertx, authProvider, DigestAuthHandler.DEFAULT_NONCE_EXPIRE_TIMEOUT, 1));
+    router.route("/dir/index.html").handler(rc -> rc.response().end("Welcome to the protected resource!"));
+
+    String[] first = challenge("testrealm@host.com");
+    String[] second = challenge("testrealm@host.com");
+    // only the last nonce is kept
+    login(first, 401);
+    login(second, 200);
+  }
+
+  @Test
+  public void checkNonceReplay() throws Exception {
+    router.clear();
+    HtdigestAuth authProvider = HtdigestAuth.create(vertx);
+    router.route("/dir/*").handler(DigestAuthHandler.create(vertx, authProvider));
+    router.route("/dir/index.html").handler(rc -> rc.response().end("Welcome to the protected resource!"));
+
+    String[] challenge = challenge("testrealm@host.com");
+    login(challenge, 200);
+    // the same nonce count cannot be used twice
+    login(challenge, 401);
   }
 
   private void doLogin(String realm) throws Exception {
@@ -84,6 +105,13 @@ public class DigestAuthHandlerTest extends WebTestBase {
 
     router.route("/dir/index.html").handler(handler);
 
+    login(challenge(realm), 200);
+  }
+
+  /**
+   * @return the nonce and opaque of a new challenge
+   */
+  private String[] challenge(String realm) throws Exception {
     final AtomicReference<String> nonce = new AtomicReference<>();
     final AtomicReference<String> opaque = new AtomicReference<>();
 
@@ -98,16 +126,23 @@ public class DigestAuthHandlerTest extends WebTestBase {
       opaque.set(wwwAuth.substring(pos, endOfVariable(wwwAuth, pos, '\"')));
     }, 401, "Unauthorized", null);
 
-    // Now try again with credentials
+    return new String[] { nonce.get(), opaque.get() };
+  }
+
+  private void login(String[] challenge, int statusCode) throws Exception {
+    final String nonce = challenge[0];
+    final String opaque = challenge[1];
+
     testRequest(HttpMethod.GET, "/dir/index.html", req -> {
       // rebuild the response value
-      String response = md5("939e7578ed9e3c518a452acee763bce9:" + nonce.get() + ":00000001:0a4f113b:auth:39aff3a2bab6126f332b942af96d3366");
+      String response = md5("939e7578ed9e3c518a452acee763bce9:" + nonce + ":00000001:0a4f113b:auth:39aff3a2bab6126f332b942af96d3366");
       // create the browser header
-      req.putHeader("Authorization", "Digest username=\"Mufasa\", realm=\"testrealm@host.com\", nonce=\"" + nonce.get() + "\", uri=\"/dir/index.html\", qop=auth, nc=00000001, cnonce=\"0a4f113b\", response=\"" + response + "\", opaque=\"" + opaque.get() + "\"");
+      req.putHeader("Authorization", "Digest username=\"Mufasa\", realm=\"testrealm@host.com\", nonce=\"" + nonce + "\", uri=\"/dir/index.html\", qop=auth, nc=00000001, cnonce=\"0a4f113b\", response=\"" + response + "\", opaque=\"" + opaque + "\"");
     }, resp -> {
-      String wwwAuth = resp.headers().get("WWW-Authenticate");
-      assertNull(wwwAuth);
-    }, 200, "OK", "Welcome to the protected resource!");
+      if (statusCode == 200) {
+        assertNull(resp.headers().get("WWW-Authenticate"));
+      }
+    }, statusCode, statusCode == 200 ? "OK" : "Unauthorized", statusCode == 200 ? "Welcome to the protected resource!" : null);
   }
 
   private static int endOfVariable(String header, int pos, char delim) {
@@ -22,6 +22,7 @@ import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.auth.JWTOptions;
 import io.vertx.ext.auth.KeyStoreOptions;
+import io.vertx.ext.auth.User;
 import io.vertx.ext.auth.jwt.JWTAuth;
 import io.vertx.ext.auth.jwt.JWTAuthOptions;
 import io.vertx.ext.web.RoutingContext;
@@ -31,6 +32,8 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * @author Paulo Lopes
@@ -92,6 +95,39 @@ public class JWTAuthHandlerTest extends WebTestBase {
 
   }
 
+  @Test
+  public void testTokenCache() throws Exception {
+    JWTAuthHandler authHandler = JWTAuthHandler.create(authProvider).setTokenCacheSize(16);
+    AtomicReference<User> previous = new AtomicReference<>();
+    AtomicBoolean expectCached = new AtomicBoolean();
+
+    router.route("/protected/*").handler(authHandler.withScope("a"));
+    router.route("/protected/somepage").handler(rc -> {
+      User user = rc.user();
+      if (expectCached.get()) {
+        assertSame(previous.get(), user);
+      } else {
+        assertNotSame(previous.get(), user);
+      }
+      previous.set(user);
+      rc.end();
+    });
+
+    final String token = authProvider.generateToken(new JsonObject().put("sub", "paulo").put("scope", "a"), new JWTOptions());
+    testRequest(HttpMethod.GET, "/protected/somepage", req -> req.putHeader("Authorization", "Bearer " + token), 200, "OK", null);
+    // the token is not verified again
+    expectCached.set(true);
+    testRequest(HttpMethod.GET, "/protected/somepage", req -> req.putHeader("Authorization", "Bearer " + token), 200, "OK", null);
+    // the scopes are still checked on each request
+    final String other = authProvider.generateToken(new JsonObject().put("sub", "paulo").put("scope", "b"), new JWTOptions());
+    testRequest(HttpMethod.GET, "/protected/somepage", req -> req.putHeader("Authorization", "Bearer " + other), 403, "Forbidden", null);
+    testRequest(HttpMethod.GET, "/protected/somepage", req -> req.putHeader("Authorization", "Bearer " + other), 403, "Forbidden", null);
+    // e.g.: the keys were rotated
+    authHandler.clearTokenCache();
+    expectCached.set(false);
+    testRequest(HttpMethod.GET, "/protected/somepage", req -> req.putHeader("Authorization", "Bearer " + token), 200, "OK", null);
+  }
+
   @Test
   public void testLoginWithScopes() throws Exception {
 
@@ -17,12 +17,17 @@
 package io.vertx.ext.web.tests.handler;
 
 import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.handler.LoggerFormat;
 import io.vertx.ext.web.handler.LoggerHandler;
+import io.vertx.ext.web.handler.impl.LoggerHandlerImpl;
 import io.vertx.ext.web.tests.WebTestBase;
 import org.junit.Test;
 
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  *
@@ -78,11 +83,89 @@ public class LoggerHandlerTest extends WebTestBase {
     latch.await();
   }
 
+  @Test
+  public void testCustomFormat() throws Exception {
+    BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+    LoggerHandler logger = new CapturingLoggerHandler(LoggerFormat.CUSTOM, lines)
+      .customFormat(":method :url :status :req[x-test] :req[x-missing] :response-time ms");
+    testLogger(logger, "foo");
+    String line = lines.poll(10, TimeUnit.SECONDS);
+    assertNotNull(line);
+    assertTrue(line, line.matches("GET /somedir 200 foo - \\d+ ms"));
+  }
+
+  @Test
+  public void testCustomFormatUnknownToken() {
+    try {
+      LoggerHandler.create(LoggerFormat.CUSTOM).customFormat(":method :nope");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testJson() throws Exception {
+    BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+    LoggerHandler logger = new CapturingLoggerHandler(LoggerFormat.DEFAULT, lines).json(true);
+    testLogger(logger, "foo");
+    JsonObject line = new JsonObject(lines.poll(10, TimeUnit.SECONDS));
+    assertEquals("GET", line.getString("method"));
+    assertEquals("/somedir", line.getString("url"));
+    assertEquals("HTTP/1.1", line.getString("http-version"));
+    assertEquals(200, (int) line.getInteger("status"));
+    assertEquals(0L, (long) line.getLong("res-length"));
+    assertEquals("-", line.getString("referrer"));
+  }
+
+  @Test
+  public void testAsync() throws Exception {
+    BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+    BlockingQueue<Thread> threads = new LinkedBlockingQueue<>();
+    LoggerHandler logger = new LoggerHandlerImpl(LoggerFormat.TINY) {
+      @Override
+      protected void doLog(int status, String message) {
+        threads.add(Thread.currentThread());
+        lines.add(message);
+      }
+    }.async(16);
+    testLogger(logger);
+    testRequest(HttpMethod.GET, "/somedir", 200, "OK");
+    for (int i = 0; i < 2; i++) {
+      String line = lines.poll(10, TimeUnit.SECONDS);
+      assertNotNull(line);
+      assertTrue(line, line.startsWith("GET /somedir 200 0 - "));
+      assertEquals("vertx-web-access-log", threads.take().getName());
+    }
+    assertEquals(0, logger.dropped());
+  }
+
   private void testLogger(LoggerHandler logger) throws Exception {
     router.route().handler(logger);
     router.route().handler(rc -> rc.response().end());
     testRequest(HttpMethod.GET, "/somedir", 200, "OK");
   }
 
+  private void testLogger(LoggerHandler logger, String header) throws Exception {
+    router.route().handler(logger);
+    router.route().handler(rc -> rc.response().end());
+    testRequest(HttpMethod.GET, "/somedir", req -> req.putHeader("x-test", header), 200, "OK", null);
+  }
+
+  private static class CapturingLoggerHandler extends LoggerHandlerImpl {
+
+    private final BlockingQueue<String> lines;
+
+    CapturingLoggerHandler(LoggerFormat format, BlockingQueue<String> lines) {
+      super(format);
+      this.lines = lines;
+    }
+
+    @Override
+    protected void doLog(int status, String message) {
+      lines.add(message);
+    }
+  }
+
 
 }
@@ -22,6 +22,7 @@ import org.junit.Test;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class MultiAuthorizationHandlerTest extends WebTestBase {
@@ -167,6 +168,84 @@ public class MultiAuthorizationHandlerTest extends WebTestBase {
       403, "Forbidden", "Forbidden");
   }
 
+  @Test
+  public void testJWTAuthenticationWithAuthorizationCache() throws Exception {
+    AtomicInteger fetches = new AtomicInteger();
+    AuthorizationProvider provider = createProvider("authzProvider1", RoleBasedAuthorization.create("role1"));
+    AuthorizationProvider counting = new AuthorizationProvider() {
+      @Override
+      public String getId() {
+        return provider.getId();
+      }
+
+      @Override
+      public Future<Void> getAuthorizations(User user) {
+        fetches.incrementAndGet();
+        return provider.getAuthorizations(user);
+      }
+    };
+
+    router.route("/protected/*").handler(JWTAuthHandler.create(authProvider));
+    router.route("/protected/*").handler(AuthorizationHandler.create(RoleBasedAuthorization.create("role1"))
+      .addAuthorizationProvider(counting)
+      .setDecisionCacheTtl(60_000));
+    router.route("/protected/page1").handler(rc -> {
+      // loaded on a cached decision too
+      assertTrue(rc.user().authorizations().contains("authzProvider1"));
+      rc.response().end("Welcome");
+    });
+    router.route("/protected/logout").handler(rc -> {
+      rc.userContext().clear();
+      rc.response().end();
+    });
+
+    String token = authProvider.generateToken(new JsonObject().put("sub", "paulo"), new JWTOptions());
+    testRequest(HttpMethod.GET, "/protected/page1", req -> req.putHeader("Authorization", "Bearer " + token), 200, "OK", "Welcome");
+    testRequest(HttpMethod.GET, "/protected/page1", req -> req.putHeader("Authorization", "Bearer " + token), 200, "OK", "Welcome");
+    assertEquals(1, fetches.get());
+    // other variables are another decision
+    testRequest(HttpMethod.GET, "/protected/page1?a=b", req -> req.putHeader("Authorization", "Bearer " + token), 200, "OK", "Welcome");
+    assertEquals(2, fetches.get());
+
+    // logging out drops the decisions of the user
+    testRequest(HttpMethod.GET, "/protected/logout", req -> req.putHeader("Authorization", "Bearer " + token), 200, "OK", null);
+    int afterLogout = fetches.get();
+    testRequest(HttpMethod.GET, "/protected/page1", req -> req.putHeader("Authorization", "Bearer " + token), 200, "OK", "Welcome");
+    assertEquals(afterLogout + 1, fetches.get());
+  }
+
+  @Test
+  public void testAuthorizationCacheDoesNotMatchOnSubjectOnly() throws Exception {
+    AuthorizationProvider provider = new AuthorizationProvider() {
+      @Override
+      public String getId() {
+        return "authzProvider1";
+      }
+
+      @Override
+      public Future<Void> getAuthorizations(User user) {
+        Set<Authorization> authorizations = new HashSet<>();
+        if (user.attributes().getJsonObject("accessToken").getBoolean("admin", false)) {
+          authorizations.add(RoleBasedAuthorization.create("admin"));
+        }
+        user.authorizations().put(getId(), authorizations);
+        return Future.succeededFuture();
+      }
+    };
+
+    router.route("/protected/*").handler(JWTAuthHandler.create(authProvider));
+    router.route("/protected/*").handler(AuthorizationHandler.create(RoleBasedAuthorization.create("admin"))
+      .addAuthorizationProvider(provider)
+      .setDecisionCacheTtl(60_000));
+    router.route("/protected/page1").handler(rc -> rc.response().end("Welcome"));
+
+    String admin = authProvider.generateToken(new JsonObject().put("sub", "paulo").put("admin", true), new JWTOptions());
+    String other = authProvider.generateToken(new JsonObject().put("sub", "paulo"), new JWTOptions());
+    testRequest(HttpMethod.GET, "/protected/page1", req -> req.putHeader("Authorization", "Bearer " + admin), 200, "OK", "Welcome");
+    // same subject, another identity
+    testRequest(HttpMethod.GET, "/protected/page1", req -> req.putHeader("Authorization", "Bearer " + other), 403, "Forbidden", "Forbidden");
+  }
+
   private AuthorizationProvider createProvider(String id, Authorization authorization) {
     Set<Authorization> _authorizations = new HashSet<>();
     _authorizations.add(authorization);
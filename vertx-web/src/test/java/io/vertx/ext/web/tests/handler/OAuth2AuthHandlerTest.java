@@ -17,6 +17,8 @@
 package io.vertx.ext.web.tests.handler;
 
 import io.netty.handler.codec.http.QueryStringDecoder;
+import io.vertx.core.Future;
+import io.vertx.core.http.HttpClientResponse;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.http.HttpServer;
 import io.vertx.core.json.JsonObject;
@@ -35,10 +37,12 @@ import org.junit.Test;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -708,6 +712,90 @@ public class OAuth2AuthHandlerTest extends WebTestBase {
     testRequest(HttpMethod.GET, "/protected/somepage", req -> req.putHeader("Authorization", "Bearer 4adc339e0"), 401, "Unauthorized", "Unauthorized");
   }
 
+  @Test
+  public void testBearerOnlyIntrospectionCache() throws Exception {
+
+    // lets mock an oauth2 server that only knows a single opaque token
+    OAuth2Auth oauth2 = OAuth2Auth.create(vertx, new OAuth2Options()
+      .setClientId("client-id")
+      .setClientSecret("client-secret")
+      .setIntrospectionPath("/oauth/introspect")
+      .setSite("http://localhost:10000"));
+
+    final AtomicInteger introspections = new AtomicInteger();
+    final CountDownLatch latch = new CountDownLatch(1);
+
+    HttpServer server = vertx.createHttpServer().requestHandler(req -> {
+      if (req.method() == HttpMethod.POST && "/oauth/introspect".equals(req.path())) {
+        introspections.incrementAndGet();
+        req.setExpectMultipart(true).endHandler(v -> {
+          final JsonObject response = "4adc339e0".equals(req.getFormAttribute("token")) ?
+            new JsonObject()
+              .put("active", true)
+              .put("client_id", "client-id")
+              .put("scope", "read write")
+              .put("exp", System.currentTimeMillis() / 1000 + 3600) :
+            new JsonObject().put("active", false);
+          // slow enough for the concurrent requests to overlap
+          vertx.setTimer(100, t -> req.response().putHeader("Content-Type", "application/json").end(response.encode()));
+        });
+      } else {
+        req.response().setStatusCode(400).end();
+      }
+    });
+
+    server.listen(10000).onComplete(ready -> {
+      if (ready.failed()) {
+        throw new RuntimeException(ready.cause());
+      }
+      // ready
+      latch.countDown();
+    });
+
+    latch.await();
+
+    OAuth2AuthHandler oauth2Handler = OAuth2AuthHandler.create(vertx, oauth2)
+      .setTokenCacheSize(16)
+      .setNegativeTokenCacheTtl(60_000);
+
+    // protect everything under /protected
+    router.route("/protected/*").handler(oauth2Handler);
+    // mount some handler under the protected zone
+    router.route("/protected/somepage").handler(rc -> {
+      assertNotNull(rc.user());
+      rc.response().end("Welcome to the protected resource!");
+    });
+
+    // the concurrent requests share a single introspection
+    final List<Future<Integer>> responses = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      responses.add(client.request(HttpMethod.GET, "/protected/somepage")
+        .compose(req -> req.putHeader("Authorization", "Bearer 4adc339e0").send())
+        .map(HttpClientResponse::statusCode));
+    }
+    awaitFuture(Future.all(responses));
+    for (Future<Integer> response : responses) {
+      assertEquals(200, (int) response.result());
+    }
+    assertEquals(1, introspections.get());
+
+    // then the token is served from the cache
+    testRequest(HttpMethod.GET, "/protected/somepage", req -> req.putHeader("Authorization", "Bearer 4adc339e0"), 200, "OK", "Welcome to the protected resource!");
+    assertEquals(1, introspections.get());
+
+    // rejected tokens are cached too
+    testRequest(HttpMethod.GET, "/protected/somepage", req -> req.putHeader("Authorization", "Bearer bad"), 401, "Unauthorized", "Unauthorized");
+    testRequest(HttpMethod.GET, "/protected/somepage", req -> req.putHeader("Authorization", "Bearer bad"), 401, "Unauthorized", "Unauthorized");
+    assertEquals(2, introspections.get());
+
+    // e.g.: the token was revoked
+    oauth2Handler.clearTokenCache();
+    testRequest(HttpMethod.GET, "/protected/somepage", req -> req.putHeader("Authorization", "Bearer 4adc339e0"), 200, "OK", "Welcome to the protected resource!");
+    assertEquals(3, introspections.get());
+
+    server.close();
+  }
+
   @Test
   public void testBearerOnlyWithJWT() throws Exception {
 
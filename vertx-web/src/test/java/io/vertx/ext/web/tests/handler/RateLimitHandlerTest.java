@@ -0,0 +1,94 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.tests.handler;
+
+import io.vertx.core.http.HttpMethod;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.RateLimitHandler;
+import io.vertx.ext.web.tests.WebTestBase;
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:pmlopes@gmail.com">Paulo Lopes</a>
+ */
+public class RateLimitHandlerTest extends WebTestBase {
+
+  @Test
+  public void testRateLimit() throws Exception {
+    router.route().handler(RateLimitHandler.create(vertx, 2, 60_000));
+    router.route().handler(RoutingContext::end);
+
+    testRequest(HttpMethod.GET, "/", null, resp -> {
+      assertEquals("2", resp.getHeader("RateLimit-Limit"));
+      assertEquals("1", resp.getHeader("RateLimit-Remaining"));
+      assertNotNull(resp.getHeader("RateLimit-Reset"));
+    }, 200, "OK", null);
+    testRequest(HttpMethod.GET, "/", null, resp -> assertEquals("0", resp.getHeader("RateLimit-Remaining")), 200, "OK", null);
+    testRequest(HttpMethod.GET, "/", null, resp -> {
+      assertEquals("0", resp.getHeader("RateLimit-Remaining"));
+      // a token every 30 seconds
+      long retryAfter = Long.parseLong(resp.getHeader("Retry-After"));
+      assertTrue(retryAfter > 0 && retryAfter <= 30);
+    }, 429, "Too Many Requests", null);
+  }
+
+  @Test
+  public void testRateLimitByHeader() throws Exception {
+    router.route().handler(RateLimitHandler.create(vertx, 1, 60_000).keyByHeader("X-API-KEY"));
+    router.route().handler(RoutingContext::end);
+
+    testRequest(HttpMethod.GET, "/", req -> req.putHeader("X-API-KEY", "a"), 200, "OK", null);
+    testRequest(HttpMethod.GET, "/", req -> req.putHeader("X-API-KEY", "a"), 429, "Too Many Requests", null);
+    testRequest(HttpMethod.GET, "/", req -> req.putHeader("X-API-KEY", "b"), 200, "OK", null);
+    // no key, not limited
+    testRequest(HttpMethod.GET, "/", 200, "OK");
+    testRequest(HttpMethod.GET, "/", 200, "OK");
+  }
+
+  @Test
+  public void testClusteredRateLimit() throws Exception {
+    // two handlers sharing the same limit stand for two nodes
+    router.route("/a").handler(RateLimitHandler.create(vertx, 3, 60_000).clustered("test").syncInterval(20));
+    router.route("/b").handler(RateLimitHandler.create(vertx, 3, 60_000).clustered("test").syncInterval(20));
+    router.route().handler(RoutingContext::end);
+
+    testRequest(HttpMethod.GET, "/b", 200, "OK");
+    Thread.sleep(200);
+    testRequest(HttpMethod.GET, "/a", 200, "OK");
+    testRequest(HttpMethod.GET, "/a", 200, "OK");
+    Thread.sleep(200);
+    // a node idle for a key does not sync it, the consumption of the other nodes is charged on the next sync after
+    // a local consumption
+    testRequest(HttpMethod.GET, "/b", 200, "OK");
+    Thread.sleep(200);
+    // 4 requests were made across both nodes
+    testRequest(HttpMethod.GET, "/b", 429, "Too Many Requests");
+  }
+
+  @Test
+  public void testClose() {
+    RateLimitHandler handler = RateLimitHandler.create(vertx, 1, 60_000);
+    handler.close();
+    // the sync timer cannot be restarted
+    try {
+      handler.syncInterval(10);
+      fail();
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+}
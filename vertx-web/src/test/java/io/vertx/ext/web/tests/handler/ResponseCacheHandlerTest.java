@@ -0,0 +1,232 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.tests.handler;
+
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.PoolOptions;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.core.net.HostAndPort;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.ResponseCacheHandler;
+import io.vertx.ext.web.handler.ResponseCacheStore;
+import io.vertx.ext.web.tests.WebTestBase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author <a href="mailto:pmlopes@gmail.com">Paulo Lopes</a>
+ */
+public class ResponseCacheHandlerTest extends WebTestBase {
+
+  @Test
+  public void testCacheHit() throws Exception {
+    AtomicInteger upstream = new AtomicInteger();
+    router.route().handler(ResponseCacheHandler.create(ResponseCacheStore.create(100)));
+    router.route().handler(ctx -> ctx.response()
+      .putHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=60")
+      .putHeader("x-upstream", "true")
+      .end("hello " + upstream.incrementAndGet()));
+
+    testRequest(HttpMethod.GET, "/", null, resp -> assertNull(resp.getHeader("Age")), 200, "OK", "hello 1");
+    testRequest(HttpMethod.GET, "/", null, resp -> {
+      assertEquals("0", resp.getHeader("Age"));
+      assertEquals("true", resp.getHeader("x-upstream"));
+      assertEquals("public, max-age=60", resp.getHeader(HttpHeaders.CACHE_CONTROL));
+    }, 200, "OK", "hello 1");
+    assertEquals(1, upstream.get());
+
+    // the client asks for a fresh response
+    testRequest(HttpMethod.GET, "/", req -> req.putHeader(HttpHeaders.CACHE_CONTROL, "no-cache"), 200, "OK", "hello 2");
+    testRequest(HttpMethod.GET, "/", 200, "OK", "hello 2");
+    // other uris and methods are not served from the cache
+    testRequest(HttpMethod.GET, "/?q=1", 200, "OK", "hello 3");
+    testRequest(HttpMethod.POST, "/", 200, "OK", "hello 4");
+    assertEquals(4, upstream.get());
+  }
+
+  @Test
+  public void testNotCacheable() throws Exception {
+    AtomicInteger upstream = new AtomicInteger();
+    router.route().handler(ResponseCacheHandler.create(ResponseCacheStore.create(100)).maxBodySize(10));
+    router.route("/no-store").handler(ctx -> ctx.response()
+      .putHeader(HttpHeaders.CACHE_CONTROL, "no-store")
+      .end("" + upstream.incrementAndGet()));
+    router.route("/no-freshness").handler(ctx -> ctx.end("" + upstream.incrementAndGet()));
+    router.route("/cookie").handler(ctx -> ctx.response()
+      .putHeader(HttpHeaders.CACHE_CONTROL, "max-age=60")
+      .putHeader(HttpHeaders.SET_COOKIE, "a=b")
+      .end("" + upstream.incrementAndGet()));
+    router.route("/large").handler(ctx -> ctx.response()
+      .putHeader(HttpHeaders.CACHE_CONTROL, "max-age=60")
+      .end("0123456789" + upstream.incrementAndGet()));
+    router.route("/error").handler(ctx -> ctx.response()
+      .putHeader(HttpHeaders.CACHE_CONTROL, "max-age=60")
+      .setStatusCode(500)
+      .end("" + upstream.incrementAndGet()));
+
+    for (String path : new String[] { "/no-store", "/no-freshness", "/cookie", "/large" }) {
+      testRequest(HttpMethod.GET, path, 200, "OK");
+      testRequest(HttpMethod.GET, path, 200, "OK");
+    }
+    testRequest(HttpMethod.GET, "/error", 500, "Internal Server Error");
+    testRequest(HttpMethod.GET, "/error", 500, "Internal Server Error");
+    assertEquals(10, upstream.get());
+  }
+
+  @Test
+  public void testVary() throws Exception {
+    AtomicInteger upstream = new AtomicInteger();
+    router.route().handler(ResponseCacheHandler.create(ResponseCacheStore.create(100)));
+    router.route().handler(ctx -> {
+      upstream.incrementAndGet();
+      ctx.response()
+        .putHeader(HttpHeaders.CACHE_CONTROL, "max-age=60")
+        .putHeader(HttpHeaders.VARY, "Accept-Language")
+        .end("lang " + ctx.request().getHeader(HttpHeaders.ACCEPT_LANGUAGE));
+    });
+
+    testRequest(HttpMethod.GET, "/", req -> req.putHeader(HttpHeaders.ACCEPT_LANGUAGE, "en"), 200, "OK", "lang en");
+    testRequest(HttpMethod.GET, "/", req -> req.putHeader(HttpHeaders.ACCEPT_LANGUAGE, "fr"), 200, "OK", "lang fr");
+    testRequest(HttpMethod.GET, "/", req -> req.putHeader(HttpHeaders.ACCEPT_LANGUAGE, "fr"), 200, "OK", "lang fr");
+    testRequest(HttpMethod.GET, "/", req -> req.putHeader(HttpHeaders.ACCEPT_LANGUAGE, "en"), 200, "OK", "lang en");
+    assertEquals(2, upstream.get());
+  }
+
+  @Test
+  public void testVaryVariantEvicted() throws Exception {
+    AtomicInteger upstream = new AtomicInteger();
+    // room for a vary record and a single variant
+    router.route().handler(ResponseCacheHandler.create(ResponseCacheStore.create(2)));
+    router.route().handler(ctx -> {
+      upstream.incrementAndGet();
+      ctx.response()
+        .putHeader(HttpHeaders.CACHE_CONTROL, "max-age=60")
+        .putHeader(HttpHeaders.VARY, "Accept-Language")
+        .end("lang " + ctx.request().getHeader(HttpHeaders.ACCEPT_LANGUAGE));
+    });
+
+    testRequest(HttpMethod.GET, "/", req -> req.putHeader(HttpHeaders.ACCEPT_LANGUAGE, "en"), 200, "OK", "lang en");
+    testRequest(HttpMethod.GET, "/", req -> req.putHeader(HttpHeaders.ACCEPT_LANGUAGE, "fr"), 200, "OK", "lang fr");
+    // the record is still there, not the variant
+    testRequest(HttpMethod.GET, "/", req -> req.putHeader(HttpHeaders.ACCEPT_LANGUAGE, "en"), 200, "OK", "lang en");
+    assertEquals(3, upstream.get());
+  }
+
+  @Test
+  public void testAuthority() throws Exception {
+    AtomicInteger upstream = new AtomicInteger();
+    ResponseCacheHandler handler = ResponseCacheHandler.create(ResponseCacheStore.create(100));
+    router.route().handler(handler);
+    router.route().handler(ctx -> ctx.response()
+      .putHeader(HttpHeaders.CACHE_CONTROL, "max-age=60")
+      .end("hello " + upstream.incrementAndGet()));
+
+    testRequest(HttpMethod.GET, "/", req -> req.authority(HostAndPort.create("localhost", 8080)), 200, "OK", "hello 1");
+    // the authority is normalized
+    testRequest(HttpMethod.GET, "/", req -> req.authority(HostAndPort.create("LOCALHOST", 8080)), 200, "OK", "hello 1");
+    // by default each authority has its entries
+    testRequest(HttpMethod.GET, "/", req -> req.authority(HostAndPort.create("other", 8080)), 200, "OK", "hello 2");
+
+    // a configured authority ignores the one of the request
+    handler.authority("example.com");
+    testRequest(HttpMethod.GET, "/", req -> req.authority(HostAndPort.create("localhost", 8080)), 200, "OK", "hello 3");
+    testRequest(HttpMethod.GET, "/", req -> req.authority(HostAndPort.create("other", 8080)), 200, "OK", "hello 3");
+    assertEquals(3, upstream.get());
+  }
+
+  @Test
+  public void testRequestCoalescing() throws Exception {
+    Queue<RoutingContext> pending = new ConcurrentLinkedQueue<>();
+    router.route().handler(ResponseCacheHandler.create(ResponseCacheStore.create(100)));
+    router.route().handler(pending::add);
+
+    HttpClient slowClient = vertx.createHttpClient(new PoolOptions().setHttp1MaxSize(10));
+    List<Future<Buffer>> responses = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      responses.add(slowClient
+        .request(new RequestOptions().setPort(8080).setURI("/slow"))
+        .compose(req -> req.send())
+        .compose(resp -> {
+          assertEquals(200, resp.statusCode());
+          return resp.body();
+        }));
+    }
+    waitUntil(() -> pending.size() == 1);
+    // let the other requests reach the handler
+    Thread.sleep(200);
+    assertEquals(1, pending.size());
+
+    pending.poll().response()
+      .putHeader(HttpHeaders.CACHE_CONTROL, "max-age=60")
+      .end("slow");
+    for (Future<Buffer> resp : responses) {
+      assertEquals("slow", awaitFuture(resp).toString());
+    }
+    assertTrue(pending.isEmpty());
+    slowClient.close();
+  }
+
+  @Test
+  public void testHitForPass() throws Exception {
+    Queue<RoutingContext> pending = new ConcurrentLinkedQueue<>();
+    router.route().handler(ResponseCacheHandler.create(ResponseCacheStore.create(100)));
+    router.route().handler(pending::add);
+
+    HttpClient slowClient = vertx.createHttpClient(new PoolOptions().setHttp1MaxSize(10));
+    Future<Buffer> first = slowClient
+      .request(new RequestOptions().setPort(8080).setURI("/slow"))
+      .compose(req -> req.send())
+      .compose(resp -> resp.body());
+    waitUntil(() -> pending.size() == 1);
+    pending.poll().response()
+      .putHeader(HttpHeaders.CACHE_CONTROL, "no-store")
+      .end("slow");
+    assertEquals("slow", awaitFuture(first).toString());
+
+    // the response was not cacheable, the next requests are not coalesced
+    List<Future<Buffer>> responses = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      responses.add(slowClient
+        .request(new RequestOptions().setPort(8080).setURI("/slow"))
+        .compose(req -> req.send())
+        .compose(resp -> resp.body()));
+    }
+    waitUntil(() -> pending.size() == 5);
+    RoutingContext ctx;
+    while ((ctx = pending.poll()) != null) {
+      ctx.response()
+        .putHeader(HttpHeaders.CACHE_CONTROL, "max-age=60")
+        .end("slow");
+    }
+    for (Future<Buffer> resp : responses) {
+      assertEquals("slow", awaitFuture(resp).toString());
+    }
+    // a cacheable response ends the pass
+    testRequest(HttpMethod.GET, "/slow", 200, "OK", "slow");
+    assertTrue(pending.isEmpty());
+    slowClient.close();
+  }
+}
@@ -16,7 +16,10 @@
 
 package io.vertx.ext.web.tests.handler;
 
+import io.vertx.core.Handler;
 import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.ResponseTimeHandler;
 import io.vertx.ext.web.tests.WebTestBase;
 import org.junit.Test;
@@ -51,5 +54,74 @@ public class ResponseTimeTest extends WebTestBase {
     }, 200, "OK", null);
   }
 
+  @Test
+  public void testServerTiming() throws Exception {
+    router.route().handler(ResponseTimeHandler.create().serverTiming(true));
+    router.route().handler(new SlowHandler());
+    router.route().handler(new EndHandler());
+    testRequest(HttpMethod.GET, "/", null, resp -> {
+      String[] metrics = resp.headers().get("Server-Timing").split(", ");
+      assertEquals(3, metrics.length);
+      assertTrue(metrics[0], metrics[0].startsWith("ResponseTimeTest$SlowHandler;dur="));
+      // the wall time includes the timer, not the event loop time
+      assertTrue(metrics[0], duration(metrics[0], "dur") >= 100);
+      assertTrue(metrics[0], duration(metrics[0], "el") < 100);
+      assertTrue(metrics[1], metrics[1].startsWith("ResponseTimeTest$EndHandler;dur="));
+      assertTrue(metrics[2], metrics[2].startsWith("total;dur="));
+    }, 200, "OK", null);
+  }
+
+  @Test
+  public void testNoServerTiming() throws Exception {
+    router.route().handler(ResponseTimeHandler.create());
+    router.route().handler(rc -> rc.response().end());
+    testRequest(HttpMethod.GET, "/", null, resp -> assertNull(resp.headers().get("Server-Timing")), 200, "OK", null);
+  }
 
+  @Test
+  public void testHistograms() throws Exception {
+    ResponseTimeHandler handler = ResponseTimeHandler.create().sampleRate(1);
+    router.route().handler(handler);
+    router.route().handler(new SlowHandler());
+    router.route().handler(new EndHandler());
+    testRequest(HttpMethod.GET, "/", null, resp -> assertNull(resp.headers().get("Server-Timing")), 200, "OK", null);
+    testRequest(HttpMethod.GET, "/", 200, "OK");
+
+    waitUntil(() -> {
+      JsonObject end = handler.histograms().getJsonObject("ResponseTimeTest$EndHandler");
+      return end != null && end.getLong("count") == 2;
+    });
+    JsonObject slow = handler.histograms().getJsonObject("ResponseTimeTest$SlowHandler");
+    assertEquals(2L, (long) slow.getLong("count"));
+    assertTrue(slow.getLong("wallTime") >= 200_000);
+    // 100ms is in the 2^16 - 2^17 µs bucket, or later
+    long slower = 0;
+    for (int i = 17; i < slow.getJsonArray("buckets").size(); i++) {
+      slower += slow.getJsonArray("buckets").getLong(i);
+    }
+    assertEquals(2, slower);
+  }
+
+  private static double duration(String metric, String param) {
+    for (String part : metric.split(";")) {
+      if (part.startsWith(param + "=")) {
+        return Double.parseDouble(part.substring(param.length() + 1));
+      }
+    }
+    throw new AssertionError("No " + param + " in " + metric);
+  }
+
+  private class SlowHandler implements Handler<RoutingContext> {
+    @Override
+    public void handle(RoutingContext rc) {
+      vertx.setTimer(100, tid -> rc.next());
+    }
+  }
+
+  private static class EndHandler implements Handler<RoutingContext> {
+    @Override
+    public void handle(RoutingContext rc) {
+      rc.response().end();
+    }
+  }
 }
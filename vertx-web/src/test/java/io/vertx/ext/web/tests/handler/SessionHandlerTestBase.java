@@ -567,6 +567,24 @@ public abstract class SessionHandlerTestBase extends WebTestBase {
 		await();
 	}
 
+  @Test
+  public void testTouch() throws Exception {
+    AbstractSession session = (AbstractSession) store.createSession(10000);
+    session.put("k", "v");
+    awaitFuture(store.put(session));
+    long lastAccessed = awaitFuture(store.get(session.value())).lastAccessed();
+
+    Thread.sleep(50);
+    awaitFuture(store.touch(session.value(), session.timeout()));
+
+    AbstractSession touched = (AbstractSession) awaitFuture(store.get(session.value()));
+    assertTrue(touched.lastAccessed() > lastAccessed);
+    // the data is untouched
+    assertEquals(1, touched.version());
+    assertEquals("v", touched.get("k"));
+    assertFalse(touched.isModified());
+  }
+
   @Test
   public void testLazySessionNotAccessed() throws Exception {
     String sessionCookieName = "acme.sillycookie";
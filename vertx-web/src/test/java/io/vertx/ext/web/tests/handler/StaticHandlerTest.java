@@ -33,6 +33,7 @@ import org.junit.Test;
 
 import java.io.File;
 import java.net.URL;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.*;
@@ -181,6 +182,45 @@ public class StaticHandlerTest extends WebTestBase {
     }, 200, "OK", null);
   }
 
+  @Test
+  public void testClasspathIndex() throws Exception {
+    stat.setClasspathIndex(true);
+    // built on first use, the request is served from the file system meanwhile
+    assertEquals(0, stat.classpathIndexSize());
+    testRequest(HttpMethod.GET, "/", 200, "OK", "<html><body>Index page</body></html>");
+    waitUntil(() -> stat.classpathIndexSize() > 0);
+    testRequest(HttpMethod.GET, "/", 200, "OK", "<html><body>Index page</body></html>");
+    testRequest(HttpMethod.GET, "/somedir/", 200, "OK", "<html><body>Subdirectory index page</body></html>");
+    testRequest(HttpMethod.GET, "/somedir/something.html", null, res -> {
+      assertEquals("text/html;charset=" + Charset.defaultCharset().name(), res.getHeader("content-type"));
+    }, 200, "OK", "<html><body>Blah page</body></html>");
+    // not indexed resources still go through the file system
+    testRequest(HttpMethod.GET, "/notexists.html", 404, "Not Found");
+  }
+
+  @Test
+  public void testClasspathIndexLazyLoadAndRange() throws Exception {
+    stat.setClasspathIndexPreloadSize(0).setClasspathIndex(true);
+    assertEquals(0, stat.classpathIndexSize());
+    testRequest(HttpMethod.GET, "/otherpage.html", 200, "OK", "<html><body>Other page</body></html>");
+    testRequest(HttpMethod.GET, "/otherpage.html", req -> req.putHeader("Range", "bytes=6-11"), res -> {
+      assertEquals("bytes 6-11/" + fileSize("src/test/resources/webroot/otherpage.html"), res.getHeader("Content-Range"));
+    }, 206, "Partial Content", "<body>");
+  }
+
+  @Test
+  public void testClasspathIndexHashing() throws Exception {
+    stat.setClasspathIndexHashing(true).setClasspathIndex(true);
+    testRequest(HttpMethod.GET, "/otherpage.html", 200, "OK", "<html><body>Other page</body></html>");
+    waitUntil(() -> stat.classpathIndexSize() > 0);
+    AtomicReference<String> etag = new AtomicReference<>();
+    testRequest(HttpMethod.GET, "/otherpage.html", null, res -> {
+      etag.set(res.getHeader("etag"));
+      assertNotNull(etag.get());
+    }, 200, "OK", "<html><body>Other page</body></html>");
+    testRequest(HttpMethod.GET, "/otherpage.html", req -> req.putHeader("if-none-match", etag.get()), null, 304, "Not Modified", null);
+  }
+
   @Test
   public void testNoLinkPreload() throws Exception {
     router.clear();
@@ -247,9 +287,7 @@ public class StaticHandlerTest extends WebTestBase {
   }
 
   @Test
-  public void testHttp2Push() throws Exception {
-    waitFor(2);
-
+  public void testHttp2EarlyHints() throws Exception {
     List<Http2PushMapping> mappings = new ArrayList<>();
     mappings.add(new Http2PushMapping("style.css", "style", false));
     mappings.add(new Http2PushMapping("coin.png", "image", false));
@@ -274,18 +312,23 @@ public class StaticHandlerTest extends WebTestBase {
       .setKeyCertOptions(new PemKeyCertOptions().setKeyPath("tls/server-key.pem").setCertPath("tls/server-cert.pem")));
     awaitFuture(server.requestHandler(router).listen(8443));
 
+    AtomicBoolean hinted = new AtomicBoolean();
     client.request(HttpMethod.GET, 8443, "localhost", "/testLinkPreload.html")
       .onComplete(onSuccess(req -> {
-        req.pushHandler(pushedReq -> pushedReq.response().onComplete(onSuccess(pushedResp -> {
-            assertNotNull(pushedResp);
-            pushedResp.bodyHandler(this::assertNotNull);
-            complete();
-          })))
-          .send().onComplete(onSuccess(resp -> {
-            assertEquals(200, resp.statusCode());
-            assertEquals(HttpVersion.HTTP_2, resp.version());
-            resp.bodyHandler(this::assertNotNull);
-          }));
+        req.pushHandler(pushedReq -> fail());
+        req.earlyHintsHandler(hints -> {
+          List<String> links = hints.getAll("Link");
+          assertTrue(links.contains("<style.css>; rel=preload; as=style"));
+          assertTrue(links.contains("<coin.png>; rel=preload; as=image"));
+          hinted.set(true);
+        });
+        req.send().onComplete(onSuccess(resp -> {
+          assertTrue(hinted.get());
+          assertEquals(200, resp.statusCode());
+          assertEquals(HttpVersion.HTTP_2, resp.version());
+          resp.bodyHandler(this::assertNotNull);
+          testComplete();
+        }));
       }));
 
     await();
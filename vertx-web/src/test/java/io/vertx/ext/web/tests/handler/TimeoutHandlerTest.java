@@ -16,13 +16,24 @@
 
 package io.vertx.ext.web.tests.handler;
 
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientResponse;
 import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.PoolOptions;
+import io.vertx.core.http.RequestOptions;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.TimeoutHandler;
 import io.vertx.ext.web.tests.WebTestBase;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author <a href="http://tfox.org">Tim Fox</a>
@@ -39,6 +50,90 @@ public class TimeoutHandlerTest extends WebTestBase {
     testRequest(HttpMethod.GET, "/", 503, "Service Unavailable");
   }
 
+  @Test
+  public void testTimeoutResolution() throws Exception {
+    router.route().handler(TimeoutHandler.create(200, 504, 10));
+    router.route().handler(rc -> {
+      // Don't end it
+    });
+    long start = System.currentTimeMillis();
+    testRequest(HttpMethod.GET, "/", 504, "Gateway Timeout");
+    long elapsed = System.currentTimeMillis() - start;
+    assertTrue(String.valueOf(elapsed), elapsed >= 200);
+  }
+
+  @Test
+  public void testTimeoutNeverEarly() throws Exception {
+    List<Long> elapsed = new CopyOnWriteArrayList<>();
+    router.route().handler(rc -> {
+      rc.put("start", System.nanoTime());
+      rc.next();
+    });
+    // 50ms ticks
+    router.route().handler(TimeoutHandler.create(500));
+    router.route().handler(rc -> {
+      // Don't end it
+    });
+    router.route().failureHandler(rc -> {
+      elapsed.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - (long) rc.get("start")));
+      rc.next();
+    });
+    for (int i = 0; i < 3; i++) {
+      testRequest(HttpMethod.GET, "/", 503, "Service Unavailable");
+      // start the next request at another point of the tick
+      Thread.sleep(17);
+    }
+    assertEquals(3, elapsed.size());
+    for (long ms : elapsed) {
+      // measured on the server, the client time includes the connection
+      assertTrue(String.valueOf(ms), ms >= 500);
+    }
+  }
+
+  @Test
+  public void testTimeoutOnRequestContext() throws Exception {
+    AtomicInteger sameContext = new AtomicInteger();
+    router.route().handler(TimeoutHandler.create(300));
+    router.route().handler(rc -> {
+      rc.put("context", Vertx.currentContext());
+      // Don't end it
+    });
+    router.route().failureHandler(rc -> {
+      if (Vertx.currentContext() == rc.get("context")) {
+        sameContext.incrementAndGet();
+      }
+      rc.next();
+    });
+    // concurrent requests share the wheel of the event loop
+    HttpClient client = vertx.createHttpClient(new PoolOptions().setHttp1MaxSize(3));
+    List<Future<HttpClientResponse>> responses = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      responses.add(client
+        .request(new RequestOptions().setPort(8080).setURI("/"))
+        .compose(req -> req.send()));
+    }
+    for (Future<HttpClientResponse> resp : responses) {
+      assertEquals(503, awaitFuture(resp).statusCode());
+    }
+    assertEquals(3, sameContext.get());
+    client.close();
+  }
+
+  @Test
+  public void testManyTimeouts() throws Exception {
+    router.route().handler(TimeoutHandler.create(300));
+    router.route("/slow").handler(rc -> {
+      // Don't end it
+    });
+    router.route("/fast").handler(rc -> rc.response().end());
+    for (int i = 0; i < 5; i++) {
+      testRequest(HttpMethod.GET, "/fast", 200, "OK");
+    }
+    testRequest(HttpMethod.GET, "/slow", 503, "Service Unavailable");
+    // the cancelled timeouts of the fast requests do not fire
+    testRequest(HttpMethod.GET, "/fast", 200, "OK");
+  }
+
   @Test
   public void testTimeoutWithCustomBodyEndHandler() throws Exception {
     long timeout = 500;
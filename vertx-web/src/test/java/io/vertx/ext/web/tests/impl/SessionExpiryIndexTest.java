@@ -0,0 +1,61 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.ext.web.tests.impl;
+
+import io.vertx.ext.web.sstore.LocalSessionStore;
+import io.vertx.ext.web.sstore.impl.SessionExpiryIndex;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class SessionExpiryIndexTest {
+
+  @Test
+  public void testCollectOnlyVisitsExpiringSessions() {
+    SessionExpiryIndex index = new SessionExpiryIndex(LocalSessionStore.DEFAULT_REAPER_INTERVAL);
+    int sessions = 1_000_000;
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < sessions; i++) {
+      index.schedule("s" + i, now + 60_000 + i % 60_000);
+    }
+    // deadlines are rounded up to the resolution, a session is only collected a tick after its deadline
+    index.schedule("expired", now - LocalSessionStore.DEFAULT_REAPER_INTERVAL);
+    // a tick with a single due session must not depend on the total number of sessions
+    assertEquals(Collections.singletonList("expired"), index.collect(now));
+    assertEquals(sessions, index.size());
+    // a full sweep still finds everything
+    assertEquals(sessions, index.collect(now + 120_001).size());
+    assertEquals(0, index.size());
+  }
+
+  @Test
+  public void testRescheduleAndRemove() {
+    SessionExpiryIndex index = new SessionExpiryIndex(10);
+    long now = System.currentTimeMillis();
+    index.schedule("a", now + 100);
+    index.schedule("b", now + 100);
+    // moving the deadline replaces the previous one
+    index.schedule("a", now + 1_000);
+    index.remove("b");
+    assertEquals(1, index.size());
+    assertTrue(index.collect(now + 500).isEmpty());
+    assertEquals(Collections.singletonList("a"), index.collect(now + 1_011));
+    assertEquals(0, index.size());
+  }
+}